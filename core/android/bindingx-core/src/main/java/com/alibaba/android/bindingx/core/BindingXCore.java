@@ -20,11 +20,14 @@ import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.text.TextUtils;
 
+import com.alibaba.android.bindingx.core.internal.AbstractEventHandler;
 import com.alibaba.android.bindingx.core.internal.BindingXConstants;
+import com.alibaba.android.bindingx.core.internal.BindingXMultiTouchHandler;
 import com.alibaba.android.bindingx.core.internal.BindingXOrientationHandler;
 import com.alibaba.android.bindingx.core.internal.ExpressionPair;
 import com.alibaba.android.bindingx.core.internal.BindingXTimingHandler;
 import com.alibaba.android.bindingx.core.internal.BindingXTouchHandler;
+import com.alibaba.android.bindingx.core.internal.EvaluationThread;
 import com.alibaba.android.bindingx.core.internal.Utils;
 
 import org.json.JSONObject;
@@ -48,6 +51,8 @@ public class BindingXCore {
     private final Map<String, ObjectCreator<IEventHandler, Context, PlatformManager>> mInternalEventHandlerCreatorMap =
             new HashMap<>(8);
     private final PlatformManager mPlatformManager;
+    // evaluates the input events off the main thread, null if disabled
+    private EvaluationThread mEvaluationThread;
 
     /**
      * default constructor
@@ -62,6 +67,14 @@ public class BindingXCore {
                 return new BindingXTouchHandler(context, manager, extension);
             }
         });
+        ObjectCreator<IEventHandler, Context, PlatformManager> multiTouchCreator = new ObjectCreator<IEventHandler, Context, PlatformManager>() {
+            @Override
+            public IEventHandler createWith(@NonNull Context context,@NonNull PlatformManager manager, Object... extension) {
+                return new BindingXMultiTouchHandler(context, manager, extension);
+            }
+        };
+        registerEventHandler(BindingXEventType.TYPE_PINCH, multiTouchCreator);
+        registerEventHandler(BindingXEventType.TYPE_ROTATION, multiTouchCreator);
         registerEventHandler(BindingXEventType.TYPE_ORIENTATION, new ObjectCreator<IEventHandler, Context, PlatformManager>() {
             @Override
             public IEventHandler createWith(@NonNull Context context,@NonNull PlatformManager manager, Object... extension) {
@@ -160,7 +173,49 @@ public class BindingXCore {
         }
     }
 
+    /**
+     * evaluates the expressions of scroll, pan and orientation events on a dedicated thread
+     * instead of the thread of the event. Timing bindings stay on the frame loop.
+     *
+     * Disabled by default. Must be called on the main thread.
+     * */
+    public void setEvaluationThreadEnabled(boolean enabled) {
+        if (enabled == (mEvaluationThread != null)) {
+            return;
+        }
+        if (enabled) {
+            mEvaluationThread = new EvaluationThread();
+            mEvaluationThread.start();
+        } else {
+            mEvaluationThread.quit();
+            mEvaluationThread = null;
+        }
+        if (mBindingCouples != null) {
+            for (Map<String/*eventType*/, IEventHandler> handlerMap : mBindingCouples.values()) {
+                if (handlerMap != null) {
+                    for (IEventHandler h : handlerMap.values()) {
+                        applyEvaluationThread(h);
+                    }
+                }
+            }
+        }
+    }
+
+    public boolean isEvaluationThreadEnabled() {
+        return mEvaluationThread != null;
+    }
+
+    private void applyEvaluationThread(@Nullable IEventHandler handler) {
+        if (handler instanceof AbstractEventHandler && !(handler instanceof BindingXTimingHandler)) {
+            ((AbstractEventHandler) handler).setEvaluationExecutor(mEvaluationThread);
+        }
+    }
+
     public void doRelease() {
+        if (mEvaluationThread != null) {
+            mEvaluationThread.quit();
+            mEvaluationThread = null;
+        }
         if (mBindingCouples != null) {
             try {
                 for (Map<String/*eventType*/, IEventHandler> handlerMap : mBindingCouples.values()) {
@@ -223,6 +278,7 @@ public class BindingXCore {
                 /*maybe anchor is not in current instance*/
                 targetHandler.setAnchorInstanceId(anchorInstanceId);
                 targetHandler.setToken(token);
+                applyEvaluationThread(targetHandler);
                 if (targetHandler.onCreate(token, eventType)) {
                     targetHandler.onStart(token, eventType);
                     // put to the handler map
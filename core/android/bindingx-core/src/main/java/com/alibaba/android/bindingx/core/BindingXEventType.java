@@ -29,4 +29,6 @@ public interface BindingXEventType {
     String TYPE_ORIENTATION = "orientation";
     String TYPE_TIMING = "timing";
     String TYPE_SCROLL = "scroll";
+    String TYPE_PINCH = "pinch";
+    String TYPE_ROTATION = "rotation";
 }
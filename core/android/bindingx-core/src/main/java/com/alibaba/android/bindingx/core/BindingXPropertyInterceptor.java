@@ -15,12 +15,13 @@
  */
 package com.alibaba.android.bindingx.core;
 
-import android.os.Handler;
-import android.os.Looper;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.view.View;
 
+import com.alibaba.android.bindingx.core.internal.TypedValue;
+
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
@@ -36,8 +37,6 @@ import java.util.Map;
  */
 public class BindingXPropertyInterceptor {
 
-    private final Handler sUIHandler = new Handler(Looper.getMainLooper());
-
     private final LinkedList<IPropertyUpdateInterceptor> mPropertyInterceptors = new LinkedList<>();
 
     private static BindingXPropertyInterceptor sInstance = new BindingXPropertyInterceptor();
@@ -74,25 +73,30 @@ public class BindingXPropertyInterceptor {
         if(mPropertyInterceptors.isEmpty()) {
             return;
         }
+        // typed values are recycled before the interceptors run, and interceptors written before
+        // typed values existed cast the values of translate() and the like to ArrayList
+        final Object value = propertyValue instanceof TypedValue ? new ArrayList<Object>((TypedValue) propertyValue) : propertyValue;
 
-        sUIHandler.post(new WeakRunnable(new Runnable() {
+        Runnable update = new Runnable() {
             @Override
             public void run() {
                 for(BindingXPropertyInterceptor.IPropertyUpdateInterceptor interceptor : mPropertyInterceptors) {
                     interceptor.updateView(
                             targetView,
                             propertyName,
-                            propertyValue,
+                            value,
                             translator,
                             config,
                             extension);
                 }
             }
-        }));
+        };
+        // virtual nodes have no view to tell their updates apart, none of them is dropped
+        ViewUpdateBuffer.getInstance().post(this, targetView, propertyName, update);
     }
 
     public void clearCallbacks() {
-        sUIHandler.removeCallbacksAndMessages(null);
+        ViewUpdateBuffer.getInstance().clear(this);
     }
 
     @NonNull
@@ -0,0 +1,382 @@
+/**
+ * Copyright 2018 Alibaba Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.android.bindingx.core;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import android.view.Choreographer;
+
+import com.alibaba.android.bindingx.core.internal.SpscRingBuffer;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Description:
+ *
+ * The view updates of a frame. Updaters post (target, property, update) records while the
+ * expressions are evaluated, and a single main thread task applies all of them on the next vsync
+ * instead of one message per property.
+ *
+ * The latest update of a (target, property) wins: if the main thread lags behind, the stale
+ * updates in between are dropped rather than applied one after another. Updates are applied in the
+ * order their (target, property) was first posted.
+ *
+ * Updates must not read values which are recycled after they are posted, see
+ * {@link com.alibaba.android.bindingx.core.internal.TypedValue}.
+ *
+ * A thread which posts a lot, like the evaluation thread, opens an inbox: its updates go through a
+ * lock free ring buffer and are merged into the batch by the main thread, the poster never waits
+ * for the lock the main thread holds while it merges.
+ */
+
+public final class ViewUpdateBuffer {
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int INBOX_CAPACITY = 256;
+
+    private static ViewUpdateBuffer sInstance;
+
+    private final Scheduler mScheduler;
+    private final Object mLock = new Object();
+
+    // double buffered, updates are posted to one while the other is applied
+    private Batch mPending = new Batch();
+    private Batch mApplying = new Batch();
+    private final AtomicBoolean mScheduled = new AtomicBoolean();
+
+    private final ThreadLocal<Inbox> mInbox = new ThreadLocal<>();
+    private final CopyOnWriteArrayList<Inbox> mInboxes = new CopyOnWriteArrayList<>();
+
+    // statistics
+    private long mAppliedCount;
+    private long mDroppedCount;
+
+    @VisibleForTesting
+    ViewUpdateBuffer(@NonNull Scheduler scheduler) {
+        this.mScheduler = scheduler;
+    }
+
+    @NonNull
+    public static synchronized ViewUpdateBuffer getInstance() {
+        if (sInstance == null) {
+            sInstance = new ViewUpdateBuffer(new MainThreadScheduler());
+        }
+        return sInstance;
+    }
+
+    /**
+     * @param owner the poster of the update, see {@link #clear(Object)}
+     * @param target the view or the node which is updated. Updates with a null target are never dropped.
+     * @param property what the update changes on the target
+     * @param update runs on the main thread
+     * */
+    public void post(@NonNull Object owner, @Nullable Object target, @NonNull Object property, @NonNull Runnable update) {
+        Inbox inbox = mInbox.get();
+        if (inbox == null || !inbox.ring.offer(new Posted(owner, target, property, update))) {
+            synchronized (mLock) {
+                if (inbox != null) {
+                    // the inbox is full, its older updates must not overwrite this one later
+                    drainInboxes();
+                }
+                add(mPending, owner, target, property, update);
+            }
+        }
+        if (mScheduled.compareAndSet(false, true)) {
+            mScheduler.schedule(this);
+        }
+    }
+
+    /**
+     * the updates of the calling thread go through a lock free inbox from now on
+     * */
+    public void openInbox() {
+        if (mInbox.get() != null) {
+            return;
+        }
+        Inbox inbox = new Inbox();
+        mInbox.set(inbox);
+        mInboxes.add(inbox);
+    }
+
+    /**
+     * the calling thread posts no more through its inbox, the updates in it are still applied
+     * */
+    public void closeInbox() {
+        Inbox inbox = mInbox.get();
+        if (inbox == null) {
+            return;
+        }
+        mInbox.remove();
+        inbox.closed = true;
+        if (mScheduled.compareAndSet(false, true)) {
+            // the last flush removes it
+            mScheduler.schedule(this);
+        }
+    }
+
+    // guarded by mLock
+    private void add(Batch batch, Object owner, Object target, Object property, Runnable update) {
+        int index = target == null ? -1 : batch.indexOf(owner, target, property);
+        if (index >= 0) {
+            // the stale value is never applied
+            batch.updates[index] = update;
+            mDroppedCount++;
+        } else {
+            batch.add(owner, target, property, update);
+        }
+    }
+
+    // guarded by mLock, which makes the holder the only consumer of the inboxes
+    private void drainInboxes() {
+        for (Inbox inbox : mInboxes) {
+            // read before draining, a closed inbox gets no more updates after it
+            boolean closed = inbox.closed;
+            Posted posted;
+            while ((posted = inbox.ring.poll()) != null) {
+                add(mPending, posted.owner, posted.target, posted.property, posted.update);
+            }
+            if (closed) {
+                mInboxes.remove(inbox);
+            }
+        }
+    }
+
+    /**
+     * drops the pending updates of the owner
+     * */
+    public void clear(@NonNull Object owner) {
+        synchronized (mLock) {
+            drainInboxes();
+            mPending.removeAll(owner);
+        }
+    }
+
+    /**
+     * applies the pending updates on the calling thread, which must be the main thread. Updates
+     * posted meanwhile are applied by the next flush.
+     * */
+    public void flush() {
+        Batch batch;
+        // an update posted from now on schedules the next flush, any before is merged below
+        mScheduled.set(false);
+        synchronized (mLock) {
+            drainInboxes();
+            batch = mPending;
+            mPending = mApplying;
+            mApplying = batch;
+        }
+        int size = batch.size;
+        try {
+            for (int i = 0; i < size; i++) {
+                try {
+                    batch.updates[i].run();
+                } catch (RuntimeException e) {
+                    LogProxy.e("failed to update property " + batch.properties[i], e);
+                }
+            }
+        } finally {
+            batch.clear();
+            synchronized (mLock) {
+                mAppliedCount += size;
+            }
+        }
+    }
+
+    public int getPendingCount() {
+        synchronized (mLock) {
+            drainInboxes();
+            return mPending.size;
+        }
+    }
+
+    /**
+     * @return the number of updates which have been applied
+     * */
+    public long getAppliedCount() {
+        synchronized (mLock) {
+            return mAppliedCount;
+        }
+    }
+
+    /**
+     * @return the number of updates which were replaced by a later one before they were applied
+     * */
+    public long getDroppedCount() {
+        synchronized (mLock) {
+            return mDroppedCount;
+        }
+    }
+
+    private static final class Inbox {
+        final SpscRingBuffer<Posted> ring = new SpscRingBuffer<>(INBOX_CAPACITY);
+        volatile boolean closed;
+    }
+
+    private static final class Posted {
+        final Object owner;
+        final Object target;
+        final Object property;
+        final Runnable update;
+
+        Posted(Object owner, Object target, Object property, Runnable update) {
+            this.owner = owner;
+            this.target = target;
+            this.property = property;
+            this.update = update;
+        }
+    }
+
+    private static final class Batch {
+        Object[] owners = new Object[INITIAL_CAPACITY];
+        Object[] targets = new Object[INITIAL_CAPACITY];
+        Object[] properties = new Object[INITIAL_CAPACITY];
+        Runnable[] updates = new Runnable[INITIAL_CAPACITY];
+        int size;
+
+        int indexOf(Object owner, Object target, Object property) {
+            // a frame updates a few dozens of properties at most, a scan beats hashing here
+            for (int i = 0; i < size; i++) {
+                if (targets[i] == target && owners[i] == owner && properties[i].equals(property)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        void add(Object owner, Object target, Object property, Runnable update) {
+            if (size == updates.length) {
+                int capacity = size * 2;
+                owners = copyOf(owners, capacity);
+                targets = copyOf(targets, capacity);
+                properties = copyOf(properties, capacity);
+                Runnable[] newUpdates = new Runnable[capacity];
+                System.arraycopy(updates, 0, newUpdates, 0, size);
+                updates = newUpdates;
+            }
+            owners[size] = owner;
+            targets[size] = target;
+            properties[size] = property;
+            updates[size] = update;
+            size++;
+        }
+
+        void removeAll(Object owner) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (owners[i] == owner) {
+                    continue;
+                }
+                owners[kept] = owners[i];
+                targets[kept] = targets[i];
+                properties[kept] = properties[i];
+                updates[kept] = updates[i];
+                kept++;
+            }
+            for (int i = kept; i < size; i++) {
+                release(i);
+            }
+            size = kept;
+        }
+
+        void clear() {
+            for (int i = 0; i < size; i++) {
+                release(i);
+            }
+            size = 0;
+        }
+
+        private void release(int i) {
+            // views must not outlive the frame
+            owners[i] = null;
+            targets[i] = null;
+            properties[i] = null;
+            updates[i] = null;
+        }
+
+        private static Object[] copyOf(Object[] array, int capacity) {
+            Object[] copy = new Object[capacity];
+            System.arraycopy(array, 0, copy, 0, array.length);
+            return copy;
+        }
+    }
+
+    /**
+     * runs {@link ViewUpdateBuffer#flush()} once on the main thread
+     * */
+    @VisibleForTesting
+    interface Scheduler {
+        void schedule(@NonNull ViewUpdateBuffer buffer);
+    }
+
+    private static final class MainThreadScheduler implements Scheduler, Runnable {
+        private final Handler mHandler = new Handler(Looper.getMainLooper());
+        private volatile ViewUpdateBuffer mBuffer;
+        // created on the main thread, a Choreographer belongs to the thread which gets it
+        private Object mVsyncFlush;
+
+        @Override
+        public void schedule(@NonNull ViewUpdateBuffer buffer) {
+            mBuffer = buffer;
+            if (Build.VERSION.SDK_INT >= 16 && Looper.myLooper() == Looper.getMainLooper()) {
+                postVsyncFlush();
+            } else {
+                mHandler.post(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            if (Build.VERSION.SDK_INT >= 16) {
+                postVsyncFlush();
+            } else {
+                mBuffer.flush();
+            }
+        }
+
+        @TargetApi(16)
+        private void postVsyncFlush() {
+            if (mVsyncFlush == null) {
+                mVsyncFlush = new VsyncFlush(mBuffer);
+            }
+            ((VsyncFlush) mVsyncFlush).post();
+        }
+    }
+
+    @TargetApi(16)
+    private static final class VsyncFlush implements Choreographer.FrameCallback {
+        private final Choreographer mChoreographer = Choreographer.getInstance();
+        private final ViewUpdateBuffer mBuffer;
+
+        VsyncFlush(@NonNull ViewUpdateBuffer buffer) {
+            this.mBuffer = buffer;
+        }
+
+        void post() {
+            mChoreographer.postFrameCallback(this);
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            mBuffer.flush();
+        }
+    }
+}
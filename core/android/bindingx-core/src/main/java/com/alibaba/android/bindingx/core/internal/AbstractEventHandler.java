@@ -33,10 +33,11 @@ import org.json.JSONObject;
 
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Description:
@@ -52,16 +53,36 @@ public abstract class AbstractEventHandler implements IEventHandler {
 
     protected volatile Map<String/*targetRef*/, List<ExpressionHolder>> mExpressionHoldersMap;
     protected BindingXCore.JavaScriptCallback mCallback;
-    protected final Map<String, Object> mScope = new HashMap<>();
+    // variables are written into slots, see Scope
+    protected final Scope mScope = new Scope();
     protected String mInstanceId;
     protected String mAnchorInstanceId;
     protected String mToken;
     protected Context mContext;
     protected PlatformManager mPlatformManager;
 
-    protected ExpressionPair mExitExpressionPair;
-
-    private Cache<String, Expression> mCachedExpressionMap = new Cache<>(16);
+    protected volatile ExpressionPair mExitExpressionPair;
+
+    // compiled form of mExitExpressionPair
+    @Nullable
+    private volatile Expression mExitExpression;
+
+    // sub expressions shared by the holders of the current binding, null if there are none
+    @Nullable
+    private volatile CommonSubexpressions mCommonSubexpressions;
+
+    // see BindingXConstants.KEY_UPDATE_EPSILON
+    private double mUpdateEpsilon;
+    // see BindingXConstants.KEY_COALESCE_INPUT
+    private volatile boolean mCoalesceInput;
+    // see BindingXCore#setEvaluationThreadEnabled
+    @Nullable
+    private volatile Executor mEvaluationExecutor;
+    // counts the clears, a binding which is cleared before the evaluation executor applies it is dropped
+    private final AtomicInteger mClearCount = new AtomicInteger();
+    // view updates of the current binding
+    private int mDispatchedUpdateCount;
+    private int mSuppressedUpdateCount;
 
     public AbstractEventHandler(Context context, PlatformManager manager, Object... extension) {
         mContext = context;
@@ -74,27 +95,167 @@ public abstract class AbstractEventHandler implements IEventHandler {
         this.mAnchorInstanceId = anchorInstanceId;
     }
 
+    /**
+     * compiles the binding on the calling thread. The evaluation state (the expressions, the scope)
+     * is only replaced on the evaluation executor if there is one, between two evaluations.
+     * */
     @Override
     public void onBindExpression(@NonNull String eventType,
                                  @Nullable Map<String,Object> globalConfig,
-                                 @Nullable ExpressionPair exitExpressionPair,
+                                 @Nullable final ExpressionPair exitExpressionPair,
                                  @NonNull List<Map<String, Object>> expressionArgs,
                                  @Nullable BindingXCore.JavaScriptCallback callback) {
         clearExpressions();
-        transformArgs(eventType, expressionArgs);
+        final Map<String, List<ExpressionHolder>> holdersMap = transformArgs(eventType, expressionArgs);
+        Expression exitExpression = ExpressionCache.getInstance().obtain(exitExpressionPair);
+        EasingTables easingTables = EasingTables.of(globalConfig);
+        if (easingTables != null) {
+            useEasingTables(holdersMap, easingTables);
+            exitExpression = easingTables.apply(exitExpression);
+        }
+        final CommonSubexpressions commonSubexpressions = CommonSubexpressions.eliminate(holdersMap.values());
+        if (commonSubexpressions != null && LogProxy.sEnableLog) {
+            LogProxy.d(String.format(Locale.getDefault(), "%d sub expressions are shared", commonSubexpressions.size()));
+        }
+        if (globalConfig != null && BindingXConstants.EVALUATOR_BYTECODE.equals(globalConfig.get(BindingXConstants.KEY_EVALUATOR))) {
+            exitExpression = useBytecode(holdersMap, exitExpression);
+        }
+        final Expression compiledExitExpression = exitExpression;
+        final double updateEpsilon = parseUpdateEpsilon(globalConfig);
         this.mCallback = callback;
-        this.mExitExpressionPair = exitExpressionPair;
+        this.mCoalesceInput = parseCoalesceInput(globalConfig);
+
+        final int clearCount = mClearCount.get();
+        runEvaluation(new Runnable() {
+            @Override
+            public void run() {
+                if (mClearCount.get() != clearCount) {
+                    LogProxy.d("binding was cleared before it was applied");
+                    return;
+                }
+                mExpressionHoldersMap = holdersMap;
+                mCommonSubexpressions = commonSubexpressions;
+                mExitExpressionPair = exitExpressionPair;
+                mExitExpression = compiledExitExpression;
+                mUpdateEpsilon = updateEpsilon;
+                mDispatchedUpdateCount = 0;
+                mSuppressedUpdateCount = 0;
+
+                // also marks all the variables as changed for the first event
+                mScope.clear();
+                applyFunctionsToScope();
+            }
+        });
+    }
 
-        if(!mScope.isEmpty()) {
-            mScope.clear();
+    private static void useEasingTables(@NonNull Map<String, List<ExpressionHolder>> holdersMap,
+                                        @NonNull EasingTables easingTables) {
+        for (List<ExpressionHolder> holders : holdersMap.values()) {
+            for (ExpressionHolder holder : holders) {
+                holder.expression = easingTables.apply(holder.expression);
+            }
+        }
+        if (LogProxy.sEnableLog) {
+            LogProxy.d(String.format(Locale.getDefault(), "easing functions are evaluated by table (resolution %d, %s)",
+                    easingTables.resolution(), easingTables.isCubic() ? "cubic" : "linear"));
+        }
+    }
+
+    /**
+     * @return the exit expression which runs bytecode
+     * */
+    @Nullable
+    private static Expression useBytecode(@NonNull Map<String, List<ExpressionHolder>> holdersMap,
+                                          @Nullable Expression exitExpression) {
+        int count = 0;
+        for (List<ExpressionHolder> holders : holdersMap.values()) {
+            for (ExpressionHolder holder : holders) {
+                if (holder.expression != null) {
+                    holder.expression = holder.expression.toBytecode();
+                    count += holder.expression.program != null ? 1 : 0;
+                }
+            }
+        }
+        if (LogProxy.sEnableLog) {
+            LogProxy.d(String.format(Locale.getDefault(), "%d expressions are compiled to bytecode", count));
+        }
+        return exitExpression != null ? exitExpression.toBytecode() : null;
+    }
+
+    /**
+     * computes the values of the expressions which only read t ahead, see {@link KeyframeBuffer}
+     *
+     * @return the buffer of the baked expressions, null if nothing was baked
+     * */
+    @Nullable
+    KeyframeBuffer bakeKeyframes(double durationMillis, double frameMillis) {
+        return KeyframeBuffer.bake(mExpressionHoldersMap, mCommonSubexpressions, durationMillis, frameMillis);
+    }
+
+    /**
+     * @return the compiled exit expression of the current binding
+     * */
+    @Nullable
+    Expression exitExpression() {
+        return mExitExpression;
+    }
+
+    private static double parseUpdateEpsilon(@Nullable Map<String, Object> globalConfig) {
+        Object epsilon = globalConfig == null ? null : globalConfig.get(BindingXConstants.KEY_UPDATE_EPSILON);
+        if (epsilon instanceof Number) {
+            return Math.max(0, ((Number) epsilon).doubleValue());
+        }
+        if (epsilon instanceof String) {
+            try {
+                return Math.max(0, Double.parseDouble((String) epsilon));
+            } catch (NumberFormatException e) {
+                LogProxy.e("illegal " + BindingXConstants.KEY_UPDATE_EPSILON + ": " + epsilon);
+            }
+        }
+        return 0;
+    }
+
+    private static boolean parseCoalesceInput(@Nullable Map<String, Object> globalConfig) {
+        Object coalesce = globalConfig == null ? null : globalConfig.get(BindingXConstants.KEY_COALESCE_INPUT);
+        return Boolean.TRUE.equals(coalesce) || "true".equals(coalesce);
+    }
+
+    /**
+     * @return true if input events only record their state and the expressions are evaluated once
+     * per frame, see {@link InputCoalescer}
+     * */
+    boolean isInputCoalesced() {
+        return mCoalesceInput;
+    }
+
+    /**
+     * @param executor runs the evaluations of the input events, tasks of one thread must run in the
+     *                 order they are posted. Null evaluates on the thread of the event.
+     * */
+    public void setEvaluationExecutor(@Nullable Executor executor) {
+        this.mEvaluationExecutor = executor;
+    }
+
+    protected boolean hasEvaluationExecutor() {
+        return mEvaluationExecutor != null;
+    }
+
+    /**
+     * runs the evaluation on the evaluation executor if there is one, otherwise right now. The
+     * evaluation must capture the input values, it runs after the event has returned.
+     * */
+    protected void runEvaluation(@NonNull Runnable evaluation) {
+        Executor executor = mEvaluationExecutor;
+        if (executor == null) {
+            evaluation.run();
+        } else {
+            executor.execute(evaluation);
         }
-        applyFunctionsToScope();
     }
 
     @Override
     @CallSuper
     public void onDestroy() {
-        mCachedExpressionMap.clear();
         BindingXPropertyInterceptor.getInstance().clearCallbacks();
     }
 
@@ -103,10 +264,10 @@ public abstract class AbstractEventHandler implements IEventHandler {
         TimingFunctions.applyToScope(mScope);
     }
 
-    private void transformArgs(@NonNull String eventType, @NonNull List<Map<String, Object>> originalArgs) {
-        if (mExpressionHoldersMap == null) {
-            mExpressionHoldersMap = new HashMap<>();
-        }
+    @NonNull
+    private static Map<String, List<ExpressionHolder>> transformArgs(@NonNull String eventType,
+                                                                    @NonNull List<Map<String, Object>> originalArgs) {
+        Map<String, List<ExpressionHolder>> holdersMap = new HashMap<>();
         for (Map<String, Object> arg : originalArgs) {
             String targetRef = Utils.getStringValue(arg, BindingXConstants.KEY_ELEMENT);
             String targetInstanceId = Utils.getStringValue(arg, BindingXConstants.KEY_INSTANCE_ID);
@@ -129,16 +290,19 @@ public abstract class AbstractEventHandler implements IEventHandler {
                 continue;
             }
             ExpressionHolder holder = new ExpressionHolder(targetRef,targetInstanceId, expressionPair, property, eventType, configMap);
+            // compile once at bind time. expressions are immutable and shared between handlers.
+            holder.expression = ExpressionCache.getInstance().obtain(expressionPair);
 
-            List<ExpressionHolder> holders = mExpressionHoldersMap.get(targetRef);
+            List<ExpressionHolder> holders = holdersMap.get(targetRef);
             if (holders == null) {
                 holders = new ArrayList<>(4);
-                mExpressionHoldersMap.put(targetRef, holders);
+                holdersMap.put(targetRef, holders);
                 holders.add(holder);
             } else if (!holders.contains(holder)) {
                 holders.add(holder);
             }
         }
+        return holdersMap;
     }
 
     /**
@@ -152,10 +316,11 @@ public abstract class AbstractEventHandler implements IEventHandler {
      * */
     boolean evaluateExitExpression(ExpressionPair exitExpression, @NonNull Map<String,Object> scope) {
         boolean exit = false;
-        if (exitExpression != null
-                && !TextUtils.isEmpty(exitExpression.transformed)
-                && !"{}".equals(exitExpression.transformed)) {
-            Expression expression = new Expression(exitExpression.transformed);
+        Expression expression = exitExpression != null && exitExpression == mExitExpressionPair
+                ? mExitExpression
+                : ExpressionCache.getInstance().obtain(exitExpression);
+        // the result can't be different from last time (which was false) if no input has changed
+        if (expression != null && expression.mayChange(changedSlotsOf(scope))) {
             try {
                 exit = (boolean) expression.execute(scope);
             } catch (Exception e) {
@@ -199,6 +364,11 @@ public abstract class AbstractEventHandler implements IEventHandler {
         if(LogProxy.sEnableLog) {
             LogProxy.d(String.format(Locale.getDefault(), "consume expression with %d tasks. event type is %s",args.size(),currentType));
         }
+        if (mCommonSubexpressions != null) {
+            // shared values are computed once per event
+            mCommonSubexpressions.invalidate();
+        }
+        int changedSlots = changedSlotsOf(scope);
         for (List<ExpressionHolder> holderList : args.values()) {
             for (ExpressionHolder holder : holderList) {
                 if (!currentType.equals(holder.eventType)) {
@@ -207,19 +377,30 @@ public abstract class AbstractEventHandler implements IEventHandler {
                 }
                 String instanceId = TextUtils.isEmpty(holder.targetInstanceId)? mInstanceId : holder.targetInstanceId;
 
-                ExpressionPair expressionPair = holder.expressionPair;
-                if(expressionPair == null
-                        || TextUtils.isEmpty(expressionPair.transformed)
-                        || "{}".equals(expressionPair.transformed)) {
+                Expression expression = holder.expression;
+                if(expression == null) {
                     continue;
                 }
-                Expression expression = mCachedExpressionMap.get(expressionPair.transformed);
-                if (expression == null) {
-                    expression = new Expression(expressionPair.transformed);
-                    mCachedExpressionMap.put(expressionPair.transformed, expression);
+                if(!expression.mayChange(changedSlots)) {
+                    // none of the variables read by the expression has changed
+                    continue;
                 }
 
-                Object obj = expression.execute(scope);
+                Object obj;
+                if (expression.isColor()) {
+                    int color = expression.executeColor(scope);
+                    if (holder.isSameColorAsLastValue(color)) {
+                        mSuppressedUpdateCount++;
+                        continue;
+                    }
+                    // box only if the view changes
+                    obj = color;
+                } else if (expression.isTyped()) {
+                    // recycled, the updaters read it before they return
+                    obj = expression.executeInto(scope, holder.recycledValue(expression));
+                } else {
+                    obj = expression.execute(scope);
+                }
                 if (obj == null) {
                     LogProxy.e("failed to execute expression,expression result is null");
                     continue;
@@ -229,6 +410,11 @@ public abstract class AbstractEventHandler implements IEventHandler {
                     LogProxy.e("failed to execute expression,expression result is NaN");
                     continue;
                 }
+                if(holder.isSameAsLastValue(obj, mUpdateEpsilon)) {
+                    // the view already shows this value
+                    mSuppressedUpdateCount++;
+                    continue;
+                }
                 //apply transformation/layout change ... to target view.
 
                 View targetView = mPlatformManager.getViewFinder().findViewBy(holder.targetRef, instanceId);
@@ -257,38 +443,50 @@ public abstract class AbstractEventHandler implements IEventHandler {
                         holder.targetRef,/*additional params for weex*/
                         instanceId       /*additional params for weex*/
                 );
+                holder.lastValue = obj;
+                mDispatchedUpdateCount++;
             }
         }
 
     }
 
+    private static int changedSlotsOf(@NonNull Map<String, Object> scope) {
+        return scope instanceof Scope ? ((Scope) scope).changedSlots() : Scope.ALL_SLOTS;
+    }
+
     protected abstract void onExit(@NonNull Map<String, Object> scope);
 
+    /**
+     * @return the number of view updates of the current binding which were skipped because the
+     * value had already been applied
+     * */
+    int getSuppressedUpdateCount() {
+        return mSuppressedUpdateCount;
+    }
+
+    int getDispatchedUpdateCount() {
+        return mDispatchedUpdateCount;
+    }
+
+    /**
+     * may be called on any thread. The map of the holders is dropped rather than emptied, an
+     * evaluation which is running on the evaluation executor finishes with it.
+     * */
     void clearExpressions() {
+        mClearCount.incrementAndGet();
         LogProxy.d("all expression are cleared");
-        if (mExpressionHoldersMap != null) {
-            mExpressionHoldersMap.clear();
-            mExpressionHoldersMap = null;
+        if (LogProxy.sEnableLog && (mDispatchedUpdateCount > 0 || mSuppressedUpdateCount > 0)) {
+            LogProxy.d(String.format(Locale.getDefault(), "%d view updates dispatched, %d suppressed",
+                    mDispatchedUpdateCount, mSuppressedUpdateCount));
         }
+        mExpressionHoldersMap = null;
+        mCommonSubexpressions = null;
         mExitExpressionPair = null;
+        mExitExpression = null;
     }
 
     @Override
     public void setToken(String token) {
         this.mToken = token;
     }
-
-    static class Cache<K, V> extends LinkedHashMap<K, V> {
-        private int maxSize;
-
-        Cache(int maxSize) {
-            super(4, 0.75f, true);
-            this.maxSize = Math.max(maxSize, 4);
-        }
-
-        @Override
-        protected boolean removeEldestEntry(Entry eldest) {
-            return size() > maxSize;
-        }
-    }
 }
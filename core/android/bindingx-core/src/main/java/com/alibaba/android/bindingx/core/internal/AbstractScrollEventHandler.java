@@ -18,6 +18,7 @@ package com.alibaba.android.bindingx.core.internal;
 import android.content.Context;
 import android.support.annotation.CallSuper;
 import android.support.annotation.NonNull;
+import android.support.annotation.VisibleForTesting;
 
 import com.alibaba.android.bindingx.core.BindingXEventType;
 import com.alibaba.android.bindingx.core.LogProxy;
@@ -41,6 +42,14 @@ public abstract class AbstractScrollEventHandler extends AbstractEventHandler {
     protected int mContentOffsetX, mContentOffsetY;
     private boolean isStart = false;
 
+    // evaluates the newest scroll state once per frame if the binding asks for it
+    private InputCoalescer mInputCoalescer;
+    // scroll events may arrive on another thread than the frame callback which evaluates them
+    private final Object mPendingLock = new Object();
+    // the deltas of the events since the last evaluation add up, the offsets and tdx/tdy are the newest
+    private int mPendingContentOffsetX, mPendingContentOffsetY;
+    private int mPendingDx, mPendingDy, mPendingTdx, mPendingTdy;
+
     public AbstractScrollEventHandler(Context context, PlatformManager manager, Object... extension) {
         super(context, manager, extension);
     }
@@ -48,6 +57,7 @@ public abstract class AbstractScrollEventHandler extends AbstractEventHandler {
     @Override
     @CallSuper
     public boolean onDisable(@NonNull String sourceRef, @NonNull String eventType) {
+        cancelPendingScroll();
         clearExpressions();
         isStart = false;
         fireEventByState(BindingXConstants.STATE_END, mContentOffsetX, mContentOffsetY,0,0,0,0);
@@ -65,6 +75,7 @@ public abstract class AbstractScrollEventHandler extends AbstractEventHandler {
     @CallSuper
     public void onDestroy() {
         super.onDestroy();
+        cancelPendingScroll();
         isStart = false;
     }
 
@@ -92,6 +103,74 @@ public abstract class AbstractScrollEventHandler extends AbstractEventHandler {
             fireEventByState(BindingXConstants.STATE_START,contentOffsetX,contentOffsetY,dx,dy,tdx,tdy);
         }
 
+        if(isInputCoalesced()) {
+            InputCoalescer coalescer;
+            synchronized (mPendingLock) {
+                mPendingContentOffsetX = contentOffsetX;
+                mPendingContentOffsetY = contentOffsetY;
+                mPendingDx += dx;
+                mPendingDy += dy;
+                mPendingTdx = tdx;
+                mPendingTdy = tdy;
+                if(mInputCoalescer == null) {
+                    mInputCoalescer = new InputCoalescer(new Runnable() {
+                        @Override
+                        public void run() {
+                            evaluatePendingScroll();
+                        }
+                    });
+                }
+                coalescer = mInputCoalescer;
+            }
+            coalescer.request();
+            return;
+        }
+        dispatchScroll(contentOffsetX, contentOffsetY, dx, dy, tdx, tdy);
+    }
+
+    @VisibleForTesting
+    void evaluatePendingScroll() {
+        int contentOffsetX, contentOffsetY, dx, dy, tdx, tdy;
+        synchronized (mPendingLock) {
+            contentOffsetX = mPendingContentOffsetX;
+            contentOffsetY = mPendingContentOffsetY;
+            dx = mPendingDx;
+            dy = mPendingDy;
+            tdx = mPendingTdx;
+            tdy = mPendingTdy;
+            mPendingDx = 0;
+            mPendingDy = 0;
+        }
+        dispatchScroll(contentOffsetX, contentOffsetY, dx, dy, tdx, tdy);
+    }
+
+    private void cancelPendingScroll() {
+        InputCoalescer coalescer;
+        synchronized (mPendingLock) {
+            coalescer = mInputCoalescer;
+            mPendingDx = 0;
+            mPendingDy = 0;
+        }
+        if(coalescer != null) {
+            coalescer.cancel();
+        }
+    }
+
+    private void dispatchScroll(final int contentOffsetX, final int contentOffsetY, final int dx, final int dy,
+                                final int tdx, final int tdy) {
+        if(!hasEvaluationExecutor()) {
+            evaluateScroll(contentOffsetX, contentOffsetY, dx, dy, tdx, tdy);
+            return;
+        }
+        runEvaluation(new Runnable() {
+            @Override
+            public void run() {
+                evaluateScroll(contentOffsetX, contentOffsetY, dx, dy, tdx, tdy);
+            }
+        });
+    }
+
+    private void evaluateScroll(int contentOffsetX, int contentOffsetY, int dx, int dy, int tdx, int tdy) {
         try {
             JSMath.applyScrollValuesToScope(mScope, contentOffsetX, contentOffsetY, dx, dy, tdx, tdy, mPlatformManager.getResolutionTranslator());
             if(!evaluateExitExpression(mExitExpressionPair,mScope)) {
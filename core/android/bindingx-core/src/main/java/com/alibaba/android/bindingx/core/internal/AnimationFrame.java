@@ -15,18 +15,12 @@
  */
 package com.alibaba.android.bindingx.core.internal;
 
-import android.annotation.TargetApi;
-import android.os.Build;
-import android.os.Handler;
-import android.os.HandlerThread;
-import android.os.Message;
 import android.support.annotation.NonNull;
-import android.view.Choreographer;
 
 /**
  * Description:
  *
- * Coordinates the timing of animations
+ * Coordinates the timing of animations. All the frames share the loop of {@link FrameScheduler}.
  *
  * Created by rowandjj(chuyi)<br/>
  */
@@ -34,13 +28,7 @@ import android.view.Choreographer;
 abstract class AnimationFrame {
 
     static AnimationFrame newInstance() {
-        AnimationFrame frame = null;
-        if(Build.VERSION.SDK_INT >= 16) {
-            frame = new ChoreographerAnimationFrameImpl();
-        } else {
-            frame = new HandlerAnimationFrameImpl();
-        }
-        return frame;
+        return new ScheduledAnimationFrame(FrameScheduler.getInstance());
     }
 
     abstract void clear();
@@ -49,117 +37,55 @@ abstract class AnimationFrame {
 
     abstract void requestAnimationFrame(@NonNull Callback callback);
 
-    interface Callback {
-        void doFrame();
+    /**
+     * @return the time between two frames of the display
+     * */
+    long getFrameIntervalNanos() {
+        return FrameClock.DEFAULT_FRAME_INTERVAL_NANOS;
     }
 
-    @TargetApi(16)
-    private static class ChoreographerAnimationFrameImpl extends AnimationFrame implements Choreographer.FrameCallback{
-
-        private Choreographer choreographer;
-        private Callback callback;
-        private boolean isRunning;
-
-        @TargetApi(16)
-        ChoreographerAnimationFrameImpl() {
-            choreographer = Choreographer.getInstance();
-        }
-
-        @Override
-        void clear() {
-            if(choreographer != null) {
-                choreographer.removeFrameCallback(this);
-            }
-            this.isRunning = false;
-        }
-
-        @Override
-        void terminate() {
-            clear();
-            choreographer = null;
-        }
-
-        @Override
-        void requestAnimationFrame(@NonNull Callback callback) {
-            this.callback = callback;
-            this.isRunning = true;
-            if(choreographer != null) {
-                choreographer.postFrameCallback(this);
-            }
-        }
-
-        @Override
-        public void doFrame(long frameTimeNanos) {
-            if(callback != null) {
-                callback.doFrame();
-            }
-            if(choreographer != null && isRunning) {
-                choreographer.postFrameCallback(this);
-            }
-        }
+    interface Callback {
+        /**
+         * @param frameTimeNanos the vsync timestamp of the frame, in the {@link System#nanoTime()} time base
+         * */
+        void doFrame(long frameTimeNanos);
     }
 
-    private static class HandlerAnimationFrameImpl extends AnimationFrame implements Handler.Callback{
-
-        private HandlerThread mInnerHandlerThread;
-        private Handler mInnerHandler;
+    private static class ScheduledAnimationFrame extends AnimationFrame {
 
+        private final FrameScheduler scheduler;
         private Callback callback;
-        private boolean isRunning;
-
-        private static final int MSG_FRAME_CALLBACK = 100;
-        private static final long DEFAULT_DELAY_MILLIS = 16;
 
-        HandlerAnimationFrameImpl() {
-            if(mInnerHandlerThread != null) {
-                terminate();
-            }
-            mInnerHandlerThread = new HandlerThread("expression-timing-thread");
-            mInnerHandlerThread.start();
-            mInnerHandler = new Handler(mInnerHandlerThread.getLooper(), this);
+        ScheduledAnimationFrame(@NonNull FrameScheduler scheduler) {
+            this.scheduler = scheduler;
         }
 
         @Override
         void clear() {
-            if(mInnerHandler != null) {
-                mInnerHandler.removeCallbacksAndMessages(null);
+            if(callback != null) {
+                scheduler.remove(callback);
             }
-            isRunning = false;
         }
 
         @Override
         void terminate() {
+            // the loop is shared, there is nothing else to release
             clear();
-            if(Build.VERSION.SDK_INT >= 18) {
-                mInnerHandlerThread.quitSafely();
-            } else {
-                mInnerHandlerThread.quit();
-            }
-            mInnerHandler = null;
-            mInnerHandlerThread = null;
+            callback = null;
         }
 
         @Override
         void requestAnimationFrame(@NonNull Callback callback) {
-            this.callback = callback;
-            this.isRunning = true;
-            if(mInnerHandler != null) {
-                mInnerHandler.sendEmptyMessage(MSG_FRAME_CALLBACK);
+            if(this.callback != null && this.callback != callback) {
+                scheduler.remove(this.callback);
             }
+            this.callback = callback;
+            scheduler.add(callback);
         }
 
         @Override
-        public boolean handleMessage(Message msg) {
-            if(msg != null && msg.what == MSG_FRAME_CALLBACK && mInnerHandler != null) {
-                if(callback != null) {
-                    callback.doFrame();
-                }
-                if(isRunning) {
-                    mInnerHandler.sendEmptyMessageDelayed(MSG_FRAME_CALLBACK, DEFAULT_DELAY_MILLIS);
-                }
-                return true;
-            }
-            return false;
+        long getFrameIntervalNanos() {
+            return scheduler.getFrameIntervalNanos();
         }
     }
 
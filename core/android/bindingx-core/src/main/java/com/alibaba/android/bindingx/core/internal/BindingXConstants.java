@@ -37,6 +37,7 @@ public class BindingXConstants {
     public static final String STATE_CANCEL = "cancel";
     public static final String STATE_EXIT = "exit";
     public static final String STATE_TURNING = "turn";
+    public static final String STATE_FLING = "fling";
 
     public static final String KEY_ELEMENT = "element";
     public static final String KEY_PROPERTY = "property";
@@ -53,13 +54,48 @@ public class BindingXConstants {
     public static final String KEY_TOKEN = "token";
 
     public static final String KEY_SCENE_TYPE = "sceneType";
+    // values which differ from the last applied value by no more than this are not applied again
+    public static final String KEY_UPDATE_EPSILON = "updateEpsilon";
+    // "tree" (default) or "bytecode", see BytecodeProgram
+    public static final String KEY_EVALUATOR = "evaluator";
+    public static final String EVALUATOR_BYTECODE = "bytecode";
+    // "analytic" (default), "table" or "table-cubic", see EasingTables
+    public static final String KEY_EASING = "easing";
+    public static final String KEY_EASING_RESOLUTION = "easingResolution";
+    public static final String EASING_ANALYTIC = "analytic";
+    public static final String EASING_TABLE = "table";
+    public static final String EASING_TABLE_CUBIC = "table-cubic";
+    // what a timing binding does after dropped frames, "catch-up" (default) or "stretch", see FrameClock
+    public static final String KEY_FRAME_DROP_POLICY = "frameDropPolicy";
+    public static final String FRAME_DROP_CATCH_UP = "catch-up";
+    public static final String FRAME_DROP_STRETCH = "stretch";
+    // true to evaluate scroll, pan and orientation bindings once per frame with the newest input, see InputCoalescer
+    public static final String KEY_COALESCE_INPUT = "coalesceInput";
+    // true to let a pan binding go on with the release velocity after the finger is up, see FlingSimulation
+    public static final String KEY_FLING = "fling";
+    // fraction of the velocity kept per millisecond, 0.998 by default
+    public static final String KEY_FLING_DECELERATION = "flingDeceleration";
+    // of the spring which pulls the content back into its bounds, 180 by default
+    public static final String KEY_SPRING_STIFFNESS = "springStiffness";
+    // true (default) to let the content run past its bounds and spring back, false to stop at them
+    public static final String KEY_RUBBER_BAND = "rubberBand";
+    // the bounds of x and y of a fling, unbounded if not set
+    public static final String KEY_MIN_X = "minX";
+    public static final String KEY_MAX_X = "maxX";
+    public static final String KEY_MIN_Y = "minY";
+    public static final String KEY_MAX_Y = "maxY";
+    // true to evaluate a pan binding at the finger position resampled to the vsync time, with vx and vy, see TouchSampler
+    public static final String KEY_RESAMPLE_TOUCH = "resampleTouch";
+    // true to compute the values of a timing binding ahead at bind time and play them back, see KeyframeBuffer
+    public static final String KEY_PREBAKE = "prebake";
 
     public static final String KEY_TRANSFORMED = "transformed";
     public static final String KEY_ORIGIN = "origin";
 
     @Retention(RetentionPolicy.SOURCE)
     @StringDef({BindingXConstants.STATE_START, BindingXConstants.STATE_END,
-            BindingXConstants.STATE_CANCEL, BindingXConstants.STATE_EXIT, BindingXConstants.STATE_TURNING})
+            BindingXConstants.STATE_CANCEL, BindingXConstants.STATE_EXIT, BindingXConstants.STATE_TURNING,
+            BindingXConstants.STATE_FLING})
     public @interface State {
     }
 }
@@ -0,0 +1,380 @@
+/**
+ * Copyright 2018 Alibaba Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.android.bindingx.core.internal;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.text.TextUtils;
+import android.view.MotionEvent;
+import android.view.View;
+
+import com.alibaba.android.bindingx.core.BindingXCore;
+import com.alibaba.android.bindingx.core.BindingXEventType;
+import com.alibaba.android.bindingx.core.LogProxy;
+import com.alibaba.android.bindingx.core.PlatformManager;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A built-in implementation of {@link com.alibaba.android.bindingx.core.IEventHandler} which handle
+ * two finger gestures, pinch and rotation.
+ *
+ * Expressions read <code>scale</code> (1 when the gesture begins), <code>rotation</code> (degrees,
+ * clockwise), and <code>focusX</code>, <code>focusY</code>, the point between the fingers relative to
+ * the layout position of the view. Positions are taken before the transform of the view, so a binding
+ * may scale or rotate the view it listens to. A third finger takes over when one of the two is lifted.
+ * The handler shares the touch listener of the view with the pan handler.
+ *
+ * Only the events of a two finger gesture are consumed, so taps, clicks and long clicks still reach
+ * the view. The trade-off is the first finger: a view which is not clickable would not be sent the
+ * second finger unless the first one is consumed, so the handler consumes it there, and the view
+ * does not see it. A clickable view sees the first finger and gets a cancel once the gesture begins,
+ * then no more events until the last finger is lifted.
+ */
+public class BindingXMultiTouchHandler extends AbstractEventHandler implements View.OnTouchListener {
+
+    private static final int INVALID_POINTER = -1;
+
+    private final TwoFingerGesture mGesture = new TwoFingerGesture();
+    private String mEventType = BindingXEventType.TYPE_PINCH;
+    private boolean isGestureAvailable;
+
+    private int mFirstPointerId = INVALID_POINTER;
+    private int mSecondPointerId = INVALID_POINTER;
+    private boolean isInProgress;
+    // the view has been sent a cancel, the rest of the touch is the handler's
+    private boolean isViewCancelled;
+    // the positions of the two fingers
+    private final float[] mPoints = new float[4];
+
+    // evaluates the newest gesture state once per frame if the binding asks for it
+    private InputCoalescer mInputCoalescer;
+    private double mPendingScale;
+    private double mPendingRotation;
+    private double mPendingFocusX;
+    private double mPendingFocusY;
+
+    public BindingXMultiTouchHandler(Context context, PlatformManager manager, Object... extension) {
+        super(context, manager, extension);
+    }
+
+    @Override
+    public boolean onTouch(View v, MotionEvent event) {
+        if (!isGestureAvailable) {
+            return false;
+        }
+        try {
+            switch (event.getActionMasked()) {
+                case MotionEvent.ACTION_DOWN:
+                    mFirstPointerId = event.getPointerId(0);
+                    mSecondPointerId = INVALID_POINTER;
+                    isInProgress = false;
+                    isViewCancelled = false;
+                    // the pointers which come down later are only delivered if the first one is
+                    // consumed. A clickable view consumes it itself and keeps its clicks.
+                    return v == null || !(v.isClickable() || v.isLongClickable());
+                case MotionEvent.ACTION_POINTER_DOWN:
+                    if (mSecondPointerId == INVALID_POINTER) {
+                        mSecondPointerId = event.getPointerId(event.getActionIndex());
+                        if (!track(v, event, true)) {
+                            break;
+                        }
+                        isInProgress = true;
+                        if (!isViewCancelled) {
+                            isViewCancelled = true;
+                            cancelViewTouch(v, event);
+                        }
+                        fireEventByState(BindingXConstants.STATE_START, 1, 0);
+                    }
+                    break;
+                case MotionEvent.ACTION_MOVE:
+                    if (isInProgress && track(v, event, false)) {
+                        requestEvaluation();
+                    }
+                    break;
+                case MotionEvent.ACTION_POINTER_UP:
+                    onPointerUp(v, event);
+                    break;
+                case MotionEvent.ACTION_UP:
+                    mFirstPointerId = INVALID_POINTER;
+                    mSecondPointerId = INVALID_POINTER;
+                    if (isInProgress) {
+                        flushPendingEvaluation();
+                        endGesture(BindingXConstants.STATE_END);
+                    }
+                    break;
+                case MotionEvent.ACTION_CANCEL:
+                    mFirstPointerId = INVALID_POINTER;
+                    mSecondPointerId = INVALID_POINTER;
+                    if (isInProgress) {
+                        endGesture(BindingXConstants.STATE_CANCEL);
+                    }
+                    break;
+            }
+        } catch (Exception e) {
+            LogProxy.e("runtime error ", e);
+        }
+        // the view sees the events before a gesture, but none from the one it begins on
+        return isViewCancelled;
+    }
+
+    /**
+     * the view has seen the first finger go down. Once two fingers are a gesture it gets no more
+     * events, so it drops its pressed state and does not click or long click.
+     * */
+    private static void cancelViewTouch(@Nullable View v, @NonNull MotionEvent event) {
+        if (v == null) {
+            return;
+        }
+        MotionEvent cancel = MotionEvent.obtain(event);
+        cancel.setAction(MotionEvent.ACTION_CANCEL);
+        v.onTouchEvent(cancel);
+        cancel.recycle();
+    }
+
+    private void onPointerUp(View v, MotionEvent event) {
+        int id = event.getPointerId(event.getActionIndex());
+        if (id != mFirstPointerId && id != mSecondPointerId) {
+            return;
+        }
+        // a finger which is still down takes over
+        int replacement = INVALID_POINTER;
+        for (int i = 0; i < event.getPointerCount(); i++) {
+            int other = event.getPointerId(i);
+            if (other != mFirstPointerId && other != mSecondPointerId) {
+                replacement = other;
+                break;
+            }
+        }
+        if (id == mFirstPointerId) {
+            mFirstPointerId = mSecondPointerId;
+        }
+        mSecondPointerId = replacement;
+        if (!isInProgress) {
+            return;
+        }
+        if (replacement == INVALID_POINTER) {
+            flushPendingEvaluation();
+            endGesture(BindingXConstants.STATE_END);
+        } else {
+            track(v, event, true);
+        }
+    }
+
+    /**
+     * @param rebase true if the pair of fingers has changed
+     * @return false if a finger of the pair is not in the event
+     * */
+    private boolean track(View v, MotionEvent event, boolean rebase) {
+        int first = event.findPointerIndex(mFirstPointerId);
+        int second = event.findPointerIndex(mSecondPointerId);
+        if (first < 0 || second < 0) {
+            return false;
+        }
+        float[] points = mPoints;
+        points[0] = event.getX(first);
+        points[1] = event.getY(first);
+        points[2] = event.getX(second);
+        points[3] = event.getY(second);
+        // events are relative to the transformed view, undo the transform which the bindings may change
+        if (v != null && !v.getMatrix().isIdentity()) {
+            v.getMatrix().mapPoints(points);
+        }
+        double x0 = points[0];
+        double y0 = points[1];
+        double x1 = points[2];
+        double y1 = points[3];
+        if (rebase) {
+            if (isInProgress) {
+                mGesture.rebase(x0, y0, x1, y1);
+            } else {
+                mGesture.begin(x0, y0, x1, y1);
+            }
+        } else {
+            mGesture.move(x0, y0, x1, y1);
+        }
+        return true;
+    }
+
+    private void requestEvaluation() {
+        if (!isInputCoalesced()) {
+            dispatchGesture(mGesture.scale(), mGesture.rotation(), mGesture.focusX(), mGesture.focusY());
+            return;
+        }
+        mPendingScale = mGesture.scale();
+        mPendingRotation = mGesture.rotation();
+        mPendingFocusX = mGesture.focusX();
+        mPendingFocusY = mGesture.focusY();
+        if (mInputCoalescer == null) {
+            mInputCoalescer = new InputCoalescer(new Runnable() {
+                @Override
+                public void run() {
+                    dispatchGesture(mPendingScale, mPendingRotation, mPendingFocusX, mPendingFocusY);
+                }
+            });
+        }
+        mInputCoalescer.request();
+    }
+
+    private void flushPendingEvaluation() {
+        if (mInputCoalescer != null) {
+            mInputCoalescer.flush();
+        }
+    }
+
+    private void dispatchGesture(final double scale, final double rotation, final double focusX, final double focusY) {
+        if (!hasEvaluationExecutor()) {
+            evaluateGesture(scale, rotation, focusX, focusY);
+            return;
+        }
+        runEvaluation(new Runnable() {
+            @Override
+            public void run() {
+                evaluateGesture(scale, rotation, focusX, focusY);
+            }
+        });
+    }
+
+    private void evaluateGesture(double scale, double rotation, double focusX, double focusY) {
+        try {
+            if (LogProxy.sEnableLog) {
+                LogProxy.d(String.format(Locale.getDefault(), "[MultiTouchHandler] %s changed. (scale:%f,rotation:%f,focusX:%f,focusY:%f)",
+                        mEventType, scale, rotation, focusX, focusY));
+            }
+            JSMath.applyMultiTouchValuesToScope(mScope, scale, rotation, focusX, focusY, mPlatformManager.getResolutionTranslator());
+            if (!evaluateExitExpression(mExitExpressionPair, mScope)) {
+                consumeExpression(mExpressionHoldersMap, mScope, mEventType);
+            }
+        } catch (Exception e) {
+            LogProxy.e("runtime error", e);
+        }
+    }
+
+    private void endGesture(@BindingXConstants.State final String state) {
+        isInProgress = false;
+        if (mInputCoalescer != null) {
+            mInputCoalescer.cancel();
+        }
+        final double scale = mGesture.scale();
+        final double rotation = mGesture.rotation();
+        if (!hasEvaluationExecutor()) {
+            clearExpressions();
+            fireEventByState(state, scale, rotation);
+            return;
+        }
+        // after the evaluations of the gesture, which are still queued
+        final Map<String, List<ExpressionHolder>> holders = mExpressionHoldersMap;
+        runEvaluation(new Runnable() {
+            @Override
+            public void run() {
+                if (mExpressionHoldersMap == holders) {
+                    // not bound again meanwhile
+                    clearExpressions();
+                }
+                fireEventByState(state, scale, rotation);
+            }
+        });
+    }
+
+    @Override
+    public boolean onCreate(@NonNull String sourceRef, @NonNull String eventType) {
+        String instanceId = TextUtils.isEmpty(mAnchorInstanceId) ? mInstanceId : mAnchorInstanceId;
+        View sourceView = mPlatformManager.getViewFinder().findViewBy(sourceRef, instanceId);
+        if (sourceView == null) {
+            LogProxy.e("[MultiTouchHandler] onCreate failed. sourceView not found:" + sourceRef);
+            return false;
+        }
+        mEventType = eventType;
+        TouchDispatcher.add(sourceView, this);
+        LogProxy.d("[MultiTouchHandler] onCreate success. {source:" + sourceRef + ",type:" + eventType + "}");
+        return true;
+    }
+
+    @Override
+    public void onStart(@NonNull String sourceRef, @NonNull String eventType) {
+        isGestureAvailable = true;
+    }
+
+    @Override
+    public void onBindExpression(@NonNull String eventType,
+                                 @Nullable Map<String, Object> globalConfig,
+                                 @Nullable ExpressionPair exitExpressionPair,
+                                 @NonNull List<Map<String, Object>> expressionArgs,
+                                 @Nullable BindingXCore.JavaScriptCallback callback) {
+        super.onBindExpression(eventType, globalConfig, exitExpressionPair, expressionArgs, callback);
+    }
+
+    @Override
+    public boolean onDisable(@NonNull String sourceRef, @NonNull String eventType) {
+        isGestureAvailable = false;
+        isInProgress = false;
+        isViewCancelled = false;
+        if (mInputCoalescer != null) {
+            mInputCoalescer.cancel();
+        }
+        String instanceId = TextUtils.isEmpty(mAnchorInstanceId) ? mInstanceId : mAnchorInstanceId;
+        View hostView = mPlatformManager.getViewFinder().findViewBy(sourceRef, instanceId);
+        if (hostView != null) {
+            TouchDispatcher.remove(hostView, this);
+        }
+        LogProxy.d("remove touch listener success.[" + sourceRef + "," + eventType + "]");
+        return true;
+    }
+
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+        if (mInputCoalescer != null) {
+            mInputCoalescer.cancel();
+        }
+        // an evaluation may still be running with the holders
+        clearExpressions();
+        mCallback = null;
+        isGestureAvailable = false;
+        isInProgress = false;
+    }
+
+    @Override
+    protected void onExit(@NonNull Map<String, Object> scope) {
+        double scale = (double) scope.get("scale");
+        double rotation = (double) scope.get("rotation");
+        fireEventByState(BindingXConstants.STATE_EXIT, scale, rotation);
+    }
+
+    private void fireEventByState(@BindingXConstants.State String state, double scale, double rotation) {
+        if (mCallback != null) {
+            Map<String, Object> param = new HashMap<>();
+            param.put("state", state);
+            param.put("scale", scale);
+            param.put("rotation", rotation);
+            param.put(BindingXConstants.KEY_TOKEN, mToken);
+            mCallback.callback(param);
+            LogProxy.d(">>>>>>>>>>>fire event:(" + state + "," + scale + "," + rotation + ")");
+        }
+    }
+
+    @Override
+    public void onActivityPause() {
+    }
+
+    @Override
+    public void onActivityResume() {
+    }
+}
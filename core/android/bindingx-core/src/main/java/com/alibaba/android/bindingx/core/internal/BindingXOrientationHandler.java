@@ -65,6 +65,14 @@ public class BindingXOrientationHandler extends AbstractEventHandler implements
 
     private LinkedList<Double> mRecordsAlpha = new LinkedList<>();
 
+    // evaluates the newest orientation once per frame if the binding asks for it. The sensor
+    // thread writes the pending values, the frame thread reads them.
+    private InputCoalescer mInputCoalescer;
+    private final Object mPendingLock = new Object();
+    private double mPendingAlpha;
+    private double mPendingBeta;
+    private double mPendingGamma;
+
 
     public BindingXOrientationHandler(Context context, PlatformManager manager, Object... extension) {
         super(context,manager, extension);
@@ -131,6 +139,7 @@ public class BindingXOrientationHandler extends AbstractEventHandler implements
 
     @Override
     public boolean onDisable(@NonNull String sourceRef, @NonNull String eventType) {
+        cancelPendingOrientation();
         clearExpressions();
         if (mOrientationDetector == null) {
             return false;
@@ -143,19 +152,68 @@ public class BindingXOrientationHandler extends AbstractEventHandler implements
     @Override
     public void onDestroy() {
         super.onDestroy();
+        cancelPendingOrientation();
         if (mOrientationDetector != null) {
             mOrientationDetector.removeOrientationChangedListener(this);
             mOrientationDetector.stop();
         }
 
-        if (mExpressionHoldersMap != null) {
-            mExpressionHoldersMap.clear();
-            mExpressionHoldersMap = null;
-        }
+        // an evaluation may still be running with the holders
+        clearExpressions();
     }
 
     @Override
     public void onOrientationChanged(double alpha, double beta, double gamma) {
+        if(!isInputCoalesced()) {
+            dispatchOrientation(alpha, beta, gamma);
+            return;
+        }
+        synchronized (mPendingLock) {
+            mPendingAlpha = alpha;
+            mPendingBeta = beta;
+            mPendingGamma = gamma;
+            if(mInputCoalescer == null) {
+                mInputCoalescer = new InputCoalescer(new Runnable() {
+                    @Override
+                    public void run() {
+                        double alpha, beta, gamma;
+                        synchronized (mPendingLock) {
+                            alpha = mPendingAlpha;
+                            beta = mPendingBeta;
+                            gamma = mPendingGamma;
+                        }
+                        dispatchOrientation(alpha, beta, gamma);
+                    }
+                });
+            }
+        }
+        mInputCoalescer.request();
+    }
+
+    private void cancelPendingOrientation() {
+        InputCoalescer coalescer;
+        synchronized (mPendingLock) {
+            coalescer = mInputCoalescer;
+        }
+        if(coalescer != null) {
+            coalescer.cancel();
+        }
+    }
+
+    private void dispatchOrientation(final double alpha, final double beta, final double gamma) {
+        if(!hasEvaluationExecutor()) {
+            handleOrientation(alpha, beta, gamma);
+            return;
+        }
+        runEvaluation(new Runnable() {
+            @Override
+            public void run() {
+                handleOrientation(alpha, beta, gamma);
+            }
+        });
+    }
+
+    private void handleOrientation(double alpha, double beta, double gamma) {
         alpha = Math.round(alpha);
         beta = Math.round(beta);
         gamma = Math.round(gamma);
@@ -20,7 +20,6 @@ import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.annotation.VisibleForTesting;
 import android.support.annotation.WorkerThread;
-import android.view.animation.AnimationUtils;
 
 import com.alibaba.android.bindingx.core.BindingXCore;
 import com.alibaba.android.bindingx.core.BindingXEventType;
@@ -42,10 +41,15 @@ import java.util.Map;
 
 public class BindingXTimingHandler extends AbstractEventHandler implements AnimationFrame.Callback {
 
-    private long mStartTime = 0;
+    private FrameClock mFrameClock = new FrameClock(FrameClock.POLICY_CATCH_UP);
 
     private AnimationFrame mAnimationFrame;
     private boolean isFinish = false;
+    // the binding exits by itself once its springs are at rest, NaN if it has no such end
+    private double mRestMillis = Double.NaN;
+    // the values of the binding computed at bind time, see BindingXConstants.KEY_PREBAKE
+    @Nullable
+    private KeyframeBuffer mKeyframes;
 
     public BindingXTimingHandler(Context context, PlatformManager manager, Object... extension) {
         super(context, manager, extension);
@@ -54,6 +58,27 @@ public class BindingXTimingHandler extends AbstractEventHandler implements Anima
         } else {
             mAnimationFrame.clear();
         }
+        FrameScheduler.getInstance().useRefreshRateOf(context);
+    }
+
+    /**
+     * sets the frame rate of timing bindings on threads or platforms without vsync (before API 16).
+     * By default it is the refresh rate of the display.
+     *
+     * @param framesPerSecond the target frame rate, 0 to use the refresh rate of the display again
+     * */
+    public static void setFallbackFrameRate(float framesPerSecond) {
+        FrameScheduler.getInstance().setFallbackFrameRate(framesPerSecond);
+    }
+
+    /**
+     * sets the memory all the pre-computed timing bindings (option <code>prebake</code>) may use
+     * together. A binding which does not fit is evaluated frame by frame.
+     *
+     * @param bytes the budget, 1MB by default
+     * */
+    public static void setPrebakeBudget(long bytes) {
+        KeyframeBuffer.setBudget(bytes);
     }
 
     @VisibleForTesting
@@ -78,11 +103,21 @@ public class BindingXTimingHandler extends AbstractEventHandler implements Anima
                                  @Nullable ExpressionPair exitExpressionPair,
                                  @NonNull List<Map<String, Object>> expressionArgs,
                                  @Nullable BindingXCore.JavaScriptCallback callback) {
+        releaseKeyframes();
         super.onBindExpression(eventType,globalConfig, exitExpressionPair, expressionArgs, callback);
+        mFrameClock = new FrameClock(FrameClock.policyOf(globalConfig));
+        // an exit expression of the binding always wins
+        mRestMillis = exitExpressionPair == null ? restMillisOf(mExpressionHoldersMap) : Double.NaN;
+        if (!Double.isNaN(mRestMillis)) {
+            LogProxy.d(String.format(Locale.getDefault(), "[TimingHandler] springs are at rest after %.0fms", mRestMillis));
+        }
 
         if(mAnimationFrame == null) {
             mAnimationFrame = AnimationFrame.newInstance();
         }
+        if(isPrebakeEnabled(globalConfig)) {
+            prebake();
+        }
 
         fireEventByState(BindingXConstants.STATE_START, 0);
 
@@ -91,38 +126,138 @@ public class BindingXTimingHandler extends AbstractEventHandler implements Anima
     }
 
     @WorkerThread
-    private void handleTimingCallback() {
-        long deltaT;
-        if(mStartTime == 0) {
-            mStartTime = AnimationUtils.currentAnimationTimeMillis();
-            deltaT = 0;
+    private void handleTimingCallback(long frameTimeNanos) {
+        if(!mFrameClock.isStarted()) {
             isFinish = false;
-        } else {
-            deltaT = AnimationUtils.currentAnimationTimeMillis() - mStartTime;
         }
+        int droppedFrames = mFrameClock.droppedFrames();
+        double deltaT = mFrameClock.onFrame(frameTimeNanos, mAnimationFrame == null ? 0 : mAnimationFrame.getFrameIntervalNanos());
 
         try {
             if(LogProxy.sEnableLog) {
-                LogProxy.d(String.format(Locale.getDefault(), "[TimingHandler] timing elapsed. (t:%d)", deltaT));
+                LogProxy.d(String.format(Locale.getDefault(), "[TimingHandler] timing elapsed. (t:%.3f)", deltaT));
+                if(mFrameClock.droppedFrames() > droppedFrames) {
+                    LogProxy.d(String.format(Locale.getDefault(), "[TimingHandler] %d frames dropped", mFrameClock.droppedFrames() - droppedFrames));
+                }
             }
-            JSMath.applyTimingValuesToScope(mScope, deltaT);
+            JSMath.applyTimingValuesToScope(mScope, deltaT, mFrameClock.droppedFrames());
             if(!isFinish) {
                 consumeExpression(mExpressionHoldersMap, mScope, BindingXEventType.TYPE_TIMING);
             }
             isFinish = evaluateExitExpression(mExitExpressionPair,mScope);
+            if(!isFinish && deltaT >= mRestMillis) {
+                // the last frame has just put every spring at its end value
+                isFinish = true;
+                clearExpressions();
+                onExit(mScope);
+            }
         } catch (Exception e) {
             LogProxy.e("runtime error", e);
         }
     }
 
+    private static boolean isPrebakeEnabled(@Nullable Map<String, Object> globalConfig) {
+        Object prebake = globalConfig == null ? null : globalConfig.get(BindingXConstants.KEY_PREBAKE);
+        return Boolean.TRUE.equals(prebake) || "true".equals(prebake);
+    }
+
+    private void prebake() {
+        long intervalNanos = mAnimationFrame.getFrameIntervalNanos();
+        double frameMillis = (intervalNanos > 0 ? intervalNanos : FrameClock.DEFAULT_FRAME_INTERVAL_NANOS) / 1e6;
+        // the springs or the exit expression tell when the animation ends
+        double duration = !Double.isNaN(mRestMillis) ? mRestMillis : KeyframeBuffer.durationOf(exitExpression(), frameMillis);
+        if (Double.isNaN(duration) || duration > KeyframeBuffer.MAX_DURATION_MILLIS) {
+            LogProxy.d("[TimingHandler] the end of the animation is not known, not baked");
+            return;
+        }
+        mKeyframes = bakeKeyframes(duration, frameMillis);
+    }
+
+    private void releaseKeyframes() {
+        if(mKeyframes != null) {
+            mKeyframes.release();
+            mKeyframes = null;
+        }
+    }
+
+    /**
+     * @return the time at which all the expressions have reached their end value, if they read
+     * <code>t</code> only as the time of springs with constant parameters, e.g.
+     * <code>spring(t,0,300,180,12,1,0)</code>. NaN if that is not known.
+     * */
+    @VisibleForTesting
+    static double restMillisOf(@Nullable Map<String, List<ExpressionHolder>> holdersMap) {
+        if (holdersMap == null || holdersMap.isEmpty()) {
+            return Double.NaN;
+        }
+        double rest = 0;
+        for (List<ExpressionHolder> holders : holdersMap.values()) {
+            for (ExpressionHolder holder : holders) {
+                if (holder.expression == null || holder.expression.root == null) {
+                    return Double.NaN;
+                }
+                rest = Math.max(rest, restMillisOf(holder.expression.root));
+            }
+        }
+        // not a single spring
+        return rest > 0 ? rest : Double.NaN;
+    }
+
+    /**
+     * @return 0 if the node does not read t, NaN if it reads t other than as the time of a spring
+     * */
+    private static double restMillisOf(@NonNull ExpressionNode node) {
+        if (node instanceof ExpressionNode.Variable) {
+            return ((ExpressionNode.Variable) node).slot == Scope.T ? Double.NaN : 0;
+        }
+        if (node instanceof ExpressionNode.Call) {
+            ExpressionNode.Call call = (ExpressionNode.Call) node;
+            double rest = restMillisOf(call.function);
+            int first = 0;
+            // bound at compile time, see ExpressionOptimizer
+            if (call.primitive instanceof SpringCurve && isTime(call.arguments[0])) {
+                rest = Math.max(rest, ((SpringCurve) call.primitive).settleMillis());
+                first = 1;
+            }
+            for (int i = first; i < call.arguments.length; i++) {
+                rest = Math.max(rest, restMillisOf(call.arguments[i]));
+            }
+            return rest;
+        }
+        if (node instanceof ExpressionNode.Conditional) {
+            ExpressionNode.Conditional conditional = (ExpressionNode.Conditional) node;
+            return Math.max(restMillisOf(conditional.test),
+                    Math.max(restMillisOf(conditional.consequent), restMillisOf(conditional.alternate)));
+        }
+        if (node instanceof ExpressionNode.Binary) {
+            ExpressionNode.Binary binary = (ExpressionNode.Binary) node;
+            return Math.max(restMillisOf(binary.left), restMillisOf(binary.right));
+        }
+        if (node instanceof ExpressionNode.Not) {
+            return restMillisOf(((ExpressionNode.Not) node).operand);
+        }
+        if (node instanceof ExpressionNode.Square) {
+            return restMillisOf(((ExpressionNode.Square) node).operand);
+        }
+        if (node instanceof ExpressionNode.Shared) {
+            return restMillisOf(((ExpressionNode.Shared) node).target);
+        }
+        return 0;
+    }
+
+    private static boolean isTime(@NonNull ExpressionNode node) {
+        return node instanceof ExpressionNode.Variable && ((ExpressionNode.Variable) node).slot == Scope.T;
+    }
+
     @Override
     public boolean onDisable(@NonNull String sourceRef, @NonNull String eventType) {
-        fireEventByState(BindingXConstants.STATE_END, (System.currentTimeMillis() - mStartTime));
+        fireEventByState(BindingXConstants.STATE_END, (long) mFrameClock.elapsedMillis());
         clearExpressions();
+        releaseKeyframes();
         if(mAnimationFrame != null) {
             mAnimationFrame.clear();
         }
-        mStartTime = 0;
+        mFrameClock.reset();
 
         return true;
     }
@@ -131,23 +266,26 @@ public class BindingXTimingHandler extends AbstractEventHandler implements Anima
     public void onDestroy() {
         super.onDestroy();
         clearExpressions();
+        releaseKeyframes();
 
         if(mAnimationFrame != null) {
             mAnimationFrame.terminate();
             mAnimationFrame = null;
         }
-        mStartTime = 0;
+        mFrameClock.reset();
     }
 
     @Override
     protected void onExit(@NonNull Map<String, Object> scope) {
         double t = (double) scope.get("t");
         fireEventByState(BindingXConstants.STATE_EXIT, (long) t);
+        // the expressions have been cleared
+        releaseKeyframes();
 
         if(mAnimationFrame != null) {
             mAnimationFrame.clear();
         }
-        mStartTime = 0;
+        mFrameClock.reset();
     }
 
     private void fireEventByState(@BindingXConstants.State String state, long t) {
@@ -163,8 +301,8 @@ public class BindingXTimingHandler extends AbstractEventHandler implements Anima
     }
 
     @Override
-    public void doFrame() {
-        handleTimingCallback();
+    public void doFrame(long frameTimeNanos) {
+        handleTimingCallback(frameTimeNanos);
     }
 
     @Override
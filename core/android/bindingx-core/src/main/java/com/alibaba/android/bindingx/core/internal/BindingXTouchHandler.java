@@ -48,6 +48,34 @@ public class BindingXTouchHandler extends AbstractEventHandler implements View.O
     private boolean isPanGestureAvailable;
     private boolean isFlickGestureAvailable;
 
+    // evaluates the newest pan state once per frame if the binding asks for it
+    private InputCoalescer mInputCoalescer;
+    private float mPendingDeltaX;
+    private float mPendingDeltaY;
+
+    // the motion after the finger is up if the binding asks for it, see BindingXConstants.KEY_FLING
+    @Nullable
+    private FlingSimulation mFling;
+    private final FlingFrame mFlingFrame = new FlingFrame();
+    // where the last gesture or fling left the content, the next gesture goes on from there
+    private double mOffsetX;
+    private double mOffsetY;
+    // where the finger has dragged the content to in the current gesture
+    private double mPanX;
+    private double mPanY;
+    // how far the content follows beyond its bounds depends on the size of the dragged view
+    private int mViewWidth;
+    private int mViewHeight;
+    private float mReleaseVelocityX;
+    private float mReleaseVelocityY;
+    private boolean mReleased;
+
+    // the finger positions if the binding asks for resampling, see BindingXConstants.KEY_RESAMPLE_TOUCH
+    @Nullable
+    private TouchSampler mSampler;
+    // x, y, vx, vy of the frame or of the release, written on the main thread only
+    private final double[] mSample = new double[4];
+
     public BindingXTouchHandler(Context context, PlatformManager manager, Object... extension) {
         super(context, manager, extension);
         mGestureDetector = new GestureDetector(context, this);
@@ -72,16 +100,25 @@ public class BindingXTouchHandler extends AbstractEventHandler implements View.O
     @Override
     public boolean onTouch(View v, MotionEvent event) {
         try {
+            TouchSampler sampler = mSampler;
+            if (sampler != null && event.getActionMasked() != MotionEvent.ACTION_CANCEL) {
+                if (event.getActionMasked() == MotionEvent.ACTION_DOWN) {
+                    sampler.clear();
+                }
+                sampler.add(event);
+            }
             switch (event.getActionMasked()) {
                 case MotionEvent.ACTION_DOWN:
                     mDownX = event.getRawX();
                     mDownY = event.getRawY();
+                    beginGesture(v);
                     fireEventByState(BindingXConstants.STATE_START, 0, 0);
                     break;
                 case MotionEvent.ACTION_MOVE:
                     if (mDownX == 0 && mDownY == 0) {
                         mDownX = event.getRawX();
                         mDownY = event.getRawY();
+                        beginGesture(v);
                         fireEventByState(BindingXConstants.STATE_START, 0, 0);
                         break;
                     }
@@ -89,25 +126,53 @@ public class BindingXTouchHandler extends AbstractEventHandler implements View.O
                     mDy = event.getRawY() - mDownY;
                     break;
                 case MotionEvent.ACTION_UP:
+                    // the last position is relative to the down position
+                    flushPendingPan();
                     mDownX = 0;
                     mDownY = 0;
-                    clearExpressions();
-                    fireEventByState(BindingXConstants.STATE_END, mDx, mDy);
+                    if (mFling != null) {
+                        // goes on after the gesture detector has seen the release velocity
+                        mReleased = true;
+                    } else {
+                        endGesture(BindingXConstants.STATE_END, mDx, mDy);
+                    }
                     //bugFixed:we must reset dx & dy every time.
                     mDx = 0;
                     mDy = 0;
                     break;
                 case MotionEvent.ACTION_CANCEL:
+                    flushPendingPan();
                     mDownX = 0;
                     mDownY = 0;
-                    clearExpressions();
-                    fireEventByState(BindingXConstants.STATE_CANCEL, mDx, mDy);
+                    if (mFling != null) {
+                        mOffsetX = mPanX;
+                        mOffsetY = mPanY;
+                    }
+                    endGesture(BindingXConstants.STATE_CANCEL, mDx, mDy);
                     break;
             }
         } catch (Exception e) {
             LogProxy.e("runtime error ", e);
         }
-        return mGestureDetector.onTouchEvent(event);
+        boolean handled = mGestureDetector.onTouchEvent(event);
+        if (mReleased) {
+            mReleased = false;
+            startFling();
+        }
+        return handled;
+    }
+
+    private void beginGesture(View v) {
+        // the finger catches the content
+        stopFling();
+        mPanX = mOffsetX;
+        mPanY = mOffsetY;
+        mReleaseVelocityX = 0;
+        mReleaseVelocityY = 0;
+        if (v != null) {
+            mViewWidth = v.getWidth();
+            mViewHeight = v.getHeight();
+        }
     }
 
 
@@ -133,11 +198,142 @@ public class BindingXTouchHandler extends AbstractEventHandler implements View.O
             return false;
         }
 
+        if (mSampler != null) {
+            // the positions are in the sampler, the frame picks its own
+            requestPan();
+            return false;
+        }
+
         float curX = e2.getRawX();
         float curY = e2.getRawY();
 
         float deltaX = curX - downX;
         float deltaY = curY - downY;
+        if (mFling != null) {
+            deltaX = (float) dragX(deltaX);
+            deltaY = (float) dragY(deltaY);
+        }
+        if (isInputCoalesced()) {
+            // deltas are relative to the down event, the newest one is all that matters
+            mPendingDeltaX = deltaX;
+            mPendingDeltaY = deltaY;
+            requestPan();
+        } else {
+            dispatchPan(deltaX, deltaY);
+        }
+        return false;
+    }
+
+    /**
+     * @return where the content is while the finger is deltaX from the down position. It goes on
+     * from where the last gesture left it, and resists being dragged beyond its bounds.
+     * */
+    private double dragX(double deltaX) {
+        FlingSimulation fling = mFling;
+        mPanX = fling == null ? deltaX : fling.dragX(mOffsetX + deltaX, mViewWidth);
+        return mPanX;
+    }
+
+    private double dragY(double deltaY) {
+        FlingSimulation fling = mFling;
+        mPanY = fling == null ? deltaY : fling.dragY(mOffsetY + deltaY, mViewHeight);
+        return mPanY;
+    }
+
+    private void requestPan() {
+        if (mInputCoalescer == null) {
+            mInputCoalescer = new InputCoalescer(new Runnable() {
+                @Override
+                public void run() {
+                    if (mSampler != null) {
+                        dispatchSampledPan(mInputCoalescer.getFrameTimeNanos());
+                    } else {
+                        dispatchPan(mPendingDeltaX, mPendingDeltaY);
+                    }
+                }
+            });
+        }
+        mInputCoalescer.request();
+    }
+
+    /**
+     * the finger position at the given time rather than the one of the last event
+     * */
+    private void dispatchSampledPan(long frameTimeNanos) {
+        TouchSampler sampler = mSampler;
+        double[] sample = mSample;
+        if (sampler == null || !sampler.sample(frameTimeNanos, sample)) {
+            return;
+        }
+        double x = dragX(sample[0] - mDownX);
+        double y = dragY(sample[1] - mDownY);
+        dispatchMotion(x, y, sample[2], sample[3]);
+    }
+
+    /**
+     * applies the pending pan before the gesture ends. A resampled pan ends where the finger was
+     * lifted, even if no frame is pending, rather than at a position sampled past it.
+     * */
+    private void flushPendingPan() {
+        if (mSampler == null) {
+            if (mInputCoalescer != null) {
+                mInputCoalescer.flush();
+            }
+            return;
+        }
+        if (mInputCoalescer != null) {
+            mInputCoalescer.cancel();
+        }
+        if (isPanGestureAvailable) {
+            dispatchNewestPan();
+        }
+    }
+
+    private void dispatchNewestPan() {
+        TouchSampler sampler = mSampler;
+        double[] sample = mSample;
+        if (sampler == null || !sampler.newest(sample)) {
+            return;
+        }
+        double x = dragX(sample[0] - mDownX);
+        double y = dragY(sample[1] - mDownY);
+        dispatchMotion(x, y, sample[2], sample[3]);
+    }
+
+    private void dispatchPan(final float deltaX, final float deltaY) {
+        if (!hasEvaluationExecutor()) {
+            evaluatePan(deltaX, deltaY);
+            return;
+        }
+        runEvaluation(new Runnable() {
+            @Override
+            public void run() {
+                evaluatePan(deltaX, deltaY);
+            }
+        });
+    }
+
+    private void endGesture(@BindingXConstants.State final String state, final double dx, final double dy) {
+        if (!hasEvaluationExecutor()) {
+            clearExpressions();
+            fireEventByState(state, dx, dy);
+            return;
+        }
+        // after the evaluations of the gesture, which are still queued
+        final Map<String, List<ExpressionHolder>> holders = mExpressionHoldersMap;
+        runEvaluation(new Runnable() {
+            @Override
+            public void run() {
+                if (mExpressionHoldersMap == holders) {
+                    // not bound again meanwhile
+                    clearExpressions();
+                }
+                fireEventByState(state, dx, dy);
+            }
+        });
+    }
+
+    private void evaluatePan(float deltaX, float deltaY) {
         try {
             if(LogProxy.sEnableLog) {
                 LogProxy.d(String.format(Locale.getDefault(), "[TouchHandler] pan moved. (x:%f,y:%f)", deltaX,deltaY));
@@ -149,8 +345,97 @@ public class BindingXTouchHandler extends AbstractEventHandler implements View.O
         } catch (Exception e) {
             LogProxy.e("runtime error", e);
         }
+    }
 
-        return false;
+    private void startFling() {
+        FlingSimulation fling = mFling;
+        if (fling == null) {
+            return;
+        }
+        mOffsetX = mPanX;
+        mOffsetY = mPanY;
+        fling.start(mPanX, mPanY, mReleaseVelocityX, mReleaseVelocityY);
+        if (fling.isFinished() && fling.x() == mPanX && fling.y() == mPanY) {
+            // released at rest within the bounds
+            endGesture(BindingXConstants.STATE_END, mPanX, mPanY);
+            return;
+        }
+        fireEventByState(BindingXConstants.STATE_FLING, mPanX, mPanY);
+        mFlingFrame.start();
+    }
+
+    /**
+     * the content stays where the fling is now
+     * */
+    private void stopFling() {
+        mFlingFrame.stop();
+    }
+
+    private void dispatchMotion(final double x, final double y, final double vx, final double vy) {
+        if (!hasEvaluationExecutor()) {
+            evaluateMotion(x, y, vx, vy);
+            return;
+        }
+        runEvaluation(new Runnable() {
+            @Override
+            public void run() {
+                evaluateMotion(x, y, vx, vy);
+            }
+        });
+    }
+
+    /**
+     * evaluates a pan or fling position which comes with its velocity
+     * */
+    private void evaluateMotion(double x, double y, double vx, double vy) {
+        try {
+            if(LogProxy.sEnableLog) {
+                LogProxy.d(String.format(Locale.getDefault(), "[TouchHandler] moved. (x:%f,y:%f,vx:%f,vy:%f)", x, y, vx, vy));
+            }
+            JSMath.applyPanValuesToScope(mScope, x, y, vx, vy, mPlatformManager.getResolutionTranslator());
+            if(!evaluateExitExpression(mExitExpressionPair,mScope)) {
+                consumeExpression(mExpressionHoldersMap, mScope, BindingXEventType.TYPE_PAN);
+            }
+        } catch (Exception e) {
+            LogProxy.e("runtime error", e);
+        }
+    }
+
+    /**
+     * moves the content by the fling on every frame until it rests
+     * */
+    private final class FlingFrame implements AnimationFrame.Callback {
+        private long mStartNanos;
+        private volatile boolean mRunning;
+
+        void start() {
+            // the release, frame times share the time base of System.nanoTime()
+            mStartNanos = System.nanoTime();
+            mRunning = true;
+            FrameScheduler.getInstance().add(this);
+        }
+
+        void stop() {
+            mRunning = false;
+            FrameScheduler.getInstance().remove(this);
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            FlingSimulation fling = mFling;
+            if (!mRunning || fling == null) {
+                stop();
+                return;
+            }
+            boolean moving = fling.update(Math.max(0, frameTimeNanos - mStartNanos) / 1e9);
+            mOffsetX = fling.x();
+            mOffsetY = fling.y();
+            dispatchMotion(mOffsetX, mOffsetY, fling.vx(), fling.vy());
+            if (!moving) {
+                stop();
+                endGesture(BindingXConstants.STATE_END, mOffsetX, mOffsetY);
+            }
+        }
     }
 
     @Override
@@ -159,6 +444,10 @@ public class BindingXTouchHandler extends AbstractEventHandler implements View.O
 
     @Override
     public boolean onFling(MotionEvent e1, MotionEvent e2, float velocityX, float velocityY) {
+        if (mFling != null) {
+            mReleaseVelocityX = velocityX;
+            mReleaseVelocityY = velocityY;
+        }
         if (!isFlickGestureAvailable) {
             return false;
         }
@@ -187,7 +476,8 @@ public class BindingXTouchHandler extends AbstractEventHandler implements View.O
             LogProxy.e("[ExpressionTouchHandler] onCreate failed. sourceView not found:" + sourceRef);
             return false;
         }
-        sourceView.setOnTouchListener(this);
+        // shared with the other touch handlers of the view
+        TouchDispatcher.add(sourceView, this);
         LogProxy.d("[ExpressionTouchHandler] onCreate success. {source:" + sourceRef + ",type:" + eventType + "}");
         return true;
     }
@@ -211,10 +501,24 @@ public class BindingXTouchHandler extends AbstractEventHandler implements View.O
                                  @NonNull List<Map<String, Object>> expressionArgs,
                                  @Nullable BindingXCore.JavaScriptCallback callback) {
         super.onBindExpression(eventType,globalConfig, exitExpressionPair, expressionArgs, callback);
+        // a running fling stops where it is
+        stopFling();
+        mFling = FlingSimulation.of(globalConfig, mPlatformManager.getResolutionTranslator());
+        mSampler = parseResampleTouch(globalConfig) ? new TouchSampler() : null;
+        if (mFling == null) {
+            mOffsetX = 0;
+            mOffsetY = 0;
+        }
+    }
+
+    private static boolean parseResampleTouch(@Nullable Map<String, Object> globalConfig) {
+        Object resample = globalConfig == null ? null : globalConfig.get(BindingXConstants.KEY_RESAMPLE_TOUCH);
+        return Boolean.TRUE.equals(resample) || "true".equals(resample);
     }
 
     @Override
     public boolean onDisable(@NonNull String sourceRef, @NonNull String eventType) {
+        stopFling();
         switch (eventType) {
             case BindingXEventType.TYPE_PAN:
                 this.setPanGestureAvailable(false);
@@ -228,7 +532,7 @@ public class BindingXTouchHandler extends AbstractEventHandler implements View.O
             String instanceId = TextUtils.isEmpty(mAnchorInstanceId) ? mInstanceId : mAnchorInstanceId;
             View hostView = mPlatformManager.getViewFinder().findViewBy(sourceRef, instanceId);
             if (hostView != null) {
-                hostView.setOnTouchListener(null);
+                TouchDispatcher.remove(hostView, this);
             }
             LogProxy.d("remove touch listener success.[" + sourceRef + "," + eventType + "]");
             return true;
@@ -240,11 +544,13 @@ public class BindingXTouchHandler extends AbstractEventHandler implements View.O
     @Override
     public void onDestroy() {
         super.onDestroy();
-        if (mExpressionHoldersMap != null) {
-            mExpressionHoldersMap.clear();
-            mExpressionHoldersMap = null;
+        if (mInputCoalescer != null) {
+            mInputCoalescer.cancel();
         }
-        mExitExpressionPair = null;
+        stopFling();
+        mFling = null;
+        // an evaluation may still be running with the holders
+        clearExpressions();
         mCallback = null;
         isFlickGestureAvailable = false;
         isPanGestureAvailable = false;
@@ -254,6 +560,7 @@ public class BindingXTouchHandler extends AbstractEventHandler implements View.O
     protected void onExit(@NonNull Map<String, Object> scope) {
         double deltaX = (double) scope.get("internal_x");
         double deltaY = (double) scope.get("internal_y");
+        stopFling();
         fireEventByState(BindingXConstants.STATE_EXIT, deltaX, deltaY);
     }
 
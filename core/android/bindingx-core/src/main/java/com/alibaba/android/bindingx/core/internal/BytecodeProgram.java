@@ -0,0 +1,438 @@
+/**
+ * Copyright 2018 Alibaba Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.android.bindingx.core.internal;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import org.json.JSONException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Description:
+ *
+ * Alternative backend of {@link Expression}. A compiled tree is lowered into a flat array of
+ * three-address instructions over a <code>double[]</code> register file, which is run by a single
+ * switch loop instead of walking the tree with virtual calls.
+ *
+ * Only the numeric and boolean parts of a tree are lowered. Booleans are kept in registers as
+ * numbers (0 is false). Calls of a {@link PrimitiveFunction} are lowered as well, the arguments are
+ * passed in consecutive registers. Any other subtree (other function calls, strings, identifiers without
+ * a slot, shared sub expressions) stays a node and is evaluated through {@link ExpressionNode#evaluateDouble(Map)}
+ * by a single instruction, so the results are exactly the same as the results of the tree.
+ *
+ * A program owns its registers, so it must only be used by one binding (thread) at a time.
+ * Enable it per binding with the option <code>evaluator: "bytecode"</code>.
+ */
+
+final class BytecodeProgram {
+
+    // every instruction is [opcode, a, b, c]
+    private static final int INSTRUCTION_SIZE = 4;
+
+    // r[a] = constants[b]
+    private static final int CONST = 0;
+    // r[a] = scope slot b, nodes[c] if the slot is not assigned
+    private static final int VAR = 1;
+    // r[a] = nodes[b].evaluateDouble()
+    private static final int NODE = 2;
+    // r[a] = nodes[b].evaluateBoolean() ? 1 : 0
+    private static final int NODE_BOOLEAN = 3;
+    // r[a] = r[b] op r[c]
+    private static final int ADD = 4;
+    private static final int SUB = 5;
+    private static final int MUL = 6;
+    private static final int DIV = 7;
+    private static final int MOD = 8;
+    private static final int POW = 9;
+    private static final int GT = 10;
+    private static final int LT = 11;
+    private static final int GE = 12;
+    private static final int LE = 13;
+    private static final int EQ = 14;
+    private static final int NE = 15;
+    // r[a] = op r[b]
+    private static final int NOT = 16;
+    private static final int SQUARE = 17;
+    // r[a] = r[b] != 0 ? 1 : 0
+    private static final int BOOLEAN = 18;
+    // jump to instruction b if r[a] == 0 (!= 0)
+    private static final int JUMP_IF_FALSE = 19;
+    private static final int JUMP_IF_TRUE = 20;
+    // jump to instruction b
+    private static final int JUMP = 21;
+    // r[a] = functions[b](r[a], r[a + 1], ...)
+    private static final int CALL = 22;
+
+    private final int[] mCode;
+    private final double[] mConstants;
+    private final ExpressionNode[] mNodes;
+    private final PrimitiveFunction[] mFunctions;
+    private final double[] mRegisters;
+    private final boolean mBooleanResult;
+
+    private BytecodeProgram(int[] code, double[] constants, ExpressionNode[] nodes, PrimitiveFunction[] functions,
+                            int registerCount, boolean booleanResult) {
+        this.mCode = code;
+        this.mConstants = constants;
+        this.mNodes = nodes;
+        this.mFunctions = functions;
+        this.mRegisters = new double[registerCount];
+        this.mBooleanResult = booleanResult;
+    }
+
+    /**
+     * @return the program or null if the result of the tree is neither a number nor a boolean
+     * */
+    @Nullable
+    static BytecodeProgram compile(@NonNull ExpressionNode root) {
+        if (root.type != ExpressionNode.TYPE_NUMBER && root.type != ExpressionNode.TYPE_BOOLEAN) {
+            return null;
+        }
+        Compiler compiler = new Compiler();
+        if (root.type == ExpressionNode.TYPE_NUMBER) {
+            compiler.number(root, 0);
+        } else {
+            compiler.bool(root, 0);
+        }
+        return compiler.build(root.type == ExpressionNode.TYPE_BOOLEAN);
+    }
+
+    Object execute(Map<String, Object> scope) throws IllegalArgumentException, JSONException {
+        double result = run(scope);
+        if (mBooleanResult) {
+            return result != 0;
+        }
+        return result;
+    }
+
+    int instructionCount() {
+        return mCode.length / INSTRUCTION_SIZE;
+    }
+
+    private double run(Map<String, Object> scope) throws IllegalArgumentException, JSONException {
+        final int[] code = mCode;
+        final double[] r = mRegisters;
+        final Scope slots = scope instanceof Scope ? (Scope) scope : null;
+        int pc = 0;
+        while (pc < code.length) {
+            int a = code[pc + 1];
+            int b = code[pc + 2];
+            int c = code[pc + 3];
+            switch (code[pc]) {
+                case CONST:
+                    r[a] = mConstants[b];
+                    break;
+                case VAR:
+                    r[a] = slots != null && slots.isAssigned(b) ? slots.getDouble(b) : mNodes[c].evaluateDouble(scope);
+                    break;
+                case NODE:
+                    r[a] = mNodes[b].evaluateDouble(scope);
+                    break;
+                case NODE_BOOLEAN:
+                    r[a] = mNodes[b].evaluateBoolean(scope) ? 1.0 : 0.0;
+                    break;
+                case ADD:
+                    r[a] = r[b] + r[c];
+                    break;
+                case SUB:
+                    r[a] = r[b] - r[c];
+                    break;
+                case MUL:
+                    r[a] = r[b] * r[c];
+                    break;
+                case DIV:
+                    r[a] = r[b] / r[c];
+                    break;
+                case MOD:
+                    r[a] = r[b] % r[c];
+                    break;
+                case POW:
+                    r[a] = Math.pow(r[b], r[c]);
+                    break;
+                case GT:
+                    r[a] = r[b] > r[c] ? 1.0 : 0.0;
+                    break;
+                case LT:
+                    r[a] = r[b] < r[c] ? 1.0 : 0.0;
+                    break;
+                case GE:
+                    r[a] = r[b] >= r[c] ? 1.0 : 0.0;
+                    break;
+                case LE:
+                    r[a] = r[b] <= r[c] ? 1.0 : 0.0;
+                    break;
+                case EQ:
+                    r[a] = r[b] == r[c] ? 1.0 : 0.0;
+                    break;
+                case NE:
+                    r[a] = r[b] != r[c] ? 1.0 : 0.0;
+                    break;
+                case NOT:
+                    r[a] = r[b] == 0 ? 1.0 : 0.0;
+                    break;
+                case SQUARE:
+                    r[a] = r[b] * r[b];
+                    break;
+                case BOOLEAN:
+                    r[a] = r[b] != 0 ? 1.0 : 0.0;
+                    break;
+                case JUMP_IF_FALSE:
+                    if (r[a] == 0) {
+                        pc = b * INSTRUCTION_SIZE;
+                        continue;
+                    }
+                    break;
+                case JUMP_IF_TRUE:
+                    if (r[a] != 0) {
+                        pc = b * INSTRUCTION_SIZE;
+                        continue;
+                    }
+                    break;
+                case JUMP:
+                    pc = b * INSTRUCTION_SIZE;
+                    continue;
+                case CALL:
+                    r[a] = mFunctions[b].call(r, a);
+                    break;
+                default:
+                    throw new IllegalStateException("illegal opcode " + code[pc]);
+            }
+            pc += INSTRUCTION_SIZE;
+        }
+        return r[0];
+    }
+
+    /**
+     * lowers a tree. Every method writes the value of a node into register <code>dst</code> and
+     * only uses registers above it as temporaries.
+     * */
+    private static final class Compiler {
+        private int[] mCode = new int[32];
+        private int mSize;
+        private final List<Double> mConstants = new ArrayList<>();
+        private final List<ExpressionNode> mNodes = new ArrayList<>();
+        private final List<PrimitiveFunction> mFunctions = new ArrayList<>();
+        private int mRegisterCount = 1;
+
+        BytecodeProgram build(boolean booleanResult) {
+            double[] constants = new double[mConstants.size()];
+            for (int i = 0; i < constants.length; i++) {
+                constants[i] = mConstants.get(i);
+            }
+            return new BytecodeProgram(Arrays.copyOf(mCode, mSize * INSTRUCTION_SIZE), constants,
+                    mNodes.toArray(new ExpressionNode[mNodes.size()]),
+                    mFunctions.toArray(new PrimitiveFunction[mFunctions.size()]), mRegisterCount, booleanResult);
+        }
+
+        /**
+         * same value as {@link ExpressionNode#evaluateDouble(Map)}
+         * */
+        void number(ExpressionNode node, int dst) {
+            use(dst);
+            if (node instanceof ExpressionNode.Literal) {
+                if (node.type == ExpressionNode.TYPE_NUMBER || node.type == ExpressionNode.TYPE_BOOLEAN) {
+                    emit(CONST, dst, constant(node.type == ExpressionNode.TYPE_NUMBER
+                            ? (double) ((ExpressionNode.Literal) node).value
+                            : (boolean) ((ExpressionNode.Literal) node).value ? 1.0 : 0.0), 0);
+                } else {
+                    emit(NODE, dst, node(node), 0);
+                }
+            } else if (node instanceof ExpressionNode.Variable) {
+                emit(VAR, dst, ((ExpressionNode.Variable) node).slot, node(node));
+            } else if (node instanceof ExpressionNode.Binary) {
+                binary((ExpressionNode.Binary) node, dst, false);
+            } else if (node instanceof ExpressionNode.Conditional) {
+                ExpressionNode.Conditional conditional = (ExpressionNode.Conditional) node;
+                bool(conditional.test, dst);
+                int jumpToAlternate = emit(JUMP_IF_FALSE, dst, -1, 0);
+                number(conditional.consequent, dst);
+                int jumpToEnd = emit(JUMP, 0, -1, 0);
+                patch(jumpToAlternate);
+                number(conditional.alternate, dst);
+                patch(jumpToEnd);
+            } else if (node instanceof ExpressionNode.Not) {
+                bool(((ExpressionNode.Not) node).operand, dst);
+                emit(NOT, dst, dst, 0);
+            } else if (node instanceof ExpressionNode.Square) {
+                number(((ExpressionNode.Square) node).operand, dst);
+                emit(SQUARE, dst, dst, 0);
+            } else if (node instanceof ExpressionNode.Call && ((ExpressionNode.Call) node).primitive != null) {
+                ExpressionNode.Call call = (ExpressionNode.Call) node;
+                for (int i = 0; i < call.arguments.length; i++) {
+                    number(call.arguments[i], dst + i);
+                }
+                emit(CALL, dst, function(call.primitive), 0);
+            } else {
+                emit(NODE, dst, node(node), 0);
+            }
+        }
+
+        /**
+         * the register is not 0 if {@link ExpressionNode#evaluateBoolean(Map)} is true
+         * */
+        void bool(ExpressionNode node, int dst) {
+            use(dst);
+            if (node instanceof ExpressionNode.Literal) {
+                if (node.type == ExpressionNode.TYPE_NUMBER || node.type == ExpressionNode.TYPE_BOOLEAN) {
+                    number(node, dst);
+                } else {
+                    emit(NODE_BOOLEAN, dst, node(node), 0);
+                }
+            } else if (node instanceof ExpressionNode.Variable
+                    || node instanceof ExpressionNode.Square
+                    || node instanceof ExpressionNode.Not
+                    || node instanceof ExpressionNode.Call && node.type == ExpressionNode.TYPE_NUMBER) {
+                number(node, dst);
+            } else if (node instanceof ExpressionNode.Binary) {
+                binary((ExpressionNode.Binary) node, dst, true);
+            } else if (node instanceof ExpressionNode.Conditional) {
+                ExpressionNode.Conditional conditional = (ExpressionNode.Conditional) node;
+                bool(conditional.test, dst);
+                int jumpToAlternate = emit(JUMP_IF_FALSE, dst, -1, 0);
+                bool(conditional.consequent, dst);
+                int jumpToEnd = emit(JUMP, 0, -1, 0);
+                patch(jumpToAlternate);
+                bool(conditional.alternate, dst);
+                patch(jumpToEnd);
+            } else {
+                emit(NODE_BOOLEAN, dst, node(node), 0);
+            }
+        }
+
+        private void binary(ExpressionNode.Binary binary, int dst, boolean asBoolean) {
+            int operator = binary.operator;
+            if (operator <= ExpressionNode.Binary.LE) {
+                // arithmetic and relational operators read both operands as numbers
+                number(binary.left, dst);
+                number(binary.right, dst + 1);
+                emit(opcodeOf(operator), dst, dst, dst + 1);
+                return;
+            }
+            if (operator <= ExpressionNode.Binary.STRICT_NE) {
+                ExpressionNode left = binary.left;
+                ExpressionNode right = binary.right;
+                boolean numbers = left.type == ExpressionNode.TYPE_NUMBER && right.type == ExpressionNode.TYPE_NUMBER;
+                boolean booleans = left.type == ExpressionNode.TYPE_BOOLEAN && right.type == ExpressionNode.TYPE_BOOLEAN;
+                if (!numbers && !booleans) {
+                    // loose equality of dynamic values
+                    emit(asBoolean ? NODE_BOOLEAN : NODE, dst, node(binary), 0);
+                    return;
+                }
+                number(left, dst);
+                number(right, dst + 1);
+                boolean equal = operator == ExpressionNode.Binary.EQ || operator == ExpressionNode.Binary.STRICT_EQ;
+                emit(equal ? EQ : NE, dst, dst, dst + 1);
+                return;
+            }
+            // '&&' and '||' return one of their operands
+            int jump = operator == ExpressionNode.Binary.AND ? JUMP_IF_FALSE : JUMP_IF_TRUE;
+            if (binary.type == ExpressionNode.TYPE_NUMBER) {
+                number(binary.left, dst);
+                int jumpToEnd = emit(jump, dst, -1, 0);
+                number(binary.right, dst);
+                patch(jumpToEnd);
+            } else if (binary.type == ExpressionNode.TYPE_BOOLEAN) {
+                bool(binary.left, dst);
+                int jumpToEnd = emit(jump, dst, -1, 0);
+                bool(binary.right, dst);
+                patch(jumpToEnd);
+                if (!asBoolean) {
+                    // a boolean read as number is exactly 1 or 0
+                    emit(BOOLEAN, dst, dst, 0);
+                }
+            } else {
+                emit(asBoolean ? NODE_BOOLEAN : NODE, dst, node(binary), 0);
+            }
+        }
+
+        private static int opcodeOf(int operator) {
+            switch (operator) {
+                case ExpressionNode.Binary.ADD:
+                    return ADD;
+                case ExpressionNode.Binary.SUB:
+                    return SUB;
+                case ExpressionNode.Binary.MUL:
+                    return MUL;
+                case ExpressionNode.Binary.DIV:
+                    return DIV;
+                case ExpressionNode.Binary.MOD:
+                    return MOD;
+                case ExpressionNode.Binary.POW:
+                    return POW;
+                case ExpressionNode.Binary.GT:
+                    return GT;
+                case ExpressionNode.Binary.LT:
+                    return LT;
+                case ExpressionNode.Binary.GE:
+                    return GE;
+                case ExpressionNode.Binary.LE:
+                    return LE;
+                default:
+                    throw new IllegalArgumentException("unexpected operator " + operator);
+            }
+        }
+
+        private void use(int register) {
+            mRegisterCount = Math.max(mRegisterCount, register + 2);
+        }
+
+        private int constant(double value) {
+            mConstants.add(value);
+            return mConstants.size() - 1;
+        }
+
+        private int node(ExpressionNode node) {
+            mNodes.add(node);
+            return mNodes.size() - 1;
+        }
+
+        private int function(PrimitiveFunction function) {
+            int index = mFunctions.indexOf(function);
+            if (index < 0) {
+                mFunctions.add(function);
+                index = mFunctions.size() - 1;
+            }
+            return index;
+        }
+
+        /**
+         * @return the index of the instruction
+         * */
+        private int emit(int opcode, int a, int b, int c) {
+            if ((mSize + 1) * INSTRUCTION_SIZE > mCode.length) {
+                mCode = Arrays.copyOf(mCode, mCode.length * 2);
+            }
+            int offset = mSize * INSTRUCTION_SIZE;
+            mCode[offset] = opcode;
+            mCode[offset + 1] = a;
+            mCode[offset + 2] = b;
+            mCode[offset + 3] = c;
+            return mSize++;
+        }
+
+        /**
+         * let the jump at the given instruction continue with the next instruction to be emitted
+         * */
+        private void patch(int instruction) {
+            mCode[instruction * INSTRUCTION_SIZE + 2] = mSize;
+        }
+    }
+}
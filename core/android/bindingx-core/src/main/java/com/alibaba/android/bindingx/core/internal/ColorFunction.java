@@ -0,0 +1,57 @@
+/**
+ * Copyright 2018 Alibaba Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.android.bindingx.core.internal;
+
+import java.util.ArrayList;
+
+/**
+ * Description:
+ *
+ * A built-in function with up to four numeric arguments which returns a packed ARGB color, e.g.
+ * <code>rgb(r,g,b)</code> or an <code>evaluateColor</code> call whose colors have been parsed at
+ * compile time. A compiled call with the matching number of arguments is typed as
+ * {@link ExpressionNode#TYPE_COLOR} and evaluated by {@link #color(double, double, double, double)}
+ * without boxing (see {@link ExpressionNode.Call}).
+ */
+
+abstract class ColorFunction implements JSFunctionInterface {
+
+    final int arity;
+
+    ColorFunction(int arity) {
+        this.arity = arity;
+    }
+
+    /**
+     * @return the color. Arguments beyond the arity are 0.
+     * */
+    abstract int color(double a, double b, double c, double d);
+
+    /**
+     * @return the color or null if there are not enough arguments
+     * */
+    @Override
+    public Object execute(ArrayList<Object> arguments) {
+        if (arguments == null || arguments.size() < arity) {
+            return null;
+        }
+        double[] args = new double[4];
+        for (int i = 0; i < arity; i++) {
+            args[i] = (double) arguments.get(i);
+        }
+        return color(args[0], args[1], args[2], args[3]);
+    }
+}
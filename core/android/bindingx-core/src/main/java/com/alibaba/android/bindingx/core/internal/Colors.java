@@ -0,0 +1,299 @@
+/**
+ * Copyright 2018 Alibaba Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.android.bindingx.core.internal;
+
+import android.graphics.Color;
+import android.os.Build;
+import android.support.annotation.Nullable;
+import android.text.TextUtils;
+
+/**
+ * Description:
+ *
+ * Color parsing and interpolation of <code>evaluateColor(from, to, fraction[, space])</code>.
+ * Colors are packed ARGB ints. When both colors are literals, they are parsed once at compile
+ * time into an {@link Interpolation} (see {@link ExpressionOptimizer}), which blends them without
+ * allocating anything.
+ *
+ * Color spaces:
+ * <ul>
+ *     <li>none: the blend of <code>android.animation.ArgbEvaluator</code> of the platform, gamma 2.2
+ *     since Android O and the stored sRGB channels before</li>
+ *     <li>"srgb": the stored sRGB channels</li>
+ *     <li>"linear": linear RGB, decoded and encoded with the sRGB transfer function</li>
+ *     <li>"oklab": the perceptual OKLab space, the hue and lightness of a blend change evenly</li>
+ * </ul>
+ * The transfer functions are precomputed tables: decoding is a table read and encoding is a
+ * binary search of the 255 rounding thresholds, so no <code>Math.pow</code> runs per frame and the
+ * result is rounded exactly like the analytic form.
+ */
+
+final class Colors {
+
+    static final int SPACE_SRGB = 0;
+    static final int SPACE_GAMMA = 1;
+    static final int SPACE_LINEAR = 2;
+    static final int SPACE_OKLAB = 3;
+
+    // ArgbEvaluator blends in linear space (gamma 2.2) since Android O
+    static final int SPACE_DEFAULT = Build.VERSION.SDK_INT >= Build.VERSION_CODES.O ? SPACE_GAMMA : SPACE_SRGB;
+
+    private static final TransferTable GAMMA = new TransferTable(false);
+    private static final TransferTable SRGB = new TransferTable(true);
+
+    // the interpolations of evaluateColor calls whose colors are not literals, by (from, to, space).
+    // An interpolation does not change once created, so the slots are shared without a lock.
+    private static final int CACHE_SIZE = 16;
+    private static final Interpolation[] sCache = new Interpolation[CACHE_SIZE];
+
+    private Colors() {
+    }
+
+    /**
+     * @param color e.g. "#ff0000" or "red", quotes are removed
+     * @return the opaque color
+     * @throws IllegalArgumentException if the color is unknown
+     * */
+    static int parse(@Nullable String color) {
+        String unquoted = unquote(color);
+        if (TextUtils.isEmpty(unquoted)) {
+            throw new IllegalArgumentException("Unknown color");
+        }
+        return 0xff000000 | Color.parseColor(unquoted);
+    }
+
+    /**
+     * @param name null, "srgb", "linear" or "oklab", quotes are removed
+     * @throws IllegalArgumentException if the color space is unknown
+     * */
+    static int spaceOf(@Nullable String name) {
+        String unquoted = unquote(name);
+        if (unquoted == null) {
+            return SPACE_DEFAULT;
+        }
+        switch (unquoted) {
+            case "srgb":
+                return SPACE_SRGB;
+            case "linear":
+                return SPACE_LINEAR;
+            case "oklab":
+                return SPACE_OKLAB;
+            default:
+                throw new IllegalArgumentException("Unknown color space " + name);
+        }
+    }
+
+    /**
+     * @return the interpolation of the two colors, created once for the colors and the space
+     * unless others have taken its slot meanwhile
+     * */
+    static Interpolation interpolation(int from, int to, int space) {
+        int hash = (from * 31 + to) * 31 + space;
+        int index = (hash ^ (hash >>> 16)) & (CACHE_SIZE - 1);
+        Interpolation cached = sCache[index];
+        if (cached == null || cached.from != from || cached.to != to || cached.space != space) {
+            cached = new Interpolation(from, to, space);
+            sCache[index] = cached;
+        }
+        return cached;
+    }
+
+    static int argb(int a, int r, int g, int b) {
+        return (a << 24) | (r << 16) | (g << 8) | b;
+    }
+
+    @Nullable
+    private static String unquote(@Nullable String str) {
+        if (str != null && (str.startsWith("'") || str.startsWith("\""))) {
+            return str.substring(1, str.length() - 1);
+        }
+        return str;
+    }
+
+    /**
+     * the blend of two fixed colors, the only argument is the fraction
+     * */
+    static final class Interpolation extends ColorFunction {
+        final int from;
+        final int to;
+        final int space;
+
+        // the components of both colors in the color space, alpha is last
+        private final float[] mStart = new float[4];
+        private final float[] mEnd = new float[4];
+
+        Interpolation(int from, int to, int space) {
+            super(1);
+            this.from = from;
+            this.to = to;
+            this.space = space;
+            toSpace(from, space, mStart);
+            toSpace(to, space, mEnd);
+        }
+
+        @Override
+        int color(double fraction, double unused1, double unused2, double unused3) {
+            float f = (float) Math.min(1.0d, Math.max(0.0d, fraction));
+            switch (space) {
+                case SPACE_SRGB:
+                    return blendChannels(from, to, f);
+                case SPACE_GAMMA:
+                    return blendLinear(GAMMA, f);
+                case SPACE_LINEAR:
+                    return blendLinear(SRGB, f);
+                case SPACE_OKLAB:
+                    return blendOklab(f);
+                default:
+                    throw new IllegalStateException("unknown color space " + space);
+            }
+        }
+
+        // same as ArgbEvaluator before Android O
+        private static int blendChannels(int from, int to, float f) {
+            int startA = (from >> 24) & 0xff;
+            int startR = (from >> 16) & 0xff;
+            int startG = (from >> 8) & 0xff;
+            int startB = from & 0xff;
+            int endA = (to >> 24) & 0xff;
+            int endR = (to >> 16) & 0xff;
+            int endG = (to >> 8) & 0xff;
+            int endB = to & 0xff;
+            return argb(startA + (int) (f * (endA - startA)),
+                    startR + (int) (f * (endR - startR)),
+                    startG + (int) (f * (endG - startG)),
+                    startB + (int) (f * (endB - startB)));
+        }
+
+        // with the gamma table, same as ArgbEvaluator since Android O
+        private int blendLinear(TransferTable table, float f) {
+            float r = mStart[0] + f * (mEnd[0] - mStart[0]);
+            float g = mStart[1] + f * (mEnd[1] - mStart[1]);
+            float b = mStart[2] + f * (mEnd[2] - mStart[2]);
+            float a = mStart[3] + f * (mEnd[3] - mStart[3]);
+            return argb(Math.round(a * 255.0f), table.encode(r), table.encode(g), table.encode(b));
+        }
+
+        private int blendOklab(float f) {
+            float l = mStart[0] + f * (mEnd[0] - mStart[0]);
+            float a = mStart[1] + f * (mEnd[1] - mStart[1]);
+            float b = mStart[2] + f * (mEnd[2] - mStart[2]);
+            float alpha = mStart[3] + f * (mEnd[3] - mStart[3]);
+
+            float l_ = l + 0.3963377774f * a + 0.2158037573f * b;
+            float m_ = l - 0.1055613458f * a - 0.0638541728f * b;
+            float s_ = l - 0.0894841775f * a - 1.2914855480f * b;
+            float lms0 = l_ * l_ * l_;
+            float lms1 = m_ * m_ * m_;
+            float lms2 = s_ * s_ * s_;
+
+            float red = 4.0767416621f * lms0 - 3.3077115913f * lms1 + 0.2309699292f * lms2;
+            float green = -1.2684380046f * lms0 + 2.6097574011f * lms1 - 0.3413193965f * lms2;
+            float blue = -0.0041960863f * lms0 - 0.7034186147f * lms1 + 1.7076147010f * lms2;
+            return argb(Math.round(alpha * 255.0f), SRGB.encode(red), SRGB.encode(green), SRGB.encode(blue));
+        }
+
+        private static void toSpace(int color, int space, float[] out) {
+            out[3] = ((color >> 24) & 0xff) / 255.0f;
+            if (space == SPACE_SRGB) {
+                return;
+            }
+            TransferTable table = space == SPACE_GAMMA ? GAMMA : SRGB;
+            float r = table.decode((color >> 16) & 0xff);
+            float g = table.decode((color >> 8) & 0xff);
+            float b = table.decode(color & 0xff);
+            if (space != SPACE_OKLAB) {
+                out[0] = r;
+                out[1] = g;
+                out[2] = b;
+                return;
+            }
+            double l = Math.cbrt(0.4122214708 * r + 0.5363325363 * g + 0.0514459929 * b);
+            double m = Math.cbrt(0.2119034982 * r + 0.6806995451 * g + 0.1073969566 * b);
+            double s = Math.cbrt(0.0883024619 * r + 0.2817188376 * g + 0.6299787005 * b);
+            out[0] = (float) (0.2104542553 * l + 0.7936177850 * m - 0.0040720468 * s);
+            out[1] = (float) (1.9779984951 * l - 2.4285922050 * m + 0.4505937099 * s);
+            out[2] = (float) (0.0259040371 * l + 0.7827717662 * m - 0.8086757660 * s);
+        }
+    }
+
+    /**
+     * transfer function between 8 bit channels and linear values
+     * */
+    private static final class TransferTable {
+        private final boolean mSrgb;
+        private final float[] mDecode = new float[256];
+        // mThresholds[k] is the smallest linear value which is encoded as k + 1
+        private final float[] mThresholds = new float[255];
+
+        TransferTable(boolean srgb) {
+            this.mSrgb = srgb;
+            for (int i = 0; i < 256; i++) {
+                float channel = i / 255.0f;
+                mDecode[i] = srgb ? (float) srgbToLinear(channel) : (float) Math.pow(channel, 2.2);
+            }
+            for (int k = 0; k < 255; k++) {
+                // search the float bits, the order of positive floats is the order of their bits
+                int low = 0;
+                int high = Float.floatToIntBits(1.0f);
+                while (low < high) {
+                    int middle = (low + high) >>> 1;
+                    if (encodeExactly(Float.intBitsToFloat(middle)) > k) {
+                        high = middle;
+                    } else {
+                        low = middle + 1;
+                    }
+                }
+                mThresholds[k] = Float.intBitsToFloat(low);
+            }
+        }
+
+        float decode(int channel) {
+            return mDecode[channel];
+        }
+
+        /**
+         * @return the 8 bit channel of a linear value, clamped to 0..255
+         * */
+        int encode(float linear) {
+            int low = 0;
+            int high = mThresholds.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (mThresholds[middle] <= linear) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        private int encodeExactly(float linear) {
+            if (mSrgb) {
+                return Math.round((float) linearToSrgb(linear) * 255.0f);
+            }
+            return Math.round((float) Math.pow(linear, 1.0 / 2.2) * 255.0f);
+        }
+
+        private static double srgbToLinear(double channel) {
+            return channel <= 0.04045 ? channel / 12.92 : Math.pow((channel + 0.055) / 1.055, 2.4);
+        }
+
+        private static double linearToSrgb(double linear) {
+            return linear <= 0.0031308 ? linear * 12.92 : 1.055 * Math.pow(linear, 1 / 2.4) - 0.055;
+        }
+    }
+}
@@ -0,0 +1,229 @@
+/**
+ * Copyright 2018 Alibaba Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.android.bindingx.core.internal;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Description:
+ *
+ * Shares the sub expressions which are used by several expressions of one binding, e.g.
+ * <code>min(max(y,0),200)/200</code> referenced by the opacity, scale and translate of a
+ * collapsing header. Structurally equal subtrees of all the holders are merged into one
+ * {@link ExpressionNode.Shared} node, so they are computed once per event instead of once per
+ * property.
+ *
+ * The holders get their own copy of the rewritten trees, the compiled (cached) expressions are
+ * left untouched. Call {@link #invalidate()} before every event.
+ */
+
+final class CommonSubexpressions {
+
+    private final List<ExpressionNode.Shared> mSharedNodes;
+
+    private CommonSubexpressions(List<ExpressionNode.Shared> sharedNodes) {
+        this.mSharedNodes = sharedNodes;
+    }
+
+    /**
+     * merge the common sub expressions of all the holders and assign the rewritten
+     * expressions to them.
+     *
+     * @return the shared sub expressions or null if nothing is shared
+     * */
+    @Nullable
+    static CommonSubexpressions eliminate(@NonNull Collection<List<ExpressionHolder>> holderLists) {
+        Builder builder = new Builder();
+        for (List<ExpressionHolder> holders : holderLists) {
+            for (ExpressionHolder holder : holders) {
+                if (holder.expression != null && holder.expression.root != null) {
+                    builder.count(holder.expression.root);
+                }
+            }
+        }
+        if (!builder.hasCommon()) {
+            return null;
+        }
+        for (List<ExpressionHolder> holders : holderLists) {
+            for (ExpressionHolder holder : holders) {
+                if (holder.expression != null && holder.expression.root != null) {
+                    holder.expression = new Expression(builder.rewrite(holder.expression.root, 1));
+                }
+            }
+        }
+        return builder.mSharedNodes.isEmpty() ? null : new CommonSubexpressions(builder.mSharedNodes);
+    }
+
+    /**
+     * drop the values computed for the previous event
+     * */
+    void invalidate() {
+        for (int i = 0, size = mSharedNodes.size(); i < size; i++) {
+            mSharedNodes.get(i).invalidate();
+        }
+    }
+
+    int size() {
+        return mSharedNodes.size();
+    }
+
+    private static final class Builder {
+        // structural key of every visited subtree
+        private final Map<ExpressionNode, String> mKeys = new IdentityHashMap<>();
+        // built-in functions held by literals are compared by identity
+        private final Map<Object, Integer> mObjects = new IdentityHashMap<>();
+        private final Map<String, Integer> mOccurrences = new HashMap<>();
+        private final Map<String, ExpressionNode.Shared> mSharedByKey = new HashMap<>();
+        private final List<ExpressionNode.Shared> mSharedNodes = new ArrayList<>();
+
+        private boolean hasCommon() {
+            for (Integer occurrence : mOccurrences.values()) {
+                if (occurrence > 1) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private String count(ExpressionNode node) {
+            String key = keyOf(node);
+            if (isShareable(node)) {
+                Integer occurrence = mOccurrences.get(key);
+                mOccurrences.put(key, occurrence == null ? 1 : occurrence + 1);
+            }
+            return key;
+        }
+
+        private String keyOf(ExpressionNode node) {
+            String key;
+            if (node instanceof ExpressionNode.Literal) {
+                key = literalKeyOf(((ExpressionNode.Literal) node).value);
+            } else if (node instanceof ExpressionNode.Identifier) {
+                key = "$" + ((ExpressionNode.Identifier) node).name;
+            } else if (node instanceof ExpressionNode.Variable) {
+                key = "$" + ((ExpressionNode.Variable) node).name;
+            } else if (node instanceof ExpressionNode.Call) {
+                ExpressionNode.Call call = (ExpressionNode.Call) node;
+                StringBuilder builder = new StringBuilder("call(").append(count(call.function));
+                for (ExpressionNode argument : call.arguments) {
+                    builder.append(',').append(count(argument));
+                }
+                key = builder.append(')').toString();
+            } else if (node instanceof ExpressionNode.Conditional) {
+                ExpressionNode.Conditional conditional = (ExpressionNode.Conditional) node;
+                key = "?(" + count(conditional.test) + "," + count(conditional.consequent) + "," + count(conditional.alternate) + ")";
+            } else if (node instanceof ExpressionNode.Binary) {
+                ExpressionNode.Binary binary = (ExpressionNode.Binary) node;
+                key = "op" + binary.operator + "(" + count(binary.left) + "," + count(binary.right) + ")";
+            } else if (node instanceof ExpressionNode.Not) {
+                key = "!(" + count(((ExpressionNode.Not) node).operand) + ")";
+            } else if (node instanceof ExpressionNode.Square) {
+                key = "sq(" + count(((ExpressionNode.Square) node).operand) + ")";
+            } else {
+                // unknown node, never equal to another one
+                key = "#" + System.identityHashCode(node);
+            }
+            mKeys.put(node, key);
+            return key;
+        }
+
+        private String literalKeyOf(Object value) {
+            if (value instanceof String) {
+                return "'" + value + "'";
+            }
+            if (value == null || value instanceof Double || value instanceof Boolean) {
+                return String.valueOf(value);
+            }
+            Integer index = mObjects.get(value);
+            if (index == null) {
+                index = mObjects.size();
+                mObjects.put(value, index);
+            }
+            return "@" + index;
+        }
+
+        /**
+         * @param parentOccurrence how often the closest shared ancestor occurs. A subtree
+         *                         which occurs no more often than that ancestor is only used
+         *                         through it and does not need to be shared on its own.
+         * */
+        private ExpressionNode rewrite(ExpressionNode node, int parentOccurrence) {
+            if (!isShareable(node)) {
+                return node;
+            }
+            String key = mKeys.get(node);
+            Integer occurrence = mOccurrences.get(key);
+            if (occurrence != null && occurrence > 1 && occurrence > parentOccurrence) {
+                ExpressionNode.Shared shared = mSharedByKey.get(key);
+                if (shared == null) {
+                    shared = new ExpressionNode.Shared(rewriteChildren(node, occurrence));
+                    mSharedByKey.put(key, shared);
+                    mSharedNodes.add(shared);
+                }
+                return shared;
+            }
+            return rewriteChildren(node, parentOccurrence);
+        }
+
+        private ExpressionNode rewriteChildren(ExpressionNode node, int parentOccurrence) {
+            if (node instanceof ExpressionNode.Call) {
+                ExpressionNode.Call call = (ExpressionNode.Call) node;
+                ExpressionNode[] arguments = new ExpressionNode[call.arguments.length];
+                for (int i = 0; i < arguments.length; i++) {
+                    arguments[i] = rewrite(call.arguments[i], parentOccurrence);
+                }
+                return new ExpressionNode.Call(call.function, arguments);
+            }
+            if (node instanceof ExpressionNode.Conditional) {
+                ExpressionNode.Conditional conditional = (ExpressionNode.Conditional) node;
+                return new ExpressionNode.Conditional(
+                        rewrite(conditional.test, parentOccurrence),
+                        rewrite(conditional.consequent, parentOccurrence),
+                        rewrite(conditional.alternate, parentOccurrence));
+            }
+            if (node instanceof ExpressionNode.Binary) {
+                ExpressionNode.Binary binary = (ExpressionNode.Binary) node;
+                return new ExpressionNode.Binary(binary.operator,
+                        rewrite(binary.left, parentOccurrence),
+                        rewrite(binary.right, parentOccurrence));
+            }
+            if (node instanceof ExpressionNode.Not) {
+                return new ExpressionNode.Not(rewrite(((ExpressionNode.Not) node).operand, parentOccurrence));
+            }
+            if (node instanceof ExpressionNode.Square) {
+                return new ExpressionNode.Square(rewrite(((ExpressionNode.Square) node).operand, parentOccurrence));
+            }
+            return node;
+        }
+
+        /**
+         * literals and variables are as cheap as a shared node itself
+         * */
+        private static boolean isShareable(ExpressionNode node) {
+            return !(node instanceof ExpressionNode.Literal)
+                    && !(node instanceof ExpressionNode.Identifier)
+                    && !(node instanceof ExpressionNode.Variable);
+        }
+    }
+}
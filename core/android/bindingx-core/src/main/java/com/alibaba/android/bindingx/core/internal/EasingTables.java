@@ -0,0 +1,314 @@
+/**
+ * Copyright 2018 Alibaba Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.android.bindingx.core.internal;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.alibaba.android.bindingx.core.LogProxy;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Description:
+ *
+ * Lookup table mode of the easing functions of {@link TimingFunctions}. Every easing curve is
+ * sampled once into a normalized table (t and c are 0..1, b is 0) and evaluated by linear or
+ * cubic (Catmull-Rom) interpolation, so a frame costs two or four array reads instead of
+ * <code>Math.pow</code>, <code>Math.sin</code> and the elastic/bounce branches.
+ *
+ * The mode is chosen per binding with the option <code>easing: "table" | "table-cubic" | "analytic"</code>
+ * and <code>easingResolution</code> (intervals per curve, {@link #DEFAULT_RESOLUTION} by default),
+ * or globally with {@link #setDefault(String, int)}. Calls of easing functions are replaced with
+ * their table at bind time, nothing else changes.
+ *
+ * The maximum error versus the analytic form is {@link #TOLERANCE} (1e-4) of the change in
+ * value c, i.e. 0.1 pixel for a change of 1000 pixels. Each interval of a table is checked against
+ * the analytic form when the table is built, intervals which can't be interpolated that closely
+ * (the kinks of the bounce curves, the vertical ends of the circular curves) are evaluated
+ * analytically. Share of analytic intervals over all 30 curves:
+ * <pre>
+ *   resolution   linear   cubic
+ *   64           51%      6.7%
+ *   256          3.2%     0.7%
+ *   1024         0.1%     0.1%
+ * </pre>
+ * The first (t &lt;= 0) and the last (t &gt;= d) value are always analytic, so an animation
+ * starts and ends on the exact value.
+ */
+
+public final class EasingTables {
+
+    public static final int DEFAULT_RESOLUTION = 256;
+    static final int MIN_RESOLUTION = 16;
+    static final int MAX_RESOLUTION = 4096;
+    // largest interpolation error relative to c, checked at build time
+    static final double TOLERANCE = 1e-4;
+    private static final int CHECKS_PER_INTERVAL = 8;
+
+    // used by bindings which don't choose a mode, null is analytic
+    private static volatile EasingTables sDefault;
+    // tables are immutable and shared by all bindings with the same mode and resolution
+    private static final Map<String, EasingTables> sInstances = new HashMap<>();
+
+    private final int mResolution;
+    private final boolean mCubic;
+    // built-in easing function -> table, built on first use
+    private final Map<Object, TableFunction> mFunctions = new HashMap<>();
+
+    private EasingTables(int resolution, boolean cubic) {
+        this.mResolution = resolution;
+        this.mCubic = cubic;
+    }
+
+    /**
+     * sets the mode of all bindings which don't choose a mode themselves.
+     *
+     * @param mode "table", "table-cubic" or "analytic" (also null)
+     * @param resolution intervals per curve, e.g. {@link #DEFAULT_RESOLUTION}
+     * */
+    public static void setDefault(@Nullable String mode, int resolution) {
+        sDefault = obtain(mode, resolution);
+    }
+
+    /**
+     * @return the tables chosen by the options of a binding or the default, null if the easing
+     * functions are evaluated analytically
+     * */
+    @Nullable
+    static EasingTables of(@Nullable Map<String, Object> options) {
+        Object mode = options == null ? null : options.get(BindingXConstants.KEY_EASING);
+        if (mode == null) {
+            return sDefault;
+        }
+        return obtain(String.valueOf(mode), parseResolution(options.get(BindingXConstants.KEY_EASING_RESOLUTION)));
+    }
+
+    @Nullable
+    static synchronized EasingTables obtain(@Nullable String mode, int resolution) {
+        boolean cubic;
+        if (BindingXConstants.EASING_TABLE.equals(mode)) {
+            cubic = false;
+        } else if (BindingXConstants.EASING_TABLE_CUBIC.equals(mode)) {
+            cubic = true;
+        } else {
+            if (mode != null && !BindingXConstants.EASING_ANALYTIC.equals(mode)) {
+                LogProxy.e("illegal " + BindingXConstants.KEY_EASING + ": " + mode);
+            }
+            return null;
+        }
+        resolution = Math.max(MIN_RESOLUTION, Math.min(MAX_RESOLUTION, resolution));
+        String key = mode + "/" + resolution;
+        EasingTables tables = sInstances.get(key);
+        if (tables == null) {
+            tables = new EasingTables(resolution, cubic);
+            sInstances.put(key, tables);
+        }
+        return tables;
+    }
+
+    private static int parseResolution(@Nullable Object resolution) {
+        if (resolution instanceof Number) {
+            return ((Number) resolution).intValue();
+        }
+        if (resolution instanceof String) {
+            try {
+                return Integer.parseInt((String) resolution);
+            } catch (NumberFormatException e) {
+                LogProxy.e("illegal " + BindingXConstants.KEY_EASING_RESOLUTION + ": " + resolution);
+            }
+        }
+        return DEFAULT_RESOLUTION;
+    }
+
+    int resolution() {
+        return mResolution;
+    }
+
+    boolean isCubic() {
+        return mCubic;
+    }
+
+    /**
+     * @return the expression with all calls of easing functions evaluated by table, the expression
+     * itself if it calls none. Cached expressions are left untouched.
+     * */
+    @Nullable
+    Expression apply(@Nullable Expression expression) {
+        if (expression == null) {
+            return null;
+        }
+        ExpressionNode root = rewrite(expression.root);
+        return root == expression.root ? expression : new Expression(root);
+    }
+
+    /**
+     * @return the table of a built-in easing function or null if the function is not one
+     * */
+    @Nullable
+    synchronized TableFunction tableOf(@Nullable Object function) {
+        if (!(function instanceof PrimitiveFunction.Arity4)
+                || !Scope.isBuiltin(function)
+                || function == Scope.builtinOf("linear")) {
+            return null;
+        }
+        TableFunction table = mFunctions.get(function);
+        if (table == null) {
+            table = new TableFunction((PrimitiveFunction.Arity4) function, mResolution, mCubic);
+            mFunctions.put(function, table);
+        }
+        return table;
+    }
+
+    private ExpressionNode rewrite(ExpressionNode node) {
+        if (node instanceof ExpressionNode.Call) {
+            ExpressionNode.Call call = (ExpressionNode.Call) node;
+            ExpressionNode function = call.function;
+            TableFunction table = call.primitive != null ? tableOf(call.primitive) : null;
+            if (table != null) {
+                function = new ExpressionNode.Literal(table);
+            }
+            ExpressionNode[] arguments = rewrite(call.arguments);
+            if (function == call.function && arguments == call.arguments) {
+                return node;
+            }
+            return new ExpressionNode.Call(function, arguments);
+        }
+        if (node instanceof ExpressionNode.Conditional) {
+            ExpressionNode.Conditional conditional = (ExpressionNode.Conditional) node;
+            ExpressionNode test = rewrite(conditional.test);
+            ExpressionNode consequent = rewrite(conditional.consequent);
+            ExpressionNode alternate = rewrite(conditional.alternate);
+            if (test == conditional.test && consequent == conditional.consequent && alternate == conditional.alternate) {
+                return node;
+            }
+            return new ExpressionNode.Conditional(test, consequent, alternate);
+        }
+        if (node instanceof ExpressionNode.Binary) {
+            ExpressionNode.Binary binary = (ExpressionNode.Binary) node;
+            ExpressionNode left = rewrite(binary.left);
+            ExpressionNode right = rewrite(binary.right);
+            if (left == binary.left && right == binary.right) {
+                return node;
+            }
+            return new ExpressionNode.Binary(binary.operator, left, right);
+        }
+        if (node instanceof ExpressionNode.Not) {
+            ExpressionNode operand = ((ExpressionNode.Not) node).operand;
+            ExpressionNode rewritten = rewrite(operand);
+            return rewritten == operand ? node : new ExpressionNode.Not(rewritten);
+        }
+        if (node instanceof ExpressionNode.Square) {
+            ExpressionNode operand = ((ExpressionNode.Square) node).operand;
+            ExpressionNode rewritten = rewrite(operand);
+            return rewritten == operand ? node : new ExpressionNode.Square(rewritten);
+        }
+        return node;
+    }
+
+    private ExpressionNode[] rewrite(ExpressionNode[] nodes) {
+        ExpressionNode[] rewritten = nodes;
+        for (int i = 0; i < nodes.length; i++) {
+            ExpressionNode node = rewrite(nodes[i]);
+            if (node != nodes[i]) {
+                if (rewritten == nodes) {
+                    rewritten = nodes.clone();
+                }
+                rewritten[i] = node;
+            }
+        }
+        return rewritten;
+    }
+
+    /**
+     * an easing function (t, b, c, d) evaluated by table
+     * */
+    static final class TableFunction extends PrimitiveFunction.Arity4 {
+        private final PrimitiveFunction.Arity4 mAnalytic;
+        private final float[] mSamples;
+        private final boolean mCubic;
+        // intervals which can't be interpolated within TOLERANCE (kinks of the bounce curves,
+        // the vertical ends of the circular curves) are evaluated analytically
+        private final boolean[] mAnalyticIntervals;
+        private final int mAnalyticIntervalCount;
+
+        TableFunction(@NonNull PrimitiveFunction.Arity4 analytic, int resolution, boolean cubic) {
+            this.mAnalytic = analytic;
+            this.mCubic = cubic;
+            this.mSamples = new float[resolution + 1];
+            for (int i = 0; i <= resolution; i++) {
+                // the ends are the limits from inside, e.g. easeInExpo jumps at 0
+                double u = i == 0 ? Double.MIN_VALUE : i == resolution ? Math.nextAfter(1.0, 0) : (double) i / resolution;
+                mSamples[i] = (float) analytic.call(u, 0, 1, 1);
+            }
+            this.mAnalyticIntervals = new boolean[resolution];
+            int count = 0;
+            for (int i = 0; i < resolution; i++) {
+                for (int k = 1; k < CHECKS_PER_INTERVAL; k++) {
+                    double u = (i + (double) k / CHECKS_PER_INTERVAL) / resolution;
+                    if (Math.abs(interpolate(u) - analytic.call(u, 0, 1, 1)) > TOLERANCE) {
+                        mAnalyticIntervals[i] = true;
+                        count++;
+                        break;
+                    }
+                }
+            }
+            this.mAnalyticIntervalCount = count;
+        }
+
+        @Override
+        double call(double t, double b, double c, double d) {
+            // also NaN
+            if (!(t > 0 && t < d)) {
+                return mAnalytic.call(t, b, c, d);
+            }
+            double u = t / d;
+            int i = (int) (u * mAnalyticIntervals.length);
+            if (i >= mAnalyticIntervals.length || mAnalyticIntervals[i]) {
+                return mAnalytic.call(t, b, c, d);
+            }
+            return c * interpolate(u) + b;
+        }
+
+        int analyticIntervalCount() {
+            return mAnalyticIntervalCount;
+        }
+
+        /**
+         * @param u 0..1
+         * */
+        double interpolate(double u) {
+            final float[] samples = mSamples;
+            final int last = samples.length - 1;
+            double position = u * last;
+            int i = (int) position;
+            if (i >= last) {
+                return samples[last];
+            }
+            double f = position - i;
+            double p1 = samples[i];
+            double p2 = samples[i + 1];
+            if (!mCubic) {
+                return p1 + (p2 - p1) * f;
+            }
+            // the ends are extended linearly
+            double p0 = i > 0 ? samples[i - 1] : 2 * p1 - p2;
+            double p3 = i + 2 <= last ? samples[i + 2] : 2 * p2 - p1;
+            return p1 + 0.5 * f * (p2 - p0 + f * (2 * p0 - 5 * p1 + 4 * p2 - p3 + f * (3 * (p1 - p2) + p3 - p0)));
+        }
+    }
+}
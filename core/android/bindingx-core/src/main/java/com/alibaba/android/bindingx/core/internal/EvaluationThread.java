@@ -0,0 +1,176 @@
+/**
+ * Copyright 2018 Alibaba Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.android.bindingx.core.internal;
+
+import android.os.Looper;
+import android.os.Process;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+
+import com.alibaba.android.bindingx.core.LogProxy;
+import com.alibaba.android.bindingx.core.ViewUpdateBuffer;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Description:
+ *
+ * A dedicated thread which evaluates the expressions of the input events of one
+ * {@link com.alibaba.android.bindingx.core.BindingXCore}, so the expressions take no time of
+ * the input and animation phases of the main thread.
+ *
+ * Events of the main thread (touch, scroll) come through a {@link SpscRingBuffer}, events of any
+ * other thread (sensors, the js thread) through a lock free linked queue. When the ring is full the
+ * main thread does not wait, its tasks go to an overflow queue until the thread has caught up.
+ * Tasks of one thread run in the order they were posted. The view updates go back to the main thread through the lock
+ * free inbox of {@link ViewUpdateBuffer}, the main thread only applies them.
+ *
+ * The thread parks while there is nothing to do.
+ */
+
+public final class EvaluationThread extends Thread implements Executor {
+
+    private static final int CAPACITY = 1024;
+
+    private final Thread mRingProducer;
+    @Nullable
+    private final ViewUpdateBuffer mUpdateBuffer;
+    private final SpscRingBuffer<Runnable> mRing = new SpscRingBuffer<>(CAPACITY);
+    private final ConcurrentLinkedQueue<Runnable> mQueue = new ConcurrentLinkedQueue<>();
+    // tasks of the ring producer while the ring is full, and after them until they have been taken
+    private final ConcurrentLinkedQueue<Runnable> mOverflow = new ConcurrentLinkedQueue<>();
+
+    private volatile boolean mWaiting;
+    private volatile boolean mQuit;
+
+    // statistics
+    private volatile long mExecutedCount;
+    private volatile long mFullCount;
+
+    public EvaluationThread() {
+        this(Looper.getMainLooper().getThread(), ViewUpdateBuffer.getInstance());
+    }
+
+    /**
+     * @param ringProducer the thread which posts through the ring buffer
+     * @param updateBuffer the buffer the view updates are posted to, null if they are not
+     * */
+    @VisibleForTesting
+    EvaluationThread(@NonNull Thread ringProducer, @Nullable ViewUpdateBuffer updateBuffer) {
+        super("bindingx-evaluation");
+        this.mRingProducer = ringProducer;
+        this.mUpdateBuffer = updateBuffer;
+    }
+
+    @Override
+    public void execute(@NonNull Runnable task) {
+        if (mQuit) {
+            return;
+        }
+        if (Thread.currentThread() == mRingProducer) {
+            // the ring is only used again once the overflow is taken, which keeps the order
+            if (!mOverflow.isEmpty() || !mRing.offer(task)) {
+                // the evaluation is a thousand events behind
+                mFullCount++;
+                mOverflow.offer(task);
+            }
+        } else {
+            mQueue.offer(task);
+        }
+        if (mWaiting) {
+            LockSupport.unpark(this);
+        }
+    }
+
+    /**
+     * stops once the tasks posted so far have run, so the end and exit callbacks of the pending
+     * events are still sent. Tasks posted later are dropped.
+     * */
+    public void quit() {
+        mQuit = true;
+        LockSupport.unpark(this);
+    }
+
+    public boolean isQuit() {
+        return mQuit;
+    }
+
+    long getExecutedCount() {
+        return mExecutedCount;
+    }
+
+    /**
+     * @return how many tasks of the main thread went to the overflow queue
+     * */
+    long getFullCount() {
+        return mFullCount;
+    }
+
+    @Override
+    public void run() {
+        try {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_DISPLAY);
+        } catch (Throwable e) {
+            // keep the default priority
+        }
+        if (mUpdateBuffer != null) {
+            mUpdateBuffer.openInbox();
+        }
+        try {
+            while (true) {
+                Runnable task = next();
+                if (task == null) {
+                    if (mQuit) {
+                        break;
+                    }
+                    mWaiting = true;
+                    // an event posted before this point is seen here, one posted later unparks
+                    task = next();
+                    if (task == null && !mQuit) {
+                        LockSupport.park(this);
+                    }
+                    mWaiting = false;
+                    if (task == null) {
+                        continue;
+                    }
+                }
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    LogProxy.e("evaluation failed", e);
+                }
+                mExecutedCount++;
+            }
+        } finally {
+            if (mUpdateBuffer != null) {
+                mUpdateBuffer.closeInbox();
+            }
+            mQueue.clear();
+            mOverflow.clear();
+        }
+    }
+
+    private Runnable next() {
+        Runnable task = mRing.poll();
+        if (task == null) {
+            task = mOverflow.poll();
+        }
+        return task != null ? task : mQueue.poll();
+    }
+}
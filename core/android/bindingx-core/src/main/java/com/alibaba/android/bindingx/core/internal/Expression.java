@@ -15,6 +15,7 @@
  */
 package com.alibaba.android.bindingx.core.internal;
 
+import android.support.annotation.NonNull;
 
 import com.alibaba.android.bindingx.core.LogProxy;
 
@@ -23,170 +24,276 @@ import org.json.JSONException;
 import org.json.JSONObject;
 import org.json.JSONTokener;
 
-import java.util.ArrayList;
 import java.util.Map;
 
 /**
- * Execute transformed expression use recursive way
+ * Execute transformed expression. The json is compiled into a tree of {@link ExpressionNode}
+ * when the expression is created, so that nothing is parsed while executing.
  * */
 class Expression {
 
+    ExpressionNode root;
 
-    JSONObject root;
+    // the slots of Scope this expression reads, see Scope#changedSlots()
+    int readMask = Scope.ALL_SLOTS;
+
+    // runs instead of the tree if not null, see #toBytecode()
+    BytecodeProgram program;
+
+    // played back instead of evaluating while it covers t, see #withKeyframes(KeyframeBuffer.Track)
+    KeyframeBuffer.Track keyframes;
 
     Expression(String json) {
         try {
-            this.root = (JSONObject) new JSONTokener(json).nextValue();
+            this.root = compile((JSONObject) new JSONTokener(json).nextValue());
+            this.readMask = readMaskOf(root);
         } catch (Throwable e) {
             LogProxy.e("[Expression] expression is illegal. \n ", e);
         }
     }
 
     Expression(JSONObject root) {
+        try {
+            this.root = compile(root);
+            this.readMask = readMaskOf(this.root);
+        } catch (Throwable e) {
+            LogProxy.e("[Expression] expression is illegal. \n ", e);
+        }
+    }
+
+    Expression(ExpressionNode root) {
         this.root = root;
+        this.readMask = readMaskOf(root);
     }
 
     Object execute(Map<String, Object> scope) throws IllegalArgumentException, JSONException {
-        return execute(this.root, scope);
+        if (root == null) {
+            return null;
+        }
+        if (keyframes != null && keyframes.isNumber()) {
+            double t = keyframes.timeIn(scope);
+            if (!Double.isNaN(t)) {
+                return keyframes.sampleDouble(t);
+            }
+        }
+        if (program != null) {
+            return program.execute(scope);
+        }
+        return root.evaluate(scope);
     }
 
-    private double toNumber(Object value) {
-        if (value instanceof String)
-            return Double.parseDouble((String) value);
-        if (value instanceof Boolean)
-            return (boolean) value ? 1.0 : 0.0;
-        return (double) value;
+    /**
+     * @return true if the result is always a packed ARGB color, see {@link #executeColor(Map)}
+     * */
+    boolean isColor() {
+        return root != null && root.type == ExpressionNode.TYPE_COLOR;
     }
 
-    private boolean toBoolean(Object value) {
-        if (value instanceof String)
-            return (String) value == "";
-        if (value instanceof Double)
-            return (double) value != 0;
-        return ((Boolean) value).booleanValue();
+    /**
+     * evaluate a color expression without boxing the result. Only for {@link #isColor()}.
+     * */
+    int executeColor(Map<String, Object> scope) throws IllegalArgumentException, JSONException {
+        if (keyframes != null && keyframes.isColor()) {
+            double t = keyframes.timeIn(scope);
+            if (!Double.isNaN(t)) {
+                return keyframes.sampleColor(t);
+            }
+        }
+        return root.evaluateColor(scope);
     }
 
-    private Object toPrimitive(Object value) {
-        if (value instanceof JSObjectInterface)
-            return "[object Object]";
-        return value;
+    /**
+     * @return true if the result is a {@link TypedValue} which can be written into a recycled
+     * value, see {@link #executeInto(Map, TypedValue)}
+     * */
+    boolean isTyped() {
+        return root instanceof ExpressionNode.Call && ((ExpressionNode.Call) root).typed != null;
     }
 
-
-    private String toString(Object value) {
-        if (value instanceof Boolean)
-            return ((Boolean) value).booleanValue() ? "true" : "false";
-        if (value instanceof Double)
-            return Double.toString((Double) value);
-        return (String) value;
+    /**
+     * @return a new value of the type of the result. Only for {@link #isTyped()}.
+     * */
+    @NonNull
+    TypedValue newValue() {
+        ExpressionNode.Call call = (ExpressionNode.Call) root;
+        return call.typed.create(call.arguments.length);
     }
 
-    private boolean equal(Object v1, Object v2) {
-        if (v1 instanceof JSObjectInterface
-                && v2 instanceof JSObjectInterface)
-            return v1 == v2;
-        if (v1 instanceof String
-                && v2 instanceof String)
-            return v1.equals(v2);
-        if (v1 instanceof Boolean
-                && v2 instanceof Boolean)
-            return toBoolean(v1) == toBoolean(v2);
-        return toNumber(v1) == toNumber(v2);
+    /**
+     * evaluate a typed expression into a value created by {@link #newValue()}
+     * */
+    TypedValue executeInto(Map<String, Object> scope, TypedValue out) throws IllegalArgumentException, JSONException {
+        if (keyframes != null && keyframes.isTyped()) {
+            double t = keyframes.timeIn(scope);
+            if (!Double.isNaN(t)) {
+                keyframes.sampleInto(t, out.values);
+                return out;
+            }
+        }
+        return ((ExpressionNode.Call) root).evaluateInto(scope, out);
     }
 
-    private boolean strictlyEqual(Object v1, Object v2) {
-        if (v1 instanceof JSObjectInterface
-                && !(v2 instanceof JSObjectInterface))
-            return false;
+    /**
+     * @return a copy of this expression which runs a {@link BytecodeProgram}, or this expression
+     * if the tree can't be lowered. The program has state, so the copy must not be shared between bindings.
+     * */
+    Expression toBytecode() {
+        if (root == null) {
+            return this;
+        }
+        BytecodeProgram program = BytecodeProgram.compile(root);
+        if (program == null) {
+            return this;
+        }
+        Expression expression = new Expression(root);
+        expression.program = program;
+        return expression;
+    }
 
-        if (v1 instanceof Boolean
-                && !(v2 instanceof Boolean))
-            return false;
+    /**
+     * @return a copy of this expression which plays back the track while it covers t. The track
+     * belongs to one binding, so the copy must not be shared between bindings.
+     * */
+    Expression withKeyframes(@NonNull KeyframeBuffer.Track track) {
+        Expression expression = new Expression(root);
+        expression.program = program;
+        expression.keyframes = track;
+        return expression;
+    }
 
-        if (v1 instanceof Double
-                && !(v2 instanceof Double))
-            return false;
+    /**
+     * simplify the compiled tree. see {@link ExpressionOptimizer}
+     *
+     * @return the number of nodes removed
+     * */
+    int optimize() {
+        if (root == null) {
+            return 0;
+        }
+        int before = ExpressionOptimizer.countNodes(root);
+        root = ExpressionOptimizer.optimize(root);
+        readMask = readMaskOf(root);
+        return before - ExpressionOptimizer.countNodes(root);
+    }
 
-        if (v1 instanceof String
-                && !(v2 instanceof String))
-            return false;
-        return v1 == v2;
+    /**
+     * @param changedSlots the slots which have changed since the last evaluation, see Scope#changedSlots()
+     * @return false if the result can't be different from the last evaluation. Expressions which
+     * read nothing (constants) are evaluated on the first event only, see Scope#FRESH.
+     * */
+    boolean mayChange(int changedSlots) {
+        return ((readMask | Scope.FRESH) & changedSlots) != 0;
     }
 
-    private Object execute(JSONObject node, Map<String, Object> scope) throws IllegalArgumentException, JSONException {
+    /**
+     * @return the slots of {@link Scope} which the tree reads. Anything that can not be tracked
+     * by slot (other identifiers, functions which are not built-in) reads all slots.
+     * */
+    static int readMaskOf(ExpressionNode node) {
+        if (node instanceof ExpressionNode.Variable) {
+            return 1 << ((ExpressionNode.Variable) node).slot;
+        }
+        if (node instanceof ExpressionNode.Identifier) {
+            return Scope.ALL_SLOTS;
+        }
+        if (node instanceof ExpressionNode.Call) {
+            ExpressionNode.Call call = (ExpressionNode.Call) node;
+            // built-in functions are pure, see Expression#resolve
+            int mask = call.function instanceof ExpressionNode.Literal ? 0 : Scope.ALL_SLOTS;
+            for (ExpressionNode argument : call.arguments) {
+                mask |= readMaskOf(argument);
+            }
+            return mask;
+        }
+        if (node instanceof ExpressionNode.Conditional) {
+            ExpressionNode.Conditional conditional = (ExpressionNode.Conditional) node;
+            return readMaskOf(conditional.test) | readMaskOf(conditional.consequent) | readMaskOf(conditional.alternate);
+        }
+        if (node instanceof ExpressionNode.Binary) {
+            ExpressionNode.Binary binary = (ExpressionNode.Binary) node;
+            return readMaskOf(binary.left) | readMaskOf(binary.right);
+        }
+        if (node instanceof ExpressionNode.Not) {
+            return readMaskOf(((ExpressionNode.Not) node).operand);
+        }
+        if (node instanceof ExpressionNode.Square) {
+            return readMaskOf(((ExpressionNode.Square) node).operand);
+        }
+        if (node instanceof ExpressionNode.Shared) {
+            return readMaskOf(((ExpressionNode.Shared) node).target);
+        }
+        if (node instanceof ExpressionNode.Literal) {
+            return 0;
+        }
+        return Scope.ALL_SLOTS;
+    }
 
+    static ExpressionNode compile(JSONObject node) throws JSONException {
         String type = node.getString("type");
         JSONArray children = node.optJSONArray("children");
         switch (type) {
             case "StringLiteral":
-                return node.getString("value");
+                return new ExpressionNode.Literal(node.getString("value"));
             case "NumericLiteral":
-                return node.getDouble("value");
+                return new ExpressionNode.Literal(node.getDouble("value"));
             case "BooleanLiteral":
-                return node.getBoolean("value");
+                return new ExpressionNode.Literal(node.getBoolean("value"));
             case "Identifier":
-                return scope.get(node.getString("value"));
+                return resolve(node.getString("value"));
             case "CallExpression":
-                JSFunctionInterface function = (JSFunctionInterface) execute(children.getJSONObject(0), scope);
-                ArrayList<Object> arguments = new ArrayList<Object>();
+                JSONObject callee = children.getJSONObject(0);
+                ExpressionNode function = "Identifier".equals(callee.getString("type"))
+                        ? resolveFunction(callee.getString("value")) : compile(callee);
                 JSONArray jsonArguments = children.getJSONObject(1).getJSONArray("children");
+                ExpressionNode[] arguments = new ExpressionNode[jsonArguments.length()];
                 for (int i = 0; i < jsonArguments.length(); i++)
-                    arguments.add(execute(jsonArguments.getJSONObject(i), scope));
-                return function.execute(arguments);
-
+                    arguments[i] = compile(jsonArguments.getJSONObject(i));
+                return new ExpressionNode.Call(function, arguments);
             case "?":
-                if ((Boolean) execute(children.getJSONObject(0), scope))
-                    return execute(children.getJSONObject(1), scope);
-                else
-                    return execute(children.getJSONObject(2), scope);
-
-            case "+":
-                return toNumber(execute(children.getJSONObject(0), scope)) + toNumber(execute(children.getJSONObject(1), scope));
-            case "-":
-                return toNumber(execute(children.getJSONObject(0), scope)) - toNumber(execute(children.getJSONObject(1), scope));
-            case "*":
-                return toNumber(execute(children.getJSONObject(0), scope)) * toNumber(execute(children.getJSONObject(1), scope));
-            case "/":
-                return toNumber(execute(children.getJSONObject(0), scope)) / toNumber(execute(children.getJSONObject(1), scope));
-            case "%":
-                return toNumber(execute(children.getJSONObject(0), scope)) % toNumber(execute(children.getJSONObject(1), scope));
-            case "**":
-                return Math.pow(toNumber(execute(children.getJSONObject(0), scope)), toNumber(execute(children.getJSONObject(1), scope)));
-
-            case ">":
-                return toNumber(execute(children.getJSONObject(0), scope)) > toNumber(execute(children.getJSONObject(1), scope));
-            case "<":
-                return toNumber(execute(children.getJSONObject(0), scope)) < toNumber(execute(children.getJSONObject(1), scope));
-            case ">=":
-                return toNumber(execute(children.getJSONObject(0), scope)) >= toNumber(execute(children.getJSONObject(1), scope));
-            case "<=":
-                return toNumber(execute(children.getJSONObject(0), scope)) <= toNumber(execute(children.getJSONObject(1), scope));
-
-            case "==":
-                return equal(execute(children.getJSONObject(0), scope), execute(children.getJSONObject(1), scope));
-            case "===":
-                return strictlyEqual(execute(children.getJSONObject(0), scope), execute(children.getJSONObject(1), scope));
-            case "!=":
-                return !equal(execute(children.getJSONObject(0), scope), execute(children.getJSONObject(1), scope));
-            case "!==":
-                return !strictlyEqual(execute(children.getJSONObject(0), scope), execute(children.getJSONObject(1), scope));
-
-            case "&&":
-                Object result;
-                result = execute(children.getJSONObject(0), scope);
-                if (!toBoolean(result))
-                    return result;
-                return execute(children.getJSONObject(1), scope);
-            case "||":
-                result = execute(children.getJSONObject(0), scope);
-                if (toBoolean(result))
-                    return result;
-                return execute(children.getJSONObject(1), scope);
+                return new ExpressionNode.Conditional(
+                        compile(children.getJSONObject(0)),
+                        compile(children.getJSONObject(1)),
+                        compile(children.getJSONObject(2)));
             case "!":
-                return !toBoolean(execute(children.getJSONObject(0), scope));
+                return new ExpressionNode.Not(compile(children.getJSONObject(0)));
+        }
+        int operator = ExpressionNode.Binary.operatorOf(type);
+        if (operator != -1) {
+            return new ExpressionNode.Binary(operator,
+                    compile(children.getJSONObject(0)),
+                    compile(children.getJSONObject(1)));
+        }
+        // unknown node always evaluates to null
+        return new ExpressionNode.Literal(null);
+    }
+
+    /**
+     * resolve an identifier at compile time: event variables to their slot in {@link Scope},
+     * built-in functions and constants to the function (constant) itself.
+     * */
+    private static ExpressionNode resolve(String name) {
+        int slot = Scope.slotOf(name);
+        if (slot >= 0) {
+            return new ExpressionNode.Variable(name, slot);
+        }
+        Object builtin = Scope.builtinOf(name);
+        if (builtin != null) {
+            return new ExpressionNode.Literal(builtin);
+        }
+        return new ExpressionNode.Identifier(name);
+    }
 
+    /**
+     * same as {@link #resolve(String)} for a called identifier, which prefers the built-in function
+     * to an event variable of the same name: <code>scale(s, s)</code> calls the transform function
+     * while <code>scale</code> alone is the scale of a pinch.
+     * */
+    private static ExpressionNode resolveFunction(String name) {
+        Object builtin = Scope.builtinOf(name);
+        if (builtin != null) {
+            return new ExpressionNode.Literal(builtin);
         }
-        return null;
+        return resolve(name);
     }
 
 }
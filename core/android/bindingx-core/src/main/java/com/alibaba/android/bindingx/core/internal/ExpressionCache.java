@@ -0,0 +1,168 @@
+/**
+ * Copyright 2018 Alibaba Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.android.bindingx.core.internal;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.text.TextUtils;
+
+import com.alibaba.android.bindingx.core.LogProxy;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Description:
+ *
+ * Process wide cache of compiled and optimized expressions, keyed by the transformed expression.
+ * All the event handlers of all pages (instances) share it, so an expression is parsed only once
+ * no matter how often it is bound. Compiled expressions are immutable and safe to share.
+ *
+ * The cache is bounded by the number of entries and by the estimated size of the entries, the
+ * least recently used entries are evicted first. It is thread safe.
+ */
+
+final class ExpressionCache {
+
+    static final int DEFAULT_MAX_ENTRIES = 256;
+    static final int DEFAULT_MAX_BYTES = 512 * 1024;
+
+    // rough size of a compiled node including its fields and references
+    private static final int BYTES_PER_NODE = 32;
+    // map entry, expression and the key string object
+    private static final int BYTES_PER_ENTRY = 96;
+
+    private static final ExpressionCache sInstance = new ExpressionCache(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_BYTES);
+
+    private final int mMaxEntries;
+    private final int mMaxBytes;
+
+    private final LinkedHashMap<String, CacheEntry> mEntries = new LinkedHashMap<>(16, 0.75f, true);
+    private int mBytes;
+
+    private long mHitCount;
+    private long mMissCount;
+    private long mEvictionCount;
+
+    ExpressionCache(int maxEntries, int maxBytes) {
+        this.mMaxEntries = Math.max(maxEntries, 1);
+        this.mMaxBytes = Math.max(maxBytes, 1);
+    }
+
+    @NonNull
+    static ExpressionCache getInstance() {
+        return sInstance;
+    }
+
+    /**
+     * @return the compiled expression or null if the expression is empty
+     * */
+    @Nullable
+    Expression obtain(@Nullable ExpressionPair expressionPair) {
+        if (expressionPair == null
+                || TextUtils.isEmpty(expressionPair.transformed)
+                || "{}".equals(expressionPair.transformed)) {
+            return null;
+        }
+        String key = expressionPair.transformed;
+        synchronized (this) {
+            CacheEntry entry = mEntries.get(key);
+            if (entry != null) {
+                mHitCount++;
+                return entry.expression;
+            }
+            mMissCount++;
+        }
+
+        // compile without holding the lock, at worst the same expression is compiled twice
+        Expression expression = new Expression(key);
+        int removed = expression.optimize();
+        if (LogProxy.sEnableLog) {
+            LogProxy.d(String.format(Locale.getDefault(), "[ExpressionOptimizer] %d nodes removed from %s", removed, expressionPair.origin));
+        }
+        put(key, expression);
+        return expression;
+    }
+
+    private synchronized void put(@NonNull String key, @NonNull Expression expression) {
+        CacheEntry entry = new CacheEntry(expression, estimateBytes(key, expression));
+        CacheEntry previous = mEntries.put(key, entry);
+        if (previous != null) {
+            mBytes -= previous.bytes;
+        }
+        mBytes += entry.bytes;
+        trimToSize();
+    }
+
+    private void trimToSize() {
+        Iterator<Map.Entry<String, CacheEntry>> iterator = mEntries.entrySet().iterator();
+        // always keep the entry which has just been added
+        while ((mEntries.size() > mMaxEntries || mBytes > mMaxBytes) && mEntries.size() > 1) {
+            CacheEntry eldest = iterator.next().getValue();
+            iterator.remove();
+            mBytes -= eldest.bytes;
+            mEvictionCount++;
+        }
+    }
+
+    static int estimateBytes(@NonNull String key, @NonNull Expression expression) {
+        int nodes = expression.root == null ? 0 : ExpressionOptimizer.countNodes(expression.root);
+        return BYTES_PER_ENTRY + key.length() * 2 + nodes * BYTES_PER_NODE;
+    }
+
+    synchronized void clear() {
+        mEntries.clear();
+        mBytes = 0;
+    }
+
+    synchronized int size() {
+        return mEntries.size();
+    }
+
+    synchronized int bytes() {
+        return mBytes;
+    }
+
+    synchronized long hitCount() {
+        return mHitCount;
+    }
+
+    synchronized long missCount() {
+        return mMissCount;
+    }
+
+    synchronized long evictionCount() {
+        return mEvictionCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(Locale.getDefault(), "ExpressionCache[size=%d,bytes=%d,hits=%d,misses=%d,evictions=%d]",
+                mEntries.size(), mBytes, mHitCount, mMissCount, mEvictionCount);
+    }
+
+    private static final class CacheEntry {
+        final Expression expression;
+        final int bytes;
+
+        CacheEntry(Expression expression, int bytes) {
+            this.expression = expression;
+            this.bytes = bytes;
+        }
+    }
+}
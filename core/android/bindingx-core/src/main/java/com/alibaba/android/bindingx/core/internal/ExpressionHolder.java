@@ -15,7 +15,10 @@
  */
 package com.alibaba.android.bindingx.core.internal;
 
+import android.support.annotation.NonNull;
+
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 final class ExpressionHolder {
@@ -27,6 +30,16 @@ final class ExpressionHolder {
     String eventType;
     Map<String,Object> config;
 
+    // compiled form of expressionPair.transformed, null if the expression is empty
+    Expression expression;
+
+    // the value which has been applied to the view most recently, null if none
+    Object lastValue;
+
+    // results of a typed expression are written into these two alternately, one of them may be lastValue
+    private TypedValue mValue;
+    private TypedValue mSpareValue;
+
     ExpressionHolder(String target, String targetInstanceId, ExpressionPair expressionPair, String prop, String eventType, Map<String,Object> config) {
         this.targetRef = target;
         this.targetInstanceId = targetInstanceId;
@@ -40,6 +53,64 @@ final class ExpressionHolder {
         }
     }
 
+    /**
+     * @return true if the value equals the value which has been applied most recently. Numbers
+     * (also inside lists, e.g. the result of translate()) are equal if they differ by no more than epsilon.
+     * */
+    boolean isSameAsLastValue(Object value, double epsilon) {
+        return lastValue != null && isSame(lastValue, value, epsilon);
+    }
+
+    /**
+     * same as {@link #isSameAsLastValue(Object, double)} for a packed ARGB color, without boxing it
+     * */
+    boolean isSameColorAsLastValue(int color) {
+        return lastValue instanceof Integer && (Integer) lastValue == color;
+    }
+
+    /**
+     * @return the value which the next result of the typed expression can be written into. It is
+     * not {@link #lastValue}, so the new result can be compared with the last one.
+     * */
+    @NonNull
+    TypedValue recycledValue(@NonNull Expression expression) {
+        if (mValue == lastValue) {
+            TypedValue value = mValue;
+            mValue = mSpareValue;
+            mSpareValue = value;
+        }
+        if (mValue == null) {
+            mValue = expression.newValue();
+        }
+        return mValue;
+    }
+
+    private static boolean isSame(Object last, Object value, double epsilon) {
+        if (last instanceof Double && value instanceof Double) {
+            double delta = (double) last - (double) value;
+            return delta == 0 || Math.abs(delta) <= epsilon;
+        }
+        if (last instanceof TypedValue && value instanceof TypedValue) {
+            return ((TypedValue) last).isSame((TypedValue) value, epsilon);
+        }
+        if (last instanceof List && value instanceof List) {
+            List lastList = (List) last;
+            List list = (List) value;
+            int size = list.size();
+            if (lastList.size() != size) {
+                return false;
+            }
+            for (int i = 0; i < size; i++) {
+                Object element = list.get(i);
+                if (element == null ? lastList.get(i) != null : !isSame(lastList.get(i), element, epsilon)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return last.equals(value);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,704 @@
+/**
+ * Copyright 2018 Alibaba Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.android.bindingx.core.internal;
+
+import org.json.JSONException;
+
+import java.util.ArrayList;
+import java.util.Map;
+
+/**
+ * Description:
+ *
+ * A node of the compiled expression tree. The transformed expression (json) is compiled
+ * into a tree of typed nodes only once, so evaluating it on every event is nothing more than
+ * a few virtual calls. All nodes but {@link Shared} are immutable.
+ *
+ * Every node knows its static type. Subtrees that are statically numeric or boolean are
+ * evaluated through {@link #evaluateDouble(Map)} and {@link #evaluateBoolean(Map)} which never
+ * box intermediate values, so only the root value is boxed when it is handed to the view updater.
+ */
+
+abstract class ExpressionNode {
+
+    // the type of the result is unknown until evaluated (identifiers, function calls, strings)
+    static final int TYPE_DYNAMIC = 0;
+    // the result is always a number
+    static final int TYPE_NUMBER = 1;
+    // the result is always a boolean
+    static final int TYPE_BOOLEAN = 2;
+    // the result is always a packed ARGB color (an Integer)
+    static final int TYPE_COLOR = 3;
+
+    final int type;
+
+    ExpressionNode(int type) {
+        this.type = type;
+    }
+
+    abstract Object evaluate(Map<String, Object> scope) throws IllegalArgumentException, JSONException;
+
+    double evaluateDouble(Map<String, Object> scope) throws IllegalArgumentException, JSONException {
+        return toNumber(evaluate(scope));
+    }
+
+    boolean evaluateBoolean(Map<String, Object> scope) throws IllegalArgumentException, JSONException {
+        return toBoolean(evaluate(scope));
+    }
+
+    /**
+     * only for nodes of {@link #TYPE_COLOR}
+     * */
+    int evaluateColor(Map<String, Object> scope) throws IllegalArgumentException, JSONException {
+        return (Integer) evaluate(scope);
+    }
+
+    static double toNumber(Object value) {
+        if (value instanceof String)
+            return Double.parseDouble((String) value);
+        if (value instanceof Boolean)
+            return (boolean) value ? 1.0 : 0.0;
+        return (double) value;
+    }
+
+    static boolean toBoolean(Object value) {
+        if (value instanceof String)
+            return (String) value == "";
+        if (value instanceof Double)
+            return (double) value != 0;
+        return ((Boolean) value).booleanValue();
+    }
+
+    static boolean equal(Object v1, Object v2) {
+        if (v1 instanceof JSObjectInterface
+                && v2 instanceof JSObjectInterface)
+            return v1 == v2;
+        if (v1 instanceof String
+                && v2 instanceof String)
+            return v1.equals(v2);
+        if (v1 instanceof Boolean
+                && v2 instanceof Boolean)
+            return toBoolean(v1) == toBoolean(v2);
+        return toNumber(v1) == toNumber(v2);
+    }
+
+    static boolean strictlyEqual(Object v1, Object v2) {
+        if (v1 instanceof JSObjectInterface
+                && !(v2 instanceof JSObjectInterface))
+            return false;
+
+        if (v1 instanceof Boolean
+                && !(v2 instanceof Boolean))
+            return false;
+
+        if (v1 instanceof Double
+                && !(v2 instanceof Double))
+            return false;
+
+        if (v1 instanceof String
+                && !(v2 instanceof String))
+            return false;
+        return v1 == v2;
+    }
+
+    /**
+     * string/numeric/boolean literal
+     * */
+    static final class Literal extends ExpressionNode {
+        final Object value;
+        private final double number;
+        private final boolean bool;
+
+        Literal(Object value) {
+            this(value, value instanceof Double ? TYPE_NUMBER : value instanceof Boolean ? TYPE_BOOLEAN : TYPE_DYNAMIC);
+        }
+
+        private Literal(Object value, int type) {
+            super(type);
+            this.value = value;
+            this.number = value instanceof Double ? (double) value : 0;
+            this.bool = value instanceof Boolean && (boolean) value;
+        }
+
+        /**
+         * integers are not typed as colors on their own, e.g. sign() returns integers as well
+         * */
+        static Literal color(int color) {
+            return new Literal(color, TYPE_COLOR);
+        }
+
+        @Override
+        Object evaluate(Map<String, Object> scope) {
+            return value;
+        }
+
+        @Override
+        double evaluateDouble(Map<String, Object> scope) {
+            return type == TYPE_NUMBER ? number : toNumber(value);
+        }
+
+        @Override
+        boolean evaluateBoolean(Map<String, Object> scope) {
+            return type == TYPE_BOOLEAN ? bool : toBoolean(value);
+        }
+    }
+
+    /**
+     * variable or function which is looked up in scope
+     * */
+    static final class Identifier extends ExpressionNode {
+        final String name;
+
+        Identifier(String name) {
+            super(TYPE_DYNAMIC);
+            this.name = name;
+        }
+
+        @Override
+        Object evaluate(Map<String, Object> scope) {
+            return scope.get(name);
+        }
+    }
+
+    /**
+     * variable which has a slot in {@link Scope}, e.g. x, y or t. It is read by index if the
+     * scope is a {@link Scope} and looked up by name otherwise.
+     * */
+    static final class Variable extends ExpressionNode {
+        final String name;
+        final int slot;
+
+        Variable(String name, int slot) {
+            super(TYPE_DYNAMIC);
+            this.name = name;
+            this.slot = slot;
+        }
+
+        @Override
+        Object evaluate(Map<String, Object> scope) {
+            if (scope instanceof Scope) {
+                return ((Scope) scope).get(slot);
+            }
+            return scope.get(name);
+        }
+
+        @Override
+        double evaluateDouble(Map<String, Object> scope) {
+            if (scope instanceof Scope && ((Scope) scope).isAssigned(slot)) {
+                return ((Scope) scope).getDouble(slot);
+            }
+            return toNumber(evaluate(scope));
+        }
+    }
+
+    /**
+     * function call. If the function is a built-in {@link PrimitiveFunction}, {@link ColorFunction}
+     * or {@link ValueFunction} which is called with its own number of arguments, the call is numeric
+     * (a color, a {@link TypedValue}) and the arguments are passed unboxed. Any other function gets
+     * a list of the evaluated arguments, so does a {@link ValueFunction} called with arguments
+     * which may not be numbers.
+     * */
+    static final class Call extends ExpressionNode {
+        final ExpressionNode function;
+        final ExpressionNode[] arguments;
+        // null unless the call is numeric
+        final PrimitiveFunction primitive;
+        // null unless the call is a color
+        final ColorFunction color;
+        // null unless the call gives a TypedValue
+        final ValueFunction typed;
+
+        Call(ExpressionNode function, ExpressionNode[] arguments) {
+            this(function, arguments, builtinOf(function, arguments));
+        }
+
+        private Call(ExpressionNode function, ExpressionNode[] arguments, Object builtin) {
+            super(builtin instanceof PrimitiveFunction ? TYPE_NUMBER : builtin instanceof ColorFunction ? TYPE_COLOR : TYPE_DYNAMIC);
+            this.function = function;
+            this.arguments = arguments;
+            this.primitive = builtin instanceof PrimitiveFunction ? (PrimitiveFunction) builtin : null;
+            this.color = builtin instanceof ColorFunction ? (ColorFunction) builtin : null;
+            this.typed = builtin instanceof ValueFunction ? (ValueFunction) builtin : null;
+        }
+
+        /**
+         * @return the typed function which takes exactly that many arguments, or null. A
+         * {@link ValueFunction} also needs arguments which are numbers, it gives the list of the
+         * arguments otherwise.
+         * */
+        private static Object builtinOf(ExpressionNode function, ExpressionNode[] arguments) {
+            int argumentCount = arguments.length;
+            // built-in functions are resolved at compile time, see Expression#resolve
+            if (!(function instanceof Literal)) {
+                return null;
+            }
+            Object value = ((Literal) function).value;
+            if (value instanceof PrimitiveFunction && ((PrimitiveFunction) value).arity == argumentCount) {
+                return value;
+            }
+            if (value instanceof ColorFunction && ((ColorFunction) value).arity == argumentCount) {
+                return value;
+            }
+            if (value instanceof ValueFunction && ((ValueFunction) value).accepts(argumentCount)
+                    && areNumbers(arguments)) {
+                return value;
+            }
+            return null;
+        }
+
+        /**
+         * @return true if every argument is a number before it is evaluated. Variables with a slot
+         * count as numbers, the handlers assign nothing else to them.
+         * */
+        private static boolean areNumbers(ExpressionNode[] arguments) {
+            for (ExpressionNode argument : arguments) {
+                if (argument.type != TYPE_NUMBER && !(argument instanceof Variable)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * only if the call gives a TypedValue
+         *
+         * @param out a value created by the function for this call
+         * */
+        TypedValue evaluateInto(Map<String, Object> scope, TypedValue out) throws IllegalArgumentException, JSONException {
+            final ExpressionNode[] args = arguments;
+            final double[] values = out.values;
+            for (int i = 0; i < args.length; i++) {
+                values[i] = args[i].evaluateDouble(scope);
+            }
+            return out;
+        }
+
+        @Override
+        int evaluateColor(Map<String, Object> scope) throws IllegalArgumentException, JSONException {
+            if (color == null) {
+                return super.evaluateColor(scope);
+            }
+            final ExpressionNode[] args = arguments;
+            final int arity = color.arity;
+            return color.color(args[0].evaluateDouble(scope),
+                    arity > 1 ? args[1].evaluateDouble(scope) : 0,
+                    arity > 2 ? args[2].evaluateDouble(scope) : 0,
+                    arity > 3 ? args[3].evaluateDouble(scope) : 0);
+        }
+
+        @Override
+        double evaluateDouble(Map<String, Object> scope) throws IllegalArgumentException, JSONException {
+            if (primitive == null) {
+                return toNumber(evaluate(scope));
+            }
+            final ExpressionNode[] args = arguments;
+            switch (primitive.arity) {
+                case 1:
+                    return ((PrimitiveFunction.Arity1) primitive).call(args[0].evaluateDouble(scope));
+                case 2:
+                    return ((PrimitiveFunction.Arity2) primitive).call(args[0].evaluateDouble(scope),
+                            args[1].evaluateDouble(scope));
+                case 3:
+                    return ((PrimitiveFunction.Arity3) primitive).call(args[0].evaluateDouble(scope),
+                            args[1].evaluateDouble(scope), args[2].evaluateDouble(scope));
+                case 4:
+                    return ((PrimitiveFunction.Arity4) primitive).call(args[0].evaluateDouble(scope),
+                            args[1].evaluateDouble(scope), args[2].evaluateDouble(scope),
+                            args[3].evaluateDouble(scope));
+                case 7:
+                    return ((PrimitiveFunction.Arity7) primitive).call(args[0].evaluateDouble(scope),
+                            args[1].evaluateDouble(scope), args[2].evaluateDouble(scope),
+                            args[3].evaluateDouble(scope), args[4].evaluateDouble(scope),
+                            args[5].evaluateDouble(scope), args[6].evaluateDouble(scope));
+                case 8:
+                    return ((PrimitiveFunction.Arity8) primitive).call(args[0].evaluateDouble(scope),
+                            args[1].evaluateDouble(scope), args[2].evaluateDouble(scope),
+                            args[3].evaluateDouble(scope), args[4].evaluateDouble(scope),
+                            args[5].evaluateDouble(scope), args[6].evaluateDouble(scope),
+                            args[7].evaluateDouble(scope));
+                default:
+                    throw new IllegalStateException("unexpected arity " + primitive.arity);
+            }
+        }
+
+        @Override
+        Object evaluate(Map<String, Object> scope) throws IllegalArgumentException, JSONException {
+            if (primitive != null) {
+                return evaluateDouble(scope);
+            }
+            if (color != null) {
+                return evaluateColor(scope);
+            }
+            if (typed != null) {
+                return evaluateInto(scope, typed.create(arguments.length));
+            }
+            JSFunctionInterface fn = (JSFunctionInterface) function.evaluate(scope);
+            ArrayList<Object> args = new ArrayList<>(arguments.length);
+            for (ExpressionNode argument : arguments) {
+                args.add(argument.evaluate(scope));
+            }
+            return fn.execute(args);
+        }
+    }
+
+    /**
+     * ternary operator: a ? b : c
+     * */
+    static final class Conditional extends ExpressionNode {
+        final ExpressionNode test;
+        final ExpressionNode consequent;
+        final ExpressionNode alternate;
+
+        Conditional(ExpressionNode test, ExpressionNode consequent, ExpressionNode alternate) {
+            super(consequent.type == alternate.type ? consequent.type : TYPE_DYNAMIC);
+            this.test = test;
+            this.consequent = consequent;
+            this.alternate = alternate;
+        }
+
+        @Override
+        Object evaluate(Map<String, Object> scope) throws IllegalArgumentException, JSONException {
+            if (test.evaluateBoolean(scope))
+                return consequent.evaluate(scope);
+            else
+                return alternate.evaluate(scope);
+        }
+
+        @Override
+        double evaluateDouble(Map<String, Object> scope) throws IllegalArgumentException, JSONException {
+            if (test.evaluateBoolean(scope))
+                return consequent.evaluateDouble(scope);
+            else
+                return alternate.evaluateDouble(scope);
+        }
+
+        @Override
+        boolean evaluateBoolean(Map<String, Object> scope) throws IllegalArgumentException, JSONException {
+            if (test.evaluateBoolean(scope))
+                return consequent.evaluateBoolean(scope);
+            else
+                return alternate.evaluateBoolean(scope);
+        }
+
+        @Override
+        int evaluateColor(Map<String, Object> scope) throws IllegalArgumentException, JSONException {
+            if (test.evaluateBoolean(scope))
+                return consequent.evaluateColor(scope);
+            else
+                return alternate.evaluateColor(scope);
+        }
+    }
+
+    /**
+     * binary operator. The operator is resolved to an int code at compile time.
+     * */
+    static final class Binary extends ExpressionNode {
+        // arithmetic, the result is a number
+        static final int ADD = 0;
+        static final int SUB = 1;
+        static final int MUL = 2;
+        static final int DIV = 3;
+        static final int MOD = 4;
+        static final int POW = 5;
+        // relational, the result is a boolean
+        static final int GT = 6;
+        static final int LT = 7;
+        static final int GE = 8;
+        static final int LE = 9;
+        static final int EQ = 10;
+        static final int STRICT_EQ = 11;
+        static final int NE = 12;
+        static final int STRICT_NE = 13;
+        // logical, the result is one of the operands
+        static final int AND = 14;
+        static final int OR = 15;
+
+        final int operator;
+        final ExpressionNode left;
+        final ExpressionNode right;
+
+        Binary(int operator, ExpressionNode left, ExpressionNode right) {
+            super(typeOf(operator, left, right));
+            this.operator = operator;
+            this.left = left;
+            this.right = right;
+        }
+
+        private static int typeOf(int operator, ExpressionNode left, ExpressionNode right) {
+            if (operator <= POW) {
+                return TYPE_NUMBER;
+            }
+            if (operator <= STRICT_NE) {
+                return TYPE_BOOLEAN;
+            }
+            return left.type == right.type ? left.type : TYPE_DYNAMIC;
+        }
+
+        /**
+         * @return the operator code or -1 if the type is not a binary operator
+         * */
+        static int operatorOf(String type) {
+            switch (type) {
+                case "+":
+                    return ADD;
+                case "-":
+                    return SUB;
+                case "*":
+                    return MUL;
+                case "/":
+                    return DIV;
+                case "%":
+                    return MOD;
+                case "**":
+                    return POW;
+                case ">":
+                    return GT;
+                case "<":
+                    return LT;
+                case ">=":
+                    return GE;
+                case "<=":
+                    return LE;
+                case "==":
+                    return EQ;
+                case "===":
+                    return STRICT_EQ;
+                case "!=":
+                    return NE;
+                case "!==":
+                    return STRICT_NE;
+                case "&&":
+                    return AND;
+                case "||":
+                    return OR;
+                default:
+                    return -1;
+            }
+        }
+
+        @Override
+        Object evaluate(Map<String, Object> scope) throws IllegalArgumentException, JSONException {
+            switch (type) {
+                case TYPE_NUMBER:
+                    return evaluateDouble(scope);
+                case TYPE_BOOLEAN:
+                    return evaluateBoolean(scope);
+            }
+            // '&&' or '||' with operands of different types
+            Object result = left.evaluate(scope);
+            if (operator == AND ? !toBoolean(result) : toBoolean(result))
+                return result;
+            return right.evaluate(scope);
+        }
+
+        @Override
+        double evaluateDouble(Map<String, Object> scope) throws IllegalArgumentException, JSONException {
+            switch (operator) {
+                case ADD:
+                    return left.evaluateDouble(scope) + right.evaluateDouble(scope);
+                case SUB:
+                    return left.evaluateDouble(scope) - right.evaluateDouble(scope);
+                case MUL:
+                    return left.evaluateDouble(scope) * right.evaluateDouble(scope);
+                case DIV:
+                    return left.evaluateDouble(scope) / right.evaluateDouble(scope);
+                case MOD:
+                    return left.evaluateDouble(scope) % right.evaluateDouble(scope);
+                case POW:
+                    return Math.pow(left.evaluateDouble(scope), right.evaluateDouble(scope));
+            }
+            if (type == TYPE_NUMBER) {
+                // '&&' or '||' of two numbers
+                double result = left.evaluateDouble(scope);
+                if (operator == AND ? result == 0 : result != 0)
+                    return result;
+                return right.evaluateDouble(scope);
+            }
+            if (type == TYPE_BOOLEAN) {
+                return evaluateBoolean(scope) ? 1.0 : 0.0;
+            }
+            return toNumber(evaluate(scope));
+        }
+
+        @Override
+        boolean evaluateBoolean(Map<String, Object> scope) throws IllegalArgumentException, JSONException {
+            switch (operator) {
+                case GT:
+                    return left.evaluateDouble(scope) > right.evaluateDouble(scope);
+                case LT:
+                    return left.evaluateDouble(scope) < right.evaluateDouble(scope);
+                case GE:
+                    return left.evaluateDouble(scope) >= right.evaluateDouble(scope);
+                case LE:
+                    return left.evaluateDouble(scope) <= right.evaluateDouble(scope);
+
+                case EQ:
+                    return equal(scope);
+                case STRICT_EQ:
+                    return strictlyEqual(scope);
+                case NE:
+                    return !equal(scope);
+                case STRICT_NE:
+                    return !strictlyEqual(scope);
+
+                case AND:
+                    if (type == TYPE_BOOLEAN)
+                        return left.evaluateBoolean(scope) && right.evaluateBoolean(scope);
+                    break;
+                case OR:
+                    if (type == TYPE_BOOLEAN)
+                        return left.evaluateBoolean(scope) || right.evaluateBoolean(scope);
+                    break;
+            }
+            if (type == TYPE_NUMBER) {
+                return evaluateDouble(scope) != 0;
+            }
+            return toBoolean(evaluate(scope));
+        }
+
+        private boolean equal(Map<String, Object> scope) throws IllegalArgumentException, JSONException {
+            if (left.type == TYPE_NUMBER && right.type == TYPE_NUMBER)
+                return left.evaluateDouble(scope) == right.evaluateDouble(scope);
+            if (left.type == TYPE_BOOLEAN && right.type == TYPE_BOOLEAN)
+                return left.evaluateBoolean(scope) == right.evaluateBoolean(scope);
+            return ExpressionNode.equal(left.evaluate(scope), right.evaluate(scope));
+        }
+
+        private boolean strictlyEqual(Map<String, Object> scope) throws IllegalArgumentException, JSONException {
+            if (left.type == TYPE_NUMBER && right.type == TYPE_NUMBER)
+                return left.evaluateDouble(scope) == right.evaluateDouble(scope);
+            if (left.type == TYPE_BOOLEAN && right.type == TYPE_BOOLEAN)
+                return left.evaluateBoolean(scope) == right.evaluateBoolean(scope);
+            return ExpressionNode.strictlyEqual(left.evaluate(scope), right.evaluate(scope));
+        }
+    }
+
+    static final class Not extends ExpressionNode {
+        final ExpressionNode operand;
+
+        Not(ExpressionNode operand) {
+            super(TYPE_BOOLEAN);
+            this.operand = operand;
+        }
+
+        @Override
+        Object evaluate(Map<String, Object> scope) throws IllegalArgumentException, JSONException {
+            return evaluateBoolean(scope);
+        }
+
+        @Override
+        double evaluateDouble(Map<String, Object> scope) throws IllegalArgumentException, JSONException {
+            return evaluateBoolean(scope) ? 1.0 : 0.0;
+        }
+
+        @Override
+        boolean evaluateBoolean(Map<String, Object> scope) throws IllegalArgumentException, JSONException {
+            return !operand.evaluateBoolean(scope);
+        }
+    }
+
+    /**
+     * x*x, the strength reduced form of pow(x,2)
+     * */
+    static final class Square extends ExpressionNode {
+        final ExpressionNode operand;
+
+        Square(ExpressionNode operand) {
+            super(TYPE_NUMBER);
+            this.operand = operand;
+        }
+
+        @Override
+        Object evaluate(Map<String, Object> scope) throws IllegalArgumentException, JSONException {
+            return evaluateDouble(scope);
+        }
+
+        @Override
+        double evaluateDouble(Map<String, Object> scope) throws IllegalArgumentException, JSONException {
+            double value = operand.evaluateDouble(scope);
+            return value * value;
+        }
+    }
+
+    /**
+     * a sub expression which is referenced by several expressions of one binding. Its value is
+     * computed at most once per event and reused until {@link #invalidate()} is called.
+     * Unlike the other nodes it holds state, so it always belongs to exactly one binding.
+     * */
+    static final class Shared extends ExpressionNode {
+        final ExpressionNode target;
+
+        private boolean valid;
+        private Object value;
+        private double number;
+        private boolean bool;
+
+        Shared(ExpressionNode target) {
+            super(target.type);
+            this.target = target;
+        }
+
+        void invalidate() {
+            valid = false;
+            value = null;
+        }
+
+        @Override
+        Object evaluate(Map<String, Object> scope) throws IllegalArgumentException, JSONException {
+            switch (type) {
+                case TYPE_NUMBER:
+                    return evaluateDouble(scope);
+                case TYPE_BOOLEAN:
+                    return evaluateBoolean(scope);
+            }
+            if (!valid) {
+                value = target.evaluate(scope);
+                valid = true;
+            }
+            return value;
+        }
+
+        @Override
+        double evaluateDouble(Map<String, Object> scope) throws IllegalArgumentException, JSONException {
+            if (type == TYPE_NUMBER) {
+                if (!valid) {
+                    number = target.evaluateDouble(scope);
+                    valid = true;
+                }
+                return number;
+            }
+            if (type == TYPE_BOOLEAN) {
+                return evaluateBoolean(scope) ? 1.0 : 0.0;
+            }
+            return toNumber(evaluate(scope));
+        }
+
+        @Override
+        boolean evaluateBoolean(Map<String, Object> scope) throws IllegalArgumentException, JSONException {
+            if (type == TYPE_BOOLEAN) {
+                if (!valid) {
+                    bool = target.evaluateBoolean(scope);
+                    valid = true;
+                }
+                return bool;
+            }
+            if (type == TYPE_NUMBER) {
+                return evaluateDouble(scope) != 0;
+            }
+            return toBoolean(evaluate(scope));
+        }
+    }
+}
@@ -0,0 +1,283 @@
+/**
+ * Copyright 2018 Alibaba Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.android.bindingx.core.internal;
+
+import android.support.annotation.NonNull;
+
+import com.alibaba.android.bindingx.core.LogProxy;
+
+/**
+ * Description:
+ *
+ * Simplifies a compiled expression tree once at bind time:
+ * <ul>
+ *     <li>folds constant sub expressions, including calls of built-in functions whose arguments
+ *     are all constants</li>
+ *     <li>reduces strength: pow(x,2) and x**2 become x*x, division by a power of two becomes
+ *     a multiplication by its reciprocal</li>
+ *     <li>removes dead branches of '?:', '&&' and '||' whose condition is constant</li>
+ *     <li>binds cubicBezier with constant control points to its solved {@link UnitBezier}</li>
+ *     <li>binds spring with constant spring parameters to its {@link SpringCurve}</li>
+ *     <li>parses the constant colors of evaluateColor into a {@link Colors.Interpolation}</li>
+ * </ul>
+ *
+ * Every rewrite produces bit-identical results to the original tree. That is why only divisors
+ * which are powers of two are rewritten (their reciprocal is exact), and why pow(x,2) is rewritten
+ * (the fdlibm based pow returns x*x for an exponent of 2).
+ */
+
+final class ExpressionOptimizer {
+
+    // constant sub expressions do not read any variable
+    private static final Scope sEmptyScope = new Scope();
+
+    private ExpressionOptimizer() {
+    }
+
+    /**
+     * @return the optimized tree. The original tree is not modified.
+     * */
+    @NonNull
+    static ExpressionNode optimize(@NonNull ExpressionNode node) {
+        if (node instanceof ExpressionNode.Call) {
+            return optimizeCall((ExpressionNode.Call) node);
+        }
+        if (node instanceof ExpressionNode.Conditional) {
+            ExpressionNode.Conditional conditional = (ExpressionNode.Conditional) node;
+            ExpressionNode test = optimize(conditional.test);
+            ExpressionNode consequent = optimize(conditional.consequent);
+            ExpressionNode alternate = optimize(conditional.alternate);
+            if (test instanceof ExpressionNode.Literal) {
+                Boolean result = tryEvaluateBoolean(test);
+                if (result != null) {
+                    return result ? consequent : alternate;
+                }
+            }
+            return new ExpressionNode.Conditional(test, consequent, alternate);
+        }
+        if (node instanceof ExpressionNode.Binary) {
+            return optimizeBinary((ExpressionNode.Binary) node);
+        }
+        if (node instanceof ExpressionNode.Not) {
+            ExpressionNode.Not not = new ExpressionNode.Not(optimize(((ExpressionNode.Not) node).operand));
+            return not.operand instanceof ExpressionNode.Literal ? fold(not) : not;
+        }
+        if (node instanceof ExpressionNode.Square) {
+            ExpressionNode.Square square = new ExpressionNode.Square(optimize(((ExpressionNode.Square) node).operand));
+            return square.operand instanceof ExpressionNode.Literal ? fold(square) : square;
+        }
+        return node;
+    }
+
+    private static ExpressionNode optimizeCall(ExpressionNode.Call call) {
+        ExpressionNode[] arguments = new ExpressionNode[call.arguments.length];
+        boolean constantArguments = true;
+        for (int i = 0; i < arguments.length; i++) {
+            arguments[i] = optimize(call.arguments[i]);
+            constantArguments &= arguments[i] instanceof ExpressionNode.Literal;
+        }
+        ExpressionNode.Call optimized = new ExpressionNode.Call(call.function, arguments);
+        // built-in functions are resolved at compile time, see Expression#resolve
+        if (!(call.function instanceof ExpressionNode.Literal)) {
+            return optimized;
+        }
+        Object function = ((ExpressionNode.Literal) call.function).value;
+        if (!(function instanceof JSFunctionInterface) || !Scope.isBuiltin(function)) {
+            return optimized;
+        }
+
+        if (constantArguments) {
+            // built-in functions are pure
+            return fold(optimized);
+        }
+
+        if (function == Scope.builtinOf("pow") && arguments.length == 2 && isNumber(arguments[1], 2)) {
+            return new ExpressionNode.Square(arguments[0]);
+        }
+
+        if (function == Scope.builtinOf("cubicBezier") && arguments.length == 8 && areNumbers(arguments, 4, 8)) {
+            // bind the solved curve once instead of looking it up on every call
+            UnitBezier curve = UnitBezier.obtain(numberOf(arguments[4]), numberOf(arguments[5]),
+                    numberOf(arguments[6]), numberOf(arguments[7]));
+            ExpressionNode[] easingArguments = new ExpressionNode[4];
+            System.arraycopy(arguments, 0, easingArguments, 0, 4);
+            return new ExpressionNode.Call(new ExpressionNode.Literal(curve), easingArguments);
+        }
+
+        if (function == Scope.builtinOf("spring") && arguments.length == 7 && areNumbers(arguments, 3, 7)) {
+            try {
+                SpringCurve curve = SpringCurve.obtain(numberOf(arguments[3]), numberOf(arguments[4]),
+                        numberOf(arguments[5]), numberOf(arguments[6]));
+                ExpressionNode[] easingArguments = new ExpressionNode[3];
+                System.arraycopy(arguments, 0, easingArguments, 0, 3);
+                return new ExpressionNode.Call(new ExpressionNode.Literal(curve), easingArguments);
+            } catch (IllegalArgumentException e) {
+                // keep the call so that it fails at runtime as before
+                LogProxy.d("[ExpressionOptimizer] skip binding spring: " + e.getMessage());
+            }
+        }
+
+        if (function == Scope.builtinOf("evaluateColor") && (arguments.length == 3 || arguments.length == 4)
+                && isString(arguments[0]) && isString(arguments[1])
+                && (arguments.length == 3 || isString(arguments[3]))) {
+            try {
+                Colors.Interpolation interpolation = new Colors.Interpolation(
+                        Colors.parse(stringOf(arguments[0])),
+                        Colors.parse(stringOf(arguments[1])),
+                        Colors.spaceOf(arguments.length == 4 ? stringOf(arguments[3]) : null));
+                return new ExpressionNode.Call(new ExpressionNode.Literal(interpolation), new ExpressionNode[]{arguments[2]});
+            } catch (IllegalArgumentException e) {
+                // keep the call so that it fails at runtime as before
+                LogProxy.d("[ExpressionOptimizer] skip parsing colors: " + e.getMessage());
+            }
+        }
+        return optimized;
+    }
+
+    private static ExpressionNode optimizeBinary(ExpressionNode.Binary binary) {
+        ExpressionNode left = optimize(binary.left);
+        ExpressionNode right = optimize(binary.right);
+        int operator = binary.operator;
+
+        if (left instanceof ExpressionNode.Literal && right instanceof ExpressionNode.Literal) {
+            return fold(new ExpressionNode.Binary(operator, left, right));
+        }
+
+        if (left instanceof ExpressionNode.Literal
+                && (operator == ExpressionNode.Binary.AND || operator == ExpressionNode.Binary.OR)) {
+            Boolean result = tryEvaluateBoolean(left);
+            if (result != null) {
+                // the constant operand decides which operand is returned
+                boolean returnLeft = operator == ExpressionNode.Binary.AND ? !result : result;
+                return returnLeft ? left : right;
+            }
+        }
+
+        if (operator == ExpressionNode.Binary.POW && isNumber(right, 2)) {
+            return new ExpressionNode.Square(left);
+        }
+
+        // x*1, 1*x and x/1 are x when x is known to be a number
+        if (operator == ExpressionNode.Binary.MUL || operator == ExpressionNode.Binary.DIV) {
+            if (isNumber(right, 1) && left.type == ExpressionNode.TYPE_NUMBER) {
+                return left;
+            }
+            if (operator == ExpressionNode.Binary.MUL && isNumber(left, 1) && right.type == ExpressionNode.TYPE_NUMBER) {
+                return right;
+            }
+        }
+
+        if (operator == ExpressionNode.Binary.DIV && right instanceof ExpressionNode.Literal
+                && right.type == ExpressionNode.TYPE_NUMBER) {
+            double divisor = (double) ((ExpressionNode.Literal) right).value;
+            if (isPowerOfTwo(divisor)) {
+                return new ExpressionNode.Binary(ExpressionNode.Binary.MUL, left, new ExpressionNode.Literal(1 / divisor));
+            }
+        }
+        return new ExpressionNode.Binary(operator, left, right);
+    }
+
+    /**
+     * evaluate a node whose operands are all constants. If evaluation fails, the node is kept
+     * so that the same error happens at runtime as before.
+     * */
+    private static ExpressionNode fold(ExpressionNode node) {
+        try {
+            Object value = node.evaluate(sEmptyScope);
+            if (value instanceof Double || value instanceof Boolean || value instanceof String) {
+                return new ExpressionNode.Literal(value);
+            }
+            if (value instanceof Integer && node.type == ExpressionNode.TYPE_COLOR) {
+                return ExpressionNode.Literal.color((Integer) value);
+            }
+        } catch (Exception e) {
+            LogProxy.d("[ExpressionOptimizer] skip folding: " + e.getMessage());
+        }
+        return node;
+    }
+
+    private static Boolean tryEvaluateBoolean(ExpressionNode literal) {
+        try {
+            return literal.evaluateBoolean(sEmptyScope);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static boolean isNumber(ExpressionNode node, double value) {
+        return node instanceof ExpressionNode.Literal
+                && node.type == ExpressionNode.TYPE_NUMBER
+                && (double) ((ExpressionNode.Literal) node).value == value;
+    }
+
+    private static boolean areNumbers(ExpressionNode[] nodes, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (!(nodes[i] instanceof ExpressionNode.Literal) || nodes[i].type != ExpressionNode.TYPE_NUMBER) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static double numberOf(ExpressionNode literal) {
+        return (double) ((ExpressionNode.Literal) literal).value;
+    }
+
+    private static boolean isString(ExpressionNode node) {
+        return node instanceof ExpressionNode.Literal && ((ExpressionNode.Literal) node).value instanceof String;
+    }
+
+    private static String stringOf(ExpressionNode literal) {
+        return (String) ((ExpressionNode.Literal) literal).value;
+    }
+
+    private static boolean isPowerOfTwo(double value) {
+        long bits = Double.doubleToRawLongBits(value);
+        int exponent = (int) ((bits >>> 52) & 0x7ff);
+        // normal number with empty significand, the reciprocal of which is exact
+        return exponent != 0 && exponent != 0x7ff && (bits & 0x000fffffffffffffL) == 0;
+    }
+
+    /**
+     * @return the number of nodes of the tree
+     * */
+    static int countNodes(@NonNull ExpressionNode node) {
+        if (node instanceof ExpressionNode.Call) {
+            ExpressionNode.Call call = (ExpressionNode.Call) node;
+            int count = 1 + countNodes(call.function);
+            for (ExpressionNode argument : call.arguments) {
+                count += countNodes(argument);
+            }
+            return count;
+        }
+        if (node instanceof ExpressionNode.Conditional) {
+            ExpressionNode.Conditional conditional = (ExpressionNode.Conditional) node;
+            return 1 + countNodes(conditional.test) + countNodes(conditional.consequent) + countNodes(conditional.alternate);
+        }
+        if (node instanceof ExpressionNode.Binary) {
+            ExpressionNode.Binary binary = (ExpressionNode.Binary) node;
+            return 1 + countNodes(binary.left) + countNodes(binary.right);
+        }
+        if (node instanceof ExpressionNode.Not) {
+            return 1 + countNodes(((ExpressionNode.Not) node).operand);
+        }
+        if (node instanceof ExpressionNode.Square) {
+            return 1 + countNodes(((ExpressionNode.Square) node).operand);
+        }
+        return 1;
+    }
+
+}
@@ -0,0 +1,307 @@
+/**
+ * Copyright 2018 Alibaba Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.android.bindingx.core.internal;
+
+import android.support.annotation.Nullable;
+
+import com.alibaba.android.bindingx.core.LogProxy;
+import com.alibaba.android.bindingx.core.PlatformManager;
+
+import java.util.Map;
+
+/**
+ * Description:
+ *
+ * The motion of the content after a pan ends: the release velocity decays by friction, and if
+ * bounds are set the content is pulled back by a critically damped spring once it runs past one
+ * (rubber band), or stops at it.
+ *
+ * Both phases are closed forms of the time since the release, so the position of a frame does
+ * not depend on how many frames were drawn before. Units are native pixels and seconds.
+ */
+
+final class FlingSimulation {
+
+    static final double DEFAULT_DECELERATION = 0.998;
+    static final double DEFAULT_SPRING_STIFFNESS = 180;
+    // the content stops below this speed, in web units per second
+    private static final double REST_VELOCITY = 8;
+    // and this close to its bound, in web units
+    private static final double REST_DISTANCE = 0.5;
+    // how hard the content is to drag beyond a bound, see #rubberBand
+    private static final double RUBBER_BAND_COEFFICIENT = 0.55;
+
+    private final Axis mX;
+    private final Axis mY;
+    private final boolean mRubberBand;
+
+    /**
+     * @param deceleration the fraction of the velocity kept per millisecond, 0.998 is the normal
+     *                     deceleration of a scroll view, 0.99 a fast one
+     * @param springStiffness of the spring at the bounds, with a unit mass
+     * @param restVelocity the speed below which the motion ends
+     * @param restDistance the distance to the bound within which the spring ends
+     * */
+    FlingSimulation(double deceleration, double springStiffness, boolean rubberBand,
+                    double minX, double maxX, double minY, double maxY,
+                    double restVelocity, double restDistance) {
+        if (!(deceleration > 0 && deceleration < 1)) {
+            throw new IllegalArgumentException("illegal deceleration: " + deceleration);
+        }
+        if (!(springStiffness > 0)) {
+            throw new IllegalArgumentException("illegal spring stiffness: " + springStiffness);
+        }
+        double friction = -Math.log(deceleration) * 1000;
+        double omega = Math.sqrt(springStiffness);
+        this.mRubberBand = rubberBand;
+        this.mX = new Axis(friction, omega, minX, maxX, restVelocity, restDistance);
+        this.mY = new Axis(friction, omega, minY, maxY, restVelocity, restDistance);
+    }
+
+    /**
+     * @return the simulation the binding asks for with {@link BindingXConstants#KEY_FLING}, null if
+     * it asks for none
+     * */
+    @Nullable
+    static FlingSimulation of(@Nullable Map<String, Object> config, PlatformManager.IDeviceResolutionTranslator translator) {
+        if (config == null) {
+            return null;
+        }
+        Object fling = config.get(BindingXConstants.KEY_FLING);
+        if (!Boolean.TRUE.equals(fling) && !"true".equals(fling)) {
+            return null;
+        }
+        double deceleration = parse(config, BindingXConstants.KEY_FLING_DECELERATION, DEFAULT_DECELERATION);
+        if (!(deceleration > 0 && deceleration < 1)) {
+            LogProxy.e("illegal " + BindingXConstants.KEY_FLING_DECELERATION + ": " + deceleration);
+            deceleration = DEFAULT_DECELERATION;
+        }
+        double stiffness = parse(config, BindingXConstants.KEY_SPRING_STIFFNESS, DEFAULT_SPRING_STIFFNESS);
+        if (!(stiffness > 0)) {
+            LogProxy.e("illegal " + BindingXConstants.KEY_SPRING_STIFFNESS + ": " + stiffness);
+            stiffness = DEFAULT_SPRING_STIFFNESS;
+        }
+        Object rubberBand = config.get(BindingXConstants.KEY_RUBBER_BAND);
+        return new FlingSimulation(deceleration, stiffness,
+                rubberBand == null || Boolean.TRUE.equals(rubberBand) || "true".equals(rubberBand),
+                bound(config, BindingXConstants.KEY_MIN_X, Double.NEGATIVE_INFINITY, translator),
+                bound(config, BindingXConstants.KEY_MAX_X, Double.POSITIVE_INFINITY, translator),
+                bound(config, BindingXConstants.KEY_MIN_Y, Double.NEGATIVE_INFINITY, translator),
+                bound(config, BindingXConstants.KEY_MAX_Y, Double.POSITIVE_INFINITY, translator),
+                translator.webToNative(REST_VELOCITY), translator.webToNative(REST_DISTANCE));
+    }
+
+    private static double bound(Map<String, Object> config, String key, double none,
+                                PlatformManager.IDeviceResolutionTranslator translator) {
+        double bound = parse(config, key, Double.NaN);
+        return Double.isNaN(bound) ? none : translator.webToNative(bound);
+    }
+
+    private static double parse(Map<String, Object> config, String key, double defaultValue) {
+        Object value = config.get(key);
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        if (value instanceof String) {
+            try {
+                return Double.parseDouble((String) value);
+            } catch (NumberFormatException e) {
+                LogProxy.e("illegal " + key + ": " + value);
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * @return where the content is while the finger drags it to x, which is resisted beyond a bound
+     * @param dimension the width of the dragged view
+     * */
+    double dragX(double x, double dimension) {
+        return mX.drag(x, dimension, mRubberBand);
+    }
+
+    /**
+     * @see #dragX(double, double)
+     * */
+    double dragY(double y, double dimension) {
+        return mY.drag(y, dimension, mRubberBand);
+    }
+
+    /**
+     * starts at the release of the finger
+     *
+     * @param vx the velocity of the release in pixels per second
+     * @param vy the velocity of the release in pixels per second
+     * */
+    void start(double x, double y, double vx, double vy) {
+        mX.start(x, vx, mRubberBand);
+        mY.start(y, vy, mRubberBand);
+    }
+
+    /**
+     * @param seconds since {@link #start(double, double, double, double)}
+     * @return true while the content moves
+     * */
+    boolean update(double seconds) {
+        mX.update(seconds, mRubberBand);
+        mY.update(seconds, mRubberBand);
+        return !isFinished();
+    }
+
+    boolean isFinished() {
+        return mX.phase == Axis.REST && mY.phase == Axis.REST;
+    }
+
+    double x() {
+        return mX.position;
+    }
+
+    double y() {
+        return mY.position;
+    }
+
+    double vx() {
+        return mX.velocity;
+    }
+
+    double vy() {
+        return mY.velocity;
+    }
+
+    /**
+     * the offset beyond a bound the content follows when the finger drags it offset beyond.
+     * Approaches the dimension, the further the finger drags the less the content moves.
+     * */
+    static double rubberBand(double offset, double dimension) {
+        if (!(dimension > 0)) {
+            return 0;
+        }
+        double resisted = (1 - 1 / (Math.abs(offset) * RUBBER_BAND_COEFFICIENT / dimension + 1)) * dimension;
+        return offset < 0 ? -resisted : resisted;
+    }
+
+    private static final class Axis {
+        static final int REST = 0;
+        static final int DECAY = 1;
+        static final int SPRING = 2;
+
+        private final double friction;
+        private final double omega;
+        private final double min;
+        private final double max;
+        private final double restVelocity;
+        private final double restDistance;
+
+        int phase = REST;
+        // the state when the current phase started
+        private double startTime;
+        private double startPosition;
+        private double startVelocity;
+        // the rest position of the spring
+        private double anchor;
+
+        double position;
+        double velocity;
+
+        Axis(double friction, double omega, double min, double max, double restVelocity, double restDistance) {
+            this.friction = friction;
+            this.omega = omega;
+            this.min = min;
+            this.max = max;
+            this.restVelocity = restVelocity;
+            this.restDistance = restDistance;
+        }
+
+        double drag(double x, double dimension, boolean rubberBand) {
+            if (x < min) {
+                return rubberBand ? min + rubberBand(x - min, dimension) : min;
+            }
+            if (x > max) {
+                return rubberBand ? max + rubberBand(x - max, dimension) : max;
+            }
+            return x;
+        }
+
+        void start(double x, double v, boolean rubberBand) {
+            position = x;
+            velocity = v;
+            if (x < min || x > max) {
+                if (rubberBand) {
+                    spring(0, x, v, x < min ? min : max);
+                } else {
+                    rest(x < min ? min : max);
+                }
+            } else if (Math.abs(v) < restVelocity) {
+                rest(x);
+            } else {
+                begin(DECAY, 0, x, v);
+            }
+        }
+
+        void update(double time, boolean rubberBand) {
+            if (phase == DECAY) {
+                double dt = time - startTime;
+                double decay = Math.exp(-friction * dt);
+                position = startPosition + startVelocity / friction * (1 - decay);
+                velocity = startVelocity * decay;
+                double bound = position < min ? min : (position > max ? max : Double.NaN);
+                if (!Double.isNaN(bound)) {
+                    // exactly when the content passed the bound
+                    double crossing = -Math.log(1 - (bound - startPosition) * friction / startVelocity) / friction;
+                    double crossingVelocity = startVelocity * Math.exp(-friction * crossing);
+                    if (rubberBand) {
+                        spring(startTime + crossing, bound, crossingVelocity, bound);
+                    } else {
+                        rest(bound);
+                        return;
+                    }
+                } else if (Math.abs(velocity) < restVelocity) {
+                    rest(position);
+                    return;
+                }
+            }
+            if (phase == SPRING) {
+                double dt = time - startTime;
+                double c1 = startPosition - anchor;
+                double c2 = startVelocity + omega * c1;
+                double decay = Math.exp(-omega * dt);
+                position = anchor + (c1 + c2 * dt) * decay;
+                velocity = (c2 - omega * (c1 + c2 * dt)) * decay;
+                if (Math.abs(position - anchor) < restDistance && Math.abs(velocity) < restVelocity) {
+                    rest(anchor);
+                }
+            }
+        }
+
+        private void spring(double time, double x, double v, double anchor) {
+            this.anchor = anchor;
+            begin(SPRING, time, x, v);
+        }
+
+        private void rest(double x) {
+            phase = REST;
+            position = x;
+            velocity = 0;
+        }
+
+        private void begin(int phase, double time, double x, double v) {
+            this.phase = phase;
+            this.startTime = time;
+            this.startPosition = x;
+            this.startVelocity = v;
+        }
+    }
+}
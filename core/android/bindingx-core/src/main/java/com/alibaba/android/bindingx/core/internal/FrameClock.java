@@ -0,0 +1,140 @@
+/**
+ * Copyright 2018 Alibaba Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.android.bindingx.core.internal;
+
+import android.support.annotation.Nullable;
+
+import com.alibaba.android.bindingx.core.LogProxy;
+
+import java.util.Map;
+
+/**
+ * Description:
+ *
+ * The elapsed time <code>t</code> of a timing binding, computed from the vsync timestamps of the
+ * frames rather than from the time the callback happens to run, so a late callback does not
+ * make the animation jitter.
+ *
+ * A frame which comes more than one and a half frame intervals after the previous one means that
+ * frames have been dropped. They are counted, and the policy decides what happens to <code>t</code>:
+ * <ul>
+ *     <li>"catch-up" (default): <code>t</code> is the real elapsed time, the animation jumps ahead
+ *     and ends on time</li>
+ *     <li>"stretch": <code>t</code> advances by one frame only, the animation continues where
+ *     it stopped and ends late by the time of the hitch</li>
+ * </ul>
+ */
+
+final class FrameClock {
+
+    static final int POLICY_CATCH_UP = 0;
+    static final int POLICY_STRETCH = 1;
+
+    static final long DEFAULT_FRAME_INTERVAL_NANOS = 1000000000L / 60;
+
+    private final int mPolicy;
+
+    private long mStartNanos;
+    private long mLastFrameNanos;
+    // time removed from t by the stretch policy
+    private long mStretchedNanos;
+    private int mDroppedFrames;
+    private double mElapsedMillis;
+    private boolean mStarted;
+
+    FrameClock(int policy) {
+        this.mPolicy = policy;
+    }
+
+    /**
+     * @param config the options of the binding, see {@link BindingXConstants#KEY_FRAME_DROP_POLICY}
+     * */
+    static int policyOf(@Nullable Map<String, Object> config) {
+        Object policy = config == null ? null : config.get(BindingXConstants.KEY_FRAME_DROP_POLICY);
+        if (policy == null || BindingXConstants.FRAME_DROP_CATCH_UP.equals(policy)) {
+            return POLICY_CATCH_UP;
+        }
+        if (BindingXConstants.FRAME_DROP_STRETCH.equals(policy)) {
+            return POLICY_STRETCH;
+        }
+        LogProxy.e("illegal " + BindingXConstants.KEY_FRAME_DROP_POLICY + ": " + policy);
+        return POLICY_CATCH_UP;
+    }
+
+    /**
+     * start again with the next frame
+     * */
+    void reset() {
+        mStarted = false;
+        mStartNanos = 0;
+        mLastFrameNanos = 0;
+        mStretchedNanos = 0;
+        mDroppedFrames = 0;
+        mElapsedMillis = 0;
+    }
+
+    /**
+     * @param frameTimeNanos the vsync timestamp of the frame
+     * @param frameIntervalNanos the time between two frames of the display
+     * @return the elapsed time in milliseconds, 0 on the first frame
+     * */
+    double onFrame(long frameTimeNanos, long frameIntervalNanos) {
+        if (!mStarted) {
+            mStarted = true;
+            mStartNanos = frameTimeNanos;
+            mLastFrameNanos = frameTimeNanos;
+            mElapsedMillis = 0;
+            return 0;
+        }
+        if (frameIntervalNanos <= 0) {
+            frameIntervalNanos = DEFAULT_FRAME_INTERVAL_NANOS;
+        }
+        long delta = frameTimeNanos - mLastFrameNanos;
+        if (delta * 2 > frameIntervalNanos * 3) {
+            mDroppedFrames += (int) ((delta + frameIntervalNanos / 2) / frameIntervalNanos) - 1;
+            if (mPolicy == POLICY_STRETCH) {
+                mStretchedNanos += delta - frameIntervalNanos;
+            }
+        }
+        if (delta > 0) {
+            // a callback may see the same timestamp twice, t never goes back
+            mLastFrameNanos = frameTimeNanos;
+            mElapsedMillis = (frameTimeNanos - mStartNanos - mStretchedNanos) / 1e6;
+        }
+        return mElapsedMillis;
+    }
+
+    /**
+     * @return true if a frame has come since {@link #reset()}
+     * */
+    boolean isStarted() {
+        return mStarted;
+    }
+
+    /**
+     * @return the frames dropped since {@link #reset()}
+     * */
+    int droppedFrames() {
+        return mDroppedFrames;
+    }
+
+    /**
+     * @return the time returned by the most recent {@link #onFrame(long, long)}
+     * */
+    double elapsedMillis() {
+        return mElapsedMillis;
+    }
+}
@@ -0,0 +1,103 @@
+/**
+ * Copyright 2018 Alibaba Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.android.bindingx.core.internal;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Description:
+ *
+ * Paces frames without a vsync signal. Frames are due on a fixed grid of absolute deadlines
+ * (<code>origin + n * interval</code>) instead of a fixed delay after the previous callback, so
+ * the time spent in the callbacks does not add up and the rate stays at the target.
+ *
+ * A frame which is late by more than an interval skips the deadlines it missed rather than
+ * firing them in a burst, the gap shows as dropped frames to {@link FrameClock}. After an idle
+ * time the next frame is due at once.
+ */
+
+final class FramePacer {
+
+    static final float DEFAULT_FRAME_RATE = 60f;
+    // the rates a display may have, anything else is a bad value of the platform
+    private static final float MIN_FRAME_RATE = 10f;
+    private static final float MAX_FRAME_RATE = 240f;
+
+    private final Clock mClock;
+
+    private long mFrameIntervalNanos;
+    private long mLastFrameTimeNanos;
+    private boolean mStarted;
+
+    FramePacer(@NonNull Clock clock, float frameRate) {
+        this.mClock = clock;
+        setFrameRate(frameRate);
+    }
+
+    /**
+     * @param frameRate frames per second, values out of range fall back to {@link #DEFAULT_FRAME_RATE}
+     * */
+    void setFrameRate(float frameRate) {
+        if (!(frameRate >= MIN_FRAME_RATE && frameRate <= MAX_FRAME_RATE)) {
+            frameRate = DEFAULT_FRAME_RATE;
+        }
+        mFrameIntervalNanos = Math.round(1e9 / frameRate);
+    }
+
+    long getFrameIntervalNanos() {
+        return mFrameIntervalNanos;
+    }
+
+    /**
+     * @return the deadline of the next frame, in the time base of the clock. It is never later than
+     * one interval after now.
+     * */
+    long nextFrameTime() {
+        long now = mClock.nanoTime();
+        if (!mStarted) {
+            return now;
+        }
+        long next = mLastFrameTimeNanos + mFrameIntervalNanos;
+        if (next < now) {
+            // late or idle: move to the latest deadline which has passed, the grid stays the same
+            next += (now - next) / mFrameIntervalNanos * mFrameIntervalNanos;
+        }
+        return next;
+    }
+
+    /**
+     * @return the delay until the frame is due, rounded up to whole milliseconds so it never comes early
+     * */
+    long delayMillis(long frameTimeNanos) {
+        long delay = frameTimeNanos - mClock.nanoTime();
+        return delay <= 0 ? 0 : (delay + 999999) / 1000000;
+    }
+
+    /**
+     * the frame of {@link #nextFrameTime()} has come
+     * */
+    void onFrame(long frameTimeNanos) {
+        mStarted = true;
+        mLastFrameTimeNanos = frameTimeNanos;
+    }
+
+    interface Clock {
+        /**
+         * @return a monotonic time in nanoseconds, {@link System#nanoTime()} on the device
+         * */
+        long nanoTime();
+    }
+}
@@ -0,0 +1,439 @@
+/**
+ * Copyright 2018 Alibaba Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.android.bindingx.core.internal;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Message;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import android.view.Choreographer;
+import android.view.Display;
+import android.view.WindowManager;
+
+import com.alibaba.android.bindingx.core.LogProxy;
+import com.alibaba.android.bindingx.core.ViewUpdateBuffer;
+
+/**
+ * Description:
+ *
+ * The process wide frame loop of all timing bindings. There is at most one pending
+ * <code>Choreographer.FrameCallback</code> (or one message of a single shared thread paced by
+ * {@link FramePacer} without a Choreographer) however many bindings run, and every frame ticks
+ * the active callbacks in the order they were added. Nothing is posted while no callback is active.
+ *
+ * Callbacks added during a frame are ticked from the next frame on, callbacks removed during
+ * a frame are not ticked anymore.
+ *
+ * The frame interval of the display is learned from the shortest time between two of the recent
+ * frames, so it follows changes of the refresh rate.
+ */
+
+final class FrameScheduler {
+
+    // displays refresh at no more than 240Hz, anything shorter is not a frame
+    private static final long MIN_FRAME_INTERVAL_NANOS = 1000000000L / 240;
+    // and at no less than 24Hz, anything longer is an idle loop
+    private static final long MAX_FRAME_INTERVAL_NANOS = 1000000000L / 24;
+    // the frame interval is the shortest of this many recent intervals, so frames dropped in
+    // between are not taken for a slower display, and a slower display is noticed within the window
+    @VisibleForTesting
+    static final int INTERVAL_WINDOW = 32;
+
+    private static FrameScheduler sInstance;
+
+    private final Driver mDriver;
+    private final Object mLock = new Object();
+
+    // copy on write, so a frame can tick a snapshot without holding the lock
+    private volatile AnimationFrame.Callback[] mCallbacks = new AnimationFrame.Callback[0];
+    private boolean mPosted;
+    // frames per second without vsync set by the host and read from the display, 0 if not known
+    private float mFallbackFrameRate;
+    private volatile float mDisplayFrameRate;
+
+    // statistics, written by the frame loop only
+    private volatile long mFrameCount;
+    private volatile int mLastTickCount;
+    private volatile long mLastFrameCostNanos;
+    private volatile long mMaxFrameCostNanos;
+    private volatile long mFrameIntervalNanos = FrameClock.DEFAULT_FRAME_INTERVAL_NANOS;
+    private long mLastFrameTimeNanos;
+    private final long[] mRecentIntervals = new long[INTERVAL_WINDOW];
+    private int mRecentIntervalCount;
+    private int mNextIntervalIndex;
+
+    @VisibleForTesting
+    FrameScheduler(@NonNull Driver driver) {
+        this.mDriver = driver;
+        driver.attach(this);
+    }
+
+    /**
+     * the frames are the ones of the Choreographer of the main thread whichever thread calls this
+     * first, so the callbacks always run on the main thread like the touch events and the view updates.
+     * */
+    @NonNull
+    static synchronized FrameScheduler getInstance() {
+        if (sInstance == null) {
+            boolean vsync = Build.VERSION.SDK_INT >= 16 && Looper.getMainLooper() != null;
+            sInstance = new FrameScheduler(vsync ? new ChoreographerDriver() : new PacedDriver());
+        }
+        return sInstance;
+    }
+
+    /**
+     * sets the frame rate of the frames without vsync. It takes precedence over the refresh rate
+     * of the display, 0 goes back to the display.
+     * */
+    void setFallbackFrameRate(float frameRate) {
+        synchronized (mLock) {
+            mFallbackFrameRate = frameRate;
+            mDriver.setFrameRate(frameRate > 0 ? frameRate : mDisplayFrameRate);
+        }
+    }
+
+    /**
+     * paces the frames without vsync at the refresh rate of the display of the context, unless a
+     * frame rate has been set. The display is read once.
+     * */
+    void useRefreshRateOf(@Nullable Context context) {
+        if (context == null || mDisplayFrameRate > 0) {
+            return;
+        }
+        float refreshRate = 0;
+        try {
+            WindowManager windowManager = (WindowManager) context.getApplicationContext().getSystemService(Context.WINDOW_SERVICE);
+            Display display = windowManager == null ? null : windowManager.getDefaultDisplay();
+            if (display != null) {
+                refreshRate = display.getRefreshRate();
+            }
+        } catch (Exception e) {
+            LogProxy.e("can not read the refresh rate of the display", e);
+        }
+        if (refreshRate <= 0) {
+            return;
+        }
+        synchronized (mLock) {
+            mDisplayFrameRate = refreshRate;
+            if (mFallbackFrameRate <= 0) {
+                mDriver.setFrameRate(refreshRate);
+            }
+        }
+    }
+
+    /**
+     * tick the callback on every frame from the next one on. Nothing happens if it is active already.
+     * */
+    void add(@NonNull AnimationFrame.Callback callback) {
+        synchronized (mLock) {
+            AnimationFrame.Callback[] callbacks = mCallbacks;
+            if (indexOf(callbacks, callback) >= 0) {
+                return;
+            }
+            AnimationFrame.Callback[] newCallbacks = new AnimationFrame.Callback[callbacks.length + 1];
+            System.arraycopy(callbacks, 0, newCallbacks, 0, callbacks.length);
+            newCallbacks[callbacks.length] = callback;
+            mCallbacks = newCallbacks;
+            if (!mPosted) {
+                mPosted = true;
+                mDriver.post();
+            }
+        }
+    }
+
+    void remove(@NonNull AnimationFrame.Callback callback) {
+        synchronized (mLock) {
+            AnimationFrame.Callback[] callbacks = mCallbacks;
+            int index = indexOf(callbacks, callback);
+            if (index < 0) {
+                return;
+            }
+            AnimationFrame.Callback[] newCallbacks = new AnimationFrame.Callback[callbacks.length - 1];
+            System.arraycopy(callbacks, 0, newCallbacks, 0, index);
+            System.arraycopy(callbacks, index + 1, newCallbacks, index, newCallbacks.length - index);
+            mCallbacks = newCallbacks;
+            if (newCallbacks.length == 0 && mPosted) {
+                mPosted = false;
+                mDriver.cancel();
+            }
+        }
+    }
+
+    boolean isActive(@NonNull AnimationFrame.Callback callback) {
+        return indexOf(mCallbacks, callback) >= 0;
+    }
+
+    int getActiveCount() {
+        return mCallbacks.length;
+    }
+
+    long getFrameCount() {
+        return mFrameCount;
+    }
+
+    /**
+     * @return the number of callbacks ticked by the most recent frame
+     * */
+    int getLastTickCount() {
+        return mLastTickCount;
+    }
+
+    /**
+     * @return the time the most recent frame spent in the callbacks
+     * */
+    long getLastFrameCostNanos() {
+        return mLastFrameCostNanos;
+    }
+
+    long getMaxFrameCostNanos() {
+        return mMaxFrameCostNanos;
+    }
+
+    /**
+     * @return the time between two frames of the display, 60Hz until a frame interval has been seen
+     * */
+    long getFrameIntervalNanos() {
+        return mFrameIntervalNanos;
+    }
+
+    /**
+     * called by the driver on every frame
+     *
+     * @param frameTimeNanos the vsync timestamp of the frame
+     * */
+    @VisibleForTesting
+    void doFrame(long frameTimeNanos) {
+        long interval = frameTimeNanos - mLastFrameTimeNanos;
+        if (mLastFrameTimeNanos != 0 && interval >= MIN_FRAME_INTERVAL_NANOS && interval <= MAX_FRAME_INTERVAL_NANOS) {
+            onFrameInterval(interval);
+        }
+        mLastFrameTimeNanos = frameTimeNanos;
+
+        AnimationFrame.Callback[] callbacks;
+        synchronized (mLock) {
+            // the pending frame has come
+            mPosted = false;
+            callbacks = mCallbacks;
+        }
+        long start = System.nanoTime();
+        int ticks = 0;
+        try {
+            for (AnimationFrame.Callback callback : callbacks) {
+                AnimationFrame.Callback[] current = mCallbacks;
+                if (current != callbacks && indexOf(current, callback) < 0) {
+                    // removed by a callback ticked before
+                    continue;
+                }
+                callback.doFrame(frameTimeNanos);
+                ticks++;
+            }
+        } finally {
+            long cost = System.nanoTime() - start;
+            mFrameCount++;
+            mLastTickCount = ticks;
+            mLastFrameCostNanos = cost;
+            if (cost > mMaxFrameCostNanos) {
+                mMaxFrameCostNanos = cost;
+            }
+            synchronized (mLock) {
+                if (!mPosted && mCallbacks.length > 0) {
+                    mPosted = true;
+                    mDriver.post();
+                }
+            }
+        }
+    }
+
+    private void onFrameInterval(long interval) {
+        mRecentIntervals[mNextIntervalIndex] = interval;
+        mNextIntervalIndex = (mNextIntervalIndex + 1) % INTERVAL_WINDOW;
+        mRecentIntervalCount = Math.min(mRecentIntervalCount + 1, INTERVAL_WINDOW);
+        long shortest = Long.MAX_VALUE;
+        for (int i = 0; i < mRecentIntervalCount; i++) {
+            shortest = Math.min(shortest, mRecentIntervals[i]);
+        }
+        mFrameIntervalNanos = shortest;
+    }
+
+    private static int indexOf(AnimationFrame.Callback[] callbacks, AnimationFrame.Callback callback) {
+        for (int i = 0; i < callbacks.length; i++) {
+            if (callbacks[i] == callback) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * the source of frames. {@link #post()} asks for one call of {@link FrameScheduler#doFrame(long)}.
+     * */
+    interface Driver {
+        void attach(@NonNull FrameScheduler scheduler);
+
+        void post();
+
+        void cancel();
+
+        /**
+         * @param frameRate the frames per second of a driver without vsync, ignored by the others
+         * */
+        void setFrameRate(float frameRate);
+    }
+
+    /**
+     * frames of the Choreographer of the main thread. A Choreographer belongs to the thread which
+     * obtains it, so it is obtained on the main thread: right away if the first frame is posted there,
+     * through a message to the main thread otherwise.
+     * */
+    @TargetApi(16)
+    private static final class ChoreographerDriver implements Driver, Choreographer.FrameCallback, Runnable {
+        private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+        private volatile Choreographer mChoreographer;
+        private FrameScheduler mScheduler;
+
+        @Override
+        public void attach(@NonNull FrameScheduler scheduler) {
+            this.mScheduler = scheduler;
+        }
+
+        @Override
+        public void post() {
+            Choreographer choreographer = mChoreographer;
+            if (choreographer == null && Looper.myLooper() == Looper.getMainLooper()) {
+                choreographer = mChoreographer = Choreographer.getInstance();
+            }
+            if (choreographer != null) {
+                // may be called from any thread
+                choreographer.postFrameCallback(this);
+            } else {
+                mMainHandler.post(this);
+            }
+        }
+
+        @Override
+        public void cancel() {
+            Choreographer choreographer = mChoreographer;
+            if (choreographer != null) {
+                choreographer.removeFrameCallback(this);
+            }
+            mMainHandler.removeCallbacks(this);
+        }
+
+        @Override
+        public void setFrameRate(float frameRate) {
+            // paced by vsync
+        }
+
+        /**
+         * obtains the Choreographer on the main thread and posts the frame which was asked for before
+         * */
+        @Override
+        public void run() {
+            // post() and cancel() are called with the lock held as well
+            synchronized (mScheduler.mLock) {
+                if (mChoreographer == null) {
+                    mChoreographer = Choreographer.getInstance();
+                }
+                // at most one pending frame even if another message was sent in between
+                mChoreographer.removeFrameCallback(this);
+                if (mScheduler.mPosted) {
+                    mChoreographer.postFrameCallback(this);
+                }
+            }
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            mScheduler.doFrame(frameTimeNanos);
+            // the views show the values of this frame rather than of the next one
+            ViewUpdateBuffer.getInstance().flush();
+        }
+    }
+
+    /**
+     * frames of a shared thread paced by {@link FramePacer}, for platforms or threads without a Choreographer
+     * */
+    private static final class PacedDriver implements Driver, Handler.Callback {
+        private static final int MSG_FRAME_CALLBACK = 100;
+
+        private final Handler mHandler;
+        private final FramePacer mPacer;
+        private FrameScheduler mScheduler;
+        // written by the posting thread, read by the frame thread after the message
+        private volatile long mPendingFrameTime;
+
+        PacedDriver() {
+            HandlerThread thread = new HandlerThread("expression-timing-thread");
+            thread.start();
+            mHandler = new Handler(thread.getLooper(), this);
+            mPacer = new FramePacer(new FramePacer.Clock() {
+                @Override
+                public long nanoTime() {
+                    return System.nanoTime();
+                }
+            }, FramePacer.DEFAULT_FRAME_RATE);
+        }
+
+        @Override
+        public void attach(@NonNull FrameScheduler scheduler) {
+            this.mScheduler = scheduler;
+        }
+
+        @Override
+        public void post() {
+            long frameTime;
+            long delay;
+            synchronized (mPacer) {
+                frameTime = mPacer.nextFrameTime();
+                delay = mPacer.delayMillis(frameTime);
+            }
+            mPendingFrameTime = frameTime;
+            mHandler.sendEmptyMessageDelayed(MSG_FRAME_CALLBACK, delay);
+        }
+
+        @Override
+        public void cancel() {
+            mHandler.removeMessages(MSG_FRAME_CALLBACK);
+        }
+
+        @Override
+        public void setFrameRate(float frameRate) {
+            synchronized (mPacer) {
+                mPacer.setFrameRate(frameRate);
+            }
+        }
+
+        @Override
+        public boolean handleMessage(Message msg) {
+            if (msg != null && msg.what == MSG_FRAME_CALLBACK) {
+                // no vsync, the frame is on the deadline it was due
+                long frameTime = mPendingFrameTime;
+                synchronized (mPacer) {
+                    mPacer.onFrame(frameTime);
+                }
+                mScheduler.doFrame(frameTime);
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/**
+ * Copyright 2018 Alibaba Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.android.bindingx.core.internal;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.VisibleForTesting;
+
+/**
+ * Description:
+ *
+ * Runs the evaluation of an input handler at most once per frame. The handler records the newest
+ * input state on every event and calls {@link #request()}; the evaluation runs on the next frame of
+ * {@link FrameScheduler} and reads whatever state is newest by then. Touch panels sample at up to
+ * 240Hz and scroll listeners fire several times per frame, only the last state of a frame is visible.
+ *
+ * {@link #request()} may be called from any thread, the evaluation runs on the frame thread.
+ */
+
+final class InputCoalescer implements AnimationFrame.Callback {
+
+    private final FrameScheduler mScheduler;
+    private final Runnable mEvaluation;
+
+    private volatile boolean mPending;
+    // of the frame or the flush which runs the evaluation
+    private volatile long mFrameTimeNanos;
+    // events which were folded into an evaluation requested before
+    private volatile long mCoalescedCount;
+
+    InputCoalescer(@NonNull Runnable evaluation) {
+        this(FrameScheduler.getInstance(), evaluation);
+    }
+
+    @VisibleForTesting
+    InputCoalescer(@NonNull FrameScheduler scheduler, @NonNull Runnable evaluation) {
+        this.mScheduler = scheduler;
+        this.mEvaluation = evaluation;
+    }
+
+    /**
+     * evaluates on the next frame. The input state must be recorded before.
+     * */
+    void request() {
+        if (mPending) {
+            mCoalescedCount++;
+            return;
+        }
+        mPending = true;
+        mScheduler.add(this);
+    }
+
+    /**
+     * evaluates now if an evaluation is pending, e.g. before the gesture ends. Must be called on the
+     * frame thread.
+     * */
+    void flush() {
+        if (!mPending) {
+            return;
+        }
+        cancel();
+        mFrameTimeNanos = System.nanoTime();
+        mEvaluation.run();
+    }
+
+    /**
+     * drops the pending evaluation
+     * */
+    void cancel() {
+        mScheduler.remove(this);
+        mPending = false;
+    }
+
+    boolean isPending() {
+        return mPending;
+    }
+
+    long getCoalescedCount() {
+        return mCoalescedCount;
+    }
+
+    /**
+     * @return the vsync time of the frame which runs the evaluation, or the time of the
+     * {@link #flush()}. Valid while the evaluation runs.
+     * */
+    long getFrameTimeNanos() {
+        return mFrameTimeNanos;
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        mScheduler.remove(this);
+        // an event from now on asks for the next frame, anything before is read by this evaluation
+        mPending = false;
+        mFrameTimeNanos = frameTimeNanos;
+        mEvaluation.run();
+    }
+}
@@ -15,9 +15,6 @@
  */
 package com.alibaba.android.bindingx.core.internal;
 
-import android.animation.ArgbEvaluator;
-import android.graphics.Color;
-import android.text.TextUtils;
 
 import com.alibaba.android.bindingx.core.PlatformManager;
 
@@ -34,84 +31,85 @@ class JSMath {
 
     private JSMath(){}
 
-    private static Object sin = new JSFunctionInterface() {
-        public Object execute(ArrayList<Object> arguments) {
-            return Math.sin((double) arguments.get(0));
+    private static Object sin = new PrimitiveFunction.Arity1() {
+        double call(double a) {
+            return Math.sin(a);
         }
     };
 
-    private static Object cos = new JSFunctionInterface() {
-        public Object execute(ArrayList<Object> arguments) {
-            return Math.cos((double) arguments.get(0));
+    private static Object cos = new PrimitiveFunction.Arity1() {
+        double call(double a) {
+            return Math.cos(a);
         }
     };
 
-    private static Object tan = new JSFunctionInterface() {
-        public Object execute(ArrayList<Object> arguments) {
-            return Math.tan((double) arguments.get(0));
+    private static Object tan = new PrimitiveFunction.Arity1() {
+        double call(double a) {
+            return Math.tan(a);
         }
     };
 
-    private static Object asin = new JSFunctionInterface() {
-        public Object execute(ArrayList<Object> arguments) {
-            return Math.asin((double) arguments.get(0));
+    private static Object asin = new PrimitiveFunction.Arity1() {
+        double call(double a) {
+            return Math.asin(a);
         }
     };
 
-    private static Object acos = new JSFunctionInterface() {
-        public Object execute(ArrayList<Object> arguments) {
-            return Math.acos((double) arguments.get(0));
+    private static Object acos = new PrimitiveFunction.Arity1() {
+        double call(double a) {
+            return Math.acos(a);
         }
     };
 
-    private static Object atan = new JSFunctionInterface() {
-        public Object execute(ArrayList<Object> arguments) {
-            return Math.atan((double) arguments.get(0));
+    private static Object atan = new PrimitiveFunction.Arity1() {
+        double call(double a) {
+            return Math.atan(a);
         }
     };
 
-    private static Object atan2 = new JSFunctionInterface() {
-        public Object execute(ArrayList<Object> arguments) {
-            return Math.atan2((double) arguments.get(0), (double) arguments.get(1));
+    private static Object atan2 = new PrimitiveFunction.Arity2() {
+        double call(double a, double b) {
+            return Math.atan2(a, b);
         }
     };
 
-    private static Object pow = new JSFunctionInterface() {
-        public Object execute(ArrayList<Object> arguments) {
-            return Math.pow((double) arguments.get(0), (double) arguments.get(1));
+    private static Object pow = new PrimitiveFunction.Arity2() {
+        double call(double a, double b) {
+            return Math.pow(a, b);
         }
     };
 
-    private static Object exp = new JSFunctionInterface() {
-        public Object execute(ArrayList<Object> arguments) {
-            return Math.exp((double) arguments.get(0));
+    private static Object exp = new PrimitiveFunction.Arity1() {
+        double call(double a) {
+            return Math.exp(a);
         }
     };
 
-    private static Object sqrt = new JSFunctionInterface() {
-        public Object execute(ArrayList<Object> arguments) {
-            return Math.sqrt((double) arguments.get(0));
+    private static Object sqrt = new PrimitiveFunction.Arity1() {
+        double call(double a) {
+            return Math.sqrt(a);
         }
     };
 
-    private static Object cbrt = new JSFunctionInterface() {
-        public Object execute(ArrayList<Object> arguments) {
-            return Math.cbrt((double) arguments.get(0));
+    private static Object cbrt = new PrimitiveFunction.Arity1() {
+        double call(double a) {
+            return Math.cbrt(a);
         }
     };
 
-    private static Object log = new JSFunctionInterface() {
-        public Object execute(ArrayList<Object> arguments) {
-            return Math.log((double) arguments.get(0));
+    private static Object log = new PrimitiveFunction.Arity1() {
+        double call(double a) {
+            return Math.log(a);
         }
     };
 
-    private static Object abs = new JSFunctionInterface() {
-        public Object execute(ArrayList<Object> arguments) {
-            return Math.abs((double) arguments.get(0));
+    private static Object abs = new PrimitiveFunction.Arity1() {
+        double call(double a) {
+            return Math.abs(a);
         }
     };
 
+    // returns an integer, so it stays on the list based path
     private static Object sign = new JSFunctionInterface() {
         public Object execute(ArrayList<Object> arguments) {
             double v = (double) arguments.get(0);
@@ -125,25 +123,31 @@ class JSMath {
         }
     };
 
-    private static Object ceil = new JSFunctionInterface() {
-        public Object execute(ArrayList<Object> arguments) {
-            return Math.ceil((double) arguments.get(0));
+    private static Object ceil = new PrimitiveFunction.Arity1() {
+        double call(double a) {
+            return Math.ceil(a);
         }
     };
 
-    private static Object floor = new JSFunctionInterface() {
-        public Object execute(ArrayList<Object> arguments) {
-            return Math.floor((double) arguments.get(0));
+    private static Object floor = new PrimitiveFunction.Arity1() {
+        double call(double a) {
+            return Math.floor(a);
         }
     };
 
+    // returns a long, so it stays on the list based path
     private static Object round = new JSFunctionInterface() {
         public Object execute(ArrayList<Object> arguments) {
             return Math.round((double) arguments.get(0));
         }
     };
 
-    private static Object max = new JSFunctionInterface() {
+    private static Object max = new PrimitiveFunction.Arity2() {
+        double call(double a, double b) {
+            return b > a ? b : a;
+        }
+
+        @Override
         public Object execute(ArrayList<Object> arguments) {
             if(arguments != null && arguments.size() >= 1) {
                 double max = (double) arguments.get(0);
@@ -159,7 +163,12 @@ class JSMath {
         }
     };
 
-    private static Object min = new JSFunctionInterface() {
+    private static Object min = new PrimitiveFunction.Arity2() {
+        double call(double a, double b) {
+            return b < a ? b : a;
+        }
+
+        @Override
         public Object execute(ArrayList<Object> arguments) {
             if(arguments != null && arguments.size() >= 1) {
                 double min = (double) arguments.get(0);
@@ -182,99 +191,83 @@ class JSMath {
 
     //transform
 
-    private static Object translate = new JSFunctionInterface() {
+    private static Object translate = new ValueFunction(2) {
         @Override
-        public Object execute(ArrayList<Object> arguments) throws NumberFormatException, JSONException {
-            if(arguments == null || arguments.size() < 2) {
-                return null;
-            }
-            return arguments;
+        boolean accepts(int argumentCount) {
+            return argumentCount == 2;
         }
-    };
 
-    private static Object scale = new JSFunctionInterface() {
         @Override
-        public Object execute(ArrayList<Object> arguments) throws NumberFormatException, JSONException {
-            if(arguments == null || arguments.size() < 2) {
-                return null;
-            }
-            return arguments;
+        TypedValue create(int argumentCount) {
+            return new TypedValue.Vec2();
         }
     };
 
+    private static Object scale = new ValueFunction(2) {
+        @Override
+        boolean accepts(int argumentCount) {
+            return argumentCount == 2;
+        }
 
-    private static Object matrix = new JSFunctionInterface() {
         @Override
-        public Object execute(ArrayList<Object> arguments) throws NumberFormatException, JSONException {
-            if(arguments == null || arguments.size() < 6) {
-                return null;
-            }
-            return arguments;
+        TypedValue create(int argumentCount) {
+            return new TypedValue.Vec2();
         }
     };
 
 
-    private static Object rgb = new JSFunctionInterface() {
+    private static Object matrix = new ValueFunction(6) {
         @Override
-        public Object execute(ArrayList<Object> arguments) throws NumberFormatException, JSONException {
-            if(arguments == null || arguments.size() < 3) {
-                return null;
-            }
-
-            double r = (double) arguments.get(0);
-            double g = (double) arguments.get(1);
-            double b = (double) arguments.get(2);
+        boolean accepts(int argumentCount) {
+            return argumentCount == 6 || argumentCount == 16;
+        }
 
-            return Color.rgb((int)r,(int)g,(int)b);
+        @Override
+        TypedValue create(int argumentCount) {
+            return argumentCount == 6 ? new TypedValue.Matrix(2, 3) : new TypedValue.Matrix(4, 4);
         }
     };
 
-    private static Object rgba = new JSFunctionInterface() {
+
+    private static Object rgb = new ColorFunction(3) {
         @Override
-        public Object execute(ArrayList<Object> arguments) throws NumberFormatException, JSONException {
-            if(arguments == null || arguments.size() < 4) {
-                return null;
-            }
-            /*rgb==0~255*/
-            double r = (double) arguments.get(0);
-            double g = (double) arguments.get(1);
-            double b = (double) arguments.get(2);
-            /*a=0~1*/
-            double a = ((double) arguments.get(3))*255;
-            return Color.argb((int)a,(int)r,(int)g,(int)b);
+        int color(double r, double g, double b, double unused) {
+            return Colors.argb(255, (int) r, (int) g, (int) b);
         }
     };
 
-    private static ArgbEvaluator sArgbEvaluator = new ArgbEvaluator();
+    private static Object rgba = new ColorFunction(4) {
+        /*rgb==0~255, a=0~1*/
+        @Override
+        int color(double r, double g, double b, double a) {
+            return Colors.argb((int) (a * 255), (int) r, (int) g, (int) b);
+        }
+    };
 
+    /**
+     * evaluateColor(from, to, fraction[, space]), see {@link Colors}. Calls with literal colors are
+     * bound to a {@link Colors.Interpolation} at compile time, others share the cached one of their colors.
+     * */
     private static Object evaluateColor = new JSFunctionInterface() {
         @Override
         public Object execute(ArrayList<Object> arguments) throws NumberFormatException, JSONException {
-            int fromColor = parseColor((String) arguments.get(0));
-            int toColor = parseColor((String) arguments.get(1));
+            int fromColor = Colors.parse((String) arguments.get(0));
+            int toColor = Colors.parse((String) arguments.get(1));
             double fraction = (double) arguments.get(2);
-            fraction = Math.min(1.0d,Math.max(0.0d,fraction));
-            return sArgbEvaluator.evaluate((float) fraction,fromColor,toColor);
+            int space = Colors.spaceOf(arguments.size() > 3 ? (String) arguments.get(3) : null);
+            return Colors.interpolation(fromColor, toColor, space).color(fraction, 0, 0, 0);
         }
     };
 
-    private static int parseColor(String str) {
-        if(TextUtils.isEmpty(str)) {
-            throw new IllegalArgumentException("Unknown color");
-        }
-        String colorStr = str;
-        if(str.startsWith("'") || str.startsWith("\"")) {
-            colorStr = colorStr.substring(1,colorStr.length()-1);
+    private static Object asArray = new ValueFunction(0) {
+        @Override
+        boolean accepts(int argumentCount) {
+            return argumentCount == 2 || argumentCount == 4;
         }
-        int color = Color.parseColor(colorStr);
-        color = Color.argb(255,Color.red(color),Color.green(color),Color.blue(color));
-        return color;
-    }
 
-    private static Object asArray = new JSFunctionInterface() {
         @Override
-        public Object execute(ArrayList<Object> arguments) throws NumberFormatException, JSONException {
-            return arguments;
+        TypedValue create(int argumentCount) {
+            return argumentCount == 2 ? new TypedValue.Vec2() : new TypedValue.Vec4();
         }
     };
 
@@ -321,6 +314,80 @@ class JSMath {
         scope.put("internal_y",y);
     }
 
+    /**
+     * same as {@link #applyXYToScope(Map, double, double, PlatformManager.IDeviceResolutionTranslator)}
+     * but writes raw doubles into the slots of the scope. Every event starts a new record of changed
+     * variables, see {@link Scope#beginEvent()}
+     * */
+    static void applyXYToScope(Scope scope, double x, double y, PlatformManager.IDeviceResolutionTranslator translator){
+        scope.beginEvent();
+        scope.setDouble(Scope.X, translator.nativeToWeb(x));
+        scope.setDouble(Scope.Y, translator.nativeToWeb(y));
+        scope.setDouble(Scope.INTERNAL_X, x);
+        scope.setDouble(Scope.INTERNAL_Y, y);
+    }
+
+    /**
+     * x and y of a pan binding with their velocity, vx and vy in web units per second
+     * */
+    static void applyPanValuesToScope(Scope scope, double x, double y, double vx, double vy,
+                                        PlatformManager.IDeviceResolutionTranslator translator) {
+        applyXYToScope(scope, x, y, translator);
+        scope.setDouble(Scope.VX, translator.nativeToWeb(vx));
+        scope.setDouble(Scope.VY, translator.nativeToWeb(vy));
+    }
+
+    /**
+     * values of pinch and rotation bindings, the rotation in degrees and the focus in web units
+     * */
+    static void applyMultiTouchValuesToScope(Scope scope, double scale, double rotation, double focusX, double focusY,
+                                             PlatformManager.IDeviceResolutionTranslator translator) {
+        scope.beginEvent();
+        scope.setDouble(Scope.SCALE, scale);
+        scope.setDouble(Scope.ROTATION, rotation);
+        scope.setDouble(Scope.FOCUS_X, translator.nativeToWeb(focusX));
+        scope.setDouble(Scope.FOCUS_Y, translator.nativeToWeb(focusY));
+    }
+
+    static void applyOrientationValuesToScope(Scope scope, double alpha, double beta, double gamma,
+                                              double startAlpha, double startBeta, double startGamma,
+                                              double x, double y, double z) {
+        scope.beginEvent();
+        scope.setDouble(Scope.ALPHA, alpha);
+        scope.setDouble(Scope.BETA, beta);
+        scope.setDouble(Scope.GAMMA, gamma);
+
+        scope.setDouble(Scope.DALPHA, alpha-startAlpha);
+        scope.setDouble(Scope.DBETA, beta-startBeta);
+        scope.setDouble(Scope.DGAMMA, gamma-startGamma);
+
+        scope.setDouble(Scope.X, x);
+        scope.setDouble(Scope.Y, y);
+        scope.setDouble(Scope.Z, z);
+    }
+
+    static void applyTimingValuesToScope(Scope scope, double t, int droppedFrames) {
+        scope.beginEvent();
+        scope.setDouble(Scope.T, t);
+        scope.setDouble(Scope.DROPPED_FRAMES, droppedFrames);
+    }
+
+    static void applyScrollValuesToScope(Scope scope, double x, double y
+                    , double dx, double dy, double tdx, double tdy, PlatformManager.IDeviceResolutionTranslator translator) {
+        scope.beginEvent();
+        scope.setDouble(Scope.X, translator.nativeToWeb(x));
+        scope.setDouble(Scope.Y, translator.nativeToWeb(y));
+
+        scope.setDouble(Scope.DX, translator.nativeToWeb(dx));
+        scope.setDouble(Scope.DY, translator.nativeToWeb(dy));
+
+        scope.setDouble(Scope.TDX, translator.nativeToWeb(tdx));
+        scope.setDouble(Scope.TDY, translator.nativeToWeb(tdy));
+
+        scope.setDouble(Scope.INTERNAL_X, x);
+        scope.setDouble(Scope.INTERNAL_Y, y);
+    }
+
     static void applyToScope(Map<String, Object> scope) {
         scope.put("sin", JSMath.sin);
         scope.put("cos", JSMath.cos);
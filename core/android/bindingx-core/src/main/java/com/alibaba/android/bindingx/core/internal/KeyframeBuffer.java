@@ -0,0 +1,366 @@
+/**
+ * Copyright 2018 Alibaba Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.android.bindingx.core.internal;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.alibaba.android.bindingx.core.LogProxy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Description:
+ *
+ * The values of a timing binding computed ahead at bind time, one sample per frame for the whole
+ * duration of the animation. Every expression which reads <code>t</code> and nothing else gets a
+ * {@link Track} and plays it back (see {@link Expression#withKeyframes(Track)}): a frame reads two
+ * samples and interpolates linearly between them instead of evaluating the expression. On a frame
+ * which lands on a sample the value is exactly the evaluated one. Times outside of the track are
+ * evaluated as before.
+ *
+ * All the buffers of the process share a memory budget ({@link #DEFAULT_BUDGET_BYTES} by default,
+ * see {@link #setBudget(long)}). A binding whose buffer does not fit is not baked. The memory is
+ * returned to the budget by {@link #release()} when the binding ends.
+ */
+
+final class KeyframeBuffer {
+
+    static final long DEFAULT_BUDGET_BYTES = 1024 * 1024;
+    // longer animations are not baked, also bounds the search of the end of the animation
+    static final double MAX_DURATION_MILLIS = 60000;
+
+    private static final int T_BIT = 1 << Scope.T;
+
+    private static long sBudgetBytes = DEFAULT_BUDGET_BYTES;
+    private static long sUsedBytes;
+
+    private final long mBytes;
+    private final int mTrackCount;
+    private boolean isReleased;
+
+    private KeyframeBuffer(long bytes, int trackCount) {
+        this.mBytes = bytes;
+        this.mTrackCount = trackCount;
+    }
+
+    /**
+     * @param bytes the memory all the buffers of the process may use together, 0 disables baking
+     * */
+    static synchronized void setBudget(long bytes) {
+        sBudgetBytes = Math.max(0, bytes);
+    }
+
+    static synchronized long usedBytes() {
+        return sUsedBytes;
+    }
+
+    private static synchronized boolean reserve(long bytes) {
+        if (sUsedBytes + bytes > sBudgetBytes) {
+            return false;
+        }
+        sUsedBytes += bytes;
+        return true;
+    }
+
+    private static synchronized void free(long bytes) {
+        sUsedBytes -= bytes;
+    }
+
+    /**
+     * @return the first time (a multiple of the frame interval) at which the exit expression is
+     * true, NaN if the exit expression reads anything but t or is not true within
+     * {@link #MAX_DURATION_MILLIS}
+     * */
+    static double durationOf(@Nullable Expression exit, double frameMillis) {
+        if (exit == null || exit.root == null || (exit.readMask & ~T_BIT) != 0 || !(frameMillis > 0)) {
+            return Double.NaN;
+        }
+        Scope scope = new Scope();
+        try {
+            for (int i = 0; i * frameMillis <= MAX_DURATION_MILLIS; i++) {
+                scope.setDouble(Scope.T, i * frameMillis);
+                if (exit.root.evaluateBoolean(scope)) {
+                    return i * frameMillis;
+                }
+            }
+        } catch (Exception e) {
+            LogProxy.e("[KeyframeBuffer] exit expression failed", e);
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * bakes every expression of the binding which reads t and nothing else and gives a number, a color
+     * or a {@link TypedValue}. The expressions of the holders are replaced with ones which play
+     * back their track.
+     *
+     * @param shared the shared sub expressions of the binding, they are invalidated for every sample
+     * @param durationMillis the time of the last frame of the animation
+     * @param frameMillis the time between two samples
+     * @return the buffer of the baked tracks, null if nothing was baked
+     * */
+    @Nullable
+    static KeyframeBuffer bake(@Nullable Map<String, List<ExpressionHolder>> holdersMap,
+                               @Nullable CommonSubexpressions shared, double durationMillis, double frameMillis) {
+        if (holdersMap == null || !(durationMillis >= 0) || durationMillis > MAX_DURATION_MILLIS || !(frameMillis > 0)) {
+            return null;
+        }
+        int frameCount = (int) Math.ceil(durationMillis / frameMillis) + 1;
+        List<ExpressionHolder> holders = new ArrayList<>();
+        List<Track> tracks = new ArrayList<>();
+        long bytes = 0;
+        for (List<ExpressionHolder> list : holdersMap.values()) {
+            for (ExpressionHolder holder : list) {
+                Track track = Track.of(holder.expression, frameCount, frameMillis);
+                if (track != null) {
+                    holders.add(holder);
+                    tracks.add(track);
+                    bytes += track.bytes();
+                }
+            }
+        }
+        if (tracks.isEmpty()) {
+            return null;
+        }
+        if (!reserve(bytes)) {
+            LogProxy.d(String.format(Locale.getDefault(), "[KeyframeBuffer] %d bytes exceed the budget, not baked", bytes));
+            return null;
+        }
+        for (Track track : tracks) {
+            track.allocate();
+        }
+
+        Scope scope = new Scope();
+        boolean[] failed = new boolean[tracks.size()];
+        for (int i = 0; i < frameCount; i++) {
+            if (shared != null) {
+                shared.invalidate();
+            }
+            scope.setDouble(Scope.T, i * frameMillis);
+            for (int j = 0; j < tracks.size(); j++) {
+                if (failed[j]) {
+                    continue;
+                }
+                try {
+                    tracks.get(j).record(i, holders.get(j).expression, scope);
+                } catch (Exception e) {
+                    // left to the evaluation at runtime, which reports the error
+                    failed[j] = true;
+                }
+            }
+        }
+
+        int baked = 0;
+        long failedBytes = 0;
+        for (int j = 0; j < tracks.size(); j++) {
+            if (failed[j]) {
+                failedBytes += tracks.get(j).bytes();
+                continue;
+            }
+            ExpressionHolder holder = holders.get(j);
+            holder.expression = holder.expression.withKeyframes(tracks.get(j));
+            baked++;
+        }
+        free(failedBytes);
+        if (baked == 0) {
+            return null;
+        }
+        if (LogProxy.sEnableLog) {
+            LogProxy.d(String.format(Locale.getDefault(), "[KeyframeBuffer] %d expressions baked, %d frames, %d bytes",
+                    baked, frameCount, bytes - failedBytes));
+        }
+        return new KeyframeBuffer(bytes - failedBytes, baked);
+    }
+
+    int trackCount() {
+        return mTrackCount;
+    }
+
+    long bytes() {
+        return mBytes;
+    }
+
+    /**
+     * returns the memory to the budget. The tracks may still be read until their expressions are
+     * cleared.
+     * */
+    synchronized void release() {
+        if (!isReleased) {
+            isReleased = true;
+            free(mBytes);
+        }
+    }
+
+    /**
+     * the samples of one expression, at <code>t = i * frameMillis</code>
+     * */
+    static final class Track {
+        private static final int NUMBER = 0;
+        private static final int COLOR = 1;
+        private static final int TYPED = 2;
+
+        private final int mKind;
+        // components per sample
+        private final int mStride;
+        private final int mFrameCount;
+        private final double mFrameMillis;
+        private final double mLastMillis;
+        // numbers and the components of typed values, allocated once the memory is reserved
+        private double[] mValues;
+        // packed ARGB, allocated once the memory is reserved
+        private int[] mColors;
+        private TypedValue mScratch;
+
+        private Track(int kind, int stride, int frameCount, double frameMillis) {
+            this.mKind = kind;
+            this.mStride = stride;
+            this.mFrameCount = frameCount;
+            this.mFrameMillis = frameMillis;
+            this.mLastMillis = (frameCount - 1) * frameMillis;
+        }
+
+        /**
+         * @return a track for the expression which holds no samples until {@link #allocate()},
+         * null if the expression can't be baked
+         * */
+        @Nullable
+        static Track of(@Nullable Expression expression, int frameCount, double frameMillis) {
+            // constant expressions are evaluated on the first frame only anyway, see Expression#mayChange(int)
+            if (expression == null || expression.root == null || expression.keyframes != null
+                    || expression.readMask != T_BIT) {
+                return null;
+            }
+            if (expression.isColor()) {
+                return new Track(COLOR, 1, frameCount, frameMillis);
+            }
+            if (expression.isTyped()) {
+                TypedValue value = expression.newValue();
+                Track track = new Track(TYPED, value.values.length, frameCount, frameMillis);
+                track.mScratch = value;
+                return track;
+            }
+            if (expression.root.type == ExpressionNode.TYPE_NUMBER) {
+                return new Track(NUMBER, 1, frameCount, frameMillis);
+            }
+            return null;
+        }
+
+        long bytes() {
+            return mKind == COLOR ? 4L * mFrameCount : 8L * mFrameCount * mStride;
+        }
+
+        /**
+         * creates the samples, {@link #bytes()} of them, once they fit the budget
+         * */
+        private void allocate() {
+            if (mKind == COLOR) {
+                mColors = new int[mFrameCount];
+            } else {
+                mValues = new double[mFrameCount * mStride];
+            }
+        }
+
+        boolean isAllocated() {
+            return mKind == COLOR ? mColors != null : mValues != null;
+        }
+
+        private void record(int frame, @NonNull Expression expression, @NonNull Scope scope) throws Exception {
+            switch (mKind) {
+                case COLOR:
+                    mColors[frame] = expression.executeColor(scope);
+                    break;
+                case TYPED:
+                    TypedValue value = expression.executeInto(scope, mScratch);
+                    System.arraycopy(value.values, 0, mValues, frame * mStride, mStride);
+                    break;
+                default:
+                    mValues[frame] = expression.root.evaluateDouble(scope);
+                    break;
+            }
+        }
+
+        /**
+         * @return the time of the scope if the track covers it, NaN otherwise
+         * */
+        double timeIn(@NonNull Map<String, Object> scope) {
+            if (!(scope instanceof Scope) || !((Scope) scope).isAssigned(Scope.T)) {
+                return Double.NaN;
+            }
+            double t = ((Scope) scope).getDouble(Scope.T);
+            return t >= 0 && t <= mLastMillis ? t : Double.NaN;
+        }
+
+        boolean isNumber() {
+            return mKind == NUMBER;
+        }
+
+        boolean isColor() {
+            return mKind == COLOR;
+        }
+
+        boolean isTyped() {
+            return mKind == TYPED;
+        }
+
+        double sampleDouble(double t) {
+            double position = t / mFrameMillis;
+            int frame = Math.min((int) position, mFrameCount - 1);
+            double fraction = position - frame;
+            double value = mValues[frame];
+            if (fraction <= 0 || frame == mFrameCount - 1) {
+                return value;
+            }
+            return value + (mValues[frame + 1] - value) * fraction;
+        }
+
+        int sampleColor(double t) {
+            double position = t / mFrameMillis;
+            int frame = Math.min((int) position, mFrameCount - 1);
+            double fraction = position - frame;
+            int from = mColors[frame];
+            if (fraction <= 0 || frame == mFrameCount - 1) {
+                return from;
+            }
+            int to = mColors[frame + 1];
+            int color = 0;
+            for (int shift = 0; shift < 32; shift += 8) {
+                int a = (from >>> shift) & 0xff;
+                int b = (to >>> shift) & 0xff;
+                color |= ((int) Math.round(a + (b - a) * fraction)) << shift;
+            }
+            return color;
+        }
+
+        void sampleInto(double t, @NonNull double[] out) {
+            double position = t / mFrameMillis;
+            int frame = Math.min((int) position, mFrameCount - 1);
+            double fraction = position - frame;
+            int offset = frame * mStride;
+            if (fraction <= 0 || frame == mFrameCount - 1) {
+                System.arraycopy(mValues, offset, out, 0, mStride);
+                return;
+            }
+            for (int i = 0; i < mStride; i++) {
+                double value = mValues[offset + i];
+                out[i] = value + (mValues[offset + mStride + i] - value) * fraction;
+            }
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/**
+ * Copyright 2018 Alibaba Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.android.bindingx.core.internal;
+
+import java.util.ArrayList;
+
+/**
+ * Description:
+ *
+ * A built-in function with a fixed number of numeric arguments. A compiled call with the
+ * matching number of arguments invokes {@link Arity1#call(double)} and friends directly with
+ * unboxed values (see {@link ExpressionNode.Call}), so no argument list is allocated and
+ * nothing is boxed.
+ *
+ * {@link #execute(ArrayList)} unboxes the list and delegates to the same method. It is
+ * only used when the function is called with another number of arguments or through a
+ * plain scope lookup, e.g. by user code.
+ */
+
+abstract class PrimitiveFunction implements JSFunctionInterface {
+
+    final int arity;
+
+    private PrimitiveFunction(int arity) {
+        this.arity = arity;
+    }
+
+    /**
+     * calls the function with the arguments <code>args[offset]</code> to
+     * <code>args[offset + arity - 1]</code>
+     * */
+    abstract double call(double[] args, int offset);
+
+    @Override
+    public Object execute(ArrayList<Object> arguments) {
+        double[] args = new double[arity];
+        for (int i = 0; i < arity; i++) {
+            args[i] = (double) arguments.get(i);
+        }
+        return call(args, 0);
+    }
+
+    abstract static class Arity1 extends PrimitiveFunction {
+        Arity1() {
+            super(1);
+        }
+
+        abstract double call(double a);
+
+        @Override
+        final double call(double[] args, int offset) {
+            return call(args[offset]);
+        }
+    }
+
+    abstract static class Arity2 extends PrimitiveFunction {
+        Arity2() {
+            super(2);
+        }
+
+        abstract double call(double a, double b);
+
+        @Override
+        final double call(double[] args, int offset) {
+            return call(args[offset], args[offset + 1]);
+        }
+    }
+
+    /**
+     * springs bound to their curve: (t, b, c)
+     * */
+    abstract static class Arity3 extends PrimitiveFunction {
+        Arity3() {
+            super(3);
+        }
+
+        abstract double call(double a, double b, double c);
+
+        @Override
+        final double call(double[] args, int offset) {
+            return call(args[offset], args[offset + 1], args[offset + 2]);
+        }
+    }
+
+    /**
+     * easing functions: (t, b, c, d)
+     * */
+    abstract static class Arity4 extends PrimitiveFunction {
+        Arity4() {
+            super(4);
+        }
+
+        abstract double call(double a, double b, double c, double d);
+
+        @Override
+        final double call(double[] args, int offset) {
+            return call(args[offset], args[offset + 1], args[offset + 2], args[offset + 3]);
+        }
+    }
+
+    /**
+     * spring: (t, b, c, stiffness, damping, mass, velocity)
+     * */
+    abstract static class Arity7 extends PrimitiveFunction {
+        Arity7() {
+            super(7);
+        }
+
+        abstract double call(double a, double b, double c, double d,
+                             double e, double f, double g);
+
+        @Override
+        final double call(double[] args, int offset) {
+            return call(args[offset], args[offset + 1], args[offset + 2], args[offset + 3],
+                    args[offset + 4], args[offset + 5], args[offset + 6]);
+        }
+    }
+
+    /**
+     * cubicBezier: (t, b, c, d, x1, y1, x2, y2)
+     * */
+    abstract static class Arity8 extends PrimitiveFunction {
+        Arity8() {
+            super(8);
+        }
+
+        abstract double call(double a, double b, double c, double d,
+                             double e, double f, double g, double h);
+
+        @Override
+        final double call(double[] args, int offset) {
+            return call(args[offset], args[offset + 1], args[offset + 2], args[offset + 3],
+                    args[offset + 4], args[offset + 5], args[offset + 6], args[offset + 7]);
+        }
+    }
+}
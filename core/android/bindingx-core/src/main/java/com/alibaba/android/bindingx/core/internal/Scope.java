@@ -0,0 +1,259 @@
+/**
+ * Copyright 2018 Alibaba Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.android.bindingx.core.internal;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Description:
+ *
+ * Variables of an event handler. The variables which are assigned on every event (x, y, t, alpha ...)
+ * live in a slot of a <code>double[]</code>, so an event handler writes raw doubles and the
+ * expressions read them by index ({@link ExpressionNode.Variable}) without hashing or boxing.
+ * Any other entry is kept in a plain map.
+ *
+ * Built-in functions and constants are never looked up here at all, they are resolved when
+ * the expression is compiled. see {@link #builtinOf(String)}
+ *
+ * Scope also records which variables have changed during the current event (see {@link #beginEvent()}),
+ * so that expressions which only read unchanged variables don't need to be evaluated again.
+ *
+ * Scope is still a Map, so it can be passed wherever a scope map was expected before.
+ */
+
+final class Scope extends AbstractMap<String, Object> {
+
+    static final int X = 0;
+    static final int Y = 1;
+    static final int DX = 2;
+    static final int DY = 3;
+    static final int TDX = 4;
+    static final int TDY = 5;
+    static final int INTERNAL_X = 6;
+    static final int INTERNAL_Y = 7;
+    static final int T = 8;
+    static final int ALPHA = 9;
+    static final int BETA = 10;
+    static final int GAMMA = 11;
+    static final int DALPHA = 12;
+    static final int DBETA = 13;
+    static final int DGAMMA = 14;
+    static final int Z = 15;
+    static final int DROPPED_FRAMES = 16;
+    static final int VX = 17;
+    static final int VY = 18;
+    static final int SCALE = 19;
+    static final int ROTATION = 20;
+    static final int FOCUS_X = 21;
+    static final int FOCUS_Y = 22;
+
+    // set during the first event after the scope was created or cleared, every expression reads it
+    // (see Expression#mayChange(int)) so that constant expressions are evaluated once
+    static final int FRESH = 1 << 30;
+    // any entry which does not live in a slot
+    static final int OTHERS = 1 << 31;
+    static final int ALL_SLOTS = 0xffffffff;
+
+    private static final String[] NAMES = {
+            "x", "y", "dx", "dy", "tdx", "tdy", "internal_x", "internal_y", "t",
+            "alpha", "beta", "gamma", "dalpha", "dbeta", "dgamma", "z",
+            "droppedFrames", "vx", "vy", "scale", "rotation", "focusX", "focusY"
+    };
+
+    private static final Map<String, Integer> sSlots = new HashMap<>();
+    private static final Map<String, Object> sBuiltins = new HashMap<>();
+
+    static {
+        for (int i = 0; i < NAMES.length; i++) {
+            sSlots.put(NAMES[i], i);
+        }
+        JSMath.applyToScope(sBuiltins);
+        TimingFunctions.applyToScope(sBuiltins);
+    }
+
+    private final double[] mValues = new double[NAMES.length];
+    // bit i is set if slot i holds a value
+    private int mAssigned;
+    private final Map<String, Object> mOthers = new HashMap<>();
+
+    // bit i is set if slot i has changed during the current event
+    private int mChanged;
+    // nothing has been evaluated against this scope since it was created or cleared
+    private boolean mFresh = true;
+
+    /**
+     * @return the slot of the variable or -1 if the variable has no slot
+     * */
+    static int slotOf(@Nullable String name) {
+        Integer slot = sSlots.get(name);
+        return slot == null ? -1 : slot;
+    }
+
+    @NonNull
+    static String nameOf(int slot) {
+        return NAMES[slot];
+    }
+
+    /**
+     * @return the built-in function or constant (see {@link JSMath} and {@link TimingFunctions})
+     * or null if there is no built-in with that name
+     * */
+    @Nullable
+    static Object builtinOf(@Nullable String name) {
+        return sBuiltins.get(name);
+    }
+
+    static boolean isBuiltin(@Nullable Object value) {
+        return value != null && sBuiltins.containsValue(value);
+    }
+
+    /**
+     * start recording the changes of a new event. During the first event after the scope was
+     * created or cleared, every variable counts as changed and {@link #FRESH} is set.
+     * */
+    void beginEvent() {
+        mChanged = mFresh ? ALL_SLOTS : 0;
+        mFresh = false;
+    }
+
+    /**
+     * @return the slots which have changed during the current event, {@link #OTHERS} is set if
+     * any entry without a slot has been changed
+     * */
+    int changedSlots() {
+        return mChanged;
+    }
+
+    void setDouble(int slot, double value) {
+        int bit = 1 << slot;
+        if ((mAssigned & bit) == 0) {
+            if (!mOthers.isEmpty()) {
+                mOthers.remove(NAMES[slot]);
+            }
+            mChanged |= bit;
+        } else if (Double.doubleToRawLongBits(mValues[slot]) != Double.doubleToRawLongBits(value)) {
+            mChanged |= bit;
+        }
+        mValues[slot] = value;
+        mAssigned |= bit;
+    }
+
+    boolean isAssigned(int slot) {
+        return (mAssigned & (1 << slot)) != 0;
+    }
+
+    /**
+     * @return the raw value of the slot. Only valid if {@link #isAssigned(int)}
+     * */
+    double getDouble(int slot) {
+        return mValues[slot];
+    }
+
+    /**
+     * @return the value of the slot or null if it is not assigned
+     * */
+    @Nullable
+    Object get(int slot) {
+        if ((mAssigned & (1 << slot)) != 0) {
+            return mValues[slot];
+        }
+        return mOthers.isEmpty() ? null : mOthers.get(NAMES[slot]);
+    }
+
+    @Override
+    public Object get(Object key) {
+        int slot = key instanceof String ? slotOf((String) key) : -1;
+        if (slot >= 0) {
+            return get(slot);
+        }
+        return mOthers.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        int slot = key instanceof String ? slotOf((String) key) : -1;
+        return (slot >= 0 && isAssigned(slot)) || mOthers.containsKey(key);
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        int slot = slotOf(key);
+        if (slot < 0) {
+            mChanged |= OTHERS;
+            return mOthers.put(key, value);
+        }
+        Object previous = get(slot);
+        if (value instanceof Double) {
+            setDouble(slot, (double) value);
+        } else {
+            mAssigned &= ~(1 << slot);
+            mChanged |= 1 << slot;
+            mOthers.put(key, value);
+        }
+        return previous;
+    }
+
+    @Override
+    public Object remove(Object key) {
+        int slot = key instanceof String ? slotOf((String) key) : -1;
+        if (slot >= 0 && isAssigned(slot)) {
+            Object previous = mValues[slot];
+            mAssigned &= ~(1 << slot);
+            mChanged |= 1 << slot;
+            return previous;
+        }
+        if (slot >= 0) {
+            mChanged |= 1 << slot;
+        } else {
+            mChanged |= OTHERS;
+        }
+        return mOthers.remove(key);
+    }
+
+    @Override
+    public int size() {
+        return Integer.bitCount(mAssigned) + mOthers.size();
+    }
+
+    @Override
+    public void clear() {
+        mAssigned = 0;
+        mOthers.clear();
+        mFresh = true;
+    }
+
+    /**
+     * @return an unmodifiable snapshot of all entries
+     * */
+    @NonNull
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        Map<String, Object> snapshot = new HashMap<>(mOthers);
+        for (int i = 0; i < NAMES.length; i++) {
+            if (isAssigned(i)) {
+                snapshot.put(NAMES[i], mValues[i]);
+            }
+        }
+        return Collections.unmodifiableMap(snapshot).entrySet();
+    }
+}
@@ -0,0 +1,283 @@
+/**
+ * Copyright 2018 Alibaba Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.android.bindingx.core.internal;
+
+import android.support.annotation.NonNull;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Description:
+ *
+ * A damped spring m*x'' + d*x' + k*x = 0 which pulls the progress from 0 to 1, evaluated in closed
+ * form for the under damped, critically damped and over damped case. Nothing is integrated, so the
+ * value at a time does not depend on the frames before it.
+ *
+ * The time the spring needs to come to rest is computed when the curve is created (see
+ * {@link #settleMillis()}). From then on the curve gives exactly its end value. A curve is also a
+ * function (t, b, c) with t in milliseconds, so a call of <code>spring</code> with constant spring
+ * parameters is bound to its curve at compile time (see {@link ExpressionOptimizer}), and the timing
+ * handler can exit by itself once all the springs of a binding are at rest.
+ */
+
+final class SpringCurve extends PrimitiveFunction.Arity3 {
+
+    static final int MAX_CACHED_CURVES = 64;
+
+    // the spring is at rest once it stays closer than this to the end, in progress (0..1)
+    static final double REST_DISPLACEMENT = 1e-3;
+
+    // a damping ratio this close to 1 is solved as critically damped, where the other solutions cancel out
+    private static final double CRITICAL_TOLERANCE = 1e-9;
+    private static final int MAX_BISECTIONS = 64;
+
+    private static final int UNDER_DAMPED = 0;
+    private static final int CRITICALLY_DAMPED = 1;
+    private static final int OVER_DAMPED = 2;
+
+    private static final Map<Key, SpringCurve> sCache = new LinkedHashMap<Key, SpringCurve>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, SpringCurve> eldest) {
+            return size() > MAX_CACHED_CURVES;
+        }
+    };
+
+    final double stiffness;
+    final double damping;
+    final double mass;
+    final double velocity;
+
+    private final int mCase;
+    // the solution of the displacement from the end, see #displacement(double)
+    private final double r1;
+    private final double r2;
+    private final double c1;
+    private final double c2;
+    // of the under damped case
+    private final double mDampedFrequency;
+
+    private final double mSettleMillis;
+
+    private SpringCurve(double stiffness, double damping, double mass, double velocity) {
+        this.stiffness = stiffness;
+        this.damping = damping;
+        this.mass = mass;
+        this.velocity = velocity;
+
+        double omega = Math.sqrt(stiffness / mass);
+        double zeta = damping / (2 * Math.sqrt(stiffness * mass));
+        // starts at 0, one below the end
+        double x0 = -1;
+        double v0 = velocity;
+        if (Math.abs(zeta - 1) < CRITICAL_TOLERANCE) {
+            // x = e^(-omega*s) * (c1 + c2*s)
+            mCase = CRITICALLY_DAMPED;
+            r1 = -omega;
+            r2 = r1;
+            c1 = x0;
+            c2 = v0 + omega * x0;
+            mDampedFrequency = 0;
+        } else if (zeta < 1) {
+            // x = e^(-zeta*omega*s) * (c1*cos(wd*s) + c2*sin(wd*s))
+            mCase = UNDER_DAMPED;
+            mDampedFrequency = omega * Math.sqrt(1 - zeta * zeta);
+            r1 = -zeta * omega;
+            r2 = r1;
+            c1 = x0;
+            c2 = (v0 + zeta * omega * x0) / mDampedFrequency;
+        } else {
+            // x = c1*e^(r1*s) + c2*e^(r2*s)
+            mCase = OVER_DAMPED;
+            double root = omega * Math.sqrt(zeta * zeta - 1);
+            r1 = -zeta * omega + root;
+            r2 = -zeta * omega - root;
+            c1 = (v0 - r2 * x0) / (r1 - r2);
+            c2 = x0 - c1;
+            mDampedFrequency = 0;
+        }
+        mSettleMillis = solveSettleSeconds() * 1000;
+    }
+
+    /**
+     * @param stiffness k, greater than 0
+     * @param damping d, 0 never comes to rest
+     * @param mass m, greater than 0
+     * @param velocity the initial velocity towards the end, in progress per second: 1 would cover the
+     *                 whole change in one second
+     * @return the shared curve of the parameters
+     * @throws IllegalArgumentException if the spring has no solution
+     * */
+    @NonNull
+    static SpringCurve obtain(double stiffness, double damping, double mass, double velocity) {
+        if (!(stiffness > 0) || !(mass > 0) || !(damping >= 0) || Double.isInfinite(stiffness)
+                || Double.isInfinite(damping) || Double.isInfinite(mass) || Double.isNaN(velocity) || Double.isInfinite(velocity)) {
+            throw new IllegalArgumentException("illegal spring (stiffness:" + stiffness + ",damping:" + damping
+                    + ",mass:" + mass + ",velocity:" + velocity + ")");
+        }
+        Key key = new Key(stiffness, damping, mass, velocity);
+        synchronized (sCache) {
+            SpringCurve curve = sCache.get(key);
+            if (curve == null) {
+                curve = new SpringCurve(stiffness, damping, mass, velocity);
+                sCache.put(key, curve);
+            }
+            return curve;
+        }
+    }
+
+    static int cachedCurveCount() {
+        synchronized (sCache) {
+            return sCache.size();
+        }
+    }
+
+    /**
+     * @return the time in milliseconds after which the curve is at its end value, infinite if the
+     * spring is not damped
+     * */
+    double settleMillis() {
+        return mSettleMillis;
+    }
+
+    /**
+     * same as <code>spring(t, b, c, stiffness, damping, mass, velocity)</code>
+     *
+     * @param t milliseconds since the start
+     * @param b the start value
+     * @param c the change of the value
+     * */
+    @Override
+    double call(double t, double b, double c) {
+        if (t <= 0) {
+            return b;
+        }
+        if (t >= mSettleMillis) {
+            return b + c;
+        }
+        return b + c * progress(t / 1000);
+    }
+
+    /**
+     * @param s seconds since the start
+     * @return the progress, 0 at the start and 1 at rest. It overshoots 1 unless the spring is
+     * damped enough.
+     * */
+    double progress(double s) {
+        return 1 + displacement(s);
+    }
+
+    private double displacement(double s) {
+        switch (mCase) {
+            case UNDER_DAMPED:
+                double phase = mDampedFrequency * s;
+                return Math.exp(r1 * s) * (c1 * Math.cos(phase) + c2 * Math.sin(phase));
+            case CRITICALLY_DAMPED:
+                return Math.exp(r1 * s) * (c1 + c2 * s);
+            default:
+                return c1 * Math.exp(r1 * s) + c2 * Math.exp(r2 * s);
+        }
+    }
+
+    /**
+     * an upper bound of the distance from the end at s
+     * */
+    private double envelope(double s) {
+        switch (mCase) {
+            case UNDER_DAMPED:
+                return Math.exp(r1 * s) * Math.hypot(c1, c2);
+            case CRITICALLY_DAMPED:
+                return Math.exp(r1 * s) * (Math.abs(c1) + Math.abs(c2) * s);
+            default:
+                return Math.abs(c1) * Math.exp(r1 * s) + Math.abs(c2) * Math.exp(r2 * s);
+        }
+    }
+
+    /**
+     * @return the time in seconds from which the envelope stays below the rest displacement
+     * */
+    private double solveSettleSeconds() {
+        if (mCase == UNDER_DAMPED) {
+            if (r1 == 0) {
+                return Double.POSITIVE_INFINITY;
+            }
+            double amplitude = Math.hypot(c1, c2);
+            return amplitude <= REST_DISPLACEMENT ? 0 : Math.log(amplitude / REST_DISPLACEMENT) / -r1;
+        }
+        // the envelopes of the other cases only rise before their peak (the critically damped one)
+        // and fall from then on, search the crossing on the falling side
+        double low = 0;
+        if (mCase == CRITICALLY_DAMPED && c2 != 0) {
+            low = Math.max(0, 1 / -r1 - Math.abs(c1) / Math.abs(c2));
+        }
+        if (envelope(low) <= REST_DISPLACEMENT) {
+            return low;
+        }
+        // the slowest decay dominates in the end
+        double step = 1 / -r1;
+        double high = low + step;
+        while (envelope(high) > REST_DISPLACEMENT) {
+            low = high;
+            step *= 2;
+            high += step;
+        }
+        for (int i = 0; i < MAX_BISECTIONS; i++) {
+            double middle = (low + high) / 2;
+            if (envelope(middle) > REST_DISPLACEMENT) {
+                low = middle;
+            } else {
+                high = middle;
+            }
+        }
+        return high;
+    }
+
+    private static final class Key {
+        final double stiffness;
+        final double damping;
+        final double mass;
+        final double velocity;
+
+        Key(double stiffness, double damping, double mass, double velocity) {
+            this.stiffness = stiffness;
+            this.damping = damping;
+            this.mass = mass;
+            this.velocity = velocity;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return Double.compare(key.stiffness, stiffness) == 0 && Double.compare(key.damping, damping) == 0
+                    && Double.compare(key.mass, mass) == 0 && Double.compare(key.velocity, velocity) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            long bits = Double.doubleToLongBits(stiffness);
+            bits = 31 * bits + Double.doubleToLongBits(damping);
+            bits = 31 * bits + Double.doubleToLongBits(mass);
+            bits = 31 * bits + Double.doubleToLongBits(velocity);
+            return (int) (bits ^ (bits >>> 32));
+        }
+    }
+}
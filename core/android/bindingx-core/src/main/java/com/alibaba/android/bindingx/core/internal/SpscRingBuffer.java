@@ -0,0 +1,116 @@
+/**
+ * Copyright 2018 Alibaba Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.android.bindingx.core.internal;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Description:
+ *
+ * A bounded lock free queue for exactly one producer thread and one consumer thread. The producer
+ * only writes the tail and the consumer only writes the head, so neither ever waits for the other;
+ * the writes of the indexes publish the elements. The tail is a volatile write, so a consumer which
+ * announces that it is going to sleep before it checks the tail is never missed by the producer.
+ *
+ * Using it from a second producer or consumer thread corrupts it.
+ */
+
+public final class SpscRingBuffer<E> {
+
+    private final AtomicReferenceArray<E> mElements;
+    private final int mMask;
+
+    // next index to read, written by the consumer only
+    private final AtomicLong mHead = new AtomicLong();
+    // next index to write, written by the producer only
+    private final AtomicLong mTail = new AtomicLong();
+
+    // the producer's view of the head, read again only if the buffer looks full
+    private long mCachedHead;
+
+    /**
+     * @param capacity rounded up to a power of two
+     * */
+    public SpscRingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("illegal capacity: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        mElements = new AtomicReferenceArray<>(size);
+        mMask = size - 1;
+    }
+
+    /**
+     * producer only
+     *
+     * @return false if the buffer is full
+     * */
+    public boolean offer(@NonNull E element) {
+        long tail = mTail.get();
+        if (tail - mCachedHead > mMask) {
+            mCachedHead = mHead.get();
+            if (tail - mCachedHead > mMask) {
+                return false;
+            }
+        }
+        mElements.lazySet((int) tail & mMask, element);
+        // publishes the element, and is ordered before the loads which follow it
+        mTail.set(tail + 1);
+        return true;
+    }
+
+    /**
+     * consumer only
+     *
+     * @return the oldest element, null if the buffer is empty
+     * */
+    @Nullable
+    public E poll() {
+        long head = mHead.get();
+        if (head >= mTail.get()) {
+            return null;
+        }
+        int index = (int) head & mMask;
+        E element = mElements.get(index);
+        mElements.lazySet(index, null);
+        // frees the slot for the producer
+        mHead.lazySet(head + 1);
+        return element;
+    }
+
+    /**
+     * @return the number of elements, exact on the producer and the consumer thread only while
+     * the other one does nothing
+     * */
+    public int size() {
+        return (int) (mTail.get() - mHead.get());
+    }
+
+    public boolean isEmpty() {
+        return mHead.get() >= mTail.get();
+    }
+
+    public int capacity() {
+        return mMask + 1;
+    }
+}
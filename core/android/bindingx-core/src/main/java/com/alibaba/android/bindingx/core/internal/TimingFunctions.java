@@ -15,15 +15,6 @@
  */
 package com.alibaba.android.bindingx.core.internal;
 
-import android.support.annotation.Nullable;
-import android.support.v4.view.animation.PathInterpolatorCompat;
-import android.view.animation.Interpolator;
-
-import org.json.JSONException;
-
-import java.util.ArrayDeque;
-import java.util.ArrayList;
-import java.util.Deque;
 import java.util.Map;
 
 
@@ -73,17 +64,14 @@ class TimingFunctions {
         scope.put("easeInOutBounce", easeInOutBounce);
 
         scope.put("cubicBezier", cubicBezier);
+        scope.put("spring", spring);
     }
 
     // t: current time, b: begInnIng value, c: change In value, d: duration
 
-    private static Object linear = new JSFunctionInterface() {
+    private static Object linear = new PrimitiveFunction.Arity4() {
         @Override
-        public Object execute(ArrayList<Object> arguments) throws NumberFormatException, JSONException {
-            double t = (double) arguments.get(0);
-            double b = (double) arguments.get(1);
-            double c = (double) arguments.get(2);
-            double d = (double) arguments.get(3);
+        double call(double t, double b, double c, double d) {
 
             t = Math.min(t,d);
 
@@ -91,87 +79,46 @@ class TimingFunctions {
         }
     };
 
-    private static Object cubicBezier = new JSFunctionInterface() {
+    private static Object cubicBezier = new PrimitiveFunction.Arity8() {
         @Override
-        public Object execute(ArrayList<Object> arguments) throws NumberFormatException, JSONException {
-            double t = (double) arguments.get(0);
-            double b = (double) arguments.get(1);
-            double c = (double) arguments.get(2);
-            double d = (double) arguments.get(3);
-
-            double x1 = (double) arguments.get(4);
-            double y1 = (double) arguments.get(5);
-            double x2 = (double) arguments.get(6);
-            double y2 = (double) arguments.get(7);
-
-            t = Math.min(t,d);
-
-            if(t == d) {
-                return b+c;
-            }
-
-            // 避免短时间创建大量临时对象
-            BezierInterpolatorWrapper bezierInterpolator = isCacheHit((float) x1,(float) y1,(float) x2,(float) y2);
-            if(bezierInterpolator == null) {
-                bezierInterpolator = new BezierInterpolatorWrapper((float) x1,(float) y1,(float) x2,(float) y2);
-                cache.add(bezierInterpolator);
-            }
-
-            float input = (float) (t / d);
-            return c * bezierInterpolator.getInterpolation(input) + b;
-
+        double call(double t, double b, double c, double d,
+                    double x1, double y1, double x2, double y2) {
+            // bound to the curve at compile time if the control points are constant, see ExpressionOptimizer
+            return UnitBezier.obtain(x1, y1, x2, y2).call(t, b, c, d);
         }
     };
 
-    private static final InnerCache<BezierInterpolatorWrapper> cache = new InnerCache<>(4);
+    // t: current time, b: begInnIng value, c: change In value, k: stiffness, z: damping, m: mass, v: initial velocity
 
-    @Nullable
-    private static BezierInterpolatorWrapper isCacheHit(float x1, float y1, float x2, float y2) {
-        Deque<BezierInterpolatorWrapper> deque = cache.getAll();
-        for(BezierInterpolatorWrapper bezier : deque) {
-            if(Float.compare(bezier.x1,x1)==0 && Float.compare(bezier.x2,x2) ==0
-                    && Float.compare(bezier.y1, y1)==0 && Float.compare(bezier.y2,y2)==0) {
-                return bezier;
-            }
+    private static Object spring = new PrimitiveFunction.Arity7() {
+        @Override
+        double call(double t, double b, double c, double k, double z, double m, double v) {
+            // bound to the curve at compile time if the spring is constant, see ExpressionOptimizer
+            return SpringCurve.obtain(k, z, m, v).call(t, b, c);
         }
+    };
 
-        return null;
-    }
-
-
-    private static Object easeInQuad = new JSFunctionInterface() {
+    private static Object easeInQuad = new PrimitiveFunction.Arity4() {
         @Override
-        public Object execute(ArrayList<Object> arguments) throws NumberFormatException, JSONException {
-            double t = (double) arguments.get(0);
-            double b = (double) arguments.get(1);
-            double c = (double) arguments.get(2);
-            double d = (double) arguments.get(3);
+        double call(double t, double b, double c, double d) {
             t = Math.min(t,d);
 
             return c*(t/=d)*t + b;
         }
     };
 
-    private static Object easeOutQuad = new JSFunctionInterface() {
+    private static Object easeOutQuad = new PrimitiveFunction.Arity4() {
         @Override
-        public Object execute(ArrayList<Object> arguments) throws NumberFormatException, JSONException {
-            double t = (double) arguments.get(0);
-            double b = (double) arguments.get(1);
-            double c = (double) arguments.get(2);
-            double d = (double) arguments.get(3);
+        double call(double t, double b, double c, double d) {
             t = Math.min(t,d);
 
             return -c *(t/=d)*(t-2) + b;
         }
     };
 
-    private static Object easeInOutQuad = new JSFunctionInterface() {
+    private static Object easeInOutQuad = new PrimitiveFunction.Arity4() {
         @Override
-        public Object execute(ArrayList<Object> arguments) throws NumberFormatException, JSONException {
-            double t = (double) arguments.get(0);
-            double b = (double) arguments.get(1);
-            double c = (double) arguments.get(2);
-            double d = (double) arguments.get(3);
+        double call(double t, double b, double c, double d) {
             t = Math.min(t,d);
 
             if ((t/=d/2) < 1) {
@@ -181,39 +128,27 @@ class TimingFunctions {
         }
     };
 
-    private static Object easeInCubic = new JSFunctionInterface() {
+    private static Object easeInCubic = new PrimitiveFunction.Arity4() {
         @Override
-        public Object execute(ArrayList<Object> arguments) throws NumberFormatException, JSONException {
-            double t = (double) arguments.get(0);
-            double b = (double) arguments.get(1);
-            double c = (double) arguments.get(2);
-            double d = (double) arguments.get(3);
+        double call(double t, double b, double c, double d) {
             t = Math.min(t,d);
 
             return c*(t/=d)*t*t + b;
         }
     };
 
-    private static Object easeOutCubic = new JSFunctionInterface() {
+    private static Object easeOutCubic = new PrimitiveFunction.Arity4() {
         @Override
-        public Object execute(ArrayList<Object> arguments) throws NumberFormatException, JSONException {
-            double t = (double) arguments.get(0);
-            double b = (double) arguments.get(1);
-            double c = (double) arguments.get(2);
-            double d = (double) arguments.get(3);
+        double call(double t, double b, double c, double d) {
             t = Math.min(t,d);
 
             return c*((t=t/d-1)*t*t + 1) + b;
         }
     };
 
-    private static Object easeInOutCubic = new JSFunctionInterface() {
+    private static Object easeInOutCubic = new PrimitiveFunction.Arity4() {
         @Override
-        public Object execute(ArrayList<Object> arguments) throws NumberFormatException, JSONException {
-            double t = (double) arguments.get(0);
-            double b = (double) arguments.get(1);
-            double c = (double) arguments.get(2);
-            double d = (double) arguments.get(3);
+        double call(double t, double b, double c, double d) {
             t = Math.min(t,d);
 
             if ((t/=d/2) < 1) {
@@ -223,39 +158,27 @@ class TimingFunctions {
         }
     };
 
-    private static Object easeInQuart = new JSFunctionInterface() {
+    private static Object easeInQuart = new PrimitiveFunction.Arity4() {
         @Override
-        public Object execute(ArrayList<Object> arguments) throws NumberFormatException, JSONException {
-            double t = (double) arguments.get(0);
-            double b = (double) arguments.get(1);
-            double c = (double) arguments.get(2);
-            double d = (double) arguments.get(3);
+        double call(double t, double b, double c, double d) {
             t = Math.min(t,d);
 
             return c*(t/=d)*t*t*t + b;
         }
     };
 
-    private static Object easeOutQuart = new JSFunctionInterface() {
+    private static Object easeOutQuart = new PrimitiveFunction.Arity4() {
         @Override
-        public Object execute(ArrayList<Object> arguments) throws NumberFormatException, JSONException {
-            double t = (double) arguments.get(0);
-            double b = (double) arguments.get(1);
-            double c = (double) arguments.get(2);
-            double d = (double) arguments.get(3);
+        double call(double t, double b, double c, double d) {
             t = Math.min(t,d);
 
             return -c * ((t=t/d-1)*t*t*t - 1) + b;
         }
     };
 
-    private static Object easeInOutQuart = new JSFunctionInterface() {
+    private static Object easeInOutQuart = new PrimitiveFunction.Arity4() {
         @Override
-        public Object execute(ArrayList<Object> arguments) throws NumberFormatException, JSONException {
-            double t = (double) arguments.get(0);
-            double b = (double) arguments.get(1);
-            double c = (double) arguments.get(2);
-            double d = (double) arguments.get(3);
+        double call(double t, double b, double c, double d) {
             t = Math.min(t,d);
 
             if ((t/=d/2) < 1) {
@@ -265,39 +188,27 @@ class TimingFunctions {
         }
     };
 
-    private static Object easeInQuint = new JSFunctionInterface() {
+    private static Object easeInQuint = new PrimitiveFunction.Arity4() {
         @Override
-        public Object execute(ArrayList<Object> arguments) throws NumberFormatException, JSONException {
-            double t = (double) arguments.get(0);
-            double b = (double) arguments.get(1);
-            double c = (double) arguments.get(2);
-            double d = (double) arguments.get(3);
+        double call(double t, double b, double c, double d) {
             t = Math.min(t,d);
 
             return c*(t/=d)*t*t*t*t + b;
         }
     };
 
-    private static Object easeOutQuint = new JSFunctionInterface() {
+    private static Object easeOutQuint = new PrimitiveFunction.Arity4() {
         @Override
-        public Object execute(ArrayList<Object> arguments) throws NumberFormatException, JSONException {
-            double t = (double) arguments.get(0);
-            double b = (double) arguments.get(1);
-            double c = (double) arguments.get(2);
-            double d = (double) arguments.get(3);
+        double call(double t, double b, double c, double d) {
             t = Math.min(t,d);
 
             return c*((t=t/d-1)*t*t*t*t + 1) + b;
         }
     };
 
-    private static Object easeInOutQuint = new JSFunctionInterface() {
+    private static Object easeInOutQuint = new PrimitiveFunction.Arity4() {
         @Override
-        public Object execute(ArrayList<Object> arguments) throws NumberFormatException, JSONException {
-            double t = (double) arguments.get(0);
-            double b = (double) arguments.get(1);
-            double c = (double) arguments.get(2);
-            double d = (double) arguments.get(3);
+        double call(double t, double b, double c, double d) {
             t = Math.min(t,d);
 
             if ((t/=d/2) < 1) {
@@ -307,78 +218,54 @@ class TimingFunctions {
         }
     };
 
-    private static Object easeInSine = new JSFunctionInterface() {
+    private static Object easeInSine = new PrimitiveFunction.Arity4() {
         @Override
-        public Object execute(ArrayList<Object> arguments) throws NumberFormatException, JSONException {
-            double t = (double) arguments.get(0);
-            double b = (double) arguments.get(1);
-            double c = (double) arguments.get(2);
-            double d = (double) arguments.get(3);
+        double call(double t, double b, double c, double d) {
             t = Math.min(t,d);
 
             return -c * Math.cos(t/d * (Math.PI/2)) + c + b;
         }
     };
 
-    private static Object easeOutSine = new JSFunctionInterface() {
+    private static Object easeOutSine = new PrimitiveFunction.Arity4() {
         @Override
-        public Object execute(ArrayList<Object> arguments) throws NumberFormatException, JSONException {
-            double t = (double) arguments.get(0);
-            double b = (double) arguments.get(1);
-            double c = (double) arguments.get(2);
-            double d = (double) arguments.get(3);
+        double call(double t, double b, double c, double d) {
             t = Math.min(t,d);
 
             return c * Math.sin(t/d * (Math.PI/2)) + b;
         }
     };
 
-    private static Object easeInOutSine = new JSFunctionInterface() {
+    private static Object easeInOutSine = new PrimitiveFunction.Arity4() {
         @Override
-        public Object execute(ArrayList<Object> arguments) throws NumberFormatException, JSONException {
-            double t = (double) arguments.get(0);
-            double b = (double) arguments.get(1);
-            double c = (double) arguments.get(2);
-            double d = (double) arguments.get(3);
+        double call(double t, double b, double c, double d) {
             t = Math.min(t,d);
 
             return -c/2 * (Math.cos(Math.PI*t/d) - 1) + b;
         }
     };
 
-    private static Object easeInExpo = new JSFunctionInterface() {
+    private static Object easeInExpo = new PrimitiveFunction.Arity4() {
         @Override
-        public Object execute(ArrayList<Object> arguments) throws NumberFormatException, JSONException {
-            double t = (double) arguments.get(0);
-            double b = (double) arguments.get(1);
-            double c = (double) arguments.get(2);
-            double d = (double) arguments.get(3);
+        double call(double t, double b, double c, double d) {
             t = Math.min(t,d);
 
             return (t==0) ? b : c * Math.pow(2, 10 * (t/d - 1)) + b;
         }
     };
 
-    private static Object easeOutExpo = new JSFunctionInterface() {
+    private static Object easeOutExpo = new PrimitiveFunction.Arity4() {
         @Override
-        public Object execute(ArrayList<Object> arguments) throws NumberFormatException, JSONException {
-            double t = (double) arguments.get(0);
-            double b = (double) arguments.get(1);
-            double c = (double) arguments.get(2);
-            double d = (double) arguments.get(3);
+        double call(double t, double b, double c, double d) {
             t = Math.min(t,d);
 
             return (t==d) ? b+c : c * (-Math.pow(2, -10 * t/d) + 1) + b;
         }
     };
 
-    private static Object easeInOutExpo = new JSFunctionInterface() {
+    private static Object easeInOutExpo = new PrimitiveFunction.Arity4() {
         @Override
-        public Object execute(ArrayList<Object> arguments) throws NumberFormatException, JSONException {
-            double t = (double) arguments.get(0);
-            double b = (double) arguments.get(1);
-            double c = (double) arguments.get(2);
-            double d = (double) arguments.get(3);
+        double call(double t, double b, double c, double d) {
             t = Math.min(t,d);
 
             if (t==0) {
@@ -394,39 +281,27 @@ class TimingFunctions {
         }
     };
 
-    private static Object easeInCirc = new JSFunctionInterface() {
+    private static Object easeInCirc = new PrimitiveFunction.Arity4() {
         @Override
-        public Object execute(ArrayList<Object> arguments) throws NumberFormatException, JSONException {
-            double t = (double) arguments.get(0);
-            double b = (double) arguments.get(1);
-            double c = (double) arguments.get(2);
-            double d = (double) arguments.get(3);
+        double call(double t, double b, double c, double d) {
             t = Math.min(t,d);
 
             return -c * (Math.sqrt(1 - (t/=d)*t) - 1) + b;
         }
     };
 
-    private static Object easeOutCirc = new JSFunctionInterface() {
+    private static Object easeOutCirc = new PrimitiveFunction.Arity4() {
         @Override
-        public Object execute(ArrayList<Object> arguments) throws NumberFormatException, JSONException {
-            double t = (double) arguments.get(0);
-            double b = (double) arguments.get(1);
-            double c = (double) arguments.get(2);
-            double d = (double) arguments.get(3);
+        double call(double t, double b, double c, double d) {
             t = Math.min(t,d);
 
             return c * Math.sqrt(1 - (t=t/d-1)*t) + b;
         }
     };
 
-    private static Object easeInOutCirc = new JSFunctionInterface() {
+    private static Object easeInOutCirc = new PrimitiveFunction.Arity4() {
         @Override
-        public Object execute(ArrayList<Object> arguments) throws NumberFormatException, JSONException {
-            double t = (double) arguments.get(0);
-            double b = (double) arguments.get(1);
-            double c = (double) arguments.get(2);
-            double d = (double) arguments.get(3);
+        double call(double t, double b, double c, double d) {
             t = Math.min(t,d);
 
             if ((t/=d/2) < 1) {
@@ -437,13 +312,9 @@ class TimingFunctions {
     };
 
 
-    private static Object easeInElastic = new JSFunctionInterface() {
+    private static Object easeInElastic = new PrimitiveFunction.Arity4() {
         @Override
-        public Object execute(ArrayList<Object> arguments) throws NumberFormatException, JSONException {
-            double t = (double) arguments.get(0);
-            double b = (double) arguments.get(1);
-            double c = (double) arguments.get(2);
-            double d = (double) arguments.get(3);
+        double call(double t, double b, double c, double d) {
             t = Math.min(t,d);
 
             double s;
@@ -466,12 +337,9 @@ class TimingFunctions {
         }
     };
 
-    private static Object easeOutElastic = new JSFunctionInterface() {
-        public Object execute(ArrayList<Object> arguments) {
-            double t = (double) arguments.get(0);
-            double b = (double) arguments.get(1);
-            double c = (double) arguments.get(2);
-            double d = (double) arguments.get(3);
+    private static Object easeOutElastic = new PrimitiveFunction.Arity4() {
+        @Override
+        double call(double t, double b, double c, double d) {
             t = Math.min(t,d);
 
             double s;
@@ -494,12 +362,9 @@ class TimingFunctions {
         }
     };
 
-    private static Object easeInOutElastic = new JSFunctionInterface() {
-        public Object execute(ArrayList<Object> arguments) {
-            double t = (double) arguments.get(0);
-            double b = (double) arguments.get(1);
-            double c = (double) arguments.get(2);
-            double d = (double) arguments.get(3);
+    private static Object easeInOutElastic = new PrimitiveFunction.Arity4() {
+        @Override
+        double call(double t, double b, double c, double d) {
             t = Math.min(t,d);
 
             double s;
@@ -525,13 +390,9 @@ class TimingFunctions {
         }
     };
 
-    private static Object easeInBack = new JSFunctionInterface() {
+    private static Object easeInBack = new PrimitiveFunction.Arity4() {
         @Override
-        public Object execute(ArrayList<Object> arguments) throws NumberFormatException, JSONException {
-            double t = (double) arguments.get(0);
-            double b = (double) arguments.get(1);
-            double c = (double) arguments.get(2);
-            double d = (double) arguments.get(3);
+        double call(double t, double b, double c, double d) {
             t = Math.min(t,d);
 
             double s = 1.70158;
@@ -539,13 +400,9 @@ class TimingFunctions {
         }
     };
 
-    private static Object easeOutBack = new JSFunctionInterface() {
+    private static Object easeOutBack = new PrimitiveFunction.Arity4() {
         @Override
-        public Object execute(ArrayList<Object> arguments) throws NumberFormatException, JSONException {
-            double t = (double) arguments.get(0);
-            double b = (double) arguments.get(1);
-            double c = (double) arguments.get(2);
-            double d = (double) arguments.get(3);
+        double call(double t, double b, double c, double d) {
             t = Math.min(t,d);
 
             double s = 1.70158;
@@ -553,13 +410,9 @@ class TimingFunctions {
         }
     };
 
-    private static Object easeInOutBack = new JSFunctionInterface() {
+    private static Object easeInOutBack = new PrimitiveFunction.Arity4() {
         @Override
-        public Object execute(ArrayList<Object> arguments) throws NumberFormatException, JSONException {
-            double t = (double) arguments.get(0);
-            double b = (double) arguments.get(1);
-            double c = (double) arguments.get(2);
-            double d = (double) arguments.get(3);
+        double call(double t, double b, double c, double d) {
             t = Math.min(t,d);
 
             double s = 1.70158;
@@ -570,39 +423,27 @@ class TimingFunctions {
         }
     };
 
-    private static Object easeInBounce = new JSFunctionInterface() {
+    private static Object easeInBounce = new PrimitiveFunction.Arity4() {
         @Override
-        public Object execute(ArrayList<Object> arguments) throws NumberFormatException, JSONException {
-            double t = (double) arguments.get(0);
-            double b = (double) arguments.get(1);
-            double c = (double) arguments.get(2);
-            double d = (double) arguments.get(3);
+        double call(double t, double b, double c, double d) {
             t = Math.min(t,d);
 
             return easeInBounce(t,b,c,d);
         }
     };
 
-    private static Object easeOutBounce = new JSFunctionInterface() {
+    private static Object easeOutBounce = new PrimitiveFunction.Arity4() {
         @Override
-        public Object execute(ArrayList<Object> arguments) throws NumberFormatException, JSONException {
-            double t = (double) arguments.get(0);
-            double b = (double) arguments.get(1);
-            double c = (double) arguments.get(2);
-            double d = (double) arguments.get(3);
+        double call(double t, double b, double c, double d) {
             t = Math.min(t,d);
 
             return easeOutBounce(t,b,c,d);
         }
     };
 
-    private static Object easeInOutBounce = new JSFunctionInterface() {
+    private static Object easeInOutBounce = new PrimitiveFunction.Arity4() {
         @Override
-        public Object execute(ArrayList<Object> arguments) throws NumberFormatException, JSONException {
-            double t = (double) arguments.get(0);
-            double b = (double) arguments.get(1);
-            double c = (double) arguments.get(2);
-            double d = (double) arguments.get(3);
+        double call(double t, double b, double c, double d) {
             t = Math.min(t,d);
 
             if (t < d/2) {
@@ -628,45 +469,4 @@ class TimingFunctions {
         }
     }
 
-
-    private static class InnerCache<T> {
-        private final ArrayDeque<T> deque;
-
-        InnerCache(int size) {
-            deque = new ArrayDeque<>(size);
-        }
-
-        void add(T t) {
-            if(deque.size() >= 4) {
-                deque.removeFirst();
-                deque.addLast(t);
-            } else {
-                deque.addLast(t);
-            }
-        }
-
-        Deque<T> getAll() {
-            return deque;
-        }
-    }
-
-    private static class BezierInterpolatorWrapper implements Interpolator{
-
-        float x1,y1,x2,y2;
-        private Interpolator mInnerInterpolator;
-        BezierInterpolatorWrapper(float x1,float y1, float x2, float y2) {
-            this.x1 = x1;
-            this.y1 = y1;
-            this.x2 = x2;
-            this.y2 = y2;
-            mInnerInterpolator = PathInterpolatorCompat.create(x1,y1,x2,y2);
-        }
-
-        @Override
-        public float getInterpolation(float input) {
-            return mInnerInterpolator.getInterpolation(input);
-        }
-
-    }
-
 }
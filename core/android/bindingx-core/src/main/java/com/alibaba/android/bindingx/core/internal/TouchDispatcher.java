@@ -0,0 +1,77 @@
+/**
+ * Copyright 2018 Alibaba Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.android.bindingx.core.internal;
+
+import android.support.annotation.NonNull;
+import android.view.MotionEvent;
+import android.view.View;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Description:
+ *
+ * The one touch listener of an anchor view, which passes every event on to all the touch handlers
+ * bound to the view (pan, pinch, rotation). A view has a single {@link View.OnTouchListener}, so the
+ * handlers must not set their own.
+ */
+
+final class TouchDispatcher implements View.OnTouchListener {
+
+    private static final Map<View, TouchDispatcher> sDispatchers = new WeakHashMap<>();
+
+    private final CopyOnWriteArrayList<View.OnTouchListener> mListeners = new CopyOnWriteArrayList<>();
+
+    private TouchDispatcher() {
+    }
+
+    static synchronized void add(@NonNull View view, @NonNull View.OnTouchListener listener) {
+        TouchDispatcher dispatcher = sDispatchers.get(view);
+        if (dispatcher == null) {
+            dispatcher = new TouchDispatcher();
+            sDispatchers.put(view, dispatcher);
+            view.setOnTouchListener(dispatcher);
+        }
+        dispatcher.mListeners.addIfAbsent(listener);
+    }
+
+    /**
+     * the view has no touch listener any more once the last one is removed
+     * */
+    static synchronized void remove(@NonNull View view, @NonNull View.OnTouchListener listener) {
+        TouchDispatcher dispatcher = sDispatchers.get(view);
+        if (dispatcher == null) {
+            return;
+        }
+        dispatcher.mListeners.remove(listener);
+        if (dispatcher.mListeners.isEmpty()) {
+            sDispatchers.remove(view);
+            view.setOnTouchListener(null);
+        }
+    }
+
+    @Override
+    public boolean onTouch(View v, MotionEvent event) {
+        boolean handled = false;
+        // every handler sees every event, even when an earlier one has consumed it
+        for (View.OnTouchListener listener : mListeners) {
+            handled |= listener.onTouch(v, event);
+        }
+        return handled;
+    }
+}
@@ -0,0 +1,210 @@
+/**
+ * Copyright 2018 Alibaba Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.android.bindingx.core.internal;
+
+import android.support.annotation.NonNull;
+import android.view.MotionEvent;
+
+/**
+ * Description:
+ *
+ * The recent positions of a finger, including the historical samples a {@link MotionEvent}
+ * batches between two deliveries, in a ring of primitive arrays.
+ *
+ * {@link #sample(long, double[])} gives the position at the vsync time of a frame instead of the
+ * position of the last delivered event, which is up to a frame old by then: it interpolates between
+ * the samples around that time, or extrapolates a few milliseconds past the newest one. The velocity
+ * is a least squares fit of the samples of the last 100 milliseconds, like
+ * {@link android.view.VelocityTracker} does.
+ *
+ * Times are in the {@link System#nanoTime()} time base, the time base of vsync. All methods are
+ * thread safe.
+ */
+
+final class TouchSampler {
+
+    private static final int CAPACITY = 20;
+    private static final long MILLIS = 1000000L;
+    // only the samples this recent count for the velocity
+    private static final long HORIZON_NANOS = 100 * MILLIS;
+    // a finger which has not moved for this long stands still
+    private static final long ASSUME_STOPPED_NANOS = 40 * MILLIS;
+    // extrapolation needs two samples at least this far apart and at most this far
+    private static final long MIN_DELTA_NANOS = 2 * MILLIS;
+    private static final long MAX_DELTA_NANOS = 20 * MILLIS;
+    // and goes no further past the newest sample than this, or half the distance of the two
+    private static final long MAX_PREDICTION_NANOS = 8 * MILLIS;
+
+    private final long[] mTimes = new long[CAPACITY];
+    private final double[] mX = new double[CAPACITY];
+    private final double[] mY = new double[CAPACITY];
+    // index of the newest sample
+    private int mNewest = -1;
+    private int mSize;
+
+    synchronized void clear() {
+        mNewest = -1;
+        mSize = 0;
+    }
+
+    /**
+     * adds the historical samples and the current position of the event, in screen coordinates
+     * */
+    void add(@NonNull MotionEvent event) {
+        // historical samples are relative to the view, their screen position is shifted like the current one
+        float offsetX = event.getRawX() - event.getX();
+        float offsetY = event.getRawY() - event.getY();
+        int historySize = event.getHistorySize();
+        synchronized (this) {
+            for (int i = 0; i < historySize; i++) {
+                add(event.getHistoricalEventTime(i) * MILLIS,
+                        event.getHistoricalX(i) + offsetX, event.getHistoricalY(i) + offsetY);
+            }
+            add(event.getEventTime() * MILLIS, event.getRawX(), event.getRawY());
+        }
+    }
+
+    synchronized void add(long timeNanos, double x, double y) {
+        if (mSize > 0) {
+            long newest = mTimes[mNewest];
+            if (timeNanos < newest) {
+                return;
+            }
+            if (timeNanos == newest) {
+                mX[mNewest] = x;
+                mY[mNewest] = y;
+                return;
+            }
+        }
+        mNewest = (mNewest + 1) % CAPACITY;
+        mTimes[mNewest] = timeNanos;
+        mX[mNewest] = x;
+        mY[mNewest] = y;
+        if (mSize < CAPACITY) {
+            mSize++;
+        }
+    }
+
+    synchronized int size() {
+        return mSize;
+    }
+
+    /**
+     * @param timeNanos when the position is wanted, usually the vsync time of the frame
+     * @param out receives x, y, the velocity of x and the velocity of y in pixels per second
+     * @return false if there is no sample
+     * */
+    synchronized boolean sample(long timeNanos, @NonNull double[] out) {
+        if (mSize == 0) {
+            return false;
+        }
+        resample(timeNanos, out);
+        velocity(timeNanos, out);
+        return true;
+    }
+
+    /**
+     * @see #sample(long, double[])
+     * @return false if there is no sample
+     * */
+    synchronized boolean newest(@NonNull double[] out) {
+        if (mSize == 0) {
+            return false;
+        }
+        long time = mTimes[mNewest];
+        out[0] = mX[mNewest];
+        out[1] = mY[mNewest];
+        velocity(time, out);
+        return true;
+    }
+
+    private int indexOf(int age) {
+        return (mNewest - age + CAPACITY) % CAPACITY;
+    }
+
+    private void resample(long time, double[] out) {
+        int newest = mNewest;
+        out[0] = mX[newest];
+        out[1] = mY[newest];
+        if (mSize < 2) {
+            return;
+        }
+        if (time >= mTimes[newest]) {
+            int previous = indexOf(1);
+            long delta = mTimes[newest] - mTimes[previous];
+            if (delta < MIN_DELTA_NANOS || delta > MAX_DELTA_NANOS) {
+                // too close to tell the direction, or too old to tell the speed
+                return;
+            }
+            long prediction = Math.min(delta / 2, MAX_PREDICTION_NANOS);
+            time = Math.min(time, mTimes[newest] + prediction);
+            interpolate(previous, newest, time, out);
+            return;
+        }
+        for (int age = 1; age < mSize; age++) {
+            int older = indexOf(age);
+            if (mTimes[older] <= time) {
+                interpolate(older, indexOf(age - 1), time, out);
+                return;
+            }
+        }
+        // older than all the samples
+        int oldest = indexOf(mSize - 1);
+        out[0] = mX[oldest];
+        out[1] = mY[oldest];
+    }
+
+    private void interpolate(int a, int b, long time, double[] out) {
+        double alpha = (double) (time - mTimes[a]) / (mTimes[b] - mTimes[a]);
+        out[0] = mX[a] + (mX[b] - mX[a]) * alpha;
+        out[1] = mY[a] + (mY[b] - mY[a]) * alpha;
+    }
+
+    private void velocity(long time, double[] out) {
+        out[2] = 0;
+        out[3] = 0;
+        long newestTime = mTimes[mNewest];
+        if (time - newestTime > ASSUME_STOPPED_NANOS) {
+            return;
+        }
+        // least squares line through the recent samples, relative to the newest one for precision
+        int count = 0;
+        double sumT = 0, sumTT = 0, sumX = 0, sumTX = 0, sumY = 0, sumTY = 0;
+        for (int age = 0; age < mSize; age++) {
+            int i = indexOf(age);
+            long dt = mTimes[i] - newestTime;
+            if (-dt > HORIZON_NANOS) {
+                break;
+            }
+            double t = dt / 1e9;
+            double x = mX[i] - mX[mNewest];
+            double y = mY[i] - mY[mNewest];
+            sumT += t;
+            sumTT += t * t;
+            sumX += x;
+            sumTX += t * x;
+            sumY += y;
+            sumTY += t * y;
+            count++;
+        }
+        double denominator = count * sumTT - sumT * sumT;
+        if (count < 2 || denominator <= 0) {
+            return;
+        }
+        out[2] = (count * sumTX - sumT * sumX) / denominator;
+        out[3] = (count * sumTY - sumT * sumY) / denominator;
+    }
+}
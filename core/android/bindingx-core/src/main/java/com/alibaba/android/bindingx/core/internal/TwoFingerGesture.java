@@ -0,0 +1,103 @@
+/**
+ * Copyright 2018 Alibaba Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.android.bindingx.core.internal;
+
+/**
+ * Description:
+ *
+ * Scale and rotation of the line between two fingers since the gesture began. When one of the
+ * fingers is replaced by another one the gesture goes on from the scale and rotation reached so far,
+ * so it does not jump.
+ *
+ * The rotation is in degrees, clockwise on the screen, and is not wrapped: two full turns are 720.
+ */
+
+final class TwoFingerGesture {
+
+    // fingers closer than this give no meaningful span
+    private static final double MIN_SPAN = 1;
+
+    // the scale and rotation reached before the current pair of fingers
+    private double mBaseScale = 1;
+    private double mBaseRotation;
+    private double mStartSpan;
+    private double mStartAngle;
+    private double mLastAngle;
+    private double mTurns;
+
+    private double mScale = 1;
+    private double mRotation;
+    private double mFocusX;
+    private double mFocusY;
+
+    /**
+     * a new gesture with scale 1 and rotation 0
+     * */
+    void begin(double x0, double y0, double x1, double y1) {
+        mBaseScale = 1;
+        mBaseRotation = 0;
+        mScale = 1;
+        mRotation = 0;
+        rebase(x0, y0, x1, y1);
+    }
+
+    /**
+     * another pair of fingers goes on with the current gesture
+     * */
+    void rebase(double x0, double y0, double x1, double y1) {
+        mBaseScale = mScale;
+        mBaseRotation = mRotation;
+        mStartSpan = Math.max(MIN_SPAN, Math.hypot(x1 - x0, y1 - y0));
+        mStartAngle = Math.toDegrees(Math.atan2(y1 - y0, x1 - x0));
+        mLastAngle = mStartAngle;
+        mTurns = 0;
+        mFocusX = (x0 + x1) / 2;
+        mFocusY = (y0 + y1) / 2;
+    }
+
+    void move(double x0, double y0, double x1, double y1) {
+        double span = Math.max(MIN_SPAN, Math.hypot(x1 - x0, y1 - y0));
+        double angle = Math.toDegrees(Math.atan2(y1 - y0, x1 - x0));
+        // atan2 jumps by a full turn when the line crosses the negative x axis
+        double delta = angle - mLastAngle;
+        if (delta > 180) {
+            mTurns -= 360;
+        } else if (delta < -180) {
+            mTurns += 360;
+        }
+        mLastAngle = angle;
+        mScale = mBaseScale * span / mStartSpan;
+        mRotation = mBaseRotation + angle + mTurns - mStartAngle;
+        mFocusX = (x0 + x1) / 2;
+        mFocusY = (y0 + y1) / 2;
+    }
+
+    double scale() {
+        return mScale;
+    }
+
+    double rotation() {
+        return mRotation;
+    }
+
+    double focusX() {
+        return mFocusX;
+    }
+
+    double focusY() {
+        return mFocusY;
+    }
+}
@@ -0,0 +1,141 @@
+/**
+ * Copyright 2018 Alibaba Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.android.bindingx.core.internal;
+
+import android.support.annotation.NonNull;
+
+import java.util.AbstractList;
+
+/**
+ * Description:
+ *
+ * The result of <code>translate</code>, <code>scale</code>, <code>matrix</code> and
+ * <code>asArray</code> with numeric components. View updaters read the components with
+ * {@link #valueAt(int)} (or the accessors of the subclasses) instead of unboxing the elements of
+ * a list. It is still a read only {@link java.util.List} of Doubles for code which expects the
+ * old <code>ArrayList</code> result.
+ *
+ * The value of a property is recycled by its {@link ExpressionHolder} on the next event, so it
+ * must be read before <code>IViewUpdater#synchronouslyUpdateViewOnUIThread</code> returns.
+ * Use {@link #copy()} to keep it.
+ */
+
+public abstract class TypedValue extends AbstractList<Object> {
+
+    final double[] values;
+
+    TypedValue(int size) {
+        this.values = new double[size];
+    }
+
+    public final double valueAt(int index) {
+        return values[index];
+    }
+
+    @Override
+    public final int size() {
+        return values.length;
+    }
+
+    /**
+     * @return the boxed component, prefer {@link #valueAt(int)}
+     * */
+    @Override
+    public final Object get(int index) {
+        return values[index];
+    }
+
+    @NonNull
+    public final TypedValue copy() {
+        TypedValue copy = newInstance();
+        System.arraycopy(values, 0, copy.values, 0, values.length);
+        return copy;
+    }
+
+    abstract TypedValue newInstance();
+
+    /**
+     * @return true if both values have the same type and their components differ by no more than epsilon
+     * */
+    boolean isSame(@NonNull TypedValue other, double epsilon) {
+        if (other.getClass() != getClass() || other.values.length != values.length) {
+            return false;
+        }
+        for (int i = 0; i < values.length; i++) {
+            double delta = values[i] - other.values[i];
+            if (delta != 0 && !(Math.abs(delta) <= epsilon)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * e.g. translate(x,y), scale(x,y) or asArray(x,y)
+     * */
+    public static final class Vec2 extends TypedValue {
+        Vec2() {
+            super(2);
+        }
+
+        public double x() {
+            return values[0];
+        }
+
+        public double y() {
+            return values[1];
+        }
+
+        @Override
+        TypedValue newInstance() {
+            return new Vec2();
+        }
+    }
+
+    /**
+     * e.g. asArray(topLeft,topRight,bottomLeft,bottomRight) of border-radius
+     * */
+    public static final class Vec4 extends TypedValue {
+        Vec4() {
+            super(4);
+        }
+
+        @Override
+        TypedValue newInstance() {
+            return new Vec4();
+        }
+    }
+
+    /**
+     * matrix(a,b,c,d,tx,ty) is a 2x3 affine matrix, matrix with 16 arguments is a 4x4 matrix.
+     * The components are in the order of the arguments (column-major, like CSS).
+     * */
+    public static final class Matrix extends TypedValue {
+        public final int rows;
+        public final int columns;
+
+        Matrix(int rows, int columns) {
+            super(rows * columns);
+            this.rows = rows;
+            this.columns = columns;
+        }
+
+        @Override
+        TypedValue newInstance() {
+            return new Matrix(rows, columns);
+        }
+    }
+}
@@ -0,0 +1,235 @@
+/**
+ * Copyright 2018 Alibaba Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.android.bindingx.core.internal;
+
+import android.support.annotation.NonNull;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Description:
+ *
+ * Cubic bezier timing curve from (0,0) to (1,1) with the control points (x1,y1) and (x2,y2),
+ * solved the same way as WebKit's UnitBezier: the x of a progress is found by Newton-Raphson
+ * iteration, starting from a precomputed sample table, and by bisection where the slope is too
+ * flat for Newton-Raphson.
+ *
+ * Solved curves are immutable and shared through a bounded LRU cache keyed by the control points,
+ * see {@link #obtain(double, double, double, double)}. A curve is also an easing function
+ * (t, b, c, d), so a call of <code>cubicBezier</code> with constant control points is bound to
+ * its curve at compile time (see {@link ExpressionOptimizer}).
+ */
+
+final class UnitBezier extends PrimitiveFunction.Arity4 {
+
+    static final int MAX_CACHED_CURVES = 64;
+
+    private static final int SAMPLE_COUNT = 11;
+    private static final double SAMPLE_STEP = 1.0 / (SAMPLE_COUNT - 1);
+    private static final int NEWTON_ITERATIONS = 4;
+    private static final double NEWTON_MIN_SLOPE = 1e-3;
+    // of the curve parameter, not of x, so flat ends of a curve are solved as precisely as the rest
+    private static final double PRECISION = 1e-7;
+    private static final int MAX_BISECTIONS = 32;
+
+    private static final Map<Key, UnitBezier> sCache = new LinkedHashMap<Key, UnitBezier>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, UnitBezier> eldest) {
+            return size() > MAX_CACHED_CURVES;
+        }
+    };
+
+    final float x1;
+    final float y1;
+    final float x2;
+    final float y2;
+
+    // polynomial coefficients, x(s) = ((ax * s + bx) * s + cx) * s
+    private final double ax;
+    private final double bx;
+    private final double cx;
+    private final double ay;
+    private final double by;
+    private final double cy;
+
+    private final double[] mSamples = new double[SAMPLE_COUNT];
+
+    private UnitBezier(float x1, float y1, float x2, float y2) {
+        this.x1 = x1;
+        this.y1 = y1;
+        this.x2 = x2;
+        this.y2 = y2;
+
+        cx = 3.0 * x1;
+        bx = 3.0 * (x2 - x1) - cx;
+        ax = 1.0 - cx - bx;
+        cy = 3.0 * y1;
+        by = 3.0 * (y2 - y1) - cy;
+        ay = 1.0 - cy - by;
+
+        for (int i = 0; i < SAMPLE_COUNT; i++) {
+            mSamples[i] = sampleX(i * SAMPLE_STEP);
+        }
+    }
+
+    /**
+     * @return the shared curve of the control points. The control points are compared as floats,
+     * like the old interpolator cache did.
+     * */
+    @NonNull
+    static UnitBezier obtain(double x1, double y1, double x2, double y2) {
+        Key key = new Key((float) x1, (float) y1, (float) x2, (float) y2);
+        synchronized (sCache) {
+            UnitBezier curve = sCache.get(key);
+            if (curve == null) {
+                curve = new UnitBezier(key.x1, key.y1, key.x2, key.y2);
+                sCache.put(key, curve);
+            }
+            return curve;
+        }
+    }
+
+    static int cachedCurveCount() {
+        synchronized (sCache) {
+            return sCache.size();
+        }
+    }
+
+    /**
+     * same as <code>cubicBezier(t, b, c, d, x1, y1, x2, y2)</code>
+     * */
+    @Override
+    double call(double t, double b, double c, double d) {
+        t = Math.min(t, d);
+        if (t == d) {
+            return b + c;
+        }
+        return c * solve(t / d) + b;
+    }
+
+    /**
+     * @param x progress, 0..1
+     * @return the value of the curve at x
+     * */
+    double solve(double x) {
+        return sampleY(solveCurveX(x));
+    }
+
+    private double sampleX(double s) {
+        return ((ax * s + bx) * s + cx) * s;
+    }
+
+    private double sampleY(double s) {
+        return ((ay * s + by) * s + cy) * s;
+    }
+
+    private double sampleDerivativeX(double s) {
+        return (3.0 * ax * s + 2.0 * bx) * s + cx;
+    }
+
+    /**
+     * @return the parameter s with x(s) == x
+     * */
+    private double solveCurveX(double x) {
+        if (x <= 0) {
+            return 0;
+        }
+        if (x >= 1) {
+            return 1;
+        }
+        // initial guess from the sample table
+        int i = 1;
+        while (i < SAMPLE_COUNT - 1 && mSamples[i] <= x) {
+            i++;
+        }
+        i--;
+        double fraction = (x - mSamples[i]) / (mSamples[i + 1] - mSamples[i]);
+        double s = (i + fraction) * SAMPLE_STEP;
+
+        double slope = sampleDerivativeX(s);
+        if (slope >= NEWTON_MIN_SLOPE) {
+            for (int n = 0; n < NEWTON_ITERATIONS; n++) {
+                slope = sampleDerivativeX(s);
+                if (slope < NEWTON_MIN_SLOPE) {
+                    break;
+                }
+                double step = (sampleX(s) - x) / slope;
+                s -= step;
+                if (Math.abs(step) < PRECISION) {
+                    if (s >= 0 && s <= 1) {
+                        return s;
+                    }
+                    break;
+                }
+            }
+        }
+
+        // bisection where the curve is too flat, x(s) is monotonic if x1 and x2 are in 0..1
+        double low = 0;
+        double high = 1;
+        s = x;
+        for (int n = 0; n < MAX_BISECTIONS && high - low >= PRECISION; n++) {
+            double value = sampleX(s);
+            if (value == x) {
+                return s;
+            }
+            if (x > value) {
+                low = s;
+            } else {
+                high = s;
+            }
+            s = (low + high) / 2;
+        }
+        return s;
+    }
+
+    private static final class Key {
+        final float x1;
+        final float y1;
+        final float x2;
+        final float y2;
+
+        Key(float x1, float y1, float x2, float y2) {
+            this.x1 = x1;
+            this.y1 = y1;
+            this.x2 = x2;
+            this.y2 = y2;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return Float.compare(key.x1, x1) == 0 && Float.compare(key.y1, y1) == 0
+                    && Float.compare(key.x2, x2) == 0 && Float.compare(key.y2, y2) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = Float.floatToIntBits(x1);
+            result = 31 * result + Float.floatToIntBits(y1);
+            result = 31 * result + Float.floatToIntBits(x2);
+            result = 31 * result + Float.floatToIntBits(y2);
+            return result;
+        }
+    }
+}
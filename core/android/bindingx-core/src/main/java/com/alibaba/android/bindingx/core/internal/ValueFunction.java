@@ -0,0 +1,72 @@
+/**
+ * Copyright 2018 Alibaba Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.android.bindingx.core.internal;
+
+import android.support.annotation.NonNull;
+
+import java.util.ArrayList;
+
+/**
+ * Description:
+ *
+ * A built-in function which packs its numeric arguments into a {@link TypedValue}, e.g.
+ * <code>translate(x,y)</code>. A compiled call with a supported number of arguments evaluates
+ * them unboxed (see {@link ExpressionNode.Call}) and can write into a recycled value
+ * (see {@link ExpressionHolder#recycledValue(Expression)}).
+ *
+ * Other numbers of arguments, or arguments which are not numbers, give the argument list like before.
+ */
+
+abstract class ValueFunction implements JSFunctionInterface {
+
+    private final int mMinimumArguments;
+
+    ValueFunction(int minimumArguments) {
+        this.mMinimumArguments = minimumArguments;
+    }
+
+    /**
+     * @return true if a call with that many arguments gives a {@link TypedValue}
+     * */
+    abstract boolean accepts(int argumentCount);
+
+    /**
+     * @return a new value for that many arguments. Only if {@link #accepts(int)}.
+     * */
+    @NonNull
+    abstract TypedValue create(int argumentCount);
+
+    @Override
+    public Object execute(ArrayList<Object> arguments) {
+        if (arguments == null || arguments.size() < mMinimumArguments) {
+            return null;
+        }
+        int size = arguments.size();
+        if (!accepts(size)) {
+            return arguments;
+        }
+        for (int i = 0; i < size; i++) {
+            if (!(arguments.get(i) instanceof Double)) {
+                return arguments;
+            }
+        }
+        TypedValue value = create(size);
+        for (int i = 0; i < size; i++) {
+            value.values[i] = (double) arguments.get(i);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,180 @@
+/**
+ * Copyright 2018 Alibaba Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.android.bindingx.core;
+
+import android.support.annotation.NonNull;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class ViewUpdateBufferTest {
+
+    private final Object owner = new Object();
+    private final Object viewA = new Object();
+    private final Object viewB = new Object();
+
+    @Test
+    public void latestWins() throws Exception {
+        CountingScheduler scheduler = new CountingScheduler();
+        ViewUpdateBuffer buffer = new ViewUpdateBuffer(scheduler);
+        List<String> applied = new ArrayList<>();
+
+        buffer.post(owner, viewA, "opacity", new Record(applied, "a.opacity=0.1"));
+        buffer.post(owner, viewA, "transform.translate", new Record(applied, "a.translate=1"));
+        buffer.post(owner, viewB, "opacity", new Record(applied, "b.opacity=0.5"));
+        buffer.post(owner, viewA, "opacity", new Record(applied, "a.opacity=0.2"));
+        // one task for the whole frame
+        assertEquals(1, scheduler.scheduled);
+        assertEquals(3, buffer.getPendingCount());
+
+        buffer.flush();
+        assertEquals(Arrays.asList("a.opacity=0.2", "a.translate=1", "b.opacity=0.5"), applied);
+        assertEquals(3, buffer.getAppliedCount());
+        assertEquals(1, buffer.getDroppedCount());
+        assertEquals(0, buffer.getPendingCount());
+
+        // the next frame
+        buffer.post(owner, viewA, "opacity", new Record(applied, "a.opacity=0.3"));
+        assertEquals(2, scheduler.scheduled);
+    }
+
+    @Test
+    public void keepUpdatesWithoutTarget() throws Exception {
+        ViewUpdateBuffer buffer = new ViewUpdateBuffer(new CountingScheduler());
+        List<String> applied = new ArrayList<>();
+        buffer.post(owner, null, "opacity", new Record(applied, "1"));
+        buffer.post(owner, null, "opacity", new Record(applied, "2"));
+        // and of different owners
+        buffer.post(new Object(), viewA, "opacity", new Record(applied, "3"));
+        buffer.post(owner, viewA, "opacity", new Record(applied, "4"));
+        buffer.flush();
+        assertEquals(Arrays.asList("1", "2", "3", "4"), applied);
+    }
+
+    @Test
+    public void clear() throws Exception {
+        ViewUpdateBuffer buffer = new ViewUpdateBuffer(new CountingScheduler());
+        List<String> applied = new ArrayList<>();
+        Object other = new Object();
+        buffer.post(owner, viewA, "opacity", new Record(applied, "a"));
+        buffer.post(other, viewA, "opacity", new Record(applied, "b"));
+        buffer.post(owner, viewB, "opacity", new Record(applied, "c"));
+        buffer.clear(owner);
+        buffer.flush();
+        assertEquals(Arrays.asList("b"), applied);
+    }
+
+    @Test
+    public void postDuringFlush() throws Exception {
+        CountingScheduler scheduler = new CountingScheduler();
+        final ViewUpdateBuffer buffer = new ViewUpdateBuffer(scheduler);
+        final List<String> applied = new ArrayList<>();
+        buffer.post(owner, viewA, "opacity", new Runnable() {
+            @Override
+            public void run() {
+                applied.add("a");
+                buffer.post(owner, viewA, "opacity", new Record(applied, "b"));
+            }
+        });
+        buffer.post(owner, viewB, "opacity", new Runnable() {
+            @Override
+            public void run() {
+                throw new IllegalStateException("detached");
+            }
+        });
+        buffer.flush();
+        // the new value waits for the next frame
+        assertEquals(Arrays.asList("a"), applied);
+        assertEquals(2, scheduler.scheduled);
+        buffer.flush();
+        assertEquals(Arrays.asList("a", "b"), applied);
+    }
+
+    @Test
+    public void growBeyondCapacity() throws Exception {
+        ViewUpdateBuffer buffer = new ViewUpdateBuffer(new CountingScheduler());
+        List<String> applied = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            buffer.post(owner, viewA, "p" + i, new Record(applied, String.valueOf(i)));
+        }
+        buffer.flush();
+        assertEquals(40, applied.size());
+        assertEquals("39", applied.get(39));
+    }
+
+    @Test
+    public void inbox() throws Exception {
+        CountingScheduler scheduler = new CountingScheduler();
+        final ViewUpdateBuffer buffer = new ViewUpdateBuffer(scheduler);
+        final List<String> applied = new ArrayList<>();
+        buffer.post(owner, viewA, "opacity", new Record(applied, "main"));
+
+        Thread evaluation = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                buffer.openInbox();
+                buffer.post(owner, viewA, "opacity", new Record(applied, "a1"));
+                buffer.post(owner, viewB, "opacity", new Record(applied, "b1"));
+                // more than the inbox holds
+                for (int i = 0; i < 300; i++) {
+                    buffer.post(owner, viewA, "opacity", new Record(applied, "a" + (i + 2)));
+                }
+                buffer.closeInbox();
+            }
+        });
+        evaluation.start();
+        evaluation.join();
+
+        assertEquals(2, buffer.getPendingCount());
+        buffer.flush();
+        assertEquals(Arrays.asList("a301", "b1"), applied);
+        assertEquals(1, scheduler.scheduled);
+
+        // the closed inbox is gone, posts of this thread take the lock
+        buffer.post(owner, viewA, "opacity", new Record(applied, "main2"));
+        buffer.flush();
+        assertEquals(Arrays.asList("a301", "b1", "main2"), applied);
+    }
+
+    private static final class CountingScheduler implements ViewUpdateBuffer.Scheduler {
+        int scheduled;
+
+        @Override
+        public void schedule(@NonNull ViewUpdateBuffer buffer) {
+            scheduled++;
+        }
+    }
+
+    private static final class Record implements Runnable {
+        private final List<String> mApplied;
+        private final String mName;
+
+        Record(List<String> applied, String name) {
+            this.mApplied = applied;
+            this.mName = name;
+        }
+
+        @Override
+        public void run() {
+            mApplied.add(mName);
+        }
+    }
+}
@@ -0,0 +1,265 @@
+/**
+ * Copyright 2018 Alibaba Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.android.bindingx.core.internal;
+
+import android.support.annotation.NonNull;
+import android.view.View;
+
+import com.alibaba.android.bindingx.core.BindingXEventType;
+import com.alibaba.android.bindingx.core.PlatformManager;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class AbstractEventHandlerTest {
+
+    private static final String T = "{\"type\":\"Identifier\",\"value\":\"t\"}";
+    private static final String ONE = "{\"type\":\"NumericLiteral\",\"value\":1}";
+    private static final String TRUE = "{\"type\":\"BooleanLiteral\",\"value\":true}";
+
+    private final List<String> mUpdates = Collections.synchronizedList(new ArrayList<String>());
+    private FakeHandler mHandler;
+
+    @Before
+    public void setUp() throws Exception {
+        final View view = new View(RuntimeEnvironment.application);
+        PlatformManager manager = new PlatformManager.Builder()
+                .withViewFinder(new PlatformManager.IViewFinder() {
+                    @Override
+                    public View findViewBy(String ref, Object... extension) {
+                        return view;
+                    }
+                })
+                .withViewUpdater(new PlatformManager.IViewUpdater() {
+                    @Override
+                    public void synchronouslyUpdateViewOnUIThread(@NonNull View targetView, @NonNull String propertyName,
+                                                                  @NonNull Object propertyValue,
+                                                                  @NonNull PlatformManager.IDeviceResolutionTranslator translator,
+                                                                  @NonNull Map<String, Object> config, Object... extension) {
+                        mUpdates.add(propertyName + "=" + propertyValue);
+                    }
+                })
+                .build();
+        mHandler = new FakeHandler(manager);
+    }
+
+    @Test
+    public void constantPropertyOnFirstEventOnly() throws Exception {
+        mHandler.onBindExpression(BindingXEventType.TYPE_TIMING, null, null,
+                args(binding("opacity", ONE), binding("transform.translateX", T)), null);
+
+        event(0);
+        assertEquals(2, mUpdates.size());
+        assertEquals(1.0, ((Number) valueOf("opacity")).doubleValue(), 0);
+
+        mUpdates.clear();
+        // would be dispatched again if it was evaluated
+        for (ExpressionHolder holder : mHandler.mExpressionHoldersMap.get("view")) {
+            holder.lastValue = null;
+        }
+        event(16);
+        assertEquals(1, mUpdates.size());
+        assertNull(valueOf("opacity"));
+        assertEquals(16.0, ((Number) valueOf("transform.translateX")).doubleValue(), 0);
+
+        // binding again starts over
+        mHandler.onBindExpression(BindingXEventType.TYPE_TIMING, null, null,
+                args(binding("opacity", ONE)), null);
+        mUpdates.clear();
+        event(0);
+        assertEquals(1, mUpdates.size());
+    }
+
+    @Test
+    public void constantExitOnFirstEventOnly() throws Exception {
+        ExpressionPair exit = ExpressionPair.create(null, TRUE);
+        mHandler.onBindExpression(BindingXEventType.TYPE_TIMING, null, exit,
+                args(binding("opacity", ONE)), null);
+
+        JSMath.applyTimingValuesToScope(mHandler.mScope, 0, 0);
+        assertEquals(true, mHandler.evaluateExitExpression(exit, mHandler.mScope));
+        assertEquals(1, mHandler.exitCount);
+
+        JSMath.applyTimingValuesToScope(mHandler.mScope, 16, 0);
+        assertEquals(false, mHandler.evaluateExitExpression(exit, mHandler.mScope));
+        assertEquals(1, mHandler.exitCount);
+    }
+
+    @Test
+    public void bindOnEvaluationExecutor() throws Exception {
+        QueueExecutor executor = new QueueExecutor();
+        mHandler.setEvaluationExecutor(executor);
+        mHandler.onBindExpression(BindingXEventType.TYPE_TIMING, null, null,
+                args(binding("opacity", ONE)), null);
+        // applied between two evaluations
+        assertNull(mHandler.mExpressionHoldersMap);
+        executor.runAll();
+        assertNotNull(mHandler.mExpressionHoldersMap);
+        event(0);
+        assertEquals(1, mUpdates.size());
+
+        // cleared before it was applied
+        mHandler.onBindExpression(BindingXEventType.TYPE_TIMING, null, null,
+                args(binding("opacity", ONE)), null);
+        mHandler.clearExpressions();
+        executor.runAll();
+        assertNull(mHandler.mExpressionHoldersMap);
+    }
+
+    @Test
+    public void bindWhileEvaluating() throws Exception {
+        EvaluationThread thread = new EvaluationThread(Thread.currentThread(), null);
+        thread.start();
+        mHandler.setEvaluationExecutor(thread);
+        final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+        final CountDownLatch done = new CountDownLatch(1);
+        // the events of the view come from another thread than the bindings
+        Thread events = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < 20000; i++) {
+                    final double t = i;
+                    mHandler.runEvaluation(new Runnable() {
+                        @Override
+                        public void run() {
+                            try {
+                                JSMath.applyTimingValuesToScope(mHandler.mScope, t, 0);
+                                mHandler.consumeExpression(mHandler.mExpressionHoldersMap, mHandler.mScope,
+                                        BindingXEventType.TYPE_TIMING);
+                            } catch (Throwable e) {
+                                failures.add(e);
+                            }
+                        }
+                    });
+                }
+                mHandler.runEvaluation(new Runnable() {
+                    @Override
+                    public void run() {
+                        done.countDown();
+                    }
+                });
+            }
+        });
+        events.start();
+        while (done.getCount() > 0 && events.isAlive()) {
+            mHandler.onBindExpression(BindingXEventType.TYPE_TIMING, null, null,
+                    args(binding("opacity", ONE), binding("transform.translateX", T), binding("transform.translateY", T)), null);
+            mHandler.clearExpressions();
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        thread.quit();
+        assertEquals(Collections.<Throwable>emptyList(), failures);
+    }
+
+    private void event(double t) throws Exception {
+        JSMath.applyTimingValuesToScope(mHandler.mScope, t, 0);
+        mHandler.consumeExpression(mHandler.mExpressionHoldersMap, mHandler.mScope, BindingXEventType.TYPE_TIMING);
+    }
+
+    private Object valueOf(String property) {
+        for (String update : mUpdates) {
+            if (update.startsWith(property + "=")) {
+                return Double.valueOf(update.substring(property.length() + 1));
+            }
+        }
+        return null;
+    }
+
+    private static List<Map<String, Object>> args(Map<String, Object>... bindings) {
+        List<Map<String, Object>> args = new ArrayList<>();
+        for (Map<String, Object> binding : bindings) {
+            args.add(binding);
+        }
+        return args;
+    }
+
+    private static Map<String, Object> binding(String property, String expression) {
+        Map<String, Object> binding = new HashMap<>();
+        binding.put("element", "view");
+        binding.put("property", property);
+        binding.put("expression", expression);
+        return binding;
+    }
+
+    private static class QueueExecutor implements Executor {
+        private final List<Runnable> mTasks = new ArrayList<>();
+
+        @Override
+        public void execute(Runnable task) {
+            mTasks.add(task);
+        }
+
+        void runAll() {
+            for (Runnable task : mTasks) {
+                task.run();
+            }
+            mTasks.clear();
+        }
+    }
+
+    private static class FakeHandler extends AbstractEventHandler {
+        int exitCount;
+
+        FakeHandler(PlatformManager manager) {
+            super(RuntimeEnvironment.application, manager);
+        }
+
+        @Override
+        protected void onExit(@NonNull Map<String, Object> scope) {
+            exitCount++;
+        }
+
+        @Override
+        public boolean onCreate(@NonNull String sourceRef, @NonNull String eventType) {
+            return true;
+        }
+
+        @Override
+        public void onStart(@NonNull String sourceRef, @NonNull String eventType) {
+        }
+
+        @Override
+        public boolean onDisable(@NonNull String sourceRef, @NonNull String eventType) {
+            return true;
+        }
+
+        @Override
+        public void onActivityPause() {
+        }
+
+        @Override
+        public void onActivityResume() {
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/**
+ * Copyright 2018 Alibaba Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.android.bindingx.core.internal;
+
+import android.support.annotation.NonNull;
+
+import com.alibaba.android.bindingx.core.BindingXEventType;
+import com.alibaba.android.bindingx.core.PlatformManager;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(RobolectricTestRunner.class)
+public class AbstractScrollEventHandlerTest {
+
+    private static final int EVENTS = 200000;
+
+    @Test
+    public void coalescedScrollFromAnotherThread() throws Exception {
+        final FakeScrollHandler handler = new FakeScrollHandler();
+        Map<String, Object> config = new HashMap<>();
+        config.put(BindingXConstants.KEY_COALESCE_INPUT, true);
+        handler.onBindExpression(BindingXEventType.TYPE_SCROLL, config, null,
+                new ArrayList<Map<String, Object>>(), null);
+
+        // the events of the scroll view arrive on the JS thread, the test thread is the frame thread
+        Thread events = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 1; i <= EVENTS; i++) {
+                    handler.handleScrollEvent(i, 2 * i, 1, 2, i, 2 * i);
+                }
+            }
+        });
+        events.start();
+
+        long dx = 0;
+        long dy = 0;
+        Scope scope = handler.mScope;
+        while (events.isAlive()) {
+            handler.evaluatePendingScroll();
+            dx += (long) scope.getDouble(Scope.DX);
+            dy += (long) scope.getDouble(Scope.DY);
+            // the state of one event, not a mix of two
+            double x = scope.getDouble(Scope.INTERNAL_X);
+            assertEquals(2 * x, scope.getDouble(Scope.INTERNAL_Y), 0);
+            assertEquals(x, scope.getDouble(Scope.TDX), 0);
+            assertEquals(2 * x, scope.getDouble(Scope.TDY), 0);
+        }
+        events.join();
+        handler.evaluatePendingScroll();
+        dx += (long) scope.getDouble(Scope.DX);
+        dy += (long) scope.getDouble(Scope.DY);
+
+        // no delta is lost
+        assertEquals(EVENTS, dx);
+        assertEquals(2L * EVENTS, dy);
+        assertEquals(EVENTS, scope.getDouble(Scope.INTERNAL_X), 0);
+        handler.onDestroy();
+    }
+
+    private static class FakeScrollHandler extends AbstractScrollEventHandler {
+
+        FakeScrollHandler() {
+            super(RuntimeEnvironment.application, new PlatformManager.Builder()
+                    .withDeviceResolutionTranslator(new PlatformManager.IDeviceResolutionTranslator() {
+                        @Override
+                        public double webToNative(double value, Object... extension) {
+                            return value;
+                        }
+
+                        @Override
+                        public double nativeToWeb(double value, Object... extension) {
+                            return value;
+                        }
+                    })
+                    .build());
+        }
+
+        @Override
+        public boolean onCreate(@NonNull String sourceRef, @NonNull String eventType) {
+            return true;
+        }
+
+        @Override
+        public void onStart(@NonNull String sourceRef, @NonNull String eventType) {
+        }
+
+        @Override
+        public void onActivityPause() {
+        }
+
+        @Override
+        public void onActivityResume() {
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/**
+ * Copyright 2018 Alibaba Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.android.bindingx.core.internal;
+
+import android.content.Context;
+import android.view.MotionEvent;
+import android.view.View;
+
+import com.alibaba.android.bindingx.core.BindingXEventType;
+import com.alibaba.android.bindingx.core.PlatformManager;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class BindingXMultiTouchHandlerTest {
+
+    private RecordingView mView;
+    private BindingXMultiTouchHandler mHandler;
+
+    @Before
+    public void setUp() throws Exception {
+        mView = new RecordingView(RuntimeEnvironment.application);
+        PlatformManager manager = new PlatformManager.Builder()
+                .withViewFinder(new PlatformManager.IViewFinder() {
+                    @Override
+                    public View findViewBy(String ref, Object... extension) {
+                        return mView;
+                    }
+                })
+                .build();
+        mHandler = new BindingXMultiTouchHandler(RuntimeEnvironment.application, manager);
+        assertTrue(mHandler.onCreate("view", BindingXEventType.TYPE_PINCH));
+        mHandler.onStart("view", BindingXEventType.TYPE_PINCH);
+    }
+
+    @Test
+    public void tapReachesClickableView() throws Exception {
+        mView.setClickable(true);
+        assertTrue(mView.dispatch(single(MotionEvent.ACTION_DOWN)));
+        assertTrue(mView.dispatch(single(MotionEvent.ACTION_UP)));
+        assertEquals(Arrays.asList(MotionEvent.ACTION_DOWN, MotionEvent.ACTION_UP), mView.received);
+    }
+
+    @Test
+    public void firstFingerOfViewWhichIsNotClickable() throws Exception {
+        // nothing else would keep the events of the gesture coming
+        assertTrue(mView.dispatch(single(MotionEvent.ACTION_DOWN)));
+        assertTrue(mView.received.isEmpty());
+        // not part of a gesture
+        assertFalse(mView.dispatch(single(MotionEvent.ACTION_UP)));
+        assertEquals(Arrays.asList(MotionEvent.ACTION_UP), mView.received);
+    }
+
+    @Test
+    public void gestureIsConsumed() throws Exception {
+        mView.setClickable(true);
+        mView.dispatch(single(MotionEvent.ACTION_DOWN));
+        assertTrue(mHandler.onTouch(mView, pair(MotionEvent.ACTION_POINTER_DOWN | (1 << MotionEvent.ACTION_POINTER_INDEX_SHIFT), 100)));
+        assertTrue(mHandler.onTouch(mView, pair(MotionEvent.ACTION_MOVE, 150)));
+        assertTrue(mHandler.onTouch(mView, pair(MotionEvent.ACTION_POINTER_UP | (1 << MotionEvent.ACTION_POINTER_INDEX_SHIFT), 150)));
+        // the finger left after the gesture
+        assertTrue(mHandler.onTouch(mView, single(MotionEvent.ACTION_UP)));
+        // the view does not click
+        assertEquals(Arrays.asList(MotionEvent.ACTION_DOWN, MotionEvent.ACTION_CANCEL), mView.received);
+
+        // and taps again afterwards
+        mView.received.clear();
+        mView.dispatch(single(MotionEvent.ACTION_DOWN));
+        mView.dispatch(single(MotionEvent.ACTION_UP));
+        assertEquals(Arrays.asList(MotionEvent.ACTION_DOWN, MotionEvent.ACTION_UP), mView.received);
+    }
+
+    private static MotionEvent single(int action) {
+        return MotionEvent.obtain(0, 0, action, 10, 10, 0);
+    }
+
+    private static MotionEvent pair(int action, float distance) {
+        MotionEvent.PointerProperties[] properties = new MotionEvent.PointerProperties[2];
+        MotionEvent.PointerCoords[] coords = new MotionEvent.PointerCoords[2];
+        for (int i = 0; i < 2; i++) {
+            properties[i] = new MotionEvent.PointerProperties();
+            properties[i].id = i;
+            coords[i] = new MotionEvent.PointerCoords();
+            coords[i].x = 10 + i * distance;
+            coords[i].y = 10;
+        }
+        return MotionEvent.obtain(0, 0, action, 2, properties, coords, 0, 0, 1, 1, 0, 0, 0, 0);
+    }
+
+    /**
+     * delivers the events like View#dispatchTouchEvent, the touch listener first
+     * */
+    private static class RecordingView extends View {
+        final List<Integer> received = new ArrayList<>();
+        private OnTouchListener mListener;
+
+        RecordingView(Context context) {
+            super(context);
+        }
+
+        @Override
+        public void setOnTouchListener(OnTouchListener l) {
+            super.setOnTouchListener(l);
+            mListener = l;
+        }
+
+        boolean dispatch(MotionEvent event) {
+            if (mListener != null && mListener.onTouch(this, event)) {
+                return true;
+            }
+            return onTouchEvent(event);
+        }
+
+        @Override
+        public boolean onTouchEvent(MotionEvent event) {
+            received.add(event.getActionMasked());
+            return isClickable();
+        }
+    }
+}
@@ -15,6 +15,8 @@
  */
 package com.alibaba.android.bindingx.core.internal;
 
+import android.support.annotation.NonNull;
+import android.view.MotionEvent;
 import android.view.View;
 
 import com.alibaba.android.bindingx.core.BindingXCore;
@@ -33,9 +35,12 @@ import org.robolectric.RobolectricTestRunner;
 import org.robolectric.RuntimeEnvironment;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+import static org.junit.Assert.assertEquals;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyDouble;
 import static org.mockito.Matchers.anyString;
@@ -121,4 +126,69 @@ public class BindingXTouchHandlerTest {
         verify(callback).callback(any(Object.class));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void releasePositionOfResampledPan() throws Exception {
+        List<Double> values = new ArrayList<>();
+        BindingXTouchHandler handler = resampledPan(values);
+        View view = new View(RuntimeEnvironment.application);
+        MotionEvent down = MotionEvent.obtain(0, 0, MotionEvent.ACTION_DOWN, 10, 10, 0);
+        MotionEvent move = MotionEvent.obtain(0, 8, MotionEvent.ACTION_MOVE, 50, 10, 0);
+        handler.onTouch(view, down);
+        handler.onTouch(view, move);
+        // a frame is pending, the finger is lifted before it comes
+        handler.onScroll(down, move, -40, 0);
+        handler.onTouch(view, MotionEvent.obtain(0, 16, MotionEvent.ACTION_UP, 110, 10, 0));
+        assertEquals(Collections.singletonList(100d), values);
+
+        // lifted without a pending frame
+        values.clear();
+        handler = resampledPan(values);
+        handler.onTouch(view, MotionEvent.obtain(100, 100, MotionEvent.ACTION_DOWN, 10, 10, 0));
+        handler.onTouch(view, MotionEvent.obtain(100, 116, MotionEvent.ACTION_UP, 70, 10, 0));
+        assertEquals(Collections.singletonList(60d), values);
+    }
+
+    private static BindingXTouchHandler resampledPan(final List<Double> values) {
+        final View target = new View(RuntimeEnvironment.application);
+        PlatformManager manager = new PlatformManager.Builder()
+                .withViewFinder(new PlatformManager.IViewFinder() {
+                    @Override
+                    public View findViewBy(String ref, Object... extension) {
+                        return target;
+                    }
+                })
+                .withViewUpdater(new PlatformManager.IViewUpdater() {
+                    @Override
+                    public void synchronouslyUpdateViewOnUIThread(@NonNull View targetView, @NonNull String propertyName,
+                                                                  @NonNull Object propertyValue,
+                                                                  @NonNull PlatformManager.IDeviceResolutionTranslator translator,
+                                                                  @NonNull Map<String, Object> config, Object... extension) {
+                        values.add(((Number) propertyValue).doubleValue());
+                    }
+                })
+                .withDeviceResolutionTranslator(new PlatformManager.IDeviceResolutionTranslator() {
+                    @Override
+                    public double webToNative(double rawSize, Object... extension) {
+                        return rawSize;
+                    }
+
+                    @Override
+                    public double nativeToWeb(double rawSize, Object... extension) {
+                        return rawSize;
+                    }
+                })
+                .build();
+        BindingXTouchHandler handler = new BindingXTouchHandler(RuntimeEnvironment.application, manager);
+        handler.setPanGestureAvailable(true);
+        Map<String, Object> config = new HashMap<>();
+        config.put(BindingXConstants.KEY_RESAMPLE_TOUCH, true);
+        Map<String, Object> binding = new HashMap<>();
+        binding.put("element", "view");
+        binding.put("property", "transform.translateX");
+        binding.put("expression", "{\"type\":\"Identifier\",\"value\":\"x\"}");
+        List<Map<String, Object>> args = new ArrayList<>();
+        args.add(binding);
+        handler.onBindExpression(BindingXEventType.TYPE_PAN, config, null, args, null);
+        return handler;
+    }
+}
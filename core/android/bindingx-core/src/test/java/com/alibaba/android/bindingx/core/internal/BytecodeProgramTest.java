@@ -0,0 +1,91 @@
+/**
+ * Copyright 2018 Alibaba Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.android.bindingx.core.internal;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class BytecodeProgramTest {
+
+    @Test
+    public void sameResultAsTree() throws Exception {
+        Scope scope = new Scope();
+        Map<String, Object> map = new HashMap<>();
+        for (String json : ExpressionCorpus.EXPRESSIONS) {
+            Expression tree = new Expression(json);
+            tree.optimize();
+            Expression bytecode = tree.toBytecode();
+            if (tree.root.type != ExpressionNode.TYPE_DYNAMIC) {
+                assertNotNull(json, bytecode.program);
+            }
+
+            for (double v = -500.5; v < 1500; v += 13.7) {
+                assign(scope, v);
+                scope.put("t", v);
+                map.put("t", v);
+                assign(map, v);
+                Object expected = tree.execute(scope);
+                assertEquals(json, expected, bytecode.execute(scope));
+                // also on a plain map
+                assertEquals(json, expected, bytecode.execute(map));
+            }
+        }
+    }
+
+    @Test
+    public void compile() throws Exception {
+        // translate(x,y) returns a list
+        Expression translate = new Expression("{\"type\":\"CallExpression\",\"children\":[{\"type\":\"Identifier\",\"value\":\"translate\"},{\"type\":\"Arguments\",\"children\":[{\"type\":\"Identifier\",\"value\":\"x\"},{\"type\":\"Identifier\",\"value\":\"y\"}]}]}");
+        assertNull(BytecodeProgram.compile(translate.root));
+        assertSame(translate, translate.toBytecode());
+
+        // (x+5)*10-y/2 is fully lowered: 2 loads, 3 constants and 4 operations
+        Expression arithmetic = new Expression(ExpressionCorpus.EXPRESSIONS[3]);
+        BytecodeProgram program = BytecodeProgram.compile(arithmetic.root);
+        assertNotNull(program);
+        assertEquals(9, program.instructionCount());
+
+        // the cached expression is left untouched
+        Expression copy = arithmetic.toBytecode();
+        assertTrue(copy != arithmetic);
+        assertNull(arithmetic.program);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void unassignedVariable() throws Exception {
+        // same error as the tree evaluator
+        new Expression(ExpressionCorpus.EXPRESSIONS[3]).toBytecode().execute(new Scope());
+    }
+
+    private static void assign(Map<String, Object> scope, double v) {
+        scope.put("x", v);
+        scope.put("y", v * 0.75);
+        scope.put("dy", v / 4);
+        scope.put("tdy", -v / 8);
+        scope.put("gamma", v / 10);
+    }
+}
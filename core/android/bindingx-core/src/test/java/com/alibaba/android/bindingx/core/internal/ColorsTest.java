@@ -0,0 +1,190 @@
+/**
+ * Copyright 2018 Alibaba Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.android.bindingx.core.internal;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(RobolectricTestRunner.class)
+public class ColorsTest {
+
+    private static final int[] COLORS = {0xff000000, 0xffffffff, 0xffff0000, 0xff0000ff, 0xff1e90ff, 0xff7f3a05, 0xff010203};
+
+    @Test
+    public void parse() throws Exception {
+        assertEquals(0xffff0000, Colors.parse("'#ff0000'"));
+        assertEquals(0xff0000ff, Colors.parse("\"blue\""));
+        // alpha is ignored like before
+        assertEquals(0xff112233, Colors.parse("#80112233"));
+        try {
+            Colors.parse("''");
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        assertEquals(Colors.SPACE_DEFAULT, Colors.spaceOf(null));
+        assertEquals(Colors.SPACE_OKLAB, Colors.spaceOf("'oklab'"));
+    }
+
+    @Test
+    public void blendChannels() throws Exception {
+        for (int from : COLORS) {
+            for (int to : COLORS) {
+                Colors.Interpolation interpolation = new Colors.Interpolation(from, to, Colors.SPACE_SRGB);
+                for (int i = 0; i <= 64; i++) {
+                    float fraction = i / 64f;
+                    assertEquals(channelLerp(fraction, from, to), interpolation.color(fraction, 0, 0, 0));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void blendGamma() throws Exception {
+        for (int from : COLORS) {
+            for (int to : COLORS) {
+                Colors.Interpolation interpolation = new Colors.Interpolation(from, to, Colors.SPACE_GAMMA);
+                for (int i = 0; i <= 1000; i++) {
+                    float fraction = i / 1000f;
+                    assertEquals(gammaLerp(fraction, from, to), interpolation.color(fraction, 0, 0, 0));
+                }
+            }
+        }
+        // every channel value survives a round trip through the tables
+        for (int channel = 0; channel < 256; channel++) {
+            int color = Colors.argb(255, channel, channel, channel);
+            assertEquals(color, new Colors.Interpolation(color, 0xff000000, Colors.SPACE_GAMMA).color(0, 0, 0, 0));
+            assertEquals(color, new Colors.Interpolation(color, 0xff000000, Colors.SPACE_LINEAR).color(0, 0, 0, 0));
+        }
+    }
+
+    @Test
+    public void blendLinearAndOklab() throws Exception {
+        for (int space : new int[]{Colors.SPACE_LINEAR, Colors.SPACE_OKLAB}) {
+            Colors.Interpolation interpolation = new Colors.Interpolation(0xffff0000, 0xff0000ff, space);
+            assertEquals(0xffff0000, interpolation.color(0, 0, 0, 0));
+            assertEquals(0xff0000ff, interpolation.color(1, 0, 0, 0));
+            // clamped
+            assertEquals(0xff0000ff, interpolation.color(1.5, 0, 0, 0));
+        }
+        // half way between black and white is brighter than the stored mid value in linear light
+        int gray = new Colors.Interpolation(0xff000000, 0xffffffff, Colors.SPACE_LINEAR).color(0.5, 0, 0, 0);
+        assertEquals(0xffbcbcbc, gray);
+        int oklabGray = new Colors.Interpolation(0xff000000, 0xffffffff, Colors.SPACE_OKLAB).color(0.5, 0, 0, 0);
+        assertEquals(oklabGray & 0xff, (oklabGray >> 8) & 0xff);
+        assertEquals(oklabGray & 0xff, (oklabGray >> 16) & 0xff);
+        assertTrue((oklabGray & 0xff) > 0x60 && (oklabGray & 0xff) < 0x70);
+    }
+
+    @Test
+    public void bindLiteralColors() throws Exception {
+        // evaluateColor('#ff0000','blue',t/100)
+        String json = "{\"type\":\"CallExpression\",\"children\":[{\"type\":\"Identifier\",\"value\":\"evaluateColor\"},"
+                + "{\"type\":\"Arguments\",\"children\":[{\"type\":\"StringLiteral\",\"value\":\"'#ff0000'\"},"
+                + "{\"type\":\"StringLiteral\",\"value\":\"'blue'\"},"
+                + "{\"type\":\"/\",\"children\":[{\"type\":\"Identifier\",\"value\":\"t\"},{\"type\":\"NumericLiteral\",\"value\":100}]}]}]}";
+        Expression dynamic = new Expression(json);
+        Expression bound = new Expression(json);
+        bound.optimize();
+        assertEquals(ExpressionNode.TYPE_DYNAMIC, dynamic.root.type);
+        assertTrue(bound.isColor());
+        assertTrue(((ExpressionNode.Call) bound.root).color instanceof Colors.Interpolation);
+
+        Scope scope = new Scope();
+        for (double t = -10; t <= 110; t += 2.5) {
+            scope.put("t", t);
+            Object expected = dynamic.execute(scope);
+            assertEquals(expected, bound.execute(scope));
+            assertEquals(expected, bound.executeColor(scope));
+        }
+    }
+
+    @Test
+    public void dynamicColors() throws Exception {
+        JSFunctionInterface evaluateColor = (JSFunctionInterface) Scope.builtinOf("evaluateColor");
+        Colors.Interpolation expected = new Colors.Interpolation(0xffff0000, 0xff0000ff, Colors.SPACE_OKLAB);
+        for (int i = 0; i <= 10; i++) {
+            double fraction = i / 10d;
+            assertEquals(expected.color(fraction, 0, 0, 0), evaluateColor.execute(
+                    new ArrayList<Object>(Arrays.<Object>asList("'#ff0000'", "'blue'", fraction, "'oklab'"))));
+        }
+        // created once for the colors
+        Colors.Interpolation interpolation = Colors.interpolation(0xffff0000, 0xff0000ff, Colors.SPACE_OKLAB);
+        assertSame(interpolation, Colors.interpolation(0xffff0000, 0xff0000ff, Colors.SPACE_OKLAB));
+        Colors.Interpolation reversed = Colors.interpolation(0xff0000ff, 0xffff0000, Colors.SPACE_OKLAB);
+        assertEquals(0xff0000ff, reversed.from);
+        assertEquals(0xffff0000, reversed.to);
+    }
+
+    @Test
+    public void rgb() throws Exception {
+        JSFunctionInterface rgba = (JSFunctionInterface) Scope.builtinOf("rgba");
+        assertEquals(0x7f102030, rgba.execute(new ArrayList<Object>(Arrays.<Object>asList(16d, 32d, 48d, 0.5d))));
+        JSFunctionInterface rgb = (JSFunctionInterface) Scope.builtinOf("rgb");
+        assertEquals(0xff102030, rgb.execute(new ArrayList<Object>(Arrays.<Object>asList(16d, 32d, 48d))));
+
+        // rgb(x,32,48) is a color, rgb(16,32,48) is folded to a color literal
+        String call = "{\"type\":\"CallExpression\",\"children\":[{\"type\":\"Identifier\",\"value\":\"rgb\"},"
+                + "{\"type\":\"Arguments\",\"children\":[{\"type\":\"%s\",\"value\":%s},"
+                + "{\"type\":\"NumericLiteral\",\"value\":32},{\"type\":\"NumericLiteral\",\"value\":48}]}]}";
+        Expression expression = new Expression(String.format(call, "Identifier", "\"x\""));
+        assertTrue(expression.isColor());
+        Scope scope = new Scope();
+        scope.put("x", 16d);
+        assertEquals(0xff102030, expression.execute(scope));
+        assertEquals(0xff102030, expression.executeColor(scope));
+
+        Expression constant = new Expression(String.format(call, "NumericLiteral", "16"));
+        constant.optimize();
+        assertTrue(constant.root instanceof ExpressionNode.Literal);
+        assertTrue(constant.isColor());
+        assertEquals(0xff102030, constant.executeColor(scope));
+        assertSame(Integer.class, constant.execute(scope).getClass());
+    }
+
+    // ArgbEvaluator before Android O
+    private static int channelLerp(float fraction, int from, int to) {
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 8) {
+            int start = (from >> shift) & 0xff;
+            int end = (to >> shift) & 0xff;
+            result |= (start + (int) (fraction * (end - start))) << shift;
+        }
+        return result;
+    }
+
+    // ArgbEvaluator since Android O
+    private static int gammaLerp(float fraction, int from, int to) {
+        float startA = ((from >> 24) & 0xff) / 255.0f;
+        float endA = ((to >> 24) & 0xff) / 255.0f;
+        int result = Math.round((startA + fraction * (endA - startA)) * 255.0f) << 24;
+        for (int shift = 0; shift < 24; shift += 8) {
+            float start = (float) Math.pow(((from >> shift) & 0xff) / 255.0f, 2.2);
+            float end = (float) Math.pow(((to >> shift) & 0xff) / 255.0f, 2.2);
+            float value = start + fraction * (end - start);
+            result |= Math.round((float) Math.pow(value, 1.0 / 2.2) * 255.0f) << shift;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,123 @@
+/**
+ * Copyright 2018 Alibaba Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.android.bindingx.core.internal;
+
+import org.json.JSONException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.alibaba.android.bindingx.core.internal.ExpressionJson.bin;
+import static com.alibaba.android.bindingx.core.internal.ExpressionJson.call;
+import static com.alibaba.android.bindingx.core.internal.ExpressionJson.id;
+import static com.alibaba.android.bindingx.core.internal.ExpressionJson.num;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class CommonSubexpressionsTest {
+
+    // min(max(y,0),200)/200
+    private static final String PROGRESS = "{\"type\":\"/\",\"children\":[" + call("min", call("max", id("y"), num(0)), num(200)) + "," + num(200) + "]}";
+
+    // min(max(track(y),0),200)/200, track is not a built-in function and is looked up in scope
+    private static final String TRACKED_PROGRESS = "{\"type\":\"/\",\"children\":[" + call("min", call("max", call("track", id("y")), num(0)), num(200)) + "," + num(200) + "]}";
+
+    @Test
+    public void shareAcrossHolders() throws Exception {
+        // opacity: 1-progress, scale: 1+progress, translate: progress*100
+        List<ExpressionHolder> holders = new ArrayList<>();
+        holders.add(holder("opacity", bin("-", num(1), TRACKED_PROGRESS)));
+        holders.add(holder("transform.scale", bin("+", num(1), TRACKED_PROGRESS)));
+        holders.add(holder("transform.translateY", bin("*", TRACKED_PROGRESS, num(100))));
+        holders.add(holder("background-color", id("y")));
+
+        CommonSubexpressions common = CommonSubexpressions.eliminate(Collections.singletonList(holders));
+        assertTrue(common != null);
+        // max(track(y),0) is only used through the shared progress
+        assertEquals(1, common.size());
+
+        ExpressionNode shared = ((ExpressionNode.Binary) holders.get(0).expression.root).right;
+        assertTrue(shared instanceof ExpressionNode.Shared);
+        assertSame(shared, ((ExpressionNode.Binary) holders.get(1).expression.root).right);
+        assertSame(shared, ((ExpressionNode.Binary) holders.get(2).expression.root).left);
+
+        final int[] calls = {0};
+        Map<String, Object> scope = new HashMap<>();
+        scope.put("track", new JSFunctionInterface() {
+            @Override
+            public Object execute(ArrayList<Object> arguments) throws NumberFormatException, JSONException {
+                calls[0]++;
+                return arguments.get(0);
+            }
+        });
+
+        for (double y = -50; y <= 250; y += 50) {
+            scope.put("y", y);
+            common.invalidate();
+            double progress = Math.min(Math.max(y, 0), 200) / 200;
+            assertEquals(1 - progress, (double) holders.get(0).expression.execute(scope), 0);
+            assertEquals(1 + progress, (double) holders.get(1).expression.execute(scope), 0);
+            assertEquals(progress * 100, (double) holders.get(2).expression.execute(scope), 0);
+            assertEquals(y, (double) holders.get(3).expression.execute(scope), 0);
+        }
+        // once per event
+        assertEquals(7, calls[0]);
+    }
+
+    @Test
+    public void keepCachedExpressions() throws Exception {
+        Expression cached = new Expression(bin("*", PROGRESS, num(2)));
+        ExpressionNode root = cached.root;
+        List<ExpressionHolder> holders = new ArrayList<>();
+        holders.add(holder("opacity", cached));
+        holders.add(holder("transform.scale", cached));
+
+        assertTrue(CommonSubexpressions.eliminate(Collections.singletonList(holders)) != null);
+        assertSame(root, cached.root);
+        assertNotSame(cached, holders.get(0).expression);
+        assertSame(holders.get(0).expression.root, holders.get(1).expression.root);
+    }
+
+    @Test
+    public void nothingToShare() throws Exception {
+        List<ExpressionHolder> holders = new ArrayList<>();
+        holders.add(holder("opacity", bin("/", id("y"), num(100))));
+        holders.add(holder("transform.scale", bin("/", id("x"), num(100))));
+        Expression expression = holders.get(0).expression;
+        assertNull(CommonSubexpressions.eliminate(Collections.singletonList(holders)));
+        assertSame(expression, holders.get(0).expression);
+    }
+
+    private static ExpressionHolder holder(String prop, String json) {
+        return holder(prop, new Expression(json));
+    }
+
+    private static ExpressionHolder holder(String prop, Expression expression) {
+        ExpressionHolder holder = new ExpressionHolder("ref", null, ExpressionPair.create(null, null), prop, "scroll", null);
+        holder.expression = expression;
+        return holder;
+    }
+}
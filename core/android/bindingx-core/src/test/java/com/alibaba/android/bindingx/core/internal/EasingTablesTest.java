@@ -0,0 +1,125 @@
+/**
+ * Copyright 2018 Alibaba Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.android.bindingx.core.internal;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class EasingTablesTest {
+
+    @Test
+    public void maxError() throws Exception {
+        Map<String, Object> functions = new HashMap<>();
+        TimingFunctions.applyToScope(functions);
+
+        for (String mode : new String[]{BindingXConstants.EASING_TABLE, BindingXConstants.EASING_TABLE_CUBIC}) {
+            for (int resolution : new int[]{64, EasingTables.DEFAULT_RESOLUTION}) {
+                EasingTables tables = EasingTables.obtain(mode, resolution);
+                assertNotNull(tables);
+                int count = 0;
+                for (Map.Entry<String, Object> entry : functions.entrySet()) {
+                    EasingTables.TableFunction table = tables.tableOf(entry.getValue());
+                    if (table == null) {
+                        continue;
+                    }
+                    count++;
+                    PrimitiveFunction.Arity4 analytic = (PrimitiveFunction.Arity4) entry.getValue();
+                    double c = 750;
+                    double d = 300;
+                    for (double t = -10; t <= d + 10; t += 0.0137) {
+                        double expected = analytic.call(t, 40, c, d);
+                        assertEquals(entry.getKey() + "@" + t, expected, table.call(t, 40, c, d), EasingTables.TOLERANCE * c);
+                    }
+                    // exact at both ends
+                    assertEquals(analytic.call(0, 40, c, d), table.call(0, 40, c, d), 0);
+                    assertEquals(analytic.call(d, 40, c, d), table.call(d, 40, c, d), 0);
+                }
+                // all but linear and cubicBezier
+                assertEquals(30, count);
+            }
+        }
+    }
+
+    @Test
+    public void options() throws Exception {
+        assertNull(EasingTables.of(null));
+        Map<String, Object> options = new HashMap<>();
+        options.put(BindingXConstants.KEY_EASING, BindingXConstants.EASING_ANALYTIC);
+        assertNull(EasingTables.of(options));
+
+        options.put(BindingXConstants.KEY_EASING, BindingXConstants.EASING_TABLE_CUBIC);
+        options.put(BindingXConstants.KEY_EASING_RESOLUTION, "100000");
+        EasingTables tables = EasingTables.of(options);
+        assertNotNull(tables);
+        assertTrue(tables.isCubic());
+        assertEquals(EasingTables.MAX_RESOLUTION, tables.resolution());
+        // shared
+        assertSame(tables, EasingTables.of(options));
+
+        EasingTables.setDefault(BindingXConstants.EASING_TABLE, 128);
+        try {
+            tables = EasingTables.of(new HashMap<String, Object>());
+            assertNotNull(tables);
+            assertEquals(128, tables.resolution());
+        } finally {
+            EasingTables.setDefault(null, 0);
+        }
+        assertNull(EasingTables.of(new HashMap<String, Object>()));
+    }
+
+    @Test
+    public void apply() throws Exception {
+        EasingTables tables = EasingTables.obtain(BindingXConstants.EASING_TABLE, EasingTables.DEFAULT_RESOLUTION);
+        assertNotNull(tables);
+
+        // x + 1 calls nothing
+        Expression plain = new Expression(ExpressionCorpus.EXPRESSIONS[0]);
+        assertSame(plain, tables.apply(plain));
+        assertNull(tables.apply(null));
+
+        for (String json : ExpressionCorpus.EXPRESSIONS) {
+            Expression analytic = new Expression(json);
+            Expression table = tables.apply(analytic);
+            Scope scope = new Scope();
+            for (double t = 0; t < 1000; t += 3.3) {
+                scope.put("t", t);
+                scope.put("x", t);
+                scope.put("y", t * 0.75);
+                scope.put("dy", t / 4);
+                scope.put("tdy", -t / 8);
+                scope.put("gamma", t / 10);
+                Object expected = analytic.execute(scope);
+                Object actual = table.execute(scope);
+                if (expected instanceof Double) {
+                    assertEquals(json, (double) expected, (double) actual, 0.1);
+                } else {
+                    assertEquals(json, expected, actual);
+                }
+            }
+        }
+    }
+}
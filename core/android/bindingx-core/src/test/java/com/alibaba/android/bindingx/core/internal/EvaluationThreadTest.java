@@ -0,0 +1,196 @@
+/**
+ * Copyright 2018 Alibaba Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.android.bindingx.core.internal;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EvaluationThreadTest {
+
+    @Test
+    public void inOrderPerThread() throws Exception {
+        EvaluationThread thread = new EvaluationThread(Thread.currentThread(), null);
+        thread.start();
+        final List<Integer> fromRing = Collections.synchronizedList(new ArrayList<Integer>());
+        final List<Integer> fromQueue = Collections.synchronizedList(new ArrayList<Integer>());
+        final int count = 5000;
+        final CountDownLatch done = new CountDownLatch(2);
+
+        final EvaluationThread executor = thread;
+        Thread other = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                post(executor, fromQueue, count, done);
+            }
+        });
+        other.start();
+        // more than the ring holds, the rest goes to the overflow queue
+        post(executor, fromRing, count, done);
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(count, fromRing.size());
+        assertEquals(count, fromQueue.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals(Integer.valueOf(i), fromRing.get(i));
+            assertEquals(Integer.valueOf(i), fromQueue.get(i));
+        }
+        thread.quit();
+        thread.join(1000);
+        assertFalse(thread.isAlive());
+    }
+
+    @Test
+    public void mainThreadNeverWaits() throws Exception {
+        EvaluationThread thread = new EvaluationThread(Thread.currentThread(), null);
+        thread.start();
+        final CountDownLatch blocked = new CountDownLatch(1);
+        thread.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    blocked.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        // the evaluation is stuck, posting still returns
+        List<Integer> values = Collections.synchronizedList(new ArrayList<Integer>());
+        CountDownLatch done = new CountDownLatch(1);
+        post(thread, values, 3000, done);
+        assertTrue(thread.getFullCount() > 0);
+        assertTrue(values.isEmpty());
+
+        blocked.countDown();
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        for (int i = 0; i < 3000; i++) {
+            assertEquals(Integer.valueOf(i), values.get(i));
+        }
+        // and the ring is used again afterwards
+        long full = thread.getFullCount();
+        done = new CountDownLatch(1);
+        post(thread, values, 10, done);
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+        assertEquals(full, thread.getFullCount());
+        assertEquals(3010, values.size());
+        thread.quit();
+    }
+
+    @Test
+    public void quitRunsPendingTasks() throws Exception {
+        EvaluationThread thread = new EvaluationThread(Thread.currentThread(), null);
+        thread.start();
+        final CountDownLatch blocked = new CountDownLatch(1);
+        thread.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    blocked.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        List<Integer> values = Collections.synchronizedList(new ArrayList<Integer>());
+        CountDownLatch done = new CountDownLatch(1);
+        post(thread, values, 10, done);
+        // an end event pending when the thread quits
+        thread.quit();
+        blocked.countDown();
+        thread.join(1000);
+        assertFalse(thread.isAlive());
+        assertEquals(10, values.size());
+        assertEquals(0, done.getCount());
+
+        // nothing runs after that
+        thread.execute(new Runnable() {
+            @Override
+            public void run() {
+                throw new AssertionError();
+            }
+        });
+    }
+
+    @Test
+    public void wakeUpAfterIdle() throws Exception {
+        EvaluationThread thread = new EvaluationThread(Thread.currentThread(), null);
+        thread.start();
+        for (int i = 0; i < 20; i++) {
+            final CountDownLatch done = new CountDownLatch(1);
+            // lets the thread park
+            Thread.sleep(2);
+            thread.execute(new Runnable() {
+                @Override
+                public void run() {
+                    done.countDown();
+                }
+            });
+            assertTrue(done.await(1, TimeUnit.SECONDS));
+        }
+        thread.quit();
+        thread.join(1000);
+        assertFalse(thread.isAlive());
+        assertEquals(20, thread.getExecutedCount());
+    }
+
+    @Test
+    public void survivesFailedTask() throws Exception {
+        EvaluationThread thread = new EvaluationThread(Thread.currentThread(), null);
+        thread.start();
+        final CountDownLatch done = new CountDownLatch(1);
+        thread.execute(new Runnable() {
+            @Override
+            public void run() {
+                throw new IllegalStateException("broken expression");
+            }
+        });
+        thread.execute(new Runnable() {
+            @Override
+            public void run() {
+                done.countDown();
+            }
+        });
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+        thread.quit();
+    }
+
+    private static void post(EvaluationThread executor, final List<Integer> out, int count, final CountDownLatch done) {
+        for (int i = 0; i < count; i++) {
+            final int value = i;
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    out.add(value);
+                }
+            });
+        }
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                done.countDown();
+            }
+        });
+    }
+}
@@ -0,0 +1,82 @@
+/**
+ * Copyright 2018 Alibaba Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.android.bindingx.core.internal;
+
+import org.junit.Ignore;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Locale;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares the tree evaluator with the bytecode interpreter on {@link ExpressionCorpus}.
+ * Not part of the regular test run, remove the @Ignore to run it. Fails if the bytecode is slower.
+ */
+@Ignore("benchmark")
+@RunWith(RobolectricTestRunner.class)
+public class ExpressionBenchmarkTest {
+
+    private static final int WARM_UP_ROUNDS = 20000;
+    private static final int ROUNDS = 200000;
+
+    // keeps the results alive
+    private double mSink;
+
+    @Test
+    public void treeVersusBytecode() throws Exception {
+        Expression[] trees = new Expression[ExpressionCorpus.EXPRESSIONS.length];
+        Expression[] programs = new Expression[trees.length];
+        for (int i = 0; i < trees.length; i++) {
+            trees[i] = new Expression(ExpressionCorpus.EXPRESSIONS[i]);
+            trees[i].optimize();
+            programs[i] = trees[i].toBytecode();
+        }
+        Scope scope = new Scope();
+
+        run(trees, scope, WARM_UP_ROUNDS);
+        run(programs, scope, WARM_UP_ROUNDS);
+
+        long tree = run(trees, scope, ROUNDS);
+        long bytecode = run(programs, scope, ROUNDS);
+        long evaluations = (long) ROUNDS * trees.length;
+        String result = String.format(Locale.US, "tree: %.1f ns/expression, bytecode: %.1f ns/expression (%d expressions)",
+                tree / (double) evaluations, bytecode / (double) evaluations, trees.length);
+        assertFalse(Double.isNaN(mSink));
+        assertTrue(result, bytecode <= tree);
+    }
+
+    private long run(Expression[] expressions, Scope scope, int rounds) throws Exception {
+        long start = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            double v = round % 1000;
+            scope.setDouble(Scope.X, v);
+            scope.setDouble(Scope.Y, v * 0.75);
+            scope.setDouble(Scope.DY, v / 4);
+            scope.setDouble(Scope.TDY, -v / 8);
+            scope.setDouble(Scope.GAMMA, v / 10);
+            scope.setDouble(Scope.T, v);
+            for (Expression expression : expressions) {
+                Object result = expression.execute(scope);
+                mSink += result instanceof Double ? (double) result : 1;
+            }
+        }
+        return System.nanoTime() - start;
+    }
+}
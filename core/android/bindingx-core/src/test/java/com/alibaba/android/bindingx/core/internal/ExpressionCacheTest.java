@@ -0,0 +1,98 @@
+/**
+ * Copyright 2018 Alibaba Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.android.bindingx.core.internal;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class ExpressionCacheTest {
+
+    @Test
+    public void obtain() throws Exception {
+        ExpressionCache cache = new ExpressionCache(16, 64 * 1024);
+        assertNull(cache.obtain(null));
+        assertNull(cache.obtain(ExpressionPair.create("", "{}")));
+        assertEquals(0, cache.missCount());
+
+        Expression first = cache.obtain(ExpressionPair.create("x+1", add("x", 1)));
+        assertNotNull(first);
+        Expression second = cache.obtain(ExpressionPair.create("x+1", add("x", 1)));
+        assertSame(first, second);
+        assertEquals(1, cache.hitCount());
+        assertEquals(1, cache.missCount());
+        assertEquals(1, cache.size());
+        assertEquals(ExpressionCache.estimateBytes(add("x", 1), first), cache.bytes());
+
+        Map<String, Object> scope = new HashMap<>();
+        scope.put("x", 1d);
+        assertEquals(2d, first.execute(scope));
+    }
+
+    @Test
+    public void evictByCount() throws Exception {
+        ExpressionCache cache = new ExpressionCache(2, 64 * 1024);
+        Expression e1 = cache.obtain(ExpressionPair.create(null, add("x", 1)));
+        cache.obtain(ExpressionPair.create(null, add("x", 2)));
+        // touch e1, so the second one is the least recently used
+        assertSame(e1, cache.obtain(ExpressionPair.create(null, add("x", 1))));
+        cache.obtain(ExpressionPair.create(null, add("x", 3)));
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.evictionCount());
+        assertSame(e1, cache.obtain(ExpressionPair.create(null, add("x", 1))));
+        assertEquals(2, cache.hitCount());
+    }
+
+    @Test
+    public void evictByBytes() throws Exception {
+        String json = add("x", 1);
+        int bytes = ExpressionCache.estimateBytes(json, new Expression(json));
+        ExpressionCache cache = new ExpressionCache(16, bytes * 2 + 1);
+        for (int i = 0; i < 5; i++) {
+            cache.obtain(ExpressionPair.create(null, add("x", i)));
+        }
+        assertEquals(2, cache.size());
+        assertEquals(3, cache.evictionCount());
+        assertTrue(cache.bytes() <= bytes * 2 + 1);
+
+        // a single entry larger than the limit is still kept
+        ExpressionCache tiny = new ExpressionCache(16, 1);
+        Expression expression = tiny.obtain(ExpressionPair.create(null, json));
+        assertEquals(1, tiny.size());
+        assertSame(expression, tiny.obtain(ExpressionPair.create(null, json)));
+
+        tiny.clear();
+        assertEquals(0, tiny.size());
+        assertEquals(0, tiny.bytes());
+        assertNotSame(expression, tiny.obtain(ExpressionPair.create(null, json)));
+    }
+
+    private static String add(String name, int value) {
+        return "{\"type\":\"+\",\"children\":[{\"type\":\"Identifier\",\"value\":\"" + name + "\"},{\"type\":\"NumericLiteral\",\"value\":" + value + "}]}";
+    }
+}
@@ -0,0 +1,57 @@
+/**
+ * Copyright 2018 Alibaba Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.android.bindingx.core.internal;
+
+/**
+ * Description:
+ *
+ * Transformed expressions of typical bindings (collapsing headers, parallax, orientation,
+ * timing animations), as produced by bindingx-parser.
+ */
+final class ExpressionCorpus {
+
+    static final String[] EXPRESSIONS = {
+            // 1-min(max(y,0),200)/200
+            "{\"type\":\"-\",\"children\":[{\"type\":\"NumericLiteral\",\"value\":1},{\"type\":\"/\",\"children\":[{\"type\":\"CallExpression\",\"children\":[{\"type\":\"Identifier\",\"value\":\"min\"},{\"type\":\"Arguments\",\"children\":[{\"type\":\"CallExpression\",\"children\":[{\"type\":\"Identifier\",\"value\":\"max\"},{\"type\":\"Arguments\",\"children\":[{\"type\":\"Identifier\",\"value\":\"y\"},{\"type\":\"NumericLiteral\",\"value\":0}]}]},{\"type\":\"NumericLiteral\",\"value\":200}]}]},{\"type\":\"NumericLiteral\",\"value\":200}]}]}",
+            // y>100?0:1-y/100
+            "{\"type\":\"?\",\"children\":[{\"type\":\">\",\"children\":[{\"type\":\"Identifier\",\"value\":\"y\"},{\"type\":\"NumericLiteral\",\"value\":100}]},{\"type\":\"NumericLiteral\",\"value\":0},{\"type\":\"-\",\"children\":[{\"type\":\"NumericLiteral\",\"value\":1},{\"type\":\"/\",\"children\":[{\"type\":\"Identifier\",\"value\":\"y\"},{\"type\":\"NumericLiteral\",\"value\":100}]}]}]}",
+            // min(max(y,0),200)/200*0.2+0.8
+            "{\"type\":\"+\",\"children\":[{\"type\":\"*\",\"children\":[{\"type\":\"/\",\"children\":[{\"type\":\"CallExpression\",\"children\":[{\"type\":\"Identifier\",\"value\":\"min\"},{\"type\":\"Arguments\",\"children\":[{\"type\":\"CallExpression\",\"children\":[{\"type\":\"Identifier\",\"value\":\"max\"},{\"type\":\"Arguments\",\"children\":[{\"type\":\"Identifier\",\"value\":\"y\"},{\"type\":\"NumericLiteral\",\"value\":0}]}]},{\"type\":\"NumericLiteral\",\"value\":200}]}]},{\"type\":\"NumericLiteral\",\"value\":200}]},{\"type\":\"NumericLiteral\",\"value\":0.2}]},{\"type\":\"NumericLiteral\",\"value\":0.8}]}",
+            // (x+5)*10-y/2
+            "{\"type\":\"-\",\"children\":[{\"type\":\"*\",\"children\":[{\"type\":\"+\",\"children\":[{\"type\":\"Identifier\",\"value\":\"x\"},{\"type\":\"NumericLiteral\",\"value\":5}]},{\"type\":\"NumericLiteral\",\"value\":10}]},{\"type\":\"/\",\"children\":[{\"type\":\"Identifier\",\"value\":\"y\"},{\"type\":\"NumericLiteral\",\"value\":2}]}]}",
+            // sin(gamma/180*PI)*100
+            "{\"type\":\"*\",\"children\":[{\"type\":\"CallExpression\",\"children\":[{\"type\":\"Identifier\",\"value\":\"sin\"},{\"type\":\"Arguments\",\"children\":[{\"type\":\"*\",\"children\":[{\"type\":\"/\",\"children\":[{\"type\":\"Identifier\",\"value\":\"gamma\"},{\"type\":\"NumericLiteral\",\"value\":180}]},{\"type\":\"Identifier\",\"value\":\"PI\"}]}]}]},{\"type\":\"NumericLiteral\",\"value\":100}]}",
+            // abs(dy)>10&&y<500?1:0
+            "{\"type\":\"?\",\"children\":[{\"type\":\"&&\",\"children\":[{\"type\":\">\",\"children\":[{\"type\":\"CallExpression\",\"children\":[{\"type\":\"Identifier\",\"value\":\"abs\"},{\"type\":\"Arguments\",\"children\":[{\"type\":\"Identifier\",\"value\":\"dy\"}]}]},{\"type\":\"NumericLiteral\",\"value\":10}]},{\"type\":\"<\",\"children\":[{\"type\":\"Identifier\",\"value\":\"y\"},{\"type\":\"NumericLiteral\",\"value\":500}]}]},{\"type\":\"NumericLiteral\",\"value\":1},{\"type\":\"NumericLiteral\",\"value\":0}]}",
+            // max(0,min(1,x/750))*3.14*2
+            "{\"type\":\"*\",\"children\":[{\"type\":\"*\",\"children\":[{\"type\":\"CallExpression\",\"children\":[{\"type\":\"Identifier\",\"value\":\"max\"},{\"type\":\"Arguments\",\"children\":[{\"type\":\"NumericLiteral\",\"value\":0},{\"type\":\"CallExpression\",\"children\":[{\"type\":\"Identifier\",\"value\":\"min\"},{\"type\":\"Arguments\",\"children\":[{\"type\":\"NumericLiteral\",\"value\":1},{\"type\":\"/\",\"children\":[{\"type\":\"Identifier\",\"value\":\"x\"},{\"type\":\"NumericLiteral\",\"value\":750}]}]}]}]}]},{\"type\":\"NumericLiteral\",\"value\":3.14}]},{\"type\":\"NumericLiteral\",\"value\":2}]}",
+            // pow(x/300,2)*100
+            "{\"type\":\"*\",\"children\":[{\"type\":\"CallExpression\",\"children\":[{\"type\":\"Identifier\",\"value\":\"pow\"},{\"type\":\"Arguments\",\"children\":[{\"type\":\"/\",\"children\":[{\"type\":\"Identifier\",\"value\":\"x\"},{\"type\":\"NumericLiteral\",\"value\":300}]},{\"type\":\"NumericLiteral\",\"value\":2}]}]},{\"type\":\"NumericLiteral\",\"value\":100}]}",
+            // t>=1000?300:easeOutCubic(t,0,300,1000)
+            "{\"type\":\"?\",\"children\":[{\"type\":\">=\",\"children\":[{\"type\":\"Identifier\",\"value\":\"t\"},{\"type\":\"NumericLiteral\",\"value\":1000}]},{\"type\":\"NumericLiteral\",\"value\":300},{\"type\":\"CallExpression\",\"children\":[{\"type\":\"Identifier\",\"value\":\"easeOutCubic\"},{\"type\":\"Arguments\",\"children\":[{\"type\":\"Identifier\",\"value\":\"t\"},{\"type\":\"NumericLiteral\",\"value\":0},{\"type\":\"NumericLiteral\",\"value\":300},{\"type\":\"NumericLiteral\",\"value\":1000}]}]}]}",
+            // x*0.5+(y>0?y:0-y)*0.25
+            "{\"type\":\"+\",\"children\":[{\"type\":\"*\",\"children\":[{\"type\":\"Identifier\",\"value\":\"x\"},{\"type\":\"NumericLiteral\",\"value\":0.5}]},{\"type\":\"*\",\"children\":[{\"type\":\"?\",\"children\":[{\"type\":\">\",\"children\":[{\"type\":\"Identifier\",\"value\":\"y\"},{\"type\":\"NumericLiteral\",\"value\":0}]},{\"type\":\"Identifier\",\"value\":\"y\"},{\"type\":\"-\",\"children\":[{\"type\":\"NumericLiteral\",\"value\":0},{\"type\":\"Identifier\",\"value\":\"y\"}]}]},{\"type\":\"NumericLiteral\",\"value\":0.25}]}]}",
+            // y>0&&y<300
+            "{\"type\":\"&&\",\"children\":[{\"type\":\">\",\"children\":[{\"type\":\"Identifier\",\"value\":\"y\"},{\"type\":\"NumericLiteral\",\"value\":0}]},{\"type\":\"<\",\"children\":[{\"type\":\"Identifier\",\"value\":\"y\"},{\"type\":\"NumericLiteral\",\"value\":300}]}]}",
+            // (tdy>0||dy<0)&&y>=x
+            "{\"type\":\"&&\",\"children\":[{\"type\":\"||\",\"children\":[{\"type\":\">\",\"children\":[{\"type\":\"Identifier\",\"value\":\"tdy\"},{\"type\":\"NumericLiteral\",\"value\":0}]},{\"type\":\"<\",\"children\":[{\"type\":\"Identifier\",\"value\":\"dy\"},{\"type\":\"NumericLiteral\",\"value\":0}]}]},{\"type\":\">=\",\"children\":[{\"type\":\"Identifier\",\"value\":\"y\"},{\"type\":\"Identifier\",\"value\":\"x\"}]}]}",
+            // x%7==y%7?x:y
+            "{\"type\":\"?\",\"children\":[{\"type\":\"==\",\"children\":[{\"type\":\"%\",\"children\":[{\"type\":\"Identifier\",\"value\":\"x\"},{\"type\":\"NumericLiteral\",\"value\":7}]},{\"type\":\"%\",\"children\":[{\"type\":\"Identifier\",\"value\":\"y\"},{\"type\":\"NumericLiteral\",\"value\":7}]}]},{\"type\":\"Identifier\",\"value\":\"x\"},{\"type\":\"Identifier\",\"value\":\"y\"}]}",
+    };
+
+    private ExpressionCorpus() {
+    }
+}
@@ -0,0 +1,63 @@
+/**
+ * Copyright 2018 Alibaba Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.android.bindingx.core.internal;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ExpressionHolderTest {
+
+    @Test
+    public void isSameAsLastValue() throws Exception {
+        ExpressionHolder holder = new ExpressionHolder("ref", null, ExpressionPair.create(null, null), "opacity", "scroll", null);
+        // nothing has been applied yet
+        assertFalse(holder.isSameAsLastValue(1d, 0));
+
+        holder.lastValue = 1d;
+        assertTrue(holder.isSameAsLastValue(1d, 0));
+        assertFalse(holder.isSameAsLastValue(1.01d, 0));
+        assertTrue(holder.isSameAsLastValue(1.01d, 0.05));
+        assertFalse(holder.isSameAsLastValue(1.1d, 0.05));
+        assertFalse(holder.isSameAsLastValue(true, 0));
+
+        holder.lastValue = "#ff0000";
+        assertTrue(holder.isSameAsLastValue("#ff0000", 0));
+        assertFalse(holder.isSameAsLastValue("#00ff00", 0));
+
+        // translate(x,y)
+        holder.lastValue = new ArrayList<Object>(Arrays.asList(10d, 20d));
+        assertTrue(holder.isSameAsLastValue(new ArrayList<Object>(Arrays.asList(10d, 20d)), 0));
+        assertTrue(holder.isSameAsLastValue(new ArrayList<Object>(Arrays.asList(10d, 20.001d)), 0.01));
+        assertFalse(holder.isSameAsLastValue(new ArrayList<Object>(Arrays.asList(10d, 21d)), 0.01));
+        assertFalse(holder.isSameAsLastValue(new ArrayList<Object>(Arrays.asList(10d)), 0.01));
+    }
+
+    @Test
+    public void isSameColorAsLastValue() throws Exception {
+        ExpressionHolder holder = new ExpressionHolder("ref", null, ExpressionPair.create(null, null), "background-color", "scroll", null);
+        assertFalse(holder.isSameColorAsLastValue(0xffff0000));
+        holder.lastValue = 0xffff0000;
+        assertTrue(holder.isSameColorAsLastValue(0xffff0000));
+        assertFalse(holder.isSameColorAsLastValue(0xfffe0000));
+        holder.lastValue = 1d;
+        assertFalse(holder.isSameColorAsLastValue(1));
+    }
+}
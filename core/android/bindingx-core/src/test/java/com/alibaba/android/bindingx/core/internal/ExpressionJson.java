@@ -0,0 +1,54 @@
+/**
+ * Copyright 2018 Alibaba Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.android.bindingx.core.internal;
+
+/**
+ * Description:
+ *
+ * Builds the transformed json of an expression, as produced by bindingx-parser, for the tests.
+ */
+final class ExpressionJson {
+
+    static String num(double value) {
+        return "{\"type\":\"NumericLiteral\",\"value\":" + value + "}";
+    }
+
+    static String str(String value) {
+        return "{\"type\":\"StringLiteral\",\"value\":\"" + value + "\"}";
+    }
+
+    static String id(String name) {
+        return "{\"type\":\"Identifier\",\"value\":\"" + name + "\"}";
+    }
+
+    static String bin(String operator, String left, String right) {
+        return "{\"type\":\"" + operator + "\",\"children\":[" + left + "," + right + "]}";
+    }
+
+    static String call(String name, String... arguments) {
+        StringBuilder builder = new StringBuilder();
+        for (String argument : arguments) {
+            if (builder.length() > 0) {
+                builder.append(',');
+            }
+            builder.append(argument);
+        }
+        return "{\"type\":\"CallExpression\",\"children\":[" + id(name) + ",{\"type\":\"Arguments\",\"children\":[" + builder + "]}]}";
+    }
+
+    private ExpressionJson() {
+    }
+}
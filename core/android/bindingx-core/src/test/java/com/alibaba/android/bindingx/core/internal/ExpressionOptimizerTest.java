@@ -0,0 +1,103 @@
+/**
+ * Copyright 2018 Alibaba Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.android.bindingx.core.internal;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.alibaba.android.bindingx.core.internal.ExpressionJson.bin;
+import static com.alibaba.android.bindingx.core.internal.ExpressionJson.call;
+import static com.alibaba.android.bindingx.core.internal.ExpressionJson.id;
+import static com.alibaba.android.bindingx.core.internal.ExpressionJson.num;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class ExpressionOptimizerTest {
+
+    // 750/2
+    private static final String EXP_CONSTANT = bin("/", num(750), num(2));
+
+    // x*(PI/180)
+    private static final String EXP_PI = bin("*", id("x"), bin("/", id("PI"), num(180)));
+
+    // pow(x,2)+sin(PI/2)
+    private static final String EXP_POW = bin("+", call("pow", id("x"), num(2)), call("sin", bin("/", id("PI"), num(2))));
+
+    // x/4 - y/3
+    private static final String EXP_DIV = bin("-", bin("/", id("x"), num(4)), bin("/", id("y"), num(3)));
+
+    // 1 > 2 ? x : y*2
+    private static final String EXP_DEAD_BRANCH = "{\"type\":\"?\",\"children\":[" + bin(">", num(1), num(2)) + "," + id("x") + "," + bin("*", id("y"), num(2)) + "]}";
+
+    @Test
+    public void foldConstants() throws Exception {
+        Expression e = new Expression(EXP_CONSTANT);
+        assertEquals(2, e.optimize());
+        assertTrue(e.root instanceof ExpressionNode.Literal);
+        assertEquals(375d, (double) e.execute(new HashMap<String, Object>()), 0);
+
+        Expression pi = new Expression(EXP_PI);
+        assertEquals(2, pi.optimize());
+        assertTrue(((ExpressionNode.Binary) pi.root).right instanceof ExpressionNode.Literal);
+    }
+
+    @Test
+    public void reduceStrength() throws Exception {
+        Expression pow = new Expression(EXP_POW);
+        pow.optimize();
+        ExpressionNode.Binary root = (ExpressionNode.Binary) pow.root;
+        assertTrue(root.left instanceof ExpressionNode.Square);
+        assertTrue(root.right instanceof ExpressionNode.Literal);
+
+        Expression div = new Expression(EXP_DIV);
+        div.optimize();
+        ExpressionNode.Binary sub = (ExpressionNode.Binary) div.root;
+        assertEquals(ExpressionNode.Binary.MUL, ((ExpressionNode.Binary) sub.left).operator);
+        // 1/3 is not exact, so the division is kept
+        assertEquals(ExpressionNode.Binary.DIV, ((ExpressionNode.Binary) sub.right).operator);
+    }
+
+    @Test
+    public void removeDeadBranches() throws Exception {
+        Expression e = new Expression(EXP_DEAD_BRANCH);
+        assertEquals(5, e.optimize());
+        assertTrue(e.root instanceof ExpressionNode.Binary);
+    }
+
+    @Test
+    public void bitCompatible() throws Exception {
+        String[] expressions = {EXP_PI, EXP_POW, EXP_DIV, EXP_DEAD_BRANCH};
+        Map<String, Object> scope = new HashMap<>();
+        JSMath.applyToScope(scope);
+        for (String json : expressions) {
+            Expression original = new Expression(json);
+            Expression optimized = new Expression(json);
+            optimized.optimize();
+            for (double v = -1000.5; v < 1000; v += 7.3) {
+                scope.put("x", v);
+                scope.put("y", v / 3);
+                double expected = (double) original.execute(scope);
+                double actual = (double) optimized.execute(scope);
+                assertEquals(Double.doubleToLongBits(expected), Double.doubleToLongBits(actual));
+            }
+        }
+    }
+}
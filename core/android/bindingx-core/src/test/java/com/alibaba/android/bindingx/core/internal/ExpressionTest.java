@@ -23,6 +23,9 @@ import java.util.HashMap;
 import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 @RunWith(RobolectricTestRunner.class)
 public class ExpressionTest {
@@ -72,4 +75,59 @@ public class ExpressionTest {
         assertEquals(200d, value5, 0.1);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void compile() throws Exception {
+        Expression e3 = new Expression(EXP_3);
+        assertTrue(e3.root instanceof ExpressionNode.Call);
+        ExpressionNode.Call call = (ExpressionNode.Call) e3.root;
+        // built-in functions are resolved at compile time
+        assertTrue(call.function instanceof ExpressionNode.Literal);
+        assertTrue(((ExpressionNode.Literal) call.function).value instanceof JSFunctionInterface);
+        assertEquals(2, call.arguments.length);
+        assertTrue(call.arguments[0] instanceof ExpressionNode.Binary);
+        assertTrue(((ExpressionNode.Binary) call.arguments[0]).left instanceof ExpressionNode.Variable);
+
+        Expression e5 = new Expression(EXP_5);
+        assertTrue(e5.root instanceof ExpressionNode.Conditional);
+
+        Expression illegal = new Expression("{\"type\":\"Unknown\"}");
+        assertNull(illegal.execute(new HashMap<String, Object>()));
+    }
+
+    @Test
+    public void evaluatePrimitive() throws Exception {
+        Map<String,Object> scope = new HashMap<>();
+        scope.put("x", 10d);
+        scope.put("y", 12d);
+
+        Expression e2 = new Expression(EXP_2);
+        assertEquals(ExpressionNode.TYPE_NUMBER, e2.root.type);
+        assertEquals(144d, e2.root.evaluateDouble(scope), 0.1);
+
+        Expression e4 = new Expression(EXP_4);
+        assertEquals(ExpressionNode.TYPE_BOOLEAN, e4.root.type);
+        assertFalse(e4.root.evaluateBoolean(scope));
+
+        Expression e5 = new Expression(EXP_5);
+        assertEquals(ExpressionNode.TYPE_NUMBER, e5.root.type);
+        assertEquals(200d, e5.root.evaluateDouble(scope), 0.1);
+        assertEquals(200d, (double) e5.execute(scope), 0.1);
+
+        // calls of built-in functions with a fixed number of arguments are numeric
+        Expression e3 = new Expression(EXP_3);
+        assertEquals(ExpressionNode.TYPE_NUMBER, e3.root.type);
+        assertEquals(22d, e3.root.evaluateDouble(scope), 0.1);
+    }
+
+    @Test
+    public void variableNamedLikeFunction() throws Exception {
+        // scale(scale, 1): the transform function of the pinch scale
+        Expression e = new Expression("{\"type\":\"CallExpression\",\"children\":[{\"type\":\"Identifier\",\"value\":\"scale\"},"
+                + "{\"type\":\"Arguments\",\"children\":[{\"type\":\"Identifier\",\"value\":\"scale\"},{\"type\":\"NumericLiteral\",\"value\":1}]}]}");
+        ExpressionNode.Call call = (ExpressionNode.Call) e.root;
+        assertTrue(call.function instanceof ExpressionNode.Literal);
+        assertTrue(call.arguments[0] instanceof ExpressionNode.Variable);
+        assertEquals(Scope.SCALE, ((ExpressionNode.Variable) call.arguments[0]).slot);
+    }
+
+}
@@ -0,0 +1,141 @@
+/**
+ * Copyright 2018 Alibaba Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.android.bindingx.core.internal;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FlingSimulationTest {
+
+    private static final double INF = Double.POSITIVE_INFINITY;
+    private static final double FRAME = 1 / 60.0;
+
+    @Test
+    public void decay() throws Exception {
+        FlingSimulation fling = new FlingSimulation(0.998, 180, true, -INF, INF, -INF, INF, 10, 0.5);
+        fling.start(100, 0, 2000, -1000);
+        assertTrue(fling.update(0.1));
+        double friction = -Math.log(0.998) * 1000;
+        // the content comes to rest at v0 / friction from the release
+        double rest = 100 + 2000 / friction;
+        double lastX = 100;
+        double lastV = 2000;
+        double t = 0.1;
+        while (fling.update(t)) {
+            assertTrue(fling.x() >= lastX);
+            assertTrue(fling.vx() <= lastV);
+            assertTrue(fling.vy() <= 0);
+            lastX = fling.x();
+            lastV = fling.vx();
+            t += FRAME;
+        }
+        assertEquals(rest, fling.x(), 10);
+        assertEquals(-1000 / friction, fling.y(), 10);
+        assertEquals(0, fling.vx(), 0);
+        // about three seconds for a fast fling
+        assertTrue(t > 2 && t < 5);
+    }
+
+    @Test
+    public void sameAtAnyFrameRate() throws Exception {
+        FlingSimulation a = new FlingSimulation(0.998, 180, true, 0, 500, -INF, INF, 10, 0.5);
+        FlingSimulation b = new FlingSimulation(0.998, 180, true, 0, 500, -INF, INF, 10, 0.5);
+        a.start(400, 0, 3000, 0);
+        b.start(400, 0, 3000, 0);
+        for (int i = 1; i <= 30; i++) {
+            a.update(i / 120.0);
+        }
+        // missed every other frame and then some
+        b.update(0.1);
+        b.update(0.25);
+        assertEquals(a.x(), b.x(), 1e-9);
+        assertEquals(a.vx(), b.vx(), 1e-9);
+    }
+
+    @Test
+    public void springBackAtBound() throws Exception {
+        FlingSimulation fling = new FlingSimulation(0.998, 180, true, 0, 500, -INF, INF, 10, 0.5);
+        fling.start(400, 0, 3000, 0);
+        double farthest = 0;
+        double t = 0;
+        while (fling.update(t += FRAME)) {
+            farthest = Math.max(farthest, fling.x());
+            assertTrue(t < 5);
+        }
+        // ran past the bound and came back without oscillating
+        assertTrue(farthest > 500);
+        assertEquals(500, fling.x(), 0);
+        assertEquals(0, fling.vx(), 0);
+    }
+
+    @Test
+    public void stopAtBoundWithoutRubberBand() throws Exception {
+        FlingSimulation fling = new FlingSimulation(0.998, 180, false, 0, 500, -INF, INF, 10, 0.5);
+        fling.start(400, 0, 3000, 0);
+        double t = 0;
+        while (fling.update(t += FRAME)) {
+            assertTrue(fling.x() <= 500);
+        }
+        assertEquals(500, fling.x(), 0);
+    }
+
+    @Test
+    public void releasedBeyondBound() throws Exception {
+        FlingSimulation fling = new FlingSimulation(0.998, 180, true, 0, 500, 0, 500, 10, 0.5);
+        // dragged above the top and let go at rest
+        fling.start(200, -80, 0, 0);
+        assertFalse(fling.isFinished());
+        double t = 0;
+        while (fling.update(t += FRAME)) {
+            assertEquals(200, fling.x(), 0);
+            assertTrue(fling.y() <= 0);
+        }
+        assertEquals(0, fling.y(), 0);
+        assertTrue(t < 1);
+    }
+
+    @Test
+    public void restAtOnce() throws Exception {
+        FlingSimulation fling = new FlingSimulation(0.998, 180, true, 0, 500, 0, 500, 10, 0.5);
+        fling.start(200, 300, 5, -5);
+        assertTrue(fling.isFinished());
+        assertEquals(200, fling.x(), 0);
+        assertEquals(300, fling.y(), 0);
+    }
+
+    @Test
+    public void drag() throws Exception {
+        FlingSimulation fling = new FlingSimulation(0.998, 180, true, 0, 500, -INF, INF, 10, 0.5);
+        assertEquals(250, fling.dragX(250, 400), 0);
+        double beyond = fling.dragX(600, 400);
+        assertTrue(beyond > 500 && beyond < 600);
+        // never more than the dimension
+        assertTrue(fling.dragX(100000, 400) < 900);
+        assertEquals(-fling.dragX(600, 400) + 500, fling.dragX(-100, 400), 1e-9);
+        assertEquals(-300, fling.dragY(-300, 400), 0);
+
+        FlingSimulation hard = new FlingSimulation(0.998, 180, false, 0, 500, -INF, INF, 10, 0.5);
+        assertEquals(500, hard.dragX(600, 400), 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void illegalDeceleration() throws Exception {
+        new FlingSimulation(1, 180, true, -INF, INF, -INF, INF, 10, 0.5);
+    }
+}
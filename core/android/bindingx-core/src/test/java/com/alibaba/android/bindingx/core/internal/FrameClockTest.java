@@ -0,0 +1,85 @@
+/**
+ * Copyright 2018 Alibaba Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.android.bindingx.core.internal;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FrameClockTest {
+
+    private static final long START = 5000000000L;
+    private static final long INTERVAL = 16666667L;
+
+    @Test
+    public void vsyncTime() throws Exception {
+        FrameClock clock = new FrameClock(FrameClock.POLICY_CATCH_UP);
+        assertFalse(clock.isStarted());
+        assertEquals(0, clock.onFrame(START, INTERVAL), 0);
+        assertTrue(clock.isStarted());
+        // sub millisecond precision
+        assertEquals(16.666667, clock.onFrame(START + INTERVAL, INTERVAL), 1e-9);
+        assertEquals(33.333334, clock.onFrame(START + 2 * INTERVAL, INTERVAL), 1e-9);
+        // the same frame again
+        assertEquals(33.333334, clock.onFrame(START + 2 * INTERVAL, INTERVAL), 1e-9);
+        assertEquals(0, clock.droppedFrames());
+
+        clock.reset();
+        assertEquals(0, clock.onFrame(START + 10 * INTERVAL, INTERVAL), 0);
+    }
+
+    @Test
+    public void catchUp() throws Exception {
+        FrameClock clock = new FrameClock(FrameClock.POLICY_CATCH_UP);
+        clock.onFrame(START, INTERVAL);
+        clock.onFrame(START + INTERVAL, INTERVAL);
+        // a late frame within the tolerance
+        clock.onFrame(START + INTERVAL * 12 / 5, INTERVAL);
+        assertEquals(0, clock.droppedFrames());
+        // three frames lost
+        double t = clock.onFrame(START + 6 * INTERVAL, INTERVAL);
+        assertEquals(3, clock.droppedFrames());
+        assertEquals(6 * INTERVAL / 1e6, t, 1e-9);
+    }
+
+    @Test
+    public void stretch() throws Exception {
+        FrameClock clock = new FrameClock(FrameClock.POLICY_STRETCH);
+        clock.onFrame(START, INTERVAL);
+        clock.onFrame(START + INTERVAL, INTERVAL);
+        double t = clock.onFrame(START + 5 * INTERVAL, INTERVAL);
+        assertEquals(3, clock.droppedFrames());
+        // one frame later than the last one
+        assertEquals(2 * INTERVAL / 1e6, t, 1e-9);
+        assertEquals(3 * INTERVAL / 1e6, clock.onFrame(START + 6 * INTERVAL, INTERVAL), 1e-9);
+    }
+
+    @Test
+    public void policyOf() throws Exception {
+        Map<String, Object> config = new HashMap<>();
+        assertEquals(FrameClock.POLICY_CATCH_UP, FrameClock.policyOf(null));
+        assertEquals(FrameClock.POLICY_CATCH_UP, FrameClock.policyOf(config));
+        config.put(BindingXConstants.KEY_FRAME_DROP_POLICY, BindingXConstants.FRAME_DROP_STRETCH);
+        assertEquals(FrameClock.POLICY_STRETCH, FrameClock.policyOf(config));
+        config.put(BindingXConstants.KEY_FRAME_DROP_POLICY, "skip");
+        assertEquals(FrameClock.POLICY_CATCH_UP, FrameClock.policyOf(config));
+    }
+}
@@ -0,0 +1,130 @@
+/**
+ * Copyright 2018 Alibaba Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.android.bindingx.core.internal;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FramePacerTest {
+
+    private static final long SECOND = 1000000000L;
+    private static final long MILLIS = 1000000L;
+
+    @Test
+    public void targetRate() throws Exception {
+        FakeClock clock = new FakeClock();
+        FramePacer pacer = new FramePacer(clock, 60);
+        // a fixed delay after callbacks of 5ms made less than 48 frames per second
+        assertEquals(60, run(pacer, clock, 5 * MILLIS, SECOND).size(), 1);
+
+        pacer.setFrameRate(120);
+        assertEquals(120, run(pacer, clock, 2 * MILLIS, SECOND).size(), 1);
+
+        pacer.setFrameRate(90);
+        assertEquals(900, run(pacer, clock, 5 * MILLIS, 10 * SECOND).size(), 1);
+    }
+
+    @Test
+    public void noDrift() throws Exception {
+        FakeClock clock = new FakeClock();
+        FramePacer pacer = new FramePacer(clock, 60);
+        long interval = pacer.getFrameIntervalNanos();
+        List<Long> frames = run(pacer, clock, 7 * MILLIS, 10 * SECOND);
+        long origin = frames.get(0);
+        for (int i = 0; i < frames.size(); i++) {
+            assertEquals(origin + i * interval, (long) frames.get(i));
+        }
+    }
+
+    @Test
+    public void skipMissedFrames() throws Exception {
+        FakeClock clock = new FakeClock();
+        FramePacer pacer = new FramePacer(clock, 60);
+        long interval = pacer.getFrameIntervalNanos();
+        // callbacks slower than two frames
+        List<Long> frames = run(pacer, clock, 40 * MILLIS, SECOND);
+        assertEquals(SECOND / (40 * MILLIS), frames.size(), 1);
+        for (int i = 1; i < frames.size(); i++) {
+            long gap = frames.get(i) - frames.get(i - 1);
+            // on the grid, no burst of the missed ones
+            assertEquals(0, gap % interval);
+            assertTrue(gap >= 2 * interval);
+        }
+        // and not behind the real time
+        assertTrue(clock.now - frames.get(frames.size() - 1) < 40 * MILLIS + interval);
+    }
+
+    @Test
+    public void startAtOnce() throws Exception {
+        FakeClock clock = new FakeClock();
+        FramePacer pacer = new FramePacer(clock, 60);
+        assertEquals(0, pacer.delayMillis(pacer.nextFrameTime()));
+        pacer.onFrame(clock.now);
+
+        // the next one is due in a frame, rounded up
+        long next = pacer.nextFrameTime();
+        assertEquals(clock.now + pacer.getFrameIntervalNanos(), next);
+        assertEquals(17, pacer.delayMillis(next));
+
+        // idle for a while
+        clock.now += 3 * SECOND + 5 * MILLIS;
+        next = pacer.nextFrameTime();
+        assertEquals(0, pacer.delayMillis(next));
+        assertTrue(clock.now - next < pacer.getFrameIntervalNanos());
+    }
+
+    @Test
+    public void illegalRate() throws Exception {
+        FramePacer pacer = new FramePacer(new FakeClock(), 0);
+        assertEquals(SECOND / 60, pacer.getFrameIntervalNanos(), 1);
+        pacer.setFrameRate(Float.NaN);
+        assertEquals(SECOND / 60, pacer.getFrameIntervalNanos(), 1);
+        pacer.setFrameRate(144);
+        assertEquals(SECOND / 144, pacer.getFrameIntervalNanos(), 1);
+    }
+
+    /**
+     * runs frames like a handler does: a message is delivered at whole milliseconds, not before it is due
+     * */
+    private static List<Long> run(FramePacer pacer, FakeClock clock, long costNanos, long durationNanos) {
+        List<Long> frames = new ArrayList<>();
+        long end = clock.now + durationNanos;
+        while (true) {
+            long frameTime = pacer.nextFrameTime();
+            clock.now += pacer.delayMillis(frameTime) * MILLIS;
+            if (clock.now >= end) {
+                return frames;
+            }
+            pacer.onFrame(frameTime);
+            frames.add(frameTime);
+            clock.now += costNanos;
+        }
+    }
+
+    private static final class FakeClock implements FramePacer.Clock {
+        long now = 7 * SECOND;
+
+        @Override
+        public long nanoTime() {
+            return now;
+        }
+    }
+}
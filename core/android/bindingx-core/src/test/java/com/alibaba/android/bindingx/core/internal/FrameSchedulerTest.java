@@ -0,0 +1,248 @@
+/**
+ * Copyright 2018 Alibaba Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.android.bindingx.core.internal;
+
+import android.support.annotation.NonNull;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class FrameSchedulerTest {
+
+    @Test
+    public void tickInOrder() throws Exception {
+        FakeDriver driver = new FakeDriver();
+        FrameScheduler scheduler = new FrameScheduler(driver);
+        List<String> ticks = new ArrayList<>();
+        RecordingCallback a = new RecordingCallback("a", ticks);
+        RecordingCallback b = new RecordingCallback("b", ticks);
+        RecordingCallback c = new RecordingCallback("c", ticks);
+
+        scheduler.add(a);
+        scheduler.add(b);
+        scheduler.add(c);
+        scheduler.add(a);
+        // one frame is pending however many callbacks are active
+        assertEquals(1, driver.posts);
+        assertEquals(3, scheduler.getActiveCount());
+
+        driver.frame();
+        driver.frame();
+        assertEquals(Arrays.asList("a", "b", "c", "a", "b", "c"), ticks);
+        assertEquals(3, driver.posts);
+        assertEquals(2, scheduler.getFrameCount());
+        assertEquals(3, scheduler.getLastTickCount());
+    }
+
+    @Test
+    public void changesDuringFrame() throws Exception {
+        FakeDriver driver = new FakeDriver();
+        final FrameScheduler scheduler = new FrameScheduler(driver);
+        final List<String> ticks = new ArrayList<>();
+        final RecordingCallback c = new RecordingCallback("c", ticks);
+        final RecordingCallback d = new RecordingCallback("d", ticks);
+        AnimationFrame.Callback a = new AnimationFrame.Callback() {
+            @Override
+            public void doFrame(long frameTimeNanos) {
+                ticks.add("a");
+                scheduler.remove(c);
+                scheduler.add(d);
+            }
+        };
+        scheduler.add(a);
+        scheduler.add(new RecordingCallback("b", ticks));
+        scheduler.add(c);
+
+        driver.frame();
+        // c has been removed before its turn, d is added for the next frame
+        assertEquals(Arrays.asList("a", "b"), ticks);
+        assertEquals(2, scheduler.getLastTickCount());
+        assertTrue(scheduler.isActive(d));
+        assertFalse(scheduler.isActive(c));
+    }
+
+    @Test
+    public void stopWhenIdle() throws Exception {
+        FakeDriver driver = new FakeDriver();
+        final FrameScheduler scheduler = new FrameScheduler(driver);
+        RecordingCallback a = new RecordingCallback("a", new ArrayList<String>());
+        scheduler.add(a);
+        scheduler.remove(a);
+        assertEquals(1, driver.cancels);
+        assertFalse(driver.pending);
+
+        // a callback which stops itself
+        AnimationFrame.Callback once = new AnimationFrame.Callback() {
+            @Override
+            public void doFrame(long frameTimeNanos) {
+                scheduler.remove(this);
+            }
+        };
+        scheduler.add(once);
+        driver.frame();
+        assertFalse(driver.pending);
+        assertEquals(0, scheduler.getActiveCount());
+
+        // and starts again
+        scheduler.add(a);
+        assertTrue(driver.pending);
+    }
+
+    @Test
+    public void frameInterval() throws Exception {
+        FakeDriver driver = new FakeDriver();
+        FrameScheduler scheduler = new FrameScheduler(driver);
+        scheduler.add(new RecordingCallback("a", new ArrayList<String>()));
+        driver.frame(1000000000L);
+        driver.frame(1000000000L + 100000000L);
+        assertEquals(FrameClock.DEFAULT_FRAME_INTERVAL_NANOS, scheduler.getFrameIntervalNanos());
+        // 120Hz
+        driver.frame(1000000000L + 108333333L);
+        assertEquals(8333333L, scheduler.getFrameIntervalNanos());
+        // too short for a display
+        driver.frame(1000000000L + 108333334L);
+        assertEquals(8333333L, scheduler.getFrameIntervalNanos());
+    }
+
+    @Test
+    public void refreshRateChange() throws Exception {
+        FakeDriver driver = new FakeDriver();
+        final FrameScheduler scheduler = new FrameScheduler(driver);
+        final FrameClock clock = new FrameClock(FrameClock.POLICY_STRETCH);
+        scheduler.add(new AnimationFrame.Callback() {
+            @Override
+            public void doFrame(long frameTimeNanos) {
+                clock.onFrame(frameTimeNanos, scheduler.getFrameIntervalNanos());
+            }
+        });
+        long time = 1000000000L;
+        for (int i = 0; i < 60; i++) {
+            driver.frame(time += 8333333L);
+        }
+        assertEquals(8333333L, scheduler.getFrameIntervalNanos());
+        assertEquals(0, clock.droppedFrames());
+
+        // the display switches to 60Hz
+        for (int i = 0; i < FrameScheduler.INTERVAL_WINDOW; i++) {
+            driver.frame(time += 16666667L);
+        }
+        assertEquals(16666667L, scheduler.getFrameIntervalNanos());
+        int dropped = clock.droppedFrames();
+        double elapsed = clock.elapsedMillis();
+        for (int i = 0; i < 60; i++) {
+            driver.frame(time += 16666667L);
+        }
+        // neither late frames nor a slower t
+        assertEquals(dropped, clock.droppedFrames());
+        assertEquals(1000, clock.elapsedMillis() - elapsed, 0.001);
+
+        // a dropped frame is not taken for a slower display
+        driver.frame(time += 2 * 16666667L);
+        assertEquals(16666667L, scheduler.getFrameIntervalNanos());
+        assertEquals(dropped + 1, clock.droppedFrames());
+    }
+
+    @Test
+    public void fallbackFrameRate() throws Exception {
+        FakeDriver driver = new FakeDriver();
+        FrameScheduler scheduler = new FrameScheduler(driver);
+        scheduler.setFallbackFrameRate(30);
+        assertEquals(30, driver.frameRate, 0);
+        scheduler.setFallbackFrameRate(0);
+        assertEquals(0, driver.frameRate, 0);
+    }
+
+    @Test
+    public void animationFrame() throws Exception {
+        AnimationFrame frame = AnimationFrame.newInstance();
+        RecordingCallback a = new RecordingCallback("a", new ArrayList<String>());
+        frame.requestAnimationFrame(a);
+        assertTrue(FrameScheduler.getInstance().isActive(a));
+        frame.clear();
+        assertFalse(FrameScheduler.getInstance().isActive(a));
+        frame.requestAnimationFrame(a);
+        frame.terminate();
+        assertFalse(FrameScheduler.getInstance().isActive(a));
+    }
+
+    static final class FakeDriver implements FrameScheduler.Driver {
+        FrameScheduler scheduler;
+        boolean pending;
+        int posts;
+        int cancels;
+        float frameRate;
+        private long mFrameTimeNanos;
+
+        @Override
+        public void attach(@NonNull FrameScheduler scheduler) {
+            this.scheduler = scheduler;
+        }
+
+        @Override
+        public void post() {
+            assertFalse("posted twice", pending);
+            pending = true;
+            posts++;
+        }
+
+        @Override
+        public void cancel() {
+            pending = false;
+            cancels++;
+        }
+
+        @Override
+        public void setFrameRate(float frameRate) {
+            this.frameRate = frameRate;
+        }
+
+        void frame() {
+            frame(mFrameTimeNanos + FrameClock.DEFAULT_FRAME_INTERVAL_NANOS);
+        }
+
+        void frame(long frameTimeNanos) {
+            assertTrue("no frame requested", pending);
+            pending = false;
+            mFrameTimeNanos = frameTimeNanos;
+            scheduler.doFrame(frameTimeNanos);
+        }
+    }
+
+    static final class RecordingCallback implements AnimationFrame.Callback {
+        private final String mName;
+        private final List<String> mTicks;
+
+        RecordingCallback(String name, List<String> ticks) {
+            this.mName = name;
+            this.mTicks = ticks;
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            mTicks.add(mName);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/**
+ * Copyright 2018 Alibaba Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.android.bindingx.core.internal;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class InputCoalescerTest {
+
+    @Test
+    public void oncePerFrame() throws Exception {
+        FrameSchedulerTest.FakeDriver driver = new FrameSchedulerTest.FakeDriver();
+        FrameScheduler scheduler = new FrameScheduler(driver);
+        final List<Integer> evaluated = new ArrayList<>();
+        final int[] input = new int[1];
+        InputCoalescer coalescer = new InputCoalescer(scheduler, new Runnable() {
+            @Override
+            public void run() {
+                evaluated.add(input[0]);
+            }
+        });
+
+        // four touch samples in one frame
+        for (int i = 1; i <= 4; i++) {
+            input[0] = i;
+            coalescer.request();
+        }
+        assertTrue(coalescer.isPending());
+        assertEquals(3, coalescer.getCoalescedCount());
+        driver.frame();
+        assertEquals(Arrays.asList(4), evaluated);
+        assertFalse(coalescer.isPending());
+        // nothing new, nothing to evaluate and no frame asked for
+        assertFalse(driver.pending);
+
+        input[0] = 5;
+        coalescer.request();
+        driver.frame();
+        assertEquals(Arrays.asList(4, 5), evaluated);
+    }
+
+    @Test
+    public void flushAndCancel() throws Exception {
+        FrameSchedulerTest.FakeDriver driver = new FrameSchedulerTest.FakeDriver();
+        FrameScheduler scheduler = new FrameScheduler(driver);
+        final int[] count = new int[1];
+        InputCoalescer coalescer = new InputCoalescer(scheduler, new Runnable() {
+            @Override
+            public void run() {
+                count[0]++;
+            }
+        });
+
+        coalescer.flush();
+        assertEquals(0, count[0]);
+
+        // the gesture ends before the frame
+        coalescer.request();
+        coalescer.flush();
+        assertEquals(1, count[0]);
+        assertFalse(scheduler.isActive(coalescer));
+
+        coalescer.request();
+        coalescer.cancel();
+        assertFalse(driver.pending);
+        assertEquals(1, count[0]);
+    }
+
+    @Test
+    public void requestDuringEvaluation() throws Exception {
+        FrameSchedulerTest.FakeDriver driver = new FrameSchedulerTest.FakeDriver();
+        FrameScheduler scheduler = new FrameScheduler(driver);
+        final int[] count = new int[1];
+        final InputCoalescer[] coalescer = new InputCoalescer[1];
+        coalescer[0] = new InputCoalescer(scheduler, new Runnable() {
+            @Override
+            public void run() {
+                if (count[0]++ == 0) {
+                    // an event of another thread while the frame evaluates
+                    coalescer[0].request();
+                }
+            }
+        });
+        coalescer[0].request();
+        driver.frame();
+        assertEquals(1, count[0]);
+        assertTrue(driver.pending);
+        driver.frame();
+        assertEquals(2, count[0]);
+    }
+}
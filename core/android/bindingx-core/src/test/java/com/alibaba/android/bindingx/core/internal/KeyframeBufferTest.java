@@ -0,0 +1,198 @@
+/**
+ * Copyright 2018 Alibaba Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.android.bindingx.core.internal;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.alibaba.android.bindingx.core.internal.ExpressionJson.bin;
+import static com.alibaba.android.bindingx.core.internal.ExpressionJson.call;
+import static com.alibaba.android.bindingx.core.internal.ExpressionJson.id;
+import static com.alibaba.android.bindingx.core.internal.ExpressionJson.num;
+import static com.alibaba.android.bindingx.core.internal.ExpressionJson.str;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class KeyframeBufferTest {
+
+    private static final double FRAME = 1000.0 / 60;
+    private static final String T = id("t");
+
+    @After
+    public void tearDown() throws Exception {
+        KeyframeBuffer.setBudget(KeyframeBuffer.DEFAULT_BUDGET_BYTES);
+    }
+
+    @Test
+    public void playBack() throws Exception {
+        String json = call("easeOutCubic", T, num(20), num(300), num(1000));
+        Map<String, List<ExpressionHolder>> holders = holders(json);
+        Expression analytic = holders.get("view0").get(0).expression;
+
+        KeyframeBuffer buffer = KeyframeBuffer.bake(holders, null, 1000, FRAME);
+        assertNotNull(buffer);
+        assertEquals(1, buffer.trackCount());
+        // 0 to 1000ms, the last sample is at or after the end
+        assertEquals(8 * 61, buffer.bytes());
+        Expression baked = holders.get("view0").get(0).expression;
+        assertNotNull(baked.keyframes);
+
+        Scope scope = new Scope();
+        for (int i = 0; i <= 60; i++) {
+            // on the frames it is exact
+            scope.put("t", i * FRAME);
+            assertEquals(analytic.execute(scope), baked.execute(scope));
+            // in between it is close
+            scope.put("t", (i + 0.37) * FRAME);
+            assertEquals((double) analytic.execute(scope), (double) baked.execute(scope), 0.1);
+        }
+        // after the track
+        scope.put("t", 1200.0);
+        assertEquals(320.0, baked.execute(scope));
+        buffer.release();
+    }
+
+    @Test
+    public void colorsAndTypedValues() throws Exception {
+        String color = call("evaluateColor", str("#ff0000"),
+                str("#0000ff"),
+                call("linear", T, num(0), num(1), num(500)));
+        String translate = call("translate", call("linear", T, num(0), num(100), num(500)),
+                call("easeInQuad", T, num(0), num(-50), num(500)));
+        Map<String, List<ExpressionHolder>> holders = holders(color, translate);
+        Expression analyticColor = holders.get("view0").get(0).expression;
+        Expression analyticTranslate = holders.get("view1").get(0).expression;
+        assertTrue(analyticColor.isColor());
+        assertTrue(analyticTranslate.isTyped());
+
+        KeyframeBuffer buffer = KeyframeBuffer.bake(holders, null, 500, FRAME);
+        assertNotNull(buffer);
+        assertEquals(2, buffer.trackCount());
+        Expression bakedColor = holders.get("view0").get(0).expression;
+        Expression bakedTranslate = holders.get("view1").get(0).expression;
+
+        Scope scope = new Scope();
+        TypedValue expected = analyticTranslate.newValue();
+        TypedValue actual = bakedTranslate.newValue();
+        for (int i = 0; i <= 30; i++) {
+            scope.put("t", i * FRAME);
+            assertEquals(analyticColor.executeColor(scope), bakedColor.executeColor(scope));
+            analyticTranslate.executeInto(scope, expected);
+            bakedTranslate.executeInto(scope, actual);
+            assertEquals(expected.valueAt(0), actual.valueAt(0), 0);
+            assertEquals(expected.valueAt(1), actual.valueAt(1), 0);
+        }
+        // between two frames each channel is between the channels of the frames
+        scope.put("t", FRAME);
+        int next = bakedColor.executeColor(scope);
+        scope.put("t", FRAME / 2);
+        int between = bakedColor.executeColor(scope);
+        assertEquals(0xff, between >>> 24);
+        assertTrue((between & 0xff) > 0 && (between & 0xff) < (next & 0xff));
+        assertTrue((between >> 16 & 0xff) < 0xff && (between >> 16 & 0xff) > (next >> 16 & 0xff));
+        buffer.release();
+    }
+
+    @Test
+    public void onlyExpressionsOfTime() throws Exception {
+        Map<String, List<ExpressionHolder>> holders = holders(
+                call("linear", id("x"), num(0), num(1), num(500)),
+                call("linear", T, num(0), num(1), num(500)));
+        Expression other = holders.get("view0").get(0).expression;
+        KeyframeBuffer buffer = KeyframeBuffer.bake(holders, null, 500, FRAME);
+        assertNotNull(buffer);
+        assertEquals(1, buffer.trackCount());
+        assertSame(other, holders.get("view0").get(0).expression);
+        buffer.release();
+
+        assertNull(KeyframeBuffer.bake(holders(num(3)), null, 500, FRAME));
+    }
+
+    @Test
+    public void budget() throws Exception {
+        long used = KeyframeBuffer.usedBytes();
+        KeyframeBuffer.setBudget(used + 8 * 61 + 100);
+        KeyframeBuffer first = KeyframeBuffer.bake(holders(call("linear", T, num(0), num(1), num(1000))), null, 1000, FRAME);
+        assertNotNull(first);
+        assertEquals(used + 8 * 61, KeyframeBuffer.usedBytes());
+        // does not fit any more
+        assertNull(KeyframeBuffer.bake(holders(call("linear", T, num(0), num(1), num(1000))), null, 1000, FRAME));
+
+        first.release();
+        first.release();
+        assertEquals(used, KeyframeBuffer.usedBytes());
+        KeyframeBuffer second = KeyframeBuffer.bake(holders(call("linear", T, num(0), num(1), num(1000))), null, 1000, FRAME);
+        assertNotNull(second);
+        second.release();
+    }
+
+    @Test
+    public void overBudget() throws Exception {
+        Expression linear = new Expression(call("linear", T, num(0), num(1), num(60000)));
+        KeyframeBuffer.Track track = KeyframeBuffer.Track.of(linear, 60001, 1);
+        assertNotNull(track);
+        assertEquals(8 * 60001, track.bytes());
+        assertFalse(track.isAllocated());
+
+        // gigabytes if the tracks were allocated before they are checked against the budget
+        KeyframeBuffer.setBudget(KeyframeBuffer.usedBytes() + 100);
+        String[] expressions = new String[4000];
+        Arrays.fill(expressions, call("linear", T, num(0), num(1), num(60000)));
+        Map<String, List<ExpressionHolder>> holders = holders(expressions);
+        assertNull(KeyframeBuffer.bake(holders, null, 60000, 1));
+        assertNull(holders.get("view0").get(0).expression.keyframes);
+    }
+
+    @Test
+    public void durationOfExit() throws Exception {
+        Expression exit = new Expression(bin(">", T, num(1000)));
+        double duration = KeyframeBuffer.durationOf(exit, FRAME);
+        // the frame time is a bit more than 1000
+        assertEquals(60 * FRAME, duration, 0);
+
+        Expression never = new Expression(bin("<", T, num(0)));
+        assertTrue(Double.isNaN(KeyframeBuffer.durationOf(never, FRAME)));
+        Expression other = new Expression(bin(">", id("x"), num(1000)));
+        assertTrue(Double.isNaN(KeyframeBuffer.durationOf(other, FRAME)));
+        assertTrue(Double.isNaN(KeyframeBuffer.durationOf(null, FRAME)));
+    }
+
+    private static Map<String, List<ExpressionHolder>> holders(String... expressions) {
+        Map<String, List<ExpressionHolder>> holders = new LinkedHashMap<>();
+        for (int i = 0; i < expressions.length; i++) {
+            ExpressionPair pair = ExpressionPair.create("keyframes", expressions[i]);
+            ExpressionHolder holder = new ExpressionHolder("view" + i, null, pair, "transform.translateX", "timing", null);
+            holder.expression = ExpressionCache.getInstance().obtain(pair);
+            List<ExpressionHolder> list = new ArrayList<>();
+            list.add(holder);
+            holders.put("view" + i, list);
+        }
+        return holders;
+    }
+}
@@ -0,0 +1,103 @@
+/**
+ * Copyright 2018 Alibaba Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.android.bindingx.core.internal;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.alibaba.android.bindingx.core.internal.ExpressionJson.call;
+import static com.alibaba.android.bindingx.core.internal.ExpressionJson.id;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class PrimitiveFunctionTest {
+
+    @Test
+    public void sameResultAsList() throws Exception {
+        Map<String, Object> builtins = new HashMap<>();
+        JSMath.applyToScope(builtins);
+        TimingFunctions.applyToScope(builtins);
+
+        int primitives = 0;
+        for (Map.Entry<String, Object> entry : builtins.entrySet()) {
+            if (!(entry.getValue() instanceof PrimitiveFunction) || "cubicBezier".equals(entry.getKey())) {
+                continue;
+            }
+            primitives++;
+            PrimitiveFunction function = (PrimitiveFunction) entry.getValue();
+            double[] args = {0.3, 20, 100, 300, 0.1, 0.2, 0.3, 0.4};
+            ArrayList<Object> list = new ArrayList<>();
+            for (int i = 0; i < function.arity; i++) {
+                list.add(args[i]);
+            }
+            assertEquals(entry.getKey(), function.execute(list), function.call(args, 0));
+        }
+        // 13 of JSMath, 2 of JSMath with two arguments, min and max, 31 easing functions, spring
+        assertEquals(49, primitives);
+        assertTrue(builtins.get("round") instanceof JSFunctionInterface);
+        assertTrue(!(builtins.get("round") instanceof PrimitiveFunction));
+    }
+
+    @Test
+    public void compile() throws Exception {
+        ExpressionNode sin = new Expression(call("sin", id("x"))).root;
+        assertEquals(ExpressionNode.TYPE_NUMBER, sin.type);
+        assertNotNull(((ExpressionNode.Call) sin).primitive);
+
+        // max is variadic, only two arguments are passed unboxed
+        ExpressionNode max = new Expression(call("max", id("x"), id("y"), id("t"))).root;
+        assertEquals(ExpressionNode.TYPE_DYNAMIC, max.type);
+        assertNull(((ExpressionNode.Call) max).primitive);
+        assertEquals(ExpressionNode.TYPE_NUMBER, new Expression(call("max", id("x"), id("y"))).root.type);
+
+        Scope scope = new Scope();
+        scope.put("x", 3.0);
+        scope.put("y", 5.0);
+        scope.put("t", 4.0);
+        assertEquals(5.0, new Expression(call("max", id("x"), id("y"), id("t"))).execute(scope));
+        assertEquals(5.0, new Expression(call("max", id("x"), id("y"))).execute(scope));
+        assertEquals(3.0, new Expression(call("min", id("x"), id("y"))).execute(scope));
+
+        // round keeps its long result
+        assertEquals(3L, new Expression(call("round", id("x"))).execute(scope));
+    }
+
+    @Test
+    public void bytecode() throws Exception {
+        Expression easing = new Expression(call("easeOutCubic", id("t"), id("x"), id("y"), id("t")));
+        easing.optimize();
+        Expression bytecode = easing.toBytecode();
+        assertNotNull(bytecode.program);
+        // 4 loads and the call
+        assertEquals(5, bytecode.program.instructionCount());
+
+        Scope scope = new Scope();
+        for (double t = 0; t < 400; t += 7.5) {
+            scope.put("t", t);
+            scope.put("x", 10.0);
+            scope.put("y", 250.0);
+            assertEquals(easing.execute(scope), bytecode.execute(scope));
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/**
+ * Copyright 2018 Alibaba Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.android.bindingx.core.internal;
+
+import com.alibaba.android.bindingx.core.PlatformManager;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class ScopeTest {
+
+    // (x+5)*10-y/2
+    private static final String EXP = "{\"type\":\"-\",\"children\":[{\"type\":\"*\",\"children\":[{\"type\":\"+\",\"children\":[{\"type\":\"Identifier\",\"value\":\"x\"},{\"type\":\"NumericLiteral\",\"value\":5}]},{\"type\":\"NumericLiteral\",\"value\":10}]},{\"type\":\"/\",\"children\":[{\"type\":\"Identifier\",\"value\":\"y\"},{\"type\":\"NumericLiteral\",\"value\":2}]}]}";
+
+    @Test
+    public void slots() throws Exception {
+        Scope scope = new Scope();
+        assertTrue(scope.isEmpty());
+        assertEquals(-1, Scope.slotOf("foo"));
+        assertEquals("t", Scope.nameOf(Scope.slotOf("t")));
+
+        scope.setDouble(Scope.T, 100);
+        assertTrue(scope.isAssigned(Scope.T));
+        assertEquals(100d, scope.get("t"));
+        assertEquals(1, scope.size());
+
+        scope.put("x", 1d);
+        assertEquals(1d, scope.getDouble(Scope.X), 0);
+        scope.put("foo", "bar");
+        assertEquals("bar", scope.get("foo"));
+        assertEquals(3, scope.size());
+        assertEquals(3, scope.entrySet().size());
+
+        // a variable which is not a number does not live in its slot
+        scope.put("x", "10");
+        assertFalse(scope.isAssigned(Scope.X));
+        assertEquals("10", scope.get("x"));
+        scope.setDouble(Scope.X, 2);
+        assertEquals(2d, scope.get("x"));
+        assertEquals(3, scope.size());
+
+        assertEquals(100d, scope.remove("t"));
+        assertFalse(scope.containsKey("t"));
+        assertNull(scope.get("t"));
+
+        scope.clear();
+        assertTrue(scope.isEmpty());
+    }
+
+    @Test
+    public void applyValues() throws Exception {
+        Scope scope = new Scope();
+        JSMath.applyOrientationValuesToScope(scope, 100,200,300,50,150,250,1,1,1);
+
+        Map<String, Object> expected = new HashMap<>();
+        JSMath.applyOrientationValuesToScope(expected, 100,200,300,50,150,250,1,1,1);
+        assertEquals(expected, scope);
+    }
+
+    @Test
+    public void sameResultAsMap() throws Exception {
+        Expression expression = new Expression(EXP);
+        Scope scope = new Scope();
+        Map<String, Object> map = new HashMap<>();
+        for (double v = -100; v < 100; v += 3.7) {
+            scope.setDouble(Scope.X, v);
+            scope.setDouble(Scope.Y, v * 2);
+            map.put("x", v);
+            map.put("y", v * 2);
+            assertEquals(expression.execute(map), expression.execute(scope));
+        }
+    }
+
+    @Test
+    public void changedSlots() throws Exception {
+        Scope scope = new Scope();
+        PlatformManager.IDeviceResolutionTranslator translator = new PlatformManager.IDeviceResolutionTranslator() {
+            @Override
+            public double webToNative(double value, Object... extension) {
+                return value;
+            }
+
+            @Override
+            public double nativeToWeb(double value, Object... extension) {
+                return value;
+            }
+        };
+
+        // everything has changed for the first event
+        JSMath.applyScrollValuesToScope(scope, 0, 100, 0, 10, 0, 10, translator);
+        assertEquals(Scope.ALL_SLOTS, scope.changedSlots());
+
+        // vertical scroll
+        JSMath.applyScrollValuesToScope(scope, 0, 110, 0, 10, 0, 20, translator);
+        assertEquals((1 << Scope.Y) | (1 << Scope.INTERNAL_Y) | (1 << Scope.TDY), scope.changedSlots());
+
+        JSMath.applyScrollValuesToScope(scope, 0, 110, 0, 10, 0, 20, translator);
+        assertEquals(0, scope.changedSlots());
+
+        scope.put("foo", 1d);
+        assertEquals(Scope.OTHERS, scope.changedSlots());
+
+        scope.clear();
+        scope.beginEvent();
+        assertEquals(Scope.ALL_SLOTS, scope.changedSlots());
+    }
+
+    @Test
+    public void readMask() throws Exception {
+        // y > 19 ? x : 0
+        Expression conditional = new Expression("{\"type\":\"?\",\"children\":[{\"type\":\">\",\"children\":[{\"type\":\"Identifier\",\"value\":\"y\"},{\"type\":\"NumericLiteral\",\"value\":19}]},{\"type\":\"Identifier\",\"value\":\"x\"},{\"type\":\"NumericLiteral\",\"value\":0}]}");
+        assertEquals((1 << Scope.X) | (1 << Scope.Y), conditional.readMask);
+
+        // sin(gamma)
+        Expression call = new Expression("{\"type\":\"CallExpression\",\"children\":[{\"type\":\"Identifier\",\"value\":\"sin\"},{\"type\":\"Arguments\",\"children\":[{\"type\":\"Identifier\",\"value\":\"gamma\"}]}]}");
+        assertEquals(1 << Scope.GAMMA, call.readMask);
+
+        // unknown variables may change at any time
+        Expression unknown = new Expression("{\"type\":\"Identifier\",\"value\":\"foo\"}");
+        assertEquals(Scope.ALL_SLOTS, unknown.readMask);
+
+        Expression constant = new Expression("{\"type\":\"NumericLiteral\",\"value\":1}");
+        assertEquals(0, constant.readMask);
+    }
+
+    @Test
+    public void builtins() throws Exception {
+        assertTrue(Scope.builtinOf("sin") instanceof JSFunctionInterface);
+        assertTrue(Scope.builtinOf("cubicBezier") instanceof JSFunctionInterface);
+        assertEquals(Math.PI, Scope.builtinOf("PI"));
+        assertTrue(Scope.isBuiltin(Scope.builtinOf("max")));
+        assertNull(Scope.builtinOf("x"));
+    }
+}
@@ -0,0 +1,178 @@
+/**
+ * Copyright 2018 Alibaba Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.android.bindingx.core.internal;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class SpringCurveTest {
+
+    // {stiffness, damping, mass, velocity}
+    private static final double[][] SPRINGS = {
+            {180, 12, 1, 0},        // under damped
+            {100, 0.5, 1, 0},       // barely damped
+            {100, 20, 1, 0},        // critically damped
+            {100, 20, 1, 5},        // critically damped, thrown
+            {100, 20, 1, -3},       // critically damped, thrown away from the end first
+            {50, 60, 2, 0},         // over damped
+            {50, 60, 2, 8},         // over damped, thrown
+    };
+
+    @Test
+    public void matchesIntegration() throws Exception {
+        for (double[] spring : SPRINGS) {
+            SpringCurve curve = SpringCurve.obtain(spring[0], spring[1], spring[2], spring[3]);
+            // runge kutta with tiny steps
+            double x = -1;
+            double v = spring[3];
+            double h = 1e-5;
+            for (int i = 1; i <= 200000; i++) {
+                double[] k1 = derivative(spring, x, v);
+                double[] k2 = derivative(spring, x + h / 2 * k1[0], v + h / 2 * k1[1]);
+                double[] k3 = derivative(spring, x + h / 2 * k2[0], v + h / 2 * k2[1]);
+                double[] k4 = derivative(spring, x + h * k3[0], v + h * k3[1]);
+                x += h / 6 * (k1[0] + 2 * k2[0] + 2 * k3[0] + k4[0]);
+                v += h / 6 * (k1[1] + 2 * k2[1] + 2 * k3[1] + k4[1]);
+                if (i % 1000 == 0) {
+                    assertEquals(spring[1] + "@" + i * h, 1 + x, curve.progress(i * h), 1e-9);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void atRestAfterSettling() throws Exception {
+        for (double[] spring : SPRINGS) {
+            SpringCurve curve = SpringCurve.obtain(spring[0], spring[1], spring[2], spring[3]);
+            double settle = curve.settleMillis();
+            assertTrue(settle > 0 && settle < 60000);
+            for (double t = settle; t < settle * 3; t += 1) {
+                assertEquals(1, curve.progress(t / 1000), SpringCurve.REST_DISPLACEMENT + 1e-12);
+            }
+            assertEquals(40, curve.call(0, 40, 300), 0);
+            assertEquals(40, curve.call(-100, 40, 300), 0);
+            assertEquals(340, curve.call(settle, 40, 300), 0);
+            assertEquals(340, curve.call(settle * 10, 40, 300), 0);
+            assertEquals(40 + 300 * curve.progress(0.1), curve.call(100, 40, 300), 0);
+        }
+        // the bound is not much later than the last visible motion of an oscillating spring
+        SpringCurve curve = SpringCurve.obtain(180, 12, 1, 0);
+        double latest = 0;
+        for (double t = 0; t < curve.settleMillis(); t += 0.1) {
+            if (Math.abs(curve.progress(t / 1000) - 1) > SpringCurve.REST_DISPLACEMENT) {
+                latest = t;
+            }
+        }
+        assertTrue(curve.settleMillis() - latest < 100);
+
+        assertTrue(Double.isInfinite(SpringCurve.obtain(100, 0, 1, 0).settleMillis()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void noSolution() throws Exception {
+        SpringCurve.obtain(0, 10, 1, 0);
+    }
+
+    @Test
+    public void cache() throws Exception {
+        SpringCurve curve = SpringCurve.obtain(1, 2, 3, 4);
+        assertSame(curve, SpringCurve.obtain(1, 2, 3, 4));
+        assertNotSame(curve, SpringCurve.obtain(1, 2, 3, 5));
+
+        for (int i = 0; i < SpringCurve.MAX_CACHED_CURVES * 2; i++) {
+            SpringCurve.obtain(100 + i, 10, 1, 0);
+        }
+        assertEquals(SpringCurve.MAX_CACHED_CURVES, SpringCurve.cachedCurveCount());
+    }
+
+    @Test
+    public void bindAtCompileTime() throws Exception {
+        String json = spring("{\"type\":\"Identifier\",\"value\":\"t\"}", 180, 12, 1, 0);
+        Expression dynamic = new Expression(json);
+        Expression bound = new Expression(json);
+        bound.optimize();
+        ExpressionNode.Call call = (ExpressionNode.Call) bound.root;
+        assertSame(SpringCurve.obtain(180, 12, 1, 0), call.primitive);
+        assertEquals(3, call.arguments.length);
+        assertTrue(((ExpressionNode.Call) dynamic.root).primitive instanceof PrimitiveFunction.Arity7);
+
+        Scope scope = new Scope();
+        for (double t = 0; t <= 1500; t += 12.5) {
+            scope.put("t", t);
+            assertEquals(dynamic.execute(scope), bound.execute(scope));
+        }
+    }
+
+    @Test
+    public void restOfBinding() throws Exception {
+        String t = "{\"type\":\"Identifier\",\"value\":\"t\"}";
+        double slow = SpringCurve.obtain(100, 20, 1, 0).settleMillis();
+        double fast = SpringCurve.obtain(300, 20, 1, 0).settleMillis();
+        assertTrue(slow > fast);
+
+        assertEquals(slow, restOf(spring(t, 100, 20, 1, 0), spring(t, 300, 20, 1, 0)), 0);
+        // scaled springs end when the spring does
+        assertEquals(fast, restOf("{\"type\":\"*\",\"children\":[" + spring(t, 300, 20, 1, 0)
+                + ",{\"type\":\"NumericLiteral\",\"value\":2}]}"), 0);
+        // t is also read elsewhere
+        assertTrue(Double.isNaN(restOf(spring(t, 100, 20, 1, 0), t)));
+        // the time of the spring is not t
+        String delayed = "{\"type\":\"-\",\"children\":[" + t + ",{\"type\":\"NumericLiteral\",\"value\":200}]}";
+        assertTrue(Double.isNaN(restOf(spring(delayed, 100, 20, 1, 0))));
+        // no spring at all
+        assertTrue(Double.isNaN(restOf("{\"type\":\"NumericLiteral\",\"value\":2}")));
+        // never at rest
+        assertTrue(Double.isInfinite(restOf(spring(t, 100, 0, 1, 0))));
+    }
+
+    private static double restOf(String... expressions) {
+        Map<String, List<ExpressionHolder>> holders = new HashMap<>();
+        for (int i = 0; i < expressions.length; i++) {
+            ExpressionPair pair = ExpressionPair.create("spring", expressions[i]);
+            ExpressionHolder holder = new ExpressionHolder("view" + i, null, pair, "transform.translateX", "timing", null);
+            holder.expression = ExpressionCache.getInstance().obtain(pair);
+            List<ExpressionHolder> list = new ArrayList<>();
+            list.add(holder);
+            holders.put("view" + i, list);
+        }
+        return BindingXTimingHandler.restMillisOf(holders);
+    }
+
+    private static String spring(String time, double stiffness, double damping, double mass, double velocity) {
+        StringBuilder json = new StringBuilder("{\"type\":\"CallExpression\",\"children\":[{\"type\":\"Identifier\",\"value\":\"spring\"},"
+                + "{\"type\":\"Arguments\",\"children\":[").append(time);
+        for (double argument : new double[]{0, 100, stiffness, damping, mass, velocity}) {
+            json.append(",{\"type\":\"NumericLiteral\",\"value\":").append(argument).append('}');
+        }
+        return json.append("]}]}").toString();
+    }
+
+    private static double[] derivative(double[] spring, double x, double v) {
+        return new double[]{v, (-spring[0] * x - spring[1] * v) / spring[2]};
+    }
+}
@@ -0,0 +1,103 @@
+/**
+ * Copyright 2018 Alibaba Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.android.bindingx.core.internal;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SpscRingBufferTest {
+
+    @Test
+    public void fifo() throws Exception {
+        SpscRingBuffer<Integer> ring = new SpscRingBuffer<>(4);
+        assertTrue(ring.isEmpty());
+        assertNull(ring.poll());
+        for (int i = 0; i < 3; i++) {
+            assertTrue(ring.offer(i));
+        }
+        assertEquals(3, ring.size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(Integer.valueOf(i), ring.poll());
+        }
+        assertTrue(ring.isEmpty());
+    }
+
+    @Test
+    public void fullAndWrapAround() throws Exception {
+        SpscRingBuffer<Integer> ring = new SpscRingBuffer<>(3);
+        assertEquals(4, ring.capacity());
+        int next = 0;
+        int expected = 0;
+        for (int round = 0; round < 10; round++) {
+            while (ring.offer(next)) {
+                next++;
+            }
+            assertEquals(4, ring.size());
+            assertEquals(Integer.valueOf(expected++), ring.poll());
+            assertEquals(Integer.valueOf(expected++), ring.poll());
+        }
+        while (!ring.isEmpty()) {
+            assertEquals(Integer.valueOf(expected++), ring.poll());
+        }
+        assertEquals(next, expected);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void illegalCapacity() throws Exception {
+        new SpscRingBuffer<Integer>(0);
+    }
+
+    @Test
+    public void twoThreads() throws Exception {
+        final SpscRingBuffer<Integer> ring = new SpscRingBuffer<>(64);
+        final int count = 200000;
+        final CountDownLatch done = new CountDownLatch(1);
+        final boolean[] ordered = {true};
+        Thread consumer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                int expected = 0;
+                while (expected < count) {
+                    Integer value = ring.poll();
+                    if (value == null) {
+                        Thread.yield();
+                        continue;
+                    }
+                    if (value != expected) {
+                        ordered[0] = false;
+                    }
+                    expected++;
+                }
+                done.countDown();
+            }
+        });
+        consumer.start();
+        for (int i = 0; i < count; i++) {
+            while (!ring.offer(i)) {
+                Thread.yield();
+            }
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertTrue(ordered[0]);
+        assertTrue(ring.isEmpty());
+    }
+}
@@ -0,0 +1,122 @@
+/**
+ * Copyright 2018 Alibaba Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.android.bindingx.core.internal;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TouchSamplerTest {
+
+    private static final long MS = 1000000L;
+
+    @Test
+    public void interpolate() throws Exception {
+        TouchSampler sampler = new TouchSampler();
+        double[] out = new double[4];
+        assertFalse(sampler.sample(0, out));
+
+        // 1 pixel per millisecond to the right, sampled every 4ms
+        for (int i = 0; i <= 10; i++) {
+            sampler.add(1000 * MS + i * 4 * MS, i * 4, 50);
+        }
+        assertTrue(sampler.sample(1000 * MS + 17 * MS, out));
+        assertEquals(17, out[0], 1e-9);
+        assertEquals(50, out[1], 1e-9);
+        assertEquals(1000, out[2], 1e-6);
+        assertEquals(0, out[3], 1e-6);
+
+        // before the first sample
+        sampler.sample(900 * MS, out);
+        assertEquals(0, out[0], 1e-9);
+    }
+
+    @Test
+    public void extrapolate() throws Exception {
+        TouchSampler sampler = new TouchSampler();
+        double[] out = new double[4];
+        sampler.add(0, 0, 0);
+        sampler.add(8 * MS, 8, -16);
+        // the vsync is 3ms after the last event
+        sampler.sample(11 * MS, out);
+        assertEquals(11, out[0], 1e-9);
+        assertEquals(-22, out[1], 1e-9);
+        // but not more than half the distance of the samples
+        sampler.sample(30 * MS, out);
+        assertEquals(12, out[0], 1e-9);
+
+        sampler.add(24 * MS, 24, 0);
+        sampler.add(40 * MS, 40, 0);
+        // no further than 8ms
+        sampler.sample(60 * MS, out);
+        assertEquals(48, out[0], 1e-9);
+    }
+
+    @Test
+    public void noExtrapolationFromUnreliableSamples() throws Exception {
+        TouchSampler sampler = new TouchSampler();
+        double[] out = new double[4];
+        sampler.add(0, 0, 0);
+        sampler.add(MS, 10, 0);
+        sampler.sample(5 * MS, out);
+        assertEquals(10, out[0], 0);
+
+        sampler.add(50 * MS, 20, 0);
+        sampler.sample(55 * MS, out);
+        assertEquals(20, out[0], 0);
+    }
+
+    @Test
+    public void stoppedFinger() throws Exception {
+        TouchSampler sampler = new TouchSampler();
+        double[] out = new double[4];
+        for (int i = 0; i <= 5; i++) {
+            sampler.add(i * 8 * MS, i * 10, 0);
+        }
+        assertTrue(sampler.newest(out));
+        assertEquals(50, out[0], 0);
+        assertEquals(1250, out[2], 1e-6);
+        // held still since then
+        sampler.sample(200 * MS, out);
+        assertEquals(0, out[2], 0);
+    }
+
+    @Test
+    public void ringAndOrder() throws Exception {
+        TouchSampler sampler = new TouchSampler();
+        double[] out = new double[4];
+        for (int i = 0; i < 100; i++) {
+            sampler.add(i * 5 * MS, i, 2 * i);
+        }
+        assertEquals(20, sampler.size());
+        // out of order and duplicate times
+        sampler.add(10 * MS, -1, -1);
+        sampler.add(99 * 5 * MS, 99.5, 199);
+        sampler.newest(out);
+        assertEquals(99.5, out[0], 0);
+        assertEquals(199, out[1], 0);
+        assertEquals(20, sampler.size());
+
+        sampler.sample(96 * 5 * MS + 2 * MS, out);
+        assertEquals(96.4, out[0], 1e-9);
+        assertEquals(400, out[3], 5);
+
+        sampler.clear();
+        assertFalse(sampler.newest(out));
+    }
+}
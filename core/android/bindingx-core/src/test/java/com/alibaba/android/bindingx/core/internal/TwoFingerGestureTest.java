@@ -0,0 +1,97 @@
+/**
+ * Copyright 2018 Alibaba Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.android.bindingx.core.internal;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class TwoFingerGestureTest {
+
+    private static final double DELTA = 1e-9;
+
+    @Test
+    public void pinch() throws Exception {
+        TwoFingerGesture gesture = new TwoFingerGesture();
+        gesture.begin(100, 100, 200, 100);
+        assertEquals(1, gesture.scale(), DELTA);
+        assertEquals(150, gesture.focusX(), DELTA);
+
+        gesture.move(50, 100, 250, 100);
+        assertEquals(2, gesture.scale(), DELTA);
+        assertEquals(0, gesture.rotation(), DELTA);
+        assertEquals(150, gesture.focusX(), DELTA);
+        assertEquals(100, gesture.focusY(), DELTA);
+
+        gesture.move(125, 100, 175, 100);
+        assertEquals(0.5, gesture.scale(), DELTA);
+    }
+
+    @Test
+    public void rotate() throws Exception {
+        TwoFingerGesture gesture = new TwoFingerGesture();
+        gesture.begin(0, 0, 100, 0);
+        // y points down, so this is clockwise
+        gesture.move(0, 0, 0, 100);
+        assertEquals(90, gesture.rotation(), DELTA);
+        assertEquals(1, gesture.scale(), DELTA);
+
+        // more than a half turn, through the jump of atan2
+        gesture.move(0, 0, -100, 1);
+        gesture.move(0, 0, -100, -1);
+        gesture.move(0, 0, 0, -100);
+        assertEquals(270, gesture.rotation(), DELTA);
+        gesture.move(0, 0, 100, 0);
+        assertEquals(360, gesture.rotation(), DELTA);
+
+        // and back the other way
+        gesture.move(0, 0, 0, -100);
+        gesture.move(0, 0, -100, -1);
+        gesture.move(0, 0, -100, 1);
+        gesture.move(0, 0, 0, 100);
+        assertEquals(90, gesture.rotation(), DELTA);
+    }
+
+    @Test
+    public void anotherFingerTakesOver() throws Exception {
+        TwoFingerGesture gesture = new TwoFingerGesture();
+        gesture.begin(0, 0, 100, 0);
+        gesture.move(0, 0, 0, 200);
+        assertEquals(2, gesture.scale(), DELTA);
+        assertEquals(90, gesture.rotation(), DELTA);
+
+        // the first finger is lifted, a third one is far away
+        gesture.rebase(0, 200, 300, 200);
+        assertEquals(2, gesture.scale(), DELTA);
+        assertEquals(90, gesture.rotation(), DELTA);
+        gesture.move(0, 200, 600, 200);
+        assertEquals(4, gesture.scale(), DELTA);
+        assertEquals(90, gesture.rotation(), DELTA);
+
+        // a new gesture starts over
+        gesture.begin(0, 0, 10, 0);
+        assertEquals(1, gesture.scale(), DELTA);
+        assertEquals(0, gesture.rotation(), DELTA);
+    }
+
+    @Test
+    public void fingersOnTopOfEachOther() throws Exception {
+        TwoFingerGesture gesture = new TwoFingerGesture();
+        gesture.begin(10, 10, 10, 10);
+        gesture.move(10, 10, 20, 10);
+        assertEquals(10, gesture.scale(), DELTA);
+    }
+}
@@ -0,0 +1,146 @@
+/**
+ * Copyright 2018 Alibaba Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.android.bindingx.core.internal;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class TypedValueTest {
+
+    @Test
+    public void execute() throws Exception {
+        Object translate = execute("translate", 10d, 20d);
+        assertTrue(translate instanceof TypedValue.Vec2);
+        assertEquals(10, ((TypedValue.Vec2) translate).x(), 0);
+        assertEquals(20, ((TypedValue.Vec2) translate).y(), 0);
+        // still a list of doubles
+        assertEquals(Arrays.<Object>asList(10d, 20d), translate);
+
+        assertTrue(execute("asArray", 1d, 2d, 3d, 4d) instanceof TypedValue.Vec4);
+        TypedValue.Matrix matrix = (TypedValue.Matrix) execute("matrix", 1d, 0d, 0d, 1d, 5d, 6d);
+        assertEquals(2, matrix.rows);
+        assertEquals(3, matrix.columns);
+        assertEquals(5, matrix.valueAt(4), 0);
+        assertEquals(16, ((TypedValue) execute("matrix", new Object[16])).size());
+
+        // same as before for anything else
+        assertNull(execute("scale", 1d));
+        assertTrue(execute("translate", 1d, 2d, 3d) instanceof ArrayList);
+        assertTrue(execute("asArray", "a", "b") instanceof ArrayList);
+        assertTrue(execute("asArray", 1d, 2d, 3d) instanceof ArrayList);
+    }
+
+    @Test
+    public void executeInto() throws Exception {
+        // translate(x,y*2)
+        Expression expression = new Expression("{\"type\":\"CallExpression\",\"children\":[{\"type\":\"Identifier\",\"value\":\"translate\"},"
+                + "{\"type\":\"Arguments\",\"children\":[{\"type\":\"Identifier\",\"value\":\"x\"},"
+                + "{\"type\":\"*\",\"children\":[{\"type\":\"Identifier\",\"value\":\"y\"},{\"type\":\"NumericLiteral\",\"value\":2}]}]}]}");
+        assertTrue(expression.isTyped());
+        Scope scope = new Scope();
+        scope.put("x", 3d);
+        scope.put("y", 4d);
+        assertEquals(Arrays.<Object>asList(3d, 8d), expression.execute(scope));
+
+        TypedValue out = expression.newValue();
+        assertSame(out, expression.executeInto(scope, out));
+        assertEquals(3, out.valueAt(0), 0);
+        assertEquals(8, out.valueAt(1), 0);
+    }
+
+    @Test
+    public void argumentsWhichAreNotNumbers() throws Exception {
+        // asArray('a','b'), asArray(true,x) and translate(x,z) with z not a slot
+        Expression strings = new Expression("{\"type\":\"CallExpression\",\"children\":[{\"type\":\"Identifier\",\"value\":\"asArray\"},"
+                + "{\"type\":\"Arguments\",\"children\":[{\"type\":\"StringLiteral\",\"value\":\"a\"},{\"type\":\"StringLiteral\",\"value\":\"b\"}]}]}");
+        Expression booleans = new Expression("{\"type\":\"CallExpression\",\"children\":[{\"type\":\"Identifier\",\"value\":\"asArray\"},"
+                + "{\"type\":\"Arguments\",\"children\":[{\"type\":\"BooleanLiteral\",\"value\":true},{\"type\":\"Identifier\",\"value\":\"x\"}]}]}");
+        Expression others = new Expression("{\"type\":\"CallExpression\",\"children\":[{\"type\":\"Identifier\",\"value\":\"translate\"},"
+                + "{\"type\":\"Arguments\",\"children\":[{\"type\":\"Identifier\",\"value\":\"x\"},{\"type\":\"Identifier\",\"value\":\"other\"}]}]}");
+        assertFalse(strings.isTyped());
+        assertFalse(booleans.isTyped());
+        assertFalse(others.isTyped());
+
+        Scope scope = new Scope();
+        scope.put("x", 3d);
+        scope.put("other", "4px");
+        // the list of the arguments like before
+        assertEquals(Arrays.<Object>asList("a", "b"), strings.execute(scope));
+        assertTrue(strings.execute(scope) instanceof ArrayList);
+        assertEquals(Arrays.<Object>asList(true, 3d), booleans.execute(scope));
+        assertEquals(Arrays.<Object>asList(3d, "4px"), others.execute(scope));
+    }
+
+    @Test
+    public void recycledValue() throws Exception {
+        Expression expression = new Expression("{\"type\":\"CallExpression\",\"children\":[{\"type\":\"Identifier\",\"value\":\"scale\"},"
+                + "{\"type\":\"Arguments\",\"children\":[{\"type\":\"Identifier\",\"value\":\"x\"},{\"type\":\"Identifier\",\"value\":\"x\"}]}]}");
+        ExpressionHolder holder = new ExpressionHolder("ref", null, ExpressionPair.create(null, null), "transform.scale", "scroll", null);
+        Scope scope = new Scope();
+
+        scope.put("x", 1d);
+        TypedValue first = expression.executeInto(scope, holder.recycledValue(expression));
+        holder.lastValue = first;
+        // never the applied value
+        TypedValue second = holder.recycledValue(expression);
+        assertNotSame(first, second);
+        expression.executeInto(scope, second);
+        assertTrue(holder.isSameAsLastValue(second, 0));
+
+        // not applied, written again
+        assertSame(second, holder.recycledValue(expression));
+        scope.put("x", 2d);
+        expression.executeInto(scope, second);
+        assertFalse(holder.isSameAsLastValue(second, 0));
+        holder.lastValue = second;
+        assertSame(first, holder.recycledValue(expression));
+        assertEquals(1, first.valueAt(0), 0);
+    }
+
+    @Test
+    public void copy() throws Exception {
+        TypedValue value = (TypedValue) execute("asArray", 1d, 2d, 3d, 4d);
+        TypedValue copy = value.copy();
+        assertNotSame(value, copy);
+        assertTrue(copy instanceof TypedValue.Vec4);
+        assertTrue(copy.isSame(value, 0));
+        value.values[0] = 1.5;
+        assertFalse(copy.isSame(value, 0.1));
+        assertTrue(copy.isSame(value, 0.5));
+    }
+
+    private static Object execute(String function, Object... arguments) throws Exception {
+        for (int i = 0; i < arguments.length; i++) {
+            if (arguments[i] == null) {
+                arguments[i] = (double) i;
+            }
+        }
+        JSFunctionInterface fn = (JSFunctionInterface) Scope.builtinOf(function);
+        return fn.execute(new ArrayList<>(Arrays.asList(arguments)));
+    }
+}
@@ -0,0 +1,102 @@
+/**
+ * Copyright 2018 Alibaba Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.android.bindingx.core.internal;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class UnitBezierTest {
+
+    @Test
+    public void solve() throws Exception {
+        double[][] curves = {
+                {0.25, 0.1, 0.25, 1},   // ease
+                {0.42, 0, 1, 1},        // ease-in
+                {0, 0, 0.58, 1},        // ease-out
+                {0, 1, 1, 0},           // flat at both ends, solved by bisection
+                {0.68, -0.55, 0.265, 1.55},
+        };
+        for (double[] points : curves) {
+            UnitBezier curve = UnitBezier.obtain(points[0], points[1], points[2], points[3]);
+            // walk the curve by its parameter and compare the solved y of each x
+            for (int i = 0; i <= 1000; i++) {
+                double s = i / 1000.0;
+                double x = bezier(s, curve.x1, curve.x2);
+                double y = bezier(s, curve.y1, curve.y2);
+                assertEquals(x + "", y, curve.solve(x), 1e-5);
+            }
+        }
+        assertEquals(0.3, UnitBezier.obtain(0, 0, 1, 1).solve(0.3), 1e-7);
+    }
+
+    @Test
+    public void call() throws Exception {
+        UnitBezier curve = UnitBezier.obtain(0.25, 0.1, 0.25, 1);
+        assertEquals(40, curve.call(0, 40, 300, 1000), 0);
+        assertEquals(340, curve.call(1000, 40, 300, 1000), 0);
+        assertEquals(340, curve.call(1200, 40, 300, 1000), 0);
+        assertEquals(40 + 300 * curve.solve(0.5), curve.call(500, 40, 300, 1000), 0);
+    }
+
+    @Test
+    public void cache() throws Exception {
+        UnitBezier curve = UnitBezier.obtain(0.1, 0.2, 0.3, 0.4);
+        assertSame(curve, UnitBezier.obtain(0.1, 0.2, 0.3, 0.4));
+        assertNotSame(curve, UnitBezier.obtain(0.1, 0.2, 0.3, 0.5));
+
+        for (int i = 0; i < UnitBezier.MAX_CACHED_CURVES * 2; i++) {
+            UnitBezier.obtain(i / 1000.0, 0, 1, 1);
+        }
+        assertEquals(UnitBezier.MAX_CACHED_CURVES, UnitBezier.cachedCurveCount());
+    }
+
+    @Test
+    public void bindAtCompileTime() throws Exception {
+        // cubicBezier(t,0,100,1000,0.25,0.1,0.25,1)
+        StringBuilder json = new StringBuilder("{\"type\":\"CallExpression\",\"children\":[{\"type\":\"Identifier\",\"value\":\"cubicBezier\"},"
+                + "{\"type\":\"Arguments\",\"children\":[{\"type\":\"Identifier\",\"value\":\"t\"}");
+        for (double argument : new double[]{0, 100, 1000, 0.25, 0.1, 0.25, 1}) {
+            json.append(",{\"type\":\"NumericLiteral\",\"value\":").append(argument).append('}');
+        }
+        json.append("]}]}");
+
+        Expression dynamic = new Expression(json.toString());
+        Expression bound = new Expression(json.toString());
+        bound.optimize();
+        ExpressionNode.Call call = (ExpressionNode.Call) bound.root;
+        assertSame(UnitBezier.obtain(0.25, 0.1, 0.25, 1), call.primitive);
+        assertEquals(4, call.arguments.length);
+        assertTrue(((ExpressionNode.Call) dynamic.root).primitive instanceof PrimitiveFunction.Arity8);
+
+        Scope scope = new Scope();
+        for (double t = 0; t <= 1100; t += 12.5) {
+            scope.put("t", t);
+            assertEquals(dynamic.execute(scope), bound.execute(scope));
+        }
+    }
+
+    private static double bezier(double s, double p1, double p2) {
+        double u = 1 - s;
+        return 3 * u * u * s * p1 + 3 * u * s * s * p2 + s * s * s;
+    }
+}
@@ -24,6 +24,7 @@ import android.widget.TextView;
 
 import com.alibaba.android.bindingx.core.LogProxy;
 import com.alibaba.android.bindingx.core.PlatformManager;
+import com.alibaba.android.bindingx.core.internal.TypedValue;
 import com.alibaba.android.bindingx.core.internal.Utils;
 import com.facebook.react.bridge.Arguments;
 import com.facebook.react.uimanager.ReactStylesDiffMap;
@@ -136,18 +137,26 @@ final class RNViewUpdateService {
                            @NonNull Map<String,Object> config,
                            @NonNull UIImplementation implementation) {
 
+            if(cmd instanceof TypedValue.Vec2) {
+                TypedValue.Vec2 vec = (TypedValue.Vec2) cmd;
+                update(targetView, vec.x(), vec.y(), translator);
+                return;
+            }
             if(!(cmd instanceof ArrayList)) {
                 return;
             }
 
             ArrayList<Object> l1 = (ArrayList<Object>) cmd;
             if(l1.size() >= 2 && l1.get(0) instanceof Double && l1.get(1) instanceof Double) {
-                final double x1 = (double) l1.get(0);
-                final double y1 = (double) l1.get(1);
-                targetView.setTranslationX((float) getRealSize(x1,translator));
-                targetView.setTranslationY((float) getRealSize(y1,translator));
+                update(targetView, (double) l1.get(0), (double) l1.get(1), translator);
             }
         }
+
+        private void update(@NonNull View targetView, double x, double y,
+                            @NonNull PlatformManager.IDeviceResolutionTranslator translator) {
+            targetView.setTranslationX((float) getRealSize(x,translator));
+            targetView.setTranslationY((float) getRealSize(y,translator));
+        }
     }
 
     private static final class TranslateXUpdater implements IRNViewUpdater {
@@ -213,6 +222,10 @@ final class RNViewUpdateService {
                 final double val = (double) cmd;
                 targetView.setScaleX((float) val);
                 targetView.setScaleY((float) val);
+            } else if(cmd instanceof TypedValue.Vec2) {
+                TypedValue.Vec2 vec = (TypedValue.Vec2) cmd;
+                targetView.setScaleX((float) vec.x());
+                targetView.setScaleY((float) vec.y());
             } else if(cmd instanceof ArrayList) {
                 ArrayList<Object> l2 = (ArrayList<Object>) cmd;
                 if(l2.size() >= 2 && l2.get(0) instanceof Double && l2.get(1) instanceof Double) {
@@ -469,6 +482,10 @@ final class RNViewUpdateService {
                 final double val = (double) cmd;
                 scrollView.setScrollX((int) getRealSize(val,translator));
                 scrollView.setScrollY((int) getRealSize(val,translator));
+            } else if(cmd instanceof TypedValue.Vec2) {
+                TypedValue.Vec2 vec = (TypedValue.Vec2) cmd;
+                scrollView.setScrollX((int) getRealSize(vec.x(),translator));
+                scrollView.setScrollY((int) getRealSize(vec.y(),translator));
             } else if(cmd instanceof ArrayList) {
                 ArrayList<Object> l = (ArrayList<Object>) cmd;
                 if(l.size() >= 2 && l.get(0) instanceof Double && l.get(1) instanceof Double) {
@@ -31,7 +31,9 @@ import com.alibaba.android.bindingx.core.BindingXEventType;
 import com.alibaba.android.bindingx.core.IEventHandler;
 import com.alibaba.android.bindingx.core.LogProxy;
 import com.alibaba.android.bindingx.core.PlatformManager;
+import com.alibaba.android.bindingx.core.ViewUpdateBuffer;
 import com.alibaba.android.bindingx.core.internal.BindingXConstants;
+import com.alibaba.android.bindingx.core.internal.TypedValue;
 import com.alibaba.android.bindingx.core.internal.Utils;
 import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.LifecycleEventListener;
@@ -39,7 +41,6 @@ import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactContextBaseJavaModule;
 import com.facebook.react.bridge.ReactMethod;
 import com.facebook.react.bridge.ReadableMap;
-import com.facebook.react.bridge.UiThreadUtil;
 import com.facebook.react.bridge.WritableArray;
 import com.facebook.react.bridge.WritableMap;
 import com.facebook.react.module.annotations.ReactModule;
@@ -247,7 +248,7 @@ public final class ReactBindingXModule extends ReactContextBaseJavaModule implem
     @ReactMethod(isBlockingSynchronousMethod = true)
     @SuppressWarnings("unused")
     public WritableArray supportFeatures() {
-        return Arguments.makeNativeArray(Arrays.asList("pan", "orientation", "timing", "scroll"));
+        return Arguments.makeNativeArray(Arrays.asList("pan", "orientation", "timing", "scroll", "pinch", "rotation"));
     }
 
     @Override
@@ -329,13 +330,16 @@ public final class ReactBindingXModule extends ReactContextBaseJavaModule implem
                             if (module != null && tag != -1) {
                                 final UIImplementation implementation = module.getUIImplementation();
                                 if (implementation != null) {
-                                    UiThreadUtil.runOnUiThread(new Runnable() {
+                                    // typed values are recycled before the update is applied
+                                    final Object value = propertyValue instanceof TypedValue
+                                            ? ((TypedValue) propertyValue).copy() : propertyValue;
+                                    ViewUpdateBuffer.getInstance().post(reactContext, targetView, propertyName, new Runnable() {
                                         @Override
                                         public void run() {
                                             RNViewUpdateService.findUpdater(propertyName).update(
                                                     finalTag,
                                                     targetView,
-                                                    propertyValue,
+                                                    value,
                                                     translator,
                                                     config,
                                                     implementation
@@ -366,6 +370,7 @@ public final class ReactBindingXModule extends ReactContextBaseJavaModule implem
     @Override
     public void onCatalystInstanceDestroy() {
         super.onCatalystInstanceDestroy();
+        ViewUpdateBuffer.getInstance().clear(getReactApplicationContext());
         if (mWorkerThread != null) {
             mWorkerThread.quit();
             mWorkerThread = null;
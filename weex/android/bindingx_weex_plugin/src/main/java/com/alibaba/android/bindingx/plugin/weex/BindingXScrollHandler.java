@@ -219,12 +219,7 @@ public class BindingXScrollHandler extends AbstractScrollEventHandler {
                         0,dy,0,tdy);
             }
 
-            WXBridgeManager.getInstance().post(new Runnable() {
-                @Override
-                public void run() {
-                    BindingXScrollHandler.super.handleScrollEvent(0,mContentOffsetY,0,dy,0,tdy);
-                }
-            },mInstanceId);
+            postScrollEvent(0,mContentOffsetY,0,dy,0,tdy);
         }
     }
 
@@ -288,12 +283,7 @@ public class BindingXScrollHandler extends AbstractScrollEventHandler {
                         dx,dy,tdx,tdy);
             }
 
-            WXBridgeManager.getInstance().post(new Runnable() {
-                @Override
-                public void run() {
-                    BindingXScrollHandler.super.handleScrollEvent(mContentOffsetX,mContentOffsetY,dx,dy,tdx,tdy);
-                }
-            },mInstanceId);
+            postScrollEvent(mContentOffsetX,mContentOffsetY,dx,dy,tdx,tdy);
         }
 
     }
@@ -356,15 +346,25 @@ public class BindingXScrollHandler extends AbstractScrollEventHandler {
                         dx,dy,tdx,tdy);
             }
 
-            WXBridgeManager.getInstance().post(new Runnable() {
-                @Override
-                public void run() {
-                    BindingXScrollHandler.super.handleScrollEvent(mContentOffsetX,mContentOffsetY,dx,dy,tdx,tdy);
-                }
-            },mInstanceId);
+            postScrollEvent(mContentOffsetX,mContentOffsetY,dx,dy,tdx,tdy);
         }
     }
 
+    private void postScrollEvent(final int contentOffsetX, final int contentOffsetY, final int dx, final int dy,
+                                 final int tdx, final int tdy) {
+        if(hasEvaluationExecutor()) {
+            // the evaluation thread takes it from here, no need to go through the js thread
+            super.handleScrollEvent(contentOffsetX,contentOffsetY,dx,dy,tdx,tdy);
+            return;
+        }
+        WXBridgeManager.getInstance().post(new Runnable() {
+            @Override
+            public void run() {
+                BindingXScrollHandler.super.handleScrollEvent(contentOffsetX,contentOffsetY,dx,dy,tdx,tdy);
+            }
+        },mInstanceId);
+    }
+
     @Override
     public void onActivityPause() {
     }
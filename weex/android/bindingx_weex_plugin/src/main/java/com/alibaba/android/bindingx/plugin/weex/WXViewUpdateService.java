@@ -17,8 +17,6 @@ package com.alibaba.android.bindingx.plugin.weex;
 
 import android.graphics.drawable.ColorDrawable;
 import android.graphics.drawable.Drawable;
-import android.os.Handler;
-import android.os.Looper;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.text.Layout;
@@ -32,7 +30,8 @@ import android.widget.TextView;
 
 import com.alibaba.android.bindingx.core.LogProxy;
 import com.alibaba.android.bindingx.core.PlatformManager;
-import com.alibaba.android.bindingx.core.WeakRunnable;
+import com.alibaba.android.bindingx.core.ViewUpdateBuffer;
+import com.alibaba.android.bindingx.core.internal.TypedValue;
 import com.alibaba.android.bindingx.core.internal.Utils;
 import com.taobao.weex.common.Constants;
 import com.taobao.weex.dom.CSSShorthand;
@@ -83,8 +82,6 @@ final class WXViewUpdateService {
              LAYOUT_PROPERTY_PADDING_LEFT, LAYOUT_PROPERTY_PADDING_RIGHT, LAYOUT_PROPERTY_PADDING_TOP, LAYOUT_PROPERTY_PADDING_BOTTOM
     );
 
-    private static final Handler sUIHandler = new Handler(Looper.getMainLooper());
-
     static {
         sTransformPropertyUpdaterMap = new HashMap<>();
         sTransformPropertyUpdaterMap.put("opacity",new OpacityUpdater());
@@ -143,12 +140,15 @@ final class WXViewUpdateService {
         }
     }
 
-    private static void runOnUIThread(Runnable runnable) {
-        sUIHandler.post(new WeakRunnable(runnable));
+    /**
+     * @param property the updater, there is one per property
+     * */
+    private static void runOnUIThread(@NonNull View target, @NonNull IWXViewUpdater property, @NonNull Runnable runnable) {
+        ViewUpdateBuffer.getInstance().post(WXViewUpdateService.class, target, property, runnable);
     }
 
     public static void clearCallbacks() {
-        sUIHandler.removeCallbacksAndMessages(null);
+        ViewUpdateBuffer.getInstance().clear(WXViewUpdateService.class);
     }
 
     private static final class ContentOffsetUpdater implements IWXViewUpdater {
@@ -165,29 +165,29 @@ final class WXViewUpdateService {
             }
             if(cmd instanceof Double) {
                 final double val = (double) cmd;
-                runOnUIThread(new Runnable() {
-                    @Override
-                    public void run() {
-                        scrollView.setScrollX((int) getRealSize(val,translator));
-                        scrollView.setScrollY((int) getRealSize(val,translator));
-                    }
-                });
+                update(scrollView, val, val, translator);
+            } else if(cmd instanceof TypedValue.Vec2) {
+                TypedValue.Vec2 vec = (TypedValue.Vec2) cmd;
+                update(scrollView, vec.x(), vec.y(), translator);
             } else if(cmd instanceof ArrayList) {
                 ArrayList<Object> l = (ArrayList<Object>) cmd;
                 if(l.size() >= 2 && l.get(0) instanceof Double && l.get(1) instanceof Double) {
-                    final double x = (double) l.get(0);
-                    final double y = (double) l.get(1);
-                    runOnUIThread(new Runnable() {
-                        @Override
-                        public void run() {
-                            scrollView.setScrollX((int) getRealSize(x,translator));
-                            scrollView.setScrollY((int) getRealSize(y,translator));
-                        }
-                    });
+                    update(scrollView, (double) l.get(0), (double) l.get(1), translator);
                 }
 
             }
         }
+
+        private void update(@NonNull final View scrollView, final double x, final double y,
+                            @NonNull final PlatformManager.IDeviceResolutionTranslator translator) {
+            runOnUIThread(scrollView, this, new Runnable() {
+                @Override
+                public void run() {
+                    scrollView.setScrollX((int) getRealSize(x,translator));
+                    scrollView.setScrollY((int) getRealSize(y,translator));
+                }
+            });
+        }
     }
 
     private static final class ContentOffsetXUpdater implements IWXViewUpdater {
@@ -206,7 +206,7 @@ final class WXViewUpdateService {
                 return;
             }
             final double val = (double) cmd;
-            runOnUIThread(new Runnable() {
+            runOnUIThread(scrollView, this, new Runnable() {
                 @Override
                 public void run() {
                     scrollView.setScrollX((int) getRealSize(val,translator));
@@ -231,7 +231,7 @@ final class WXViewUpdateService {
                 return;
             }
             final double val = (double) cmd;
-            runOnUIThread(new Runnable() {
+            runOnUIThread(scrollView, this, new Runnable() {
                 @Override
                 public void run() {
                     scrollView.setScrollY((int) getRealSize(val,translator));
@@ -253,7 +253,7 @@ final class WXViewUpdateService {
             }
             double val = (double) cmd;
             final float alpha = (float) (val);
-            runOnUIThread(new Runnable() {
+            runOnUIThread(targetView, this, new Runnable() {
                 @Override
                 public void run() {
                     targetView.setAlpha(alpha);
@@ -271,23 +271,31 @@ final class WXViewUpdateService {
                            @NonNull final PlatformManager.IDeviceResolutionTranslator translator,
                            @NonNull Map<String,Object> config) {
 
+            if(cmd instanceof TypedValue.Vec2) {
+                TypedValue.Vec2 vec = (TypedValue.Vec2) cmd;
+                update(targetView, vec.x(), vec.y(), translator);
+                return;
+            }
             if(!(cmd instanceof ArrayList)) {
                 return;
             }
 
             ArrayList<Object> list = (ArrayList<Object>) cmd;
             if(list.size() >= 2 && list.get(0) instanceof Double && list.get(1) instanceof Double) {
-                final double x1 = (double) list.get(0);
-                final double y1 = (double) list.get(1);
-                runOnUIThread(new Runnable() {
-                    @Override
-                    public void run() {
-                        targetView.setTranslationX((float) getRealSize(x1,translator));
-                        targetView.setTranslationY((float) getRealSize(y1,translator));
-                    }
-                });
+                update(targetView, (double) list.get(0), (double) list.get(1), translator);
             }
         }
+
+        private void update(@NonNull final View targetView, final double x, final double y,
+                            @NonNull final PlatformManager.IDeviceResolutionTranslator translator) {
+            runOnUIThread(targetView, this, new Runnable() {
+                @Override
+                public void run() {
+                    targetView.setTranslationX((float) getRealSize(x,translator));
+                    targetView.setTranslationY((float) getRealSize(y,translator));
+                }
+            });
+        }
     }
 
     private static final class TranslateXUpdater implements IWXViewUpdater {
@@ -302,7 +310,7 @@ final class WXViewUpdateService {
                 return;
             }
             final double d = (double) cmd;
-            runOnUIThread(new Runnable() {
+            runOnUIThread(targetView, this, new Runnable() {
                 @Override
                 public void run() {
                     targetView.setTranslationX((float) getRealSize(d,translator));
@@ -323,7 +331,7 @@ final class WXViewUpdateService {
                 return;
             }
             final double d = (double) cmd;
-            runOnUIThread(new Runnable() {
+            runOnUIThread(targetView, this, new Runnable() {
                 @Override
                 public void run() {
                     targetView.setTranslationY((float) getRealSize(d,translator));
@@ -337,10 +345,26 @@ final class WXViewUpdateService {
         @Override
         public void update(@NonNull WXComponent component,
                            @NonNull final View targetView,
-                           @NonNull final Object cmd,
+                           @NonNull Object cmd,
                            @NonNull PlatformManager.IDeviceResolutionTranslator translator,
-                           @NonNull final Map<String,Object> config) {
-            runOnUIThread(new Runnable() {
+                           @NonNull Map<String,Object> config) {
+            if(cmd instanceof Double) {
+                final double val = (double) cmd;
+                update(targetView, val, val, config);
+            } else if(cmd instanceof TypedValue.Vec2) {
+                TypedValue.Vec2 vec = (TypedValue.Vec2) cmd;
+                update(targetView, vec.x(), vec.y(), config);
+            } else if(cmd instanceof ArrayList) {
+                ArrayList<Object> list = (ArrayList<Object>) cmd;
+                if(list.size() >= 2 && list.get(0) instanceof Double && list.get(1) instanceof Double) {
+                    update(targetView, (double) list.get(0), (double) list.get(1), config);
+                }
+            }
+        }
+
+        private void update(@NonNull final View targetView, final double x, final double y,
+                            @NonNull final Map<String,Object> config) {
+            runOnUIThread(targetView, this, new Runnable() {
                 @Override
                 public void run() {
                     int perspective = WXUtils.getInt(config.get(PERSPECTIVE));
@@ -357,20 +381,8 @@ final class WXViewUpdateService {
                         targetView.setPivotY(pivot.second);
                     }
 
-                    if(cmd instanceof Double) {
-                        final double val = (double) cmd;
-                        targetView.setScaleX((float) val);
-                        targetView.setScaleY((float) val);
-                    } else if(cmd instanceof ArrayList) {
-                        ArrayList<Object> list = (ArrayList<Object>) cmd;
-                        if(list.size() >= 2 && list.get(0) instanceof Double && list.get(1) instanceof Double) {
-                            final double x = (double) list.get(0);
-                            final double y = (double) list.get(1);
-                            targetView.setScaleX((float) x);
-                            targetView.setScaleY((float) y);
-                        }
-
-                    }
+                    targetView.setScaleX((float) x);
+                    targetView.setScaleY((float) y);
                 }
             });
         }
@@ -387,7 +399,7 @@ final class WXViewUpdateService {
             if(!(cmd instanceof Double)) {
                 return;
             }
-            runOnUIThread(new Runnable() {
+            runOnUIThread(targetView, this, new Runnable() {
                 @Override
                 public void run() {
                     Pair<Float,Float> pivot = Utils.parseTransformOrigin(
@@ -416,7 +428,7 @@ final class WXViewUpdateService {
             if(!(cmd instanceof Double)) {
                 return;
             }
-            runOnUIThread(new Runnable() {
+            runOnUIThread(targetView, this, new Runnable() {
                 @Override
                 public void run() {
                     Pair<Float,Float> pivot = Utils.parseTransformOrigin(
@@ -447,7 +459,7 @@ final class WXViewUpdateService {
                 return;
             }
 
-            runOnUIThread(new Runnable() {
+            runOnUIThread(targetView, this, new Runnable() {
                 @Override
                 public void run() {
                     int perspective = WXUtils.getInt(config.get(PERSPECTIVE));
@@ -482,7 +494,7 @@ final class WXViewUpdateService {
             if(!(cmd instanceof Double)) {
                 return;
             }
-            runOnUIThread(new Runnable() {
+            runOnUIThread(targetView, this, new Runnable() {
                 @Override
                 public void run() {
                     int perspective = WXUtils.getInt(config.get(PERSPECTIVE));
@@ -518,7 +530,7 @@ final class WXViewUpdateService {
             if(!(cmd instanceof Double)) {
                 return;
             }
-            runOnUIThread(new Runnable() {
+            runOnUIThread(targetView, this, new Runnable() {
                 @Override
                 public void run() {
                     int perspective = WXUtils.getInt(config.get(PERSPECTIVE));
@@ -616,7 +628,7 @@ final class WXViewUpdateService {
                 return;
             }
             final int d = (int) cmd;
-            runOnUIThread(new Runnable() {
+            runOnUIThread(targetView, this, new Runnable() {
                 @Override
                 public void run() {
                     Drawable drawable = targetView.getBackground();
@@ -646,7 +658,7 @@ final class WXViewUpdateService {
                 return;
             }
             final int d = (int) cmd;
-            runOnUIThread(new Runnable() {
+            runOnUIThread(targetView, this, new Runnable() {
                 @Override
                 public void run() {
                     if(targetView instanceof TextView) {
@@ -690,7 +702,7 @@ final class WXViewUpdateService {
                 return;
             }
             final double d = (double) cmd;
-            runOnUIThread(new Runnable() {
+            runOnUIThread(targetView, this, new Runnable() {
                 @Override
                 public void run() {
                     Drawable drawable = targetView.getBackground();
@@ -715,7 +727,7 @@ final class WXViewUpdateService {
                 return;
             }
             final double d = (double) cmd;
-            runOnUIThread(new Runnable() {
+            runOnUIThread(targetView, this, new Runnable() {
                 @Override
                 public void run() {
                     Drawable drawable = targetView.getBackground();
@@ -740,7 +752,7 @@ final class WXViewUpdateService {
                 return;
             }
             final double d = (double) cmd;
-            runOnUIThread(new Runnable() {
+            runOnUIThread(targetView, this, new Runnable() {
                 @Override
                 public void run() {
                     Drawable drawable = targetView.getBackground();
@@ -765,7 +777,7 @@ final class WXViewUpdateService {
                 return;
             }
             final double d = (double) cmd;
-            runOnUIThread(new Runnable() {
+            runOnUIThread(targetView, this, new Runnable() {
                 @Override
                 public void run() {
                     Drawable drawable = targetView.getBackground();
@@ -787,56 +799,51 @@ final class WXViewUpdateService {
                            @NonNull final PlatformManager.IDeviceResolutionTranslator translator,
                            @NonNull Map<String, Object> config) {
 
-            if(cmd instanceof ArrayList) {
+            if(cmd instanceof TypedValue.Vec4) {
+                TypedValue.Vec4 vec = (TypedValue.Vec4) cmd;
+                update(targetView, vec.valueAt(0), vec.valueAt(1), vec.valueAt(2), vec.valueAt(3), translator);
+            } else if(cmd instanceof ArrayList) {
                 final ArrayList<Object> l = (ArrayList<Object>) cmd;
                 if(l.size() != 4) {
                     return;
                 }
-
-                runOnUIThread(new Runnable() {
-                    @Override
-                    public void run() {
-                        Drawable drawable = targetView.getBackground();
-                        if(drawable != null && drawable instanceof BorderDrawable) {
-                            double topLeft = 0,topRight = 0,bottomLeft = 0,bottomRight = 0;
-                            if(l.get(0) instanceof Double) {
-                                topLeft = (double) l.get(0);
-                            }
-                            if(l.get(1) instanceof Double) {
-                                topRight = (double) l.get(1);
-                            }
-                            if(l.get(2) instanceof Double) {
-                                bottomLeft = (double) l.get(2);
-                            }
-                            if(l.get(3) instanceof Double) {
-                                bottomRight = (double) l.get(3);
-                            }
-
-                            BorderDrawable borderDrawable = (BorderDrawable) drawable;
-                            borderDrawable.setBorderRadius(CSSShorthand.CORNER.BORDER_TOP_LEFT, (float) getRealSize(topLeft,translator));
-                            borderDrawable.setBorderRadius(CSSShorthand.CORNER.BORDER_TOP_RIGHT, (float) getRealSize(topRight,translator));
-                            borderDrawable.setBorderRadius(CSSShorthand.CORNER.BORDER_BOTTOM_LEFT, (float) getRealSize(bottomLeft,translator));
-                            borderDrawable.setBorderRadius(CSSShorthand.CORNER.BORDER_BOTTOM_RIGHT, (float) getRealSize(bottomRight,translator));
-                        }
-                    }
-                });
+                double topLeft = 0,topRight = 0,bottomLeft = 0,bottomRight = 0;
+                if(l.get(0) instanceof Double) {
+                    topLeft = (double) l.get(0);
+                }
+                if(l.get(1) instanceof Double) {
+                    topRight = (double) l.get(1);
+                }
+                if(l.get(2) instanceof Double) {
+                    bottomLeft = (double) l.get(2);
+                }
+                if(l.get(3) instanceof Double) {
+                    bottomRight = (double) l.get(3);
+                }
+                update(targetView, topLeft, topRight, bottomLeft, bottomRight, translator);
             } else if(cmd instanceof Double) {
                 final double value = (double) cmd;
-                runOnUIThread(new Runnable() {
-                    @Override
-                    public void run() {
-                        Drawable drawable = targetView.getBackground();
-                        if(drawable != null && drawable instanceof BorderDrawable) {
-                            BorderDrawable borderDrawable = (BorderDrawable) drawable;
-                            borderDrawable.setBorderRadius(CSSShorthand.CORNER.BORDER_TOP_LEFT, (float) getRealSize(value,translator));
-                            borderDrawable.setBorderRadius(CSSShorthand.CORNER.BORDER_TOP_RIGHT, (float) getRealSize(value,translator));
-                            borderDrawable.setBorderRadius(CSSShorthand.CORNER.BORDER_BOTTOM_LEFT, (float) getRealSize(value,translator));
-                            borderDrawable.setBorderRadius(CSSShorthand.CORNER.BORDER_BOTTOM_RIGHT, (float) getRealSize(value,translator));
-                        }
-                    }
-                });
+                update(targetView, value, value, value, value, translator);
             }
         }
+
+        private void update(@NonNull final View targetView,
+                            final double topLeft, final double topRight, final double bottomLeft, final double bottomRight,
+                            @NonNull final PlatformManager.IDeviceResolutionTranslator translator) {
+            runOnUIThread(targetView, this, new Runnable() {
+                @Override
+                public void run() {
+                    Drawable drawable = targetView.getBackground();
+                    if(drawable != null && drawable instanceof BorderDrawable) {
+                        BorderDrawable borderDrawable = (BorderDrawable) drawable;
+                        borderDrawable.setBorderRadius(CSSShorthand.CORNER.BORDER_TOP_LEFT, (float) getRealSize(topLeft,translator));
+                        borderDrawable.setBorderRadius(CSSShorthand.CORNER.BORDER_TOP_RIGHT, (float) getRealSize(topRight,translator));
+                        borderDrawable.setBorderRadius(CSSShorthand.CORNER.BORDER_BOTTOM_LEFT, (float) getRealSize(bottomLeft,translator));
+                        borderDrawable.setBorderRadius(CSSShorthand.CORNER.BORDER_BOTTOM_RIGHT, (float) getRealSize(bottomRight,translator));
+                    }
+                }
+            });
+        }
     }
 
     private static double getRealSize(double size,@NonNull PlatformManager.IDeviceResolutionTranslator translator) {